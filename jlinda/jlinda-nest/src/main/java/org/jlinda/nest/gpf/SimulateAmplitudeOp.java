@@ -1,6 +1,7 @@
 package org.jlinda.nest.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.DEMTilePool;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
 import org.esa.snap.core.dataop.dem.ElevationModelDescriptor;
@@ -15,7 +16,6 @@ import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
@@ -119,6 +119,14 @@ public final class SimulateAmplitudeOp extends Operator {
         }
     }
 
+    @Override
+    public synchronized void dispose() {
+        if (dem != null) {
+            DEMTilePool.release(dem);
+            dem = null;
+        }
+    }
+
     private void defineDEM() throws IOException {
 
         final ElevationModelRegistry elevationModelRegistry = ElevationModelRegistry.getInstance();
@@ -131,12 +139,12 @@ public final class SimulateAmplitudeOp extends Operator {
         Resampling resampling = Resampling.BILINEAR_INTERPOLATION;
 
         if (externalDEMFile != null) { // if external DEM file is specified by user
-            dem = new FileElevationModel(externalDEMFile, resampling.getName(), externalDEMNoDataValue);
+            dem = DEMTilePool.acquire(externalDEMFile, resampling.getName(), externalDEMNoDataValue);
             demNoDataValue = externalDEMNoDataValue;
             demName = externalDEMFile.getPath();
 
         } else {
-            dem = demDescriptor.createDem(resampling);
+            dem = DEMTilePool.acquire(demName, resampling.getName());
             if (dem == null)
                 throw new OperatorException("The DEM '" + demName + "' has not been installed.");
 
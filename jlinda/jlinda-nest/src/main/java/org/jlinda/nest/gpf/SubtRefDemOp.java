@@ -1,6 +1,7 @@
 package org.jlinda.nest.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.DEMTilePool;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
 import org.esa.snap.core.dataop.dem.ElevationModelDescriptor;
@@ -15,7 +16,6 @@ import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.gpf.InputProductValidator;
@@ -179,6 +179,14 @@ public final class SubtRefDemOp extends Operator {
         return "";
     }
 
+    @Override
+    public synchronized void dispose() {
+        if (dem != null) {
+            DEMTilePool.release(dem);
+            dem = null;
+        }
+    }
+
     private synchronized void defineDEM() throws IOException {
         if(demDefined)
             return;
@@ -195,7 +203,7 @@ public final class SubtRefDemOp extends Operator {
                 throw new OperatorException("The DEM '" + demName + "' is not supported.");
             }
 
-            dem = demDescriptor.createDem(resampling);
+            dem = DEMTilePool.acquire(demName, resampling.getName());
             if (dem == null) {
                 throw new OperatorException("The DEM '" + demName + "' has not been installed.");
             }
@@ -206,7 +214,7 @@ public final class SubtRefDemOp extends Operator {
         }
 
         if (externalDEMFile != null) { // if external DEM file is specified by user
-            dem = new FileElevationModel(externalDEMFile, resampling.getName(), externalDEMNoDataValue);
+            dem = DEMTilePool.acquire(externalDEMFile, resampling.getName(), externalDEMNoDataValue);
             //((FileElevationModel)dem).applyEarthGravitionalModel(true);
             demName = externalDEMFile.getPath();
             demNoDataValue = externalDEMNoDataValue;
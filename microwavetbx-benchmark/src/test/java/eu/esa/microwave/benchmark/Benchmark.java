@@ -26,10 +26,12 @@ import java.nio.file.Files;
 
 public abstract class Benchmark {
 
-    private final static boolean DISABLE_BENCHMARKS = true;
-    private final static int iterations = 5;
+    // end-to-end product benchmarks need the SAR test data, enable with -Dmicrowavetbx.benchmark.enabled=true
+    private final static boolean DISABLE_BENCHMARKS = !Boolean.getBoolean("microwavetbx.benchmark.enabled");
+    private final static int iterations = Integer.getInteger("microwavetbx.benchmark.iterations", 5);
     private final String name;
-    private final File resultsFile = new File("e:\\out\\results.json");
+    private final File resultsFile = new File(
+            System.getProperty("microwavetbx.benchmark.results", "target" + File.separator + "results.json"));
     protected File outputFolder;
 
     public Benchmark(final String name) {
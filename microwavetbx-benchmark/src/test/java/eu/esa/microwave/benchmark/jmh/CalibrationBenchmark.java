@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.calibration.gpf.CalibrationOp;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.media.jai.JAI;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sentinel-1 radiometric calibration of a synthetic GRD product with interpolated calibration vectors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CalibrationBenchmark {
+
+    private static final int WIDTH = 2048;
+    private static final int HEIGHT = 1024;
+
+    @Param({"outputSigmaBand", "outputGammaBand", "outputBetaBand"})
+    public String output;
+
+    private Product sourceProduct;
+    private CalibrationOp op;
+    private final float[] pixels = new float[WIDTH * HEIGHT];
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        sourceProduct = SyntheticData.createSentinel1GRDProduct(WIDTH, HEIGHT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        sourceProduct.dispose();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        op = new CalibrationOp();
+        op.setSourceProduct(sourceProduct);
+        op.setParameter("outputSigmaBand", output.equals("outputSigmaBand"));
+        op.setParameter(output, true);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        op.dispose();
+        JAI.getDefaultInstance().getTileCache().flush();
+    }
+
+    @Benchmark
+    public float[] calibrate() throws IOException {
+        final Band band = op.getTargetProduct().getBandAt(0);
+        band.readPixels(0, 0, WIDTH, HEIGHT, pixels, ProgressMonitor.NULL);
+        return pixels;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import eu.esa.sar.insar.gpf.support.CoherenceKernel;
+import org.jblas.ComplexDoubleMatrix;
+import org.jblas.DoubleMatrix;
+import org.jlinda.core.utils.SarUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coherence estimation over one tile with the window sizes used by the Coherence operator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CoherenceBenchmark {
+
+    private static final int TILE_SIZE = 512;
+
+    @Param({"3x10", "10x40"})
+    public String window;
+
+    private int winAz;
+    private int winRg;
+    private ComplexDoubleMatrix product;
+    private ComplexDoubleMatrix norms;
+    private float[] masterSamples;
+    private float[] slaveSamples;
+    private final float[] coherence = new float[TILE_SIZE * TILE_SIZE];
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        final String[] size = window.split("x");
+        winAz = Integer.parseInt(size[0]);
+        winRg = Integer.parseInt(size[1]);
+
+        final int rows = TILE_SIZE + winAz - 1;
+        final int cols = TILE_SIZE + winRg - 1;
+        final ComplexDoubleMatrix master = new ComplexDoubleMatrix(rows, cols,
+                SyntheticData.createComplexSamples(cols, rows, 1L));
+        final ComplexDoubleMatrix slave = new ComplexDoubleMatrix(rows, cols,
+                SyntheticData.createComplexSamples(cols, rows, 2L));
+
+        // same preparation as CoherenceOp: interferogram and (|s|^2, |m|^2) pairs
+        product = new ComplexDoubleMatrix(rows, cols);
+        norms = new ComplexDoubleMatrix(rows, cols);
+        for (int i = 0; i < master.length; i++) {
+            final double mRe = master.data[2 * i], mIm = master.data[2 * i + 1];
+            final double sRe = slave.data[2 * i], sIm = slave.data[2 * i + 1];
+            product.data[2 * i] = mRe * sRe + mIm * sIm;
+            product.data[2 * i + 1] = mIm * sRe - mRe * sIm;
+            norms.data[2 * i] = sRe * sRe + sIm * sIm;
+            norms.data[2 * i + 1] = mRe * mRe + mIm * mIm;
+        }
+
+        masterSamples = new float[master.data.length];
+        slaveSamples = new float[slave.data.length];
+        for (int i = 0; i < master.data.length; i++) {
+            masterSamples[i] = (float) master.data[i];
+            slaveSamples[i] = (float) slave.data[i];
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public DoubleMatrix coherence() {
+        return SarUtils.coherence(product, norms, winAz, winRg);
+    }
+
+    @Benchmark
+    public DoubleMatrix coherence2() {
+        return SarUtils.coherence2(product, norms, winAz, winRg);
+    }
+
+    @Benchmark
+    public float[] coherenceKernel() {
+        CoherenceKernel.coherence(masterSamples, slaveSamples, TILE_SIZE + winRg - 1, TILE_SIZE + winAz - 1,
+                winAz, winRg, coherence);
+        return coherence;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import org.csa.rstb.polarimetric.gpf.decompositions.EigenDecomposition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eigen decomposition of the 3x3 coherency matrices of one tile, as done per pixel by the polarimetric
+ * decompositions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EigenDecompositionBenchmark {
+
+    private static final int NUM_PIXELS = 256 * 256;
+
+    private final double[][][] Tr = new double[NUM_PIXELS][3][3];
+    private final double[][][] Ti = new double[NUM_PIXELS][3][3];
+    private final double[][] Vr = new double[3][3];
+    private final double[][] Vi = new double[3][3];
+    private final double[] lambda = new double[3];
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        // full rank Hermitian matrices: sums of the outer products of three random scattering vectors
+        final Random random = new Random(3L);
+        final double[] kr = new double[3];
+        final double[] ki = new double[3];
+        for (int p = 0; p < NUM_PIXELS; ++p) {
+            for (int r = 0; r < 3; ++r) {
+                for (int i = 0; i < 3; ++i) {
+                    kr[i] = random.nextGaussian();
+                    ki[i] = random.nextGaussian();
+                }
+                for (int i = 0; i < 3; ++i) {
+                    for (int j = 0; j < 3; ++j) {
+                        Tr[p][i][j] += kr[i] * kr[j] + ki[i] * ki[j];
+                        Ti[p][i][j] += ki[i] * kr[j] - kr[i] * ki[j];
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public double[] jacobi() {
+        for (int p = 0; p < NUM_PIXELS; ++p) {
+            EigenDecomposition.jacobiEigenDecomposition(3, Tr[p], Ti[p], Vr, Vi, lambda);
+        }
+        return lambda;
+    }
+
+    @Benchmark
+    public double[] closedForm() {
+        for (int p = 0; p < NUM_PIXELS; ++p) {
+            EigenDecomposition.eigenDecomposition3x3(Tr[p], Ti[p], Vr, Vi, lambda);
+        }
+        return lambda;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import eu.esa.sar.commons.FFT2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 2-D FFT of one filter window, as the Goldstein filter does every few pixels, with the plans set up for each
+ * window or taken from the per thread cache of FFT2D.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FFT2DBenchmark {
+
+    @Param({"32", "64", "100"})
+    public int size;
+
+    private double[] input;
+    private double[] a;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        input = SyntheticData.createComplexSamples(size, size, 1L);
+        a = new double[input.length];
+    }
+
+    @Benchmark
+    public double[] newPlans() {
+        System.arraycopy(input, 0, a, 0, a.length);
+        final DoubleFFT_1D rowFFT = new DoubleFFT_1D(size);
+        final DoubleFFT_1D colFFT = new DoubleFFT_1D(size);
+        final double[] column = new double[2 * size];
+        for (int r = 0; r < size; ++r) {
+            rowFFT.complexForward(a, 2 * r * size);
+        }
+        for (int c = 0; c < size; ++c) {
+            for (int r = 0; r < size; ++r) {
+                column[2 * r] = a[2 * (r * size + c)];
+                column[2 * r + 1] = a[2 * (r * size + c) + 1];
+            }
+            colFFT.complexForward(column);
+            for (int r = 0; r < size; ++r) {
+                a[2 * (r * size + c)] = column[2 * r];
+                a[2 * (r * size + c) + 1] = column[2 * r + 1];
+            }
+        }
+        return a;
+    }
+
+    @Benchmark
+    public double[] cachedPlans() {
+        System.arraycopy(input, 0, a, 0, a.length);
+        FFT2D.complexForward(a, size, size);
+        return a;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+
+/**
+ * Entry point for the JMH kernel benchmarks.
+ * <p>
+ * Run with the <code>jmh</code> maven profile of this module or directly with the test classpath:
+ * <pre>
+ *     java -cp &lt;test classpath&gt; eu.esa.microwave.benchmark.jmh.JmhRunner [include regex...]
+ * </pre>
+ * Results are written as JSON to the file given by the <code>jmh.results</code> system property.
+ */
+public class JmhRunner {
+
+    private static final String RESULTS_PROPERTY = "jmh.results";
+    private static final String DEFAULT_RESULTS = "target" + File.separator + "jmh-results.json";
+
+    public static void main(String[] args) throws Exception {
+
+        final File resultsFile = new File(System.getProperty(RESULTS_PROPERTY, DEFAULT_RESULTS));
+        final File parent = resultsFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new Exception("Unable to create folder " + parent);
+        }
+
+        final ChainedOptionsBuilder builder = new OptionsBuilder()
+                .forks(Integer.getInteger("jmh.forks", 2))
+                .warmupIterations(Integer.getInteger("jmh.warmupIterations", 3))
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(Integer.getInteger("jmh.iterations", 5))
+                .measurementTime(TimeValue.seconds(2))
+                .jvmArgsAppend("-Xmx4g")
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultsFile.getAbsolutePath());
+
+        if (args.length == 0) {
+            builder.include(JmhRunner.class.getPackage().getName() + ".*");
+        } else {
+            for (String include : args) {
+                builder.include(include);
+            }
+        }
+
+        new Runner(builder.build()).run();
+    }
+}
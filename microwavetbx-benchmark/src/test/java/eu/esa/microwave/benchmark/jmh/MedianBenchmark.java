@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import eu.esa.sar.sar.gpf.filtering.SpeckleFilters.SlidingMedian;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Median filter kernels on one 512 x 512 tile: the sort per window of the former Median filter against the
+ * sliding window median.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MedianBenchmark {
+
+    private static final int TILE_SIZE = 512;
+    private static final double NO_DATA = 0.0;
+
+    @Param({"3", "7", "15", "31"})
+    public int windowSize;
+
+    private int sourceSize;
+    private double[] values;
+    private final double[][] filtered = new double[TILE_SIZE][TILE_SIZE];
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        // the source tile includes the window border
+        sourceSize = TILE_SIZE + 2 * (windowSize / 2);
+        final float[] intensity = SyntheticData.createSpeckledIntensity(sourceSize, sourceSize);
+        values = new double[intensity.length];
+        for (int i = 0; i < intensity.length; ++i) {
+            values[i] = intensity[i];
+        }
+    }
+
+    @Benchmark
+    public double[][] sortPerWindow() {
+        final double[] neighborValues = new double[windowSize * windowSize];
+        for (int y = 0; y < TILE_SIZE; ++y) {
+            for (int x = 0; x < TILE_SIZE; ++x) {
+                int numSamples = 0;
+                for (int j = 0; j < windowSize; ++j) {
+                    final int offset = (y + j) * sourceSize + x;
+                    for (int i = 0; i < windowSize; ++i) {
+                        final double v = values[offset + i];
+                        if (Double.compare(v, NO_DATA) != 0) {
+                            neighborValues[numSamples++] = v;
+                        }
+                    }
+                }
+                final double[] tmp = Arrays.copyOf(neighborValues, numSamples);
+                Arrays.sort(tmp);
+                filtered[y][x] = tmp[numSamples / 2];
+            }
+        }
+        return filtered;
+    }
+
+    @Benchmark
+    public double[][] slidingMedian() {
+        final int half = windowSize / 2;
+        final SlidingMedian slidingMedian = new SlidingMedian(values, -half, -half, sourceSize, sourceSize, NO_DATA);
+        slidingMedian.filter(0, 0, TILE_SIZE, TILE_SIZE, windowSize, windowSize, filtered);
+        return filtered;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.sar.gpf.geometric.MosaicOp;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.dataop.resamp.ResamplingFactory;
+import org.esa.snap.engine_utilities.eo.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.media.jai.JAI;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gradient domain mosaic of a 2 x 2 layout of map projected products with different gains, solving the overlaps
+ * with SOR or the multigrid preconditioned solver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MosaicBenchmark {
+
+    private static final int SOURCE_SIZE = 640;
+    private static final int STEP = 512;
+    private static final int SCENE_SIZE = STEP + SOURCE_SIZE;
+    private static final double SPACING_DEG = 1e-4;
+
+    @Param({"false", "true"})
+    public boolean useMultigridSolver;
+
+    private Product[] sourceProducts;
+    private MosaicOp op;
+    private final float[] pixels = new float[SCENE_SIZE * SCENE_SIZE];
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        sourceProducts = new Product[4];
+        for (int i = 0; i < sourceProducts.length; ++i) {
+            sourceProducts[i] = SyntheticData.createMapProjectedProduct("source" + i, (i % 2) * STEP, (i / 2) * STEP,
+                    SOURCE_SIZE, SOURCE_SIZE, SPACING_DEG, 1.0 + 0.25 * i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        for (Product product : sourceProducts) {
+            product.dispose();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        op = new MosaicOp();
+        op.setSourceProducts(sourceProducts);
+        op.setParameter("resamplingMethod", ResamplingFactory.BILINEAR_INTERPOLATION_NAME);
+        op.setParameter("gradientDomainMosaic", true);
+        op.setParameter("useMultigridSolver", useMultigridSolver);
+        op.setParameter("pixelSize", SPACING_DEG * Constants.DTOR * Constants.semiMajorAxis);
+        op.setParameter("sceneWidth", SCENE_SIZE);
+        op.setParameter("sceneHeight", SCENE_SIZE);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        op.dispose();
+        JAI.getDefaultInstance().getTileCache().flush();
+    }
+
+    @Benchmark
+    public float[] mosaic() throws IOException {
+        final Band band = op.getTargetProduct().getBandAt(0);
+        band.readPixels(0, 0, SCENE_SIZE, SCENE_SIZE, pixels, ProgressMonitor.NULL);
+        return pixels;
+    }
+}
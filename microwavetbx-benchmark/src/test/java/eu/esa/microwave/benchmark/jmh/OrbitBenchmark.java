@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import eu.esa.sar.commons.OrbitStateVectors;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orbit state vector interpolation as used per range line and per geocoded pixel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrbitBenchmark {
+
+    private static final int NUM_TIMES = 4096;
+
+    @Param({"17", "60"})
+    public int numVectors;
+
+    private OrbitStateVector[] vectors;
+    private OrbitStateVectors orbit;
+    private final double[] times = new double[NUM_TIMES];
+    private double timeOffset = 0.0;
+    private final PosVector position = new PosVector();
+    private final PosVector velocity = new PosVector();
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        vectors = SyntheticData.createOrbitStateVectors(numVectors);
+        final double[] span = SyntheticData.getOrbitTimeSpan(vectors);
+        final Random random = new Random(7L);
+        for (int i = 0; i < NUM_TIMES; ++i) {
+            times[i] = span[0] + random.nextDouble() * (span[1] - span[0]);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        // a fresh instance per iteration so the internal time cache starts empty
+        orbit = new OrbitStateVectors(vectors);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_TIMES)
+    public void getPositionVelocity(final Blackhole bh) {
+        for (double time : times) {
+            bh.consume(orbit.getPositionVelocity(time));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_TIMES)
+    public void getPositionVelocityUncached(final Blackhole bh) {
+        // distinct times on every call defeat the time cache and measure the interpolation itself
+        timeOffset += 1e-10;
+        final double offset = timeOffset;
+        for (double time : times) {
+            bh.consume(orbit.getPositionVelocity(time + offset));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_TIMES)
+    public void getPositionVelocityInto(final Blackhole bh) {
+        // allocation free interpolation into caller supplied vectors
+        for (double time : times) {
+            orbit.getPositionVelocity(time, position, velocity);
+            bh.consume(position.x + velocity.x);
+        }
+    }
+
+    @Benchmark
+    public OrbitStateVectors constructForScene() {
+        // sensor position and velocity for every range line of an IW burst sized scene
+        return new OrbitStateVectors(vectors, vectors[1].time_mjd, 0.002 / SyntheticData.SECONDS_PER_DAY, 1500);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.MetadataAttribute;
+import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.util.TestUtils;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+
+import java.text.DateFormat;
+import java.util.Random;
+
+/**
+ * Synthetic in-memory inputs for the kernel benchmarks so that they run without the SAR test data.
+ */
+final class SyntheticData {
+
+    static final double SECONDS_PER_DAY = 86400.0;
+
+    // circular polar orbit at roughly Sentinel-1 altitude
+    static final double ORBIT_RADIUS = 7071000.0;
+    static final double EARTH_RADIUS = 6371000.0;
+    static final double ANGULAR_RATE = Math.sqrt(3.986004418e14 / (ORBIT_RADIUS * ORBIT_RADIUS * ORBIT_RADIUS));
+
+    static final double FIRST_VECTOR_MJD = 6775.0;
+    static final double VECTOR_INTERVAL_SEC = 10.0;
+    static final double WAVELENGTH = 0.05546576;
+
+    private static final long SEED = 42L;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Orbit state vectors of a circular orbit in the x-z plane sampled every 10 seconds.
+     */
+    static OrbitStateVector[] createOrbitStateVectors(final int numVectors) {
+        final OrbitStateVector[] vectors = new OrbitStateVector[numVectors];
+        for (int i = 0; i < numVectors; ++i) {
+            final double t = i * VECTOR_INTERVAL_SEC;
+            final double a = ANGULAR_RATE * t;
+            final double v = ORBIT_RADIUS * ANGULAR_RATE;
+            vectors[i] = new OrbitStateVector(new ProductData.UTC(FIRST_VECTOR_MJD + t / SECONDS_PER_DAY),
+                    ORBIT_RADIUS * Math.cos(a), 0.0, ORBIT_RADIUS * Math.sin(a),
+                    -v * Math.sin(a), 0.0, v * Math.cos(a));
+        }
+        return vectors;
+    }
+
+    /**
+     * Time span in MJD covered by the given orbit state vectors.
+     */
+    static double[] getOrbitTimeSpan(final OrbitStateVector[] vectors) {
+        return new double[]{vectors[0].time_mjd, vectors[vectors.length - 1].time_mjd};
+    }
+
+    /**
+     * Earth points on a sphere seen from the synthetic orbit with zero Doppler time inside [startSec, endSec].
+     */
+    static PosVector[] createEarthPoints(final int numPoints, final double startSec, final double endSec) {
+        final Random random = new Random(SEED);
+        final PosVector[] points = new PosVector[numPoints];
+        for (int i = 0; i < numPoints; ++i) {
+            final double t = startSec + random.nextDouble() * (endSec - startSec);
+            final double a = ANGULAR_RATE * t;
+            final double lookOffset = Math.toRadians(2.0 + 3.0 * random.nextDouble());
+            final double height = 2000.0 * random.nextDouble();
+            final double r = EARTH_RADIUS + height;
+            points[i] = new PosVector(r * Math.cos(a) * Math.cos(lookOffset), r * Math.sin(lookOffset),
+                    r * Math.sin(a) * Math.cos(lookOffset));
+        }
+        return points;
+    }
+
+    /**
+     * Fully developed single look speckle: exponentially distributed intensities over a few homogeneous patches.
+     */
+    static float[] createSpeckledIntensity(final int w, final int h) {
+        final Random random = new Random(SEED);
+        final float[] data = new float[w * h];
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                final double reflectivity = ((x / 64 + y / 64) % 3 + 1) * 0.05;
+                data[y * w + x] = (float) (-reflectivity * Math.log(1.0 - random.nextDouble()));
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Circular Gaussian complex samples interleaved as re/im pairs.
+     */
+    static double[] createComplexSamples(final int w, final int h, final long seed) {
+        final Random random = new Random(seed);
+        final double[] data = new double[2 * w * h];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = random.nextGaussian();
+        }
+        return data;
+    }
+
+    /**
+     * Detected product with a single speckled intensity band.
+     */
+    static Product createIntensityProduct(final int w, final int h) {
+        final Product product = TestUtils.createProduct("GRD", w, h);
+        final Band band = product.addBand("Intensity_VV", ProductData.TYPE_FLOAT32);
+        band.setUnit(Unit.INTENSITY);
+        band.setNoDataValueUsed(true);
+        band.setNoDataValue(0.0);
+        band.setData(ProductData.createInstance(createSpeckledIntensity(w, h)));
+        return product;
+    }
+
+    /**
+     * Map projected WGS84 intensity product, the window of a smooth speckled scene starting at the given pixel of a
+     * grid of spacingDeg degrees from 10E, 50N, scaled by a gain as if from another acquisition.
+     */
+    static Product createMapProjectedProduct(final String name, final int x0, final int y0, final int w, final int h,
+                                             final double spacingDeg, final double gain) {
+        final Product product = TestUtils.createProduct("GRD", w, h);
+        product.setName(name);
+
+        final Random random = new Random(SEED + 31 * x0 + y0);
+        final float[] data = new float[w * h];
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                final double reflectivity = 0.1 * (1.5 + Math.sin((x0 + x) / 37.0) * Math.cos((y0 + y) / 53.0));
+                data[y * w + x] = (float) (gain * reflectivity * (0.9 + 0.2 * random.nextDouble()));
+            }
+        }
+        final Band band = product.addBand("Intensity_VV", ProductData.TYPE_FLOAT32);
+        band.setUnit(Unit.INTENSITY);
+        band.setNoDataValueUsed(true);
+        band.setNoDataValue(0.0);
+        band.setData(ProductData.createInstance(data));
+
+        try {
+            product.setSceneGeoCoding(new CrsGeoCoding(DefaultGeographicCRS.WGS84, w, h,
+                    10.0 + x0 * spacingDeg, 50.0 - y0 * spacingDeg, spacingDeg, spacingDeg));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return product;
+    }
+
+    /**
+     * Sentinel-1 IW GRD product with one amplitude band and the original metadata the Sentinel-1 calibrator needs.
+     */
+    static Product createSentinel1GRDProduct(final int w, final int h) {
+        final Product product = TestUtils.createProduct("GRD", w, h);
+
+        final float[] amplitude = createSpeckledIntensity(w, h);
+        for (int i = 0; i < amplitude.length; ++i) {
+            amplitude[i] = (float) Math.sqrt(amplitude[i]) * 500.0f;
+        }
+        final Band band = product.addBand("Amplitude_VV", ProductData.TYPE_FLOAT32);
+        band.setUnit(Unit.AMPLITUDE);
+        band.setNoDataValueUsed(true);
+        band.setNoDataValue(0.0);
+        band.setData(ProductData.createInstance(amplitude));
+
+        final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(product);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.MISSION, "SENTINEL-1A");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.PRODUCT_TYPE, "GRD");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.ACQUISITION_MODE, "IW");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.SAMPLE_TYPE, "DETECTED");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.mds1_tx_rx_polar, "VV");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.ProcessingSystemIdentifier, "ESA Sentinel-1 IPF 003.40");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.abs_calibration_flag, 0);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.first_line_time,
+                new ProductData.UTC(FIRST_VECTOR_MJD));
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.last_line_time,
+                new ProductData.UTC(FIRST_VECTOR_MJD + (h - 1) * 0.002 / SECONDS_PER_DAY));
+
+        final MetadataElement origRoot = AbstractMetadata.addOriginalProductMetadata(product.getMetadataRoot());
+        addCalibrationMetadata(origRoot, w, h);
+        addAnnotationMetadata(origRoot, h);
+        return product;
+    }
+
+    private static void addCalibrationMetadata(final MetadataElement origRoot, final int w, final int h) {
+        final MetadataElement calibrationElem = new MetadataElement("calibration");
+        origRoot.addElement(calibrationElem);
+
+        final MetadataElement dataSetElem = new MetadataElement("s1a-iw-grd-vv-calibration.xml");
+        calibrationElem.addElement(dataSetElem);
+        final MetadataElement calElem = new MetadataElement("calibration");
+        dataSetElem.addElement(calElem);
+
+        final MetadataElement adsHeader = new MetadataElement("adsHeader");
+        adsHeader.setAttributeString("polarisation", "VV");
+        adsHeader.setAttributeString("swath", "IW");
+        adsHeader.setAttributeString("startTime", toS1Time(FIRST_VECTOR_MJD));
+        adsHeader.setAttributeString("stopTime", toS1Time(FIRST_VECTOR_MJD + (h - 1) * 0.002 / SECONDS_PER_DAY));
+        calElem.addElement(adsHeader);
+
+        final int lineStep = 200;
+        final int pixelStep = 40;
+        final int numVectors = (h - 1) / lineStep + 2;
+        final int numPixels = (w - 1) / pixelStep + 2;
+
+        final MetadataElement vecList = new MetadataElement("calibrationVectorList");
+        vecList.setAttributeInt("count", numVectors);
+        calElem.addElement(vecList);
+
+        for (int v = 0; v < numVectors; ++v) {
+            final int line = v * lineStep;
+            final StringBuilder pixels = new StringBuilder();
+            final StringBuilder sigma = new StringBuilder();
+            final StringBuilder beta = new StringBuilder();
+            final StringBuilder gamma = new StringBuilder();
+            final StringBuilder dn = new StringBuilder();
+            for (int p = 0; p < numPixels; ++p) {
+                final String sep = p == 0 ? "" : " ";
+                final double s = 600.0 - 150.0 * p / numPixels;
+                pixels.append(sep).append(p * pixelStep);
+                sigma.append(sep).append(s);
+                beta.append(sep).append(237.5);
+                gamma.append(sep).append(s * 1.1);
+                dn.append(sep).append(237.5);
+            }
+
+            final MetadataElement vecElem = new MetadataElement("calibrationVector");
+            vecElem.setAttributeString("azimuthTime", toS1Time(FIRST_VECTOR_MJD + line * 0.002 / SECONDS_PER_DAY));
+            vecElem.setAttributeString("line", String.valueOf(line));
+            vecElem.addElement(createVectorElement("pixel", pixels, numPixels));
+            vecElem.addElement(createVectorElement("sigmaNought", sigma, numPixels));
+            vecElem.addElement(createVectorElement("betaNought", beta, numPixels));
+            vecElem.addElement(createVectorElement("gamma", gamma, numPixels));
+            vecElem.addElement(createVectorElement("dn", dn, numPixels));
+            vecList.addElement(vecElem);
+        }
+    }
+
+    private static MetadataElement createVectorElement(final String name, final StringBuilder values, final int count) {
+        final MetadataElement elem = new MetadataElement(name);
+        elem.setAttributeString(name, values.toString());
+        elem.setAttributeString("count", String.valueOf(count));
+        return elem;
+    }
+
+    private static void addAnnotationMetadata(final MetadataElement origRoot, final int h) {
+        final MetadataElement annotationElem = new MetadataElement("annotation");
+        origRoot.addElement(annotationElem);
+
+        final MetadataElement dataSetElem = new MetadataElement("s1a-iw-grd-vv.xml");
+        annotationElem.addElement(dataSetElem);
+        final MetadataElement productElem = new MetadataElement("product");
+        dataSetElem.addElement(productElem);
+        final MetadataElement imageAnnotationElem = new MetadataElement("imageAnnotation");
+        productElem.addElement(imageAnnotationElem);
+        final MetadataElement imageInformationElem = new MetadataElement("imageInformation");
+        imageAnnotationElem.addElement(imageInformationElem);
+        imageInformationElem.addAttribute(new MetadataAttribute("numberOfLines",
+                ProductData.createInstance(new int[]{h}), true));
+    }
+
+    private static String toS1Time(final double mjd) {
+        // Sentinel-1 annotation time format, e.g. 2018-07-19T00:28:54.123456
+        final ProductData.UTC utc = new ProductData.UTC(mjd);
+        final DateFormat dateFormat = ProductData.UTC.createDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        return dateFormat.format(utc.getAsDate()) + String.format(".%06d", utc.getMicroSecondsFraction());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2024 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.microwave.benchmark.jmh;
+
+import eu.esa.sar.commons.OrbitStateVectors;
+import eu.esa.sar.commons.SARGeocoding;
+import eu.esa.sar.commons.ZeroDopplerSolver;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zero Doppler time solvers called per DEM sample by terrain correction and back geocoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ZeroDopplerBenchmark {
+
+    private static final int NUM_POINTS = 1024;
+    private static final int NUM_VECTORS = 30;
+    private static final int NUM_LINES = 15000;
+    private static final double LINE_TIME_INTERVAL_SEC = 0.002;
+
+    private OrbitStateVector[] vectors;
+    private OrbitStateVectors orbit;
+    private PosVector[] earthPoints;
+    private PosVector[] rowPoints;
+    private final double[] zeroDopplerTimes = new double[NUM_POINTS];
+    private double firstLineUTC;
+    private double lineTimeInterval;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        vectors = SyntheticData.createOrbitStateVectors(NUM_VECTORS);
+
+        // scene starts after the first two state vectors
+        final double firstLineSec = 2 * SyntheticData.VECTOR_INTERVAL_SEC;
+        final double lastLineSec = firstLineSec + (NUM_LINES - 1) * LINE_TIME_INTERVAL_SEC;
+        firstLineUTC = SyntheticData.FIRST_VECTOR_MJD + firstLineSec / SyntheticData.SECONDS_PER_DAY;
+        lineTimeInterval = LINE_TIME_INTERVAL_SEC / SyntheticData.SECONDS_PER_DAY;
+
+        earthPoints = SyntheticData.createEarthPoints(NUM_POINTS, firstLineSec, lastLineSec);
+
+        // one row of a terrain corrected tile spans a few hundred range lines
+        final double rowSec = firstLineSec + 0.5 * (lastLineSec - firstLineSec);
+        rowPoints = SyntheticData.createEarthPoints(NUM_POINTS, rowSec, rowSec + 0.5);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        orbit = new OrbitStateVectors(vectors, firstLineUTC, lineTimeInterval, NUM_LINES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void bisection(final Blackhole bh) {
+        for (PosVector earthPoint : earthPoints) {
+            bh.consume(SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC, lineTimeInterval,
+                    SyntheticData.WAVELENGTH, earthPoint, orbit.sensorPosition, orbit.sensorVelocity));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void newton(final Blackhole bh) {
+        for (PosVector earthPoint : earthPoints) {
+            bh.consume(SARGeocoding.getEarthPointZeroDopplerTimeNewton(lineTimeInterval,
+                    SyntheticData.WAVELENGTH, earthPoint, orbit));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void orbitBisection(final Blackhole bh) {
+        for (PosVector earthPoint : earthPoints) {
+            bh.consume(SARGeocoding.getZeroDopplerTime(lineTimeInterval, SyntheticData.WAVELENGTH, earthPoint, orbit));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void bisectionRow(final Blackhole bh) {
+        for (PosVector earthPoint : rowPoints) {
+            bh.consume(SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC, lineTimeInterval,
+                    SyntheticData.WAVELENGTH, earthPoint, orbit.sensorPosition, orbit.sensorVelocity));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public double[] batchRow() {
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(firstLineUTC, lineTimeInterval,
+                SyntheticData.WAVELENGTH, orbit);
+        solver.getZeroDopplerTimes(rowPoints, NUM_POINTS, zeroDopplerTimes);
+        return zeroDopplerTimes;
+    }
+}
@@ -62,6 +62,7 @@ public class PolarimetricClassificationOpUI extends BaseOperatorUI {
     private final JLabel mixedCategoryThresholdLabel = new JLabel("Threshold for Mixed Category:");
     private final JTextField mixedCategoryThreshold = new JTextField("");
     private final JLabel decompositionLabel = new JLabel("Decomposition:");
+    private final JCheckBox cacheCovarianceStackCheckBox = new JCheckBox("Cache covariance stack");
 
     @Override
     public JComponent CreateOpTab(String operatorName, Map<String, Object> parameterMap, AppContext appContext) {
@@ -83,6 +84,11 @@ public class PolarimetricClassificationOpUI extends BaseOperatorUI {
         numFinalClasses.setText(String.valueOf(paramMap.get("numFinalClasses")));
         mixedCategoryThreshold.setText(String.valueOf(paramMap.get("mixedCategoryThreshold")));
         decomposition.setSelectedItem(paramMap.get("decomposition"));
+
+        final Boolean cacheCovarianceStack = (Boolean) paramMap.get("cacheCovarianceStack");
+        if (cacheCovarianceStack != null) {
+            cacheCovarianceStackCheckBox.setSelected(cacheCovarianceStack);
+        }
     }
 
     @Override
@@ -101,6 +107,7 @@ public class PolarimetricClassificationOpUI extends BaseOperatorUI {
         paramMap.put("numFinalClasses", Integer.parseInt(numFinalClasses.getText()));
         paramMap.put("mixedCategoryThreshold", Double.parseDouble(mixedCategoryThreshold.getText()));
         paramMap.put("decomposition", decomposition.getSelectedItem());
+        paramMap.put("cacheCovarianceStack", cacheCovarianceStackCheckBox.isSelected());
     }
 
     private JComponent createPanel() {
@@ -123,6 +130,10 @@ public class PolarimetricClassificationOpUI extends BaseOperatorUI {
                     DialogUtils.enableComponents(maxIterationsLabel, maxIterations, false);
                 }
 
+                cacheCovarianceStackCheckBox.setEnabled(
+                        !item.equals(PolarimetricClassificationOp.UNSUPERVISED_CLOUDE_POTTIER_CLASSIFICATION) &&
+                        !item.equals(PolarimetricClassificationOp.UNSUPERVISED_CLOUDE_POTTIER_DUAL_POL_CLASSIFICATION));
+
                 if (item.equals(PolarimetricClassificationOp.UNSUPERVISED_FREEMAN_DURDEN_CLASSIFICATION) ||
                         item.equals(PolarimetricClassificationOp.UNSUPERVISED_GENERAL_WISHART_CLASSIFICATION)) {
                     DialogUtils.enableComponents(numInitialClassesLabel, numInitialClasses, true);
@@ -166,6 +177,11 @@ public class PolarimetricClassificationOpUI extends BaseOperatorUI {
         DialogUtils.addComponent(contentPane, gbc, decompositionLabel, decomposition);
         DialogUtils.enableComponents(decompositionLabel, decomposition, false);
 
+        gbc.gridy++;
+        gbc.gridx = 1;
+        contentPane.add(cacheCovarianceStackCheckBox, gbc);
+        cacheCovarianceStackCheckBox.setEnabled(false);
+
         DialogUtils.fillPanel(contentPane, gbc);
 
         return contentPane;
@@ -93,6 +93,11 @@ public class PolarimetricClassificationOp extends Operator {
             defaultValue = PolarimetricDecompositionOp.SINCLAIR_DECOMPOSITION, label = "Decomposition")
     private String decomposition = PolarimetricDecompositionOp.SINCLAIR_DECOMPOSITION;
 
+    @Parameter(description = "Keep the mean covariance matrices of all pixels between the Wishart iterations " +
+            "instead of recomputing them from the source tiles", defaultValue = "false",
+            label = "Cache Covariance Stack")
+    private boolean cacheCovarianceStack = false;
+
     protected int sourceImageWidth = 0;
     protected int sourceImageHeight = 0;
     protected PolBandUtils.PolSourceBand[] srcBandList;
@@ -207,22 +212,24 @@ public class PolarimetricClassificationOp extends Operator {
             case UNSUPERVISED_HALPHA_WISHART_CLASSIFICATION:
 
                 return new HAlphaWishart(sourceProductType, sourceImageWidth, sourceImageHeight, windowSize, bandMap,
-                        maxIterations, this);
+                        maxIterations, cacheCovarianceStack, this);
 
             case UNSUPERVISED_HALPHA_WISHART_DUAL_POL_CLASSIFICATION:
 
                 return new HAlphaWishartC2(sourceProductType, sourceImageWidth, sourceImageHeight, windowSize, windowSize,
-                        bandMap, maxIterations, this);
+                        bandMap, maxIterations, cacheCovarianceStack, this);
 
             case UNSUPERVISED_FREEMAN_DURDEN_CLASSIFICATION:
 
                 return new FreemanDurdenWishart(sourceProductType, sourceImageWidth, sourceImageHeight, windowSize, bandMap,
-                        maxIterations, numInitialClasses, numFinalClasses, mixedCategoryThreshold, this);
+                        maxIterations, numInitialClasses, numFinalClasses, mixedCategoryThreshold, cacheCovarianceStack,
+                        this);
 
             case UNSUPERVISED_GENERAL_WISHART_CLASSIFICATION:
 
                 return new GeneralWishart(sourceProductType, sourceImageWidth, sourceImageHeight, windowSize, bandMap,
-                        maxIterations, numInitialClasses, numFinalClasses, mixedCategoryThreshold, decomposition, this);
+                        maxIterations, numInitialClasses, numFinalClasses, mixedCategoryThreshold, decomposition,
+                        cacheCovarianceStack, this);
         }
         throw new OperatorException(classification + " is an invalid classification name.");
     }
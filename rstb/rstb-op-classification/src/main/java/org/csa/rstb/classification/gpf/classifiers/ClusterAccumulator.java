@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sums of the matrices and pixel counts of the clusters for one iteration of a Wishart classifier.
+ * <p>
+ * Every thread adds to its own sums, without locking, and the sums of all threads are reduced once the
+ * iteration is complete.
+ */
+final class ClusterAccumulator {
+
+    private final int numClusters;
+    private final int dim;
+    private final List<Sums> allSums = new ArrayList<>();
+    private final ThreadLocal<Sums> threadSums = ThreadLocal.withInitial(this::createSums);
+
+    ClusterAccumulator(final int numClusters, final int dim) {
+        this.numClusters = numClusters;
+        this.dim = dim;
+    }
+
+    private Sums createSums() {
+        final Sums sums = new Sums(numClusters, dim);
+        synchronized (allSums) {
+            allSums.add(sums);
+        }
+        return sums;
+    }
+
+    /**
+     * @return the sums of the calling thread
+     */
+    Sums getThreadSums() {
+        return threadSums.get();
+    }
+
+    /**
+     * Add the sums of all threads. Must only be called once all the threads are done.
+     *
+     * @param sumRe   Real part of the sum of the matrices of each cluster
+     * @param sumIm   Imaginary part of the sum of the matrices of each cluster
+     * @param counter number of pixels in each cluster
+     */
+    void reduce(final double[][][] sumRe, final double[][][] sumIm, final int[] counter) {
+
+        synchronized (allSums) {
+            for (Sums sums : allSums) {
+                for (int c = 0; c < numClusters; ++c) {
+                    counter[c] += sums.counter[c];
+                    for (int i = 0; i < dim; ++i) {
+                        for (int j = 0; j < dim; ++j) {
+                            sumRe[c][i][j] += sums.sumRe[c][i][j];
+                            sumIm[c][i][j] += sums.sumIm[c][i][j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static final class Sums {
+
+        private final int dim;
+        private final double[][][] sumRe;
+        private final double[][][] sumIm;
+        private final int[] counter;
+
+        private Sums(final int numClusters, final int dim) {
+            this.dim = dim;
+            sumRe = new double[numClusters][dim][dim];
+            sumIm = new double[numClusters][dim][dim];
+            counter = new int[numClusters];
+        }
+
+        /**
+         * @param clusterIdx zero based cluster index
+         * @param Mr         Real part of the pixel matrix
+         * @param Mi         Imaginary part of the pixel matrix
+         */
+        void add(final int clusterIdx, final double[][] Mr, final double[][] Mi) {
+            final double[][] re = sumRe[clusterIdx];
+            final double[][] im = sumIm[clusterIdx];
+            for (int i = 0; i < dim; ++i) {
+                for (int j = 0; j < dim; ++j) {
+                    re[i][j] += Mr[i][j];
+                    im[i][j] += Mi[i][j];
+                }
+            }
+            counter[clusterIdx]++;
+        }
+    }
+}
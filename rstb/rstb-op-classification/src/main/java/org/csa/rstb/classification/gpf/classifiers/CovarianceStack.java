@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import eu.esa.sar.commons.io.MappedBuffers;
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.runtime.Config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Per pixel Hermitian matrices (T3, C3 or C2) of a whole image, kept in single precision so that the iterations
+ * of a Wishart classifier do not read the source tiles and average the matrices again.
+ * <p>
+ * Only the upper triangle is stored: the real diagonal followed by the real and imaginary parts of the elements
+ * above it, i.e. 9 floats per pixel for a 3x3 matrix and 4 for a 2x2 matrix. A stack larger than the preference
+ * s1tbx.polsar.covarianceStackHeapMB is kept off heap in a memory mapped temporary file.
+ * <p>
+ * Different pixels may be written and read concurrently. The stack must not be used once it is closed.
+ */
+final class CovarianceStack implements Closeable {
+
+    private static final long DEFAULT_HEAP_SIZE_MB = 256;
+    private static final long maxHeapBytes = Config.instance().preferences().getLong(
+            "s1tbx.polsar.covarianceStackHeapMB", DEFAULT_HEAP_SIZE_MB) * 1024L * 1024L;
+
+    private final int width;
+    private final int dim;
+    private final int numElems;
+    private final int rowsPerBlock;
+    private final FloatBuffer[] blocks;
+    private final Path file;
+    // the mappings behind the off heap blocks, released on close
+    private final ByteBuffer[] mappings;
+
+    /**
+     * @param width  the image width
+     * @param height the image height
+     * @param dim    the matrix dimension, 2 or 3
+     * @throws IOException if the memory mapped file cannot be created
+     */
+    CovarianceStack(final int width, final int height, final int dim) throws IOException {
+        this(width, height, dim, (long) width * height * dim * dim * Float.BYTES > maxHeapBytes);
+    }
+
+    CovarianceStack(final int width, final int height, final int dim, final boolean offHeap) throws IOException {
+
+        this.width = width;
+        this.dim = dim;
+        this.numElems = dim * dim;
+
+        // a block is a float array or a mapping of at most 2 GB
+        final long rowBytes = (long) width * numElems * Float.BYTES;
+        rowsPerBlock = (int) Math.max(1, Math.min(height, Integer.MAX_VALUE / rowBytes));
+        blocks = new FloatBuffer[(height + rowsPerBlock - 1) / rowsPerBlock];
+
+        if (offHeap) {
+            file = Files.createTempFile("covarianceStack", ".dat");
+            mappings = new ByteBuffer[blocks.length];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (int b = 0; b < blocks.length; ++b) {
+                    final int rows = Math.min(rowsPerBlock, height - b * rowsPerBlock);
+                    mappings[b] = channel.map(FileChannel.MapMode.READ_WRITE, b * rowsPerBlock * rowBytes,
+                            rows * rowBytes);
+                    blocks[b] = mappings[b].order(ByteOrder.nativeOrder()).asFloatBuffer();
+                }
+            } catch (IOException e) {
+                MappedBuffers.unmap(mappings);
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        } else {
+            file = null;
+            mappings = null;
+            for (int b = 0; b < blocks.length; ++b) {
+                final int rows = Math.min(rowsPerBlock, height - b * rowsPerBlock);
+                blocks[b] = FloatBuffer.wrap(new float[rows * width * numElems]);
+            }
+        }
+    }
+
+    boolean isOffHeap() {
+        return file != null;
+    }
+
+    /**
+     * Store the matrix of a pixel. The matrix is rounded to the stored single precision values so that the pixel
+     * is the same in every iteration.
+     *
+     * @param x  the pixel x coordinate
+     * @param y  the pixel y coordinate
+     * @param Mr Real part of the Hermitian matrix
+     * @param Mi Imaginary part of the Hermitian matrix
+     */
+    void put(final int x, final int y, final double[][] Mr, final double[][] Mi) {
+
+        final FloatBuffer block = blocks[y / rowsPerBlock];
+        int k = ((y % rowsPerBlock) * width + x) * numElems;
+        for (int i = 0; i < dim; ++i) {
+            final float re = (float) Mr[i][i];
+            block.put(k++, re);
+            Mr[i][i] = re;
+            Mi[i][i] = 0.0;
+        }
+        for (int i = 0; i < dim; ++i) {
+            for (int j = i + 1; j < dim; ++j) {
+                final float re = (float) Mr[i][j];
+                final float im = (float) Mi[i][j];
+                block.put(k++, re);
+                block.put(k++, im);
+                Mr[i][j] = re;
+                Mi[i][j] = im;
+                Mr[j][i] = re;
+                Mi[j][i] = -im;
+            }
+        }
+    }
+
+    /**
+     * Mark a pixel as no data.
+     */
+    void putNoData(final int x, final int y) {
+        blocks[y / rowsPerBlock].put(((y % rowsPerBlock) * width + x) * numElems, Float.NaN);
+    }
+
+    /**
+     * Get the matrix of a pixel.
+     *
+     * @param x  the pixel x coordinate
+     * @param y  the pixel y coordinate
+     * @param Mr Real part of the Hermitian matrix
+     * @param Mi Imaginary part of the Hermitian matrix
+     * @return false if the pixel is no data
+     */
+    boolean get(final int x, final int y, final double[][] Mr, final double[][] Mi) {
+
+        final FloatBuffer block = blocks[y / rowsPerBlock];
+        int k = ((y % rowsPerBlock) * width + x) * numElems;
+        if (Float.isNaN(block.get(k))) {
+            return false;
+        }
+        for (int i = 0; i < dim; ++i) {
+            Mr[i][i] = block.get(k++);
+            Mi[i][i] = 0.0;
+        }
+        for (int i = 0; i < dim; ++i) {
+            for (int j = i + 1; j < dim; ++j) {
+                final double re = block.get(k++);
+                final double im = block.get(k++);
+                Mr[i][j] = re;
+                Mi[i][j] = im;
+                Mr[j][i] = re;
+                Mi[j][i] = -im;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (file != null) {
+            // the file cannot be deleted on Windows while it is mapped
+            for (int b = 0; b < mappings.length; ++b) {
+                MappedBuffers.unmap(mappings[b]);
+                mappings[b] = null;
+                blocks[b] = null;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // still in use by another process on some platforms
+                file.toFile().deleteOnExit();
+                SystemUtils.LOG.fine("Unable to delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -59,17 +59,20 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
     private int[] pdColourIndexMap = null;
     private int[] psColourIndexMap = null;
 
+    private final boolean cacheCovarianceStack;
+
     public FreemanDurdenWishart(final PolBandUtils.MATRIX srcProductType,
                                 final int srcWidth, final int srcHeight, final int windowSize,
                                 final Map<Band, PolBandUtils.PolSourceBand> bandMap,
                                 final int maxIterations, final int numInitialClasses, final int numClasses,
-                                final double mixedCategoryThreshold,
+                                final double mixedCategoryThreshold, final boolean cacheCovarianceStack,
                                 final PolarimetricClassificationOp op) {
         super(srcProductType, srcWidth, srcHeight, windowSize, windowSize, bandMap, op);
         this.maxIterations = maxIterations;
         this.numFinalClasses = numClasses;
         this.numInitialClusters = numInitialClasses / 3;
         this.mixedCategoryThreshold = mixedCategoryThreshold;
+        this.cacheCovarianceStack = cacheCovarianceStack;
     }
 
     @Override
@@ -728,7 +731,8 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
     }
 
     /**
-     * Compute final cluster centers for all clusters using K-mean clustering method
+     * Compute final cluster centers for all clusters using K-mean clustering method.
+     * With the covariance stack, the mean coherency matrices are computed in the first iteration only.
      *
      * @param srcBandList    the input bands
      * @param tileRectangles Array of rectangles for all source tiles of the image
@@ -754,9 +758,18 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
         final int maxNumClusters = Math.max(pvNumClusters, Math.max(pdNumClusters, psNumClusters));
         final int[][] clusterCounter = new int[3][maxNumClusters];
 
+        // index of the first cluster of the vol, dbl and suf categories in the accumulated clusters
+        final int[] clusterOffsets = {0, pvNumClusters, pvNumClusters + pdNumClusters};
+
         final ThreadExecutor executor = new ThreadExecutor();
+        CovarianceStack stack = null;
 
         try {
+            if (cacheCovarianceStack) {
+                stack = new CovarianceStack(srcWidth, srcHeight, 3);
+            }
+            final CovarianceStack covarianceStack = stack;
+
             for (int it = 0; (it < maxIterations && !endIteration); ++it) {
                 //System.out.println("Iteration: " + it);
 
@@ -773,6 +786,10 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
                 java.util.Arrays.fill(clusterCounter[1], 0);
                 java.util.Arrays.fill(clusterCounter[2], 0);
 
+                final boolean readSource = covarianceStack == null || it == 0;
+                final ClusterAccumulator accumulator = covarianceStack != null ?
+                        new ClusterAccumulator(pvNumClusters + pdNumClusters + psNumClusters, 3) : null;
+
                 for (final Rectangle rectangle : tileRectangles) {
 
                     final ThreadRunnable worker = new ThreadRunnable() {
@@ -794,6 +811,20 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
                             final int xMax = x0 + w;
                             final int yMax = y0 + h;
 
+                            final ClusterAccumulator.Sums sums =
+                                    accumulator != null ? accumulator.getThreadSums() : null;
+
+                            if (!readSource) {
+                                for (int y = y0; y < yMax; ++y) {
+                                    for (int x = x0; x < xMax; ++x) {
+                                        covarianceStack.get(x, y, Tr, Ti);
+                                        assignCluster(x, y, Tr, Ti, pvCenterList, pdCenterList, psCenterList);
+                                        sums.add(clusterOffsets[category[y][x].ordinal()] + cluster[y][x], Tr, Ti);
+                                    }
+                                }
+                                return;
+                            }
+
                             final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
                             for (int i = 0; i < sourceTiles.length; ++i) {
                                 sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
@@ -808,56 +839,28 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
                                             x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
                                             sourceProductType, srcIndex, dataBuffers, Tr, Ti);
 
+                                    if (covarianceStack != null) {
+                                        covarianceStack.put(x, y, Tr, Ti);
+                                        assignCluster(x, y, Tr, Ti, pvCenterList, pdCenterList, psCenterList);
+                                        sums.add(clusterOffsets[category[y][x].ordinal()] + cluster[y][x], Tr, Ti);
+                                        continue;
+                                    }
+
                                     synchronized (clusterCounter) {
 
+                                        assignCluster(x, y, Tr, Ti, pvCenterList, pdCenterList, psCenterList);
+
                                         if (category[y][x] == Categories.vol) { // pv
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, pvCenterList);
                                             computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pvSumRe, pvSumIm);
                                             clusterCounter[0][cluster[y][x]] += 1;
 
                                         } else if (category[y][x] == Categories.dbl) { // pd
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, pdCenterList);
                                             computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pdSumRe, pdSumIm);
                                             clusterCounter[1][cluster[y][x]] += 1;
 
-                                        } else if (category[y][x] == Categories.suf) { // ps
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, psCenterList);
+                                        } else { // ps
                                             computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, psSumRe, psSumIm);
                                             clusterCounter[2][cluster[y][x]] += 1;
-
-                                        } else { // mixed
-
-                                            final int nearestPvCluster = findClosestCluster(Tr, Ti, pvCenterList);
-                                            final int nearestPdCluster = findClosestCluster(Tr, Ti, pdCenterList);
-                                            final int nearestPsCluster = findClosestCluster(Tr, Ti, psCenterList);
-
-                                            final double dPv = HAlphaWishart.computeWishartDistance(
-                                                    Tr, Ti, pvCenterList.get(nearestPvCluster));
-
-                                            final double dPd = HAlphaWishart.computeWishartDistance(
-                                                    Tr, Ti, pdCenterList.get(nearestPdCluster));
-
-                                            final double dPs = HAlphaWishart.computeWishartDistance(
-                                                    Tr, Ti, psCenterList.get(nearestPsCluster));
-
-                                            if (dPv <= dPd && dPv <= dPs) { // pv
-                                                cluster[y][x] = nearestPvCluster;
-                                                computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pvSumRe, pvSumIm);
-                                                clusterCounter[0][cluster[y][x]] += 1;
-                                                category[y][x] = Categories.vol;
-
-                                            } else if (dPd <= dPv && dPd <= dPs) { // pd
-                                                cluster[y][x] = nearestPdCluster;
-                                                computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pdSumRe, pdSumIm);
-                                                clusterCounter[1][cluster[y][x]] += 1;
-                                                category[y][x] = Categories.dbl;
-
-                                            } else { // ps
-                                                cluster[y][x] = nearestPsCluster;
-                                                computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, psSumRe, psSumIm);
-                                                clusterCounter[2][cluster[y][x]] += 1;
-                                                category[y][x] = Categories.suf;
-                                            }
                                         }
                                     }
                                 }
@@ -870,6 +873,24 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
                 }
                 executor.complete();
 
+                if (accumulator != null) {
+                    final int numClusters = pvNumClusters + pdNumClusters + psNumClusters;
+                    final double[][][] sumRe = new double[numClusters][3][3];
+                    final double[][][] sumIm = new double[numClusters][3][3];
+                    final int[] counter = new int[numClusters];
+                    accumulator.reduce(sumRe, sumIm, counter);
+
+                    System.arraycopy(sumRe, clusterOffsets[0], pvSumRe, 0, pvNumClusters);
+                    System.arraycopy(sumIm, clusterOffsets[0], pvSumIm, 0, pvNumClusters);
+                    System.arraycopy(counter, clusterOffsets[0], clusterCounter[0], 0, pvNumClusters);
+                    System.arraycopy(sumRe, clusterOffsets[1], pdSumRe, 0, pdNumClusters);
+                    System.arraycopy(sumIm, clusterOffsets[1], pdSumIm, 0, pdNumClusters);
+                    System.arraycopy(counter, clusterOffsets[1], clusterCounter[1], 0, pdNumClusters);
+                    System.arraycopy(sumRe, clusterOffsets[2], psSumRe, 0, psNumClusters);
+                    System.arraycopy(sumIm, clusterOffsets[2], psSumIm, 0, psNumClusters);
+                    System.arraycopy(counter, clusterOffsets[2], clusterCounter[2], 0, psNumClusters);
+                }
+
                 /*
                 endTime = System.nanoTime();
                 final long duration = endTime - startTime;
@@ -949,10 +970,56 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException(op.getId() + " computeInitialClusterCenters ", e);
         } finally {
+            if (stack != null) {
+                stack.close();
+            }
             status.done();
         }
     }
 
+    /**
+     * Assign a pixel to the nearest cluster of its category, or to the nearest cluster of all 3 categories
+     * for a pixel in the mixed category.
+     */
+    private void assignCluster(final int x, final int y, final double[][] Tr, final double[][] Ti,
+                               final java.util.List<ClusterInfo> pvCenterList,
+                               final java.util.List<ClusterInfo> pdCenterList,
+                               final java.util.List<ClusterInfo> psCenterList) {
+
+        if (category[y][x] == Categories.vol) { // pv
+            cluster[y][x] = findClosestCluster(Tr, Ti, pvCenterList);
+
+        } else if (category[y][x] == Categories.dbl) { // pd
+            cluster[y][x] = findClosestCluster(Tr, Ti, pdCenterList);
+
+        } else if (category[y][x] == Categories.suf) { // ps
+            cluster[y][x] = findClosestCluster(Tr, Ti, psCenterList);
+
+        } else { // mixed
+
+            final int nearestPvCluster = findClosestCluster(Tr, Ti, pvCenterList);
+            final int nearestPdCluster = findClosestCluster(Tr, Ti, pdCenterList);
+            final int nearestPsCluster = findClosestCluster(Tr, Ti, psCenterList);
+
+            final double dPv = HAlphaWishart.computeWishartDistance(Tr, Ti, pvCenterList.get(nearestPvCluster));
+            final double dPd = HAlphaWishart.computeWishartDistance(Tr, Ti, pdCenterList.get(nearestPdCluster));
+            final double dPs = HAlphaWishart.computeWishartDistance(Tr, Ti, psCenterList.get(nearestPsCluster));
+
+            if (dPv <= dPd && dPv <= dPs) { // pv
+                cluster[y][x] = nearestPvCluster;
+                category[y][x] = Categories.vol;
+
+            } else if (dPd <= dPv && dPd <= dPs) { // pd
+                cluster[y][x] = nearestPdCluster;
+                category[y][x] = Categories.dbl;
+
+            } else { // ps
+                cluster[y][x] = nearestPsCluster;
+                category[y][x] = Categories.suf;
+            }
+        }
+    }
+
     private static int getColourIndex(
             final int clusterIndex, final double[] pAvgClusterPower, final int numInitialClusters) {
         int n = 0;
@@ -59,13 +59,14 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
     private int maxClusterSize = 0;
 
     private ArrayList<ArrayList<Integer>> colourIndexMap = null;
+    private final boolean cacheCovarianceStack;
 
     public GeneralWishart(final PolBandUtils.MATRIX srcProductType,
                           final int srcWidth, final int srcHeight, final int windowSize,
                           final Map<Band, PolBandUtils.PolSourceBand> bandMap,
                           final int maxIterations, final int numInitialClasses, final int numClasses,
                           final double mixedCategoryThreshold, final String decomposition,
-                          final PolarimetricClassificationOp op) {
+                          final boolean cacheCovarianceStack, final PolarimetricClassificationOp op) {
         super(srcProductType, srcWidth, srcHeight, windowSize, windowSize, bandMap, op);
 
         setIndexCodingParameters(decomposition);
@@ -74,6 +75,7 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
         this.numInitialClusters = numInitialClasses / numCategories;
         this.mixedCategoryThreshold = mixedCategoryThreshold;
         this.decomposition = decomposition;
+        this.cacheCovarianceStack = cacheCovarianceStack;
     }
 
     @Override
@@ -739,7 +741,8 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
     }
 
     /**
-     * Compute final cluster centers for all clusters using K-mean clustering method
+     * Compute final cluster centers for all clusters using K-mean clustering method.
+     * With the covariance stack, the mean coherency matrices are computed in the first iteration only.
      *
      * @param srcBandList    the input bands
      * @param tileRectangles Array of rectangles for all source tiles of the image
@@ -757,8 +760,20 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
         status.beginTask("Computing Final Cluster Centres... ", tileRectangles.length * maxIterations);
 
         final ThreadExecutor executor = new ThreadExecutor();
+        CovarianceStack stack = null;
+
+        // index of the first cluster of each category in the accumulated clusters
+        final int[] clusterOffsets = new int[numCategories + 1];
+        for (int i = 0; i < numCategories; ++i) {
+            clusterOffsets[i + 1] = clusterOffsets[i] + clusterCenterList.get(i).size();
+        }
 
         try {
+            if (cacheCovarianceStack) {
+                stack = new CovarianceStack(srcWidth, srcHeight, 3);
+            }
+            final CovarianceStack covarianceStack = stack;
+
             for (int it = 0; (it < maxIterations && !endIteration); ++it) {
                 //System.out.println("Iteration: " + it);
 //                final long startTime = System.nanoTime();
@@ -775,6 +790,10 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
                     newClusterCenters.add(newCenters);
                 }
 
+                final boolean readSource = covarianceStack == null || it == 0;
+                final ClusterAccumulator accumulator = covarianceStack != null ?
+                        new ClusterAccumulator(clusterOffsets[numCategories], 3) : null;
+
                 for (final Rectangle rectangle : tileRectangles) {
 
                     final ThreadRunnable worker = new ThreadRunnable() {
@@ -796,6 +815,20 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
                             final int xMax = x0 + w;
                             final int yMax = y0 + h;
 
+                            final ClusterAccumulator.Sums sums =
+                                    accumulator != null ? accumulator.getThreadSums() : null;
+
+                            if (!readSource) {
+                                for (int y = y0; y < yMax; ++y) {
+                                    for (int x = x0; x < xMax; ++x) {
+                                        covarianceStack.get(x, y, Tr, Ti);
+                                        assignCluster(x, y, Tr, Ti, clusterCenterList);
+                                        sums.add(clusterOffsets[category[y][x]] + cluster[y][x], Tr, Ti);
+                                    }
+                                }
+                                return;
+                            }
+
                             final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
                             for (int i = 0; i < sourceTiles.length; ++i) {
                                 sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
@@ -810,17 +843,15 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
                                             x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
                                             sourceProductType, srcIndex, dataBuffers, Tr, Ti);
 
-                                    synchronized (newClusterCenters) {
-
-                                        if (category[y][x] != numCategories) {
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, clusterCenterList.get(category[y][x]));
-                                        } else { // mixed
-                                            final int[] CategoryCluster =
-                                                    findNearestCategoryCluster(Tr, Ti, clusterCenterList);
+                                    if (covarianceStack != null) {
+                                        covarianceStack.put(x, y, Tr, Ti);
+                                        assignCluster(x, y, Tr, Ti, clusterCenterList);
+                                        sums.add(clusterOffsets[category[y][x]] + cluster[y][x], Tr, Ti);
+                                        continue;
+                                    }
 
-                                            category[y][x] = CategoryCluster[0];
-                                            cluster[y][x] = CategoryCluster[1];
-                                        }
+                                    synchronized (newClusterCenters) {
+                                        assignCluster(x, y, Tr, Ti, clusterCenterList);
                                         newClusterCenters.get(category[y][x]).get(cluster[y][x]).addElem(Tr, Ti);
                                     }
                                 }
@@ -833,6 +864,23 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
                 }
                 executor.complete();
 
+                if (accumulator != null) {
+                    final int numClusters = clusterOffsets[numCategories];
+                    final double[][][] sumRe = new double[numClusters][3][3];
+                    final double[][][] sumIm = new double[numClusters][3][3];
+                    final int[] counter = new int[numClusters];
+                    accumulator.reduce(sumRe, sumIm, counter);
+
+                    for (int i = 0; i < numCategories; ++i) {
+                        for (int j = 0; j < clusterCenterList.get(i).size(); ++j) {
+                            final ClusterCenter center = newClusterCenters.get(i).get(j);
+                            center.sumRe = sumRe[clusterOffsets[i] + j];
+                            center.sumIm = sumIm[clusterOffsets[i] + j];
+                            center.size = counter[clusterOffsets[i] + j];
+                        }
+                    }
+                }
+
                 /*
                 endTime = System.nanoTime();
                 final long duration = endTime - startTime;
@@ -914,10 +962,30 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException(op.getId() + " computeInitialClusterCenters ", e);
         } finally {
+            if (stack != null) {
+                stack.close();
+            }
             status.done();
         }
     }
 
+    /**
+     * Assign a pixel to the nearest cluster of its category, or to the nearest cluster of all categories
+     * for a pixel in the mixed category.
+     */
+    private void assignCluster(final int x, final int y, final double[][] Tr, final double[][] Ti,
+                               final ArrayList<ArrayList<ClusterInfo>> clusterCenterList) {
+
+        if (category[y][x] != numCategories) {
+            cluster[y][x] = findClosestCluster(Tr, Ti, clusterCenterList.get(category[y][x]));
+        } else { // mixed
+            final int[] CategoryCluster = findNearestCategoryCluster(Tr, Ti, clusterCenterList);
+
+            category[y][x] = CategoryCluster[0];
+            cluster[y][x] = CategoryCluster[1];
+        }
+    }
+
     private int[] findNearestCategoryCluster(final double[][] Tr, final double[][] Ti,
                                              final ArrayList<ArrayList<ClusterInfo>> clusterCenterList) {
 
@@ -46,13 +46,16 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
     private boolean[] clusterCentersComputed = null;
     private final int maxIterations;
     private final boolean useLeeHAlphaPlaneDefinition;
+    private final boolean cacheCovarianceStack;
 
     public HAlphaWishart(final PolBandUtils.MATRIX srcProductType,
                          final int srcWidth, final int srcHeight, final int winSize,
                          final Map<Band, PolBandUtils.PolSourceBand> bandMap,
-                         final int maxIterations, final PolarimetricClassificationOp op) {
+                         final int maxIterations, final boolean cacheCovarianceStack,
+                         final PolarimetricClassificationOp op) {
         super(srcProductType, srcWidth, srcHeight, winSize, winSize, bandMap, op);
         this.maxIterations = maxIterations;
+        this.cacheCovarianceStack = cacheCovarianceStack;
 
         useLeeHAlphaPlaneDefinition = Boolean.getBoolean(SystemUtils.getApplicationContextId() +
                 ".useLeeHAlphaPlaneDefinition");
@@ -270,7 +273,8 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
     }
 
     /**
-     * Compute final cluster centers for all 9 zones using K-mean clustering method
+     * Compute final cluster centers for all 9 zones using K-mean clustering method.
+     * With the covariance stack, the mean coherency matrices are computed in the first iteration only.
      *
      * @param srcBandList    the input bands
      * @param op             the operator
@@ -290,14 +294,22 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
         status.beginTask("Computing Final Cluster Centres... ", tileRectangles.length * maxIterations);
 
         final ThreadExecutor executor = new ThreadExecutor();
+        CovarianceStack stack = null;
 
         try {
+            if (cacheCovarianceStack) {
+                stack = new CovarianceStack(srcWidth, srcHeight, 3);
+            }
+            final CovarianceStack covarianceStack = stack;
+
             for (int it = 0; (it < maxIterations && !endIteration); ++it) {
                 //System.out.println("Iteration: " + it);
 
                 final double[][][] sumRe = new double[9][3][3];
                 final double[][][] sumIm = new double[9][3][3];
                 final int[] counter = new int[9];
+                final boolean readSource = covarianceStack == null || it == 0;
+                final ClusterAccumulator accumulator = covarianceStack != null ? new ClusterAccumulator(9, 3) : null;
 
                 for (final Rectangle rectangle : tileRectangles) {
 
@@ -320,6 +332,20 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
                             final int xMax = x0 + w;
                             final int yMax = y0 + h;
 
+                            final ClusterAccumulator.Sums sums =
+                                    accumulator != null ? accumulator.getThreadSums() : null;
+
+                            if (!readSource) {
+                                for (int y = y0; y < yMax; ++y) {
+                                    for (int x = x0; x < xMax; ++x) {
+                                        if (covarianceStack.get(x, y, Tr, Ti)) {
+                                            sums.add(findZoneIndex(Tr, Ti, clusterCenters[targetBandIndex]) - 1, Tr, Ti);
+                                        }
+                                    }
+                                }
+                                return;
+                            }
+
                             final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
                             for (int i = 0; i < sourceTiles.length; ++i) {
                                 sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
@@ -330,12 +356,22 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
                             for (int y = y0; y < yMax; ++y) {
                                 srcIndex.calculateStride(y);
                                 for (int x = x0; x < xMax; ++x) {
-                                    if (noDataValue.equals(dataBuffers[0].getElemDoubleAt(srcIndex.getIndex(x))))
+                                    if (noDataValue.equals(dataBuffers[0].getElemDoubleAt(srcIndex.getIndex(x)))) {
+                                        if (covarianceStack != null) {
+                                            covarianceStack.putNoData(x, y);
+                                        }
                                         continue;
+                                    }
 
                                     getMeanCoherencyMatrix(x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
                                             sourceProductType, srcIndex, dataBuffers, Tr, Ti);
 
+                                    if (covarianceStack != null) {
+                                        covarianceStack.put(x, y, Tr, Ti);
+                                        sums.add(findZoneIndex(Tr, Ti, clusterCenters[targetBandIndex]) - 1, Tr, Ti);
+                                        continue;
+                                    }
+
                                     synchronized (counter) {
                                         final int zoneIdx = findZoneIndex(Tr, Ti, clusterCenters[targetBandIndex]);
                                         counter[zoneIdx - 1]++;
@@ -349,6 +385,11 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
 
                     status.worked(1);
                 }
+                executor.complete();
+
+                if (accumulator != null) {
+                    accumulator.reduce(sumRe, sumIm, counter);
+                }
 
                 double diff = 0.0;
                 for (int z = 0; z < 9; ++z) {
@@ -374,11 +415,12 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
                 }
             }
 
-            executor.complete();
-
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException(op.getId() + " computeFinalClusterCenters ", e);
         } finally {
+            if (stack != null) {
+                stack.close();
+            }
             status.done();
         }
     }
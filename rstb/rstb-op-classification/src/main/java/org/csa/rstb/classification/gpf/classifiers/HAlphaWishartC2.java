@@ -49,15 +49,18 @@ public class HAlphaWishartC2 extends PolClassifierBase implements PolClassifier,
     private boolean[] clusterCentersComputed = null;
     private final int maxIterations;
     protected final boolean useLeeHAlphaPlaneDefinition;
+    private final boolean cacheCovarianceStack;
 
     public HAlphaWishartC2(final PolBandUtils.MATRIX srcProductType,
                            final int srcWidth, final int srcHeight,
                            final int windowSizeX, final int windowSizeY,
                            final Map<Band, PolBandUtils.PolSourceBand> bandMap,
-                           final int maxIterations, final PolarimetricClassificationOp op) {
+                           final int maxIterations, final boolean cacheCovarianceStack,
+                           final PolarimetricClassificationOp op) {
 
         super(srcProductType, srcWidth, srcHeight, windowSizeX, windowSizeY, bandMap, op);
         this.maxIterations = maxIterations;
+        this.cacheCovarianceStack = cacheCovarianceStack;
         this.useLeeHAlphaPlaneDefinition = Boolean.getBoolean(SystemUtils.getApplicationContextId() +
                 ".useLeeHAlphaPlaneDefinition");
     }
@@ -290,7 +293,8 @@ public class HAlphaWishartC2 extends PolClassifierBase implements PolClassifier,
     }
 
     /**
-     * Compute final cluster centers for all 9 zones using K-mean clustering method
+     * Compute final cluster centers for all 9 zones using K-mean clustering method.
+     * With the covariance stack, the mean covariance matrices are computed in the first iteration only.
      *
      * @param targetBandIndex Target band index
      * @param srcBandList     the input bands
@@ -311,14 +315,22 @@ public class HAlphaWishartC2 extends PolClassifierBase implements PolClassifier,
         status.beginTask("Computing Final Cluster Centres... ", tileRectangles.length * maxIterations);
 
         final ThreadExecutor executor = new ThreadExecutor();
+        CovarianceStack stack = null;
 
         try {
+            if (cacheCovarianceStack) {
+                stack = new CovarianceStack(srcWidth, srcHeight, 2);
+            }
+            final CovarianceStack covarianceStack = stack;
+
             for (int it = 0; (it < maxIterations && !endIteration); ++it) {
                 //System.out.println("Iteration: " + it);
 
                 final double[][][] sumRe = new double[9][2][2];
                 final double[][][] sumIm = new double[9][2][2];
                 final int[] counter = new int[9];
+                final boolean readSource = covarianceStack == null || it == 0;
+                final ClusterAccumulator accumulator = covarianceStack != null ? new ClusterAccumulator(9, 2) : null;
 
                 for (final Rectangle rectangle : tileRectangles) {
 
@@ -341,6 +353,20 @@ public class HAlphaWishartC2 extends PolClassifierBase implements PolClassifier,
                             final int xMax = x0 + w;
                             final int yMax = y0 + h;
 
+                            final ClusterAccumulator.Sums sums =
+                                    accumulator != null ? accumulator.getThreadSums() : null;
+
+                            if (!readSource) {
+                                for (int y = y0; y < yMax; ++y) {
+                                    for (int x = x0; x < xMax; ++x) {
+                                        if (covarianceStack.get(x, y, Cr, Ci)) {
+                                            sums.add(findZoneIndex(Cr, Ci, clusterCenters[targetBandIndex]) - 1, Cr, Ci);
+                                        }
+                                    }
+                                }
+                                return;
+                            }
+
                             final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
                             for (int i = 0; i < sourceTiles.length; ++i) {
                                 sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
@@ -351,12 +377,22 @@ public class HAlphaWishartC2 extends PolClassifierBase implements PolClassifier,
                             for (int y = y0; y < yMax; ++y) {
                                 srcIndex.calculateStride(y);
                                 for (int x = x0; x < xMax; ++x) {
-                                    if (noData(noDataValue, dataBuffers, srcIndex.getIndex(x)))
+                                    if (noData(noDataValue, dataBuffers, srcIndex.getIndex(x))) {
+                                        if (covarianceStack != null) {
+                                            covarianceStack.putNoData(x, y);
+                                        }
                                         continue;
+                                    }
 
                                     getMeanCovarianceMatrixC2(x, y, halfWindowSizeX, halfWindowSizeY, srcWidth,
                                             srcHeight, sourceProductType, sourceTiles, dataBuffers, Cr, Ci);
 
+                                    if (covarianceStack != null) {
+                                        covarianceStack.put(x, y, Cr, Ci);
+                                        sums.add(findZoneIndex(Cr, Ci, clusterCenters[targetBandIndex]) - 1, Cr, Ci);
+                                        continue;
+                                    }
+
                                     synchronized (counter) {
                                         final int zoneIdx = findZoneIndex(Cr, Ci, clusterCenters[targetBandIndex]);
                                         counter[zoneIdx - 1]++;
@@ -370,6 +406,11 @@ public class HAlphaWishartC2 extends PolClassifierBase implements PolClassifier,
 
                     status.worked(1);
                 }
+                executor.complete();
+
+                if (accumulator != null) {
+                    accumulator.reduce(sumRe, sumIm, counter);
+                }
 
                 double diff = 0.0;
                 for (int z = 0; z < 9; ++z) {
@@ -394,11 +435,13 @@ public class HAlphaWishartC2 extends PolClassifierBase implements PolClassifier,
                     endIteration = true;
                 }
             }
-            executor.complete();
 
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException(op.getId() + " computeFinalClusterCenters ", e);
         } finally {
+            if (stack != null) {
+                stack.close();
+            }
             status.done();
         }
     }
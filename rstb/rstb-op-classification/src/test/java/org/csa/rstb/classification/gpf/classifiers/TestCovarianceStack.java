@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for CovarianceStack and ClusterAccumulator.
+ */
+public class TestCovarianceStack {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+
+    @Test
+    public void testHeapStack() throws Exception {
+        testStack(3, false);
+        testStack(2, false);
+    }
+
+    @Test
+    public void testOffHeapStack() throws Exception {
+        testStack(3, true);
+        testStack(2, true);
+    }
+
+    private static void testStack(final int dim, final boolean offHeap) throws Exception {
+
+        try (CovarianceStack stack = new CovarianceStack(WIDTH, HEIGHT, dim, offHeap)) {
+            assertEquals(offHeap, stack.isOffHeap());
+
+            final double[][] Mr = new double[dim][dim];
+            final double[][] Mi = new double[dim][dim];
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    if ((x + y) % 7 == 0) {
+                        stack.putNoData(x, y);
+                    } else {
+                        createHermitianMatrix(x, y, Mr, Mi);
+                        stack.put(x, y, Mr, Mi);
+                    }
+                }
+            }
+
+            final double[][] expectedRe = new double[dim][dim];
+            final double[][] expectedIm = new double[dim][dim];
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    if ((x + y) % 7 == 0) {
+                        assertFalse(stack.get(x, y, Mr, Mi));
+                        continue;
+                    }
+                    assertTrue(stack.get(x, y, Mr, Mi));
+                    createHermitianMatrix(x, y, expectedRe, expectedIm);
+                    for (int i = 0; i < dim; ++i) {
+                        for (int j = 0; j < dim; ++j) {
+                            assertEquals((float) expectedRe[i][j], Mr[i][j], 0.0);
+                            assertEquals((float) expectedIm[i][j], Mi[i][j], 0.0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapFileDeletedOnClose() throws Exception {
+
+        final Set<Path> filesBefore = listStackFiles();
+        final CovarianceStack stack = new CovarianceStack(WIDTH, HEIGHT, 3, true);
+        final Set<Path> files = listStackFiles();
+        files.removeAll(filesBefore);
+        assertEquals(1, files.size());
+
+        stack.putNoData(1, 2);
+        stack.close();
+        assertFalse(Files.exists(files.iterator().next()));
+
+        // closing again does not release the mappings twice
+        stack.close();
+    }
+
+    @Test
+    public void testPutRoundsToStoredValues() throws Exception {
+
+        try (CovarianceStack stack = new CovarianceStack(WIDTH, HEIGHT, 3, false)) {
+            final double[][] Mr = new double[3][3];
+            final double[][] Mi = new double[3][3];
+            createHermitianMatrix(5, 7, Mr, Mi);
+            stack.put(5, 7, Mr, Mi);
+
+            final double[][] storedRe = new double[3][3];
+            final double[][] storedIm = new double[3][3];
+            stack.get(5, 7, storedRe, storedIm);
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    assertEquals(storedRe[i][j], Mr[i][j], 0.0);
+                    assertEquals(storedIm[i][j], Mi[i][j], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAccumulatorReducesAllThreads() throws Exception {
+
+        final int numClusters = 5;
+        final int numThreads = 4;
+        final int numPixels = 1000;
+        final ClusterAccumulator accumulator = new ClusterAccumulator(numClusters, 3);
+
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; ++t) {
+            threads[t] = new Thread(() -> {
+                final double[][] Mr = new double[3][3];
+                final double[][] Mi = new double[3][3];
+                final ClusterAccumulator.Sums sums = accumulator.getThreadSums();
+                for (int p = 0; p < numPixels; ++p) {
+                    createHermitianMatrix(p, 0, Mr, Mi);
+                    sums.add(p % numClusters, Mr, Mi);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final double[][][] sumRe = new double[numClusters][3][3];
+        final double[][][] sumIm = new double[numClusters][3][3];
+        final int[] counter = new int[numClusters];
+        accumulator.reduce(sumRe, sumIm, counter);
+
+        final double[][][] expectedRe = new double[numClusters][3][3];
+        final double[][][] expectedIm = new double[numClusters][3][3];
+        final double[][] Mr = new double[3][3];
+        final double[][] Mi = new double[3][3];
+        for (int p = 0; p < numPixels; ++p) {
+            createHermitianMatrix(p, 0, Mr, Mi);
+            PolClassifierBase.computeSummationOfT3(p % numClusters + 1, Mr, Mi, expectedRe, expectedIm);
+        }
+
+        for (int c = 0; c < numClusters; ++c) {
+            assertEquals(numThreads * numPixels / numClusters, counter[c]);
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    assertEquals(numThreads * expectedRe[c][i][j], sumRe[c][i][j], 1e-9 * Math.abs(sumRe[c][i][j]));
+                    assertEquals(numThreads * expectedIm[c][i][j], sumIm[c][i][j], 1e-9 * Math.abs(sumIm[c][i][j]));
+                }
+            }
+        }
+    }
+
+    private static Set<Path> listStackFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(f -> f.getFileName().toString().startsWith("covarianceStack"))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private static void createHermitianMatrix(final int x, final int y, final double[][] Mr, final double[][] Mi) {
+        final Random random = new Random(31L * y + x);
+        final int dim = Mr.length;
+        for (int i = 0; i < dim; ++i) {
+            Mr[i][i] = random.nextDouble();
+            Mi[i][i] = 0.0;
+            for (int j = i + 1; j < dim; ++j) {
+                Mr[i][j] = random.nextDouble() - 0.5;
+                Mi[i][j] = random.nextDouble() - 0.5;
+                Mr[j][i] = Mr[i][j];
+                Mi[j][i] = -Mi[i][j];
+            }
+        }
+    }
+}
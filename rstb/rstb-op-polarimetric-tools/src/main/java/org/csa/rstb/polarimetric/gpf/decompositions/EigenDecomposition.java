@@ -17,8 +17,14 @@ package org.csa.rstb.polarimetric.gpf.decompositions;
 
 public class EigenDecomposition {
 
+    // An eigenvector is taken from the cross product of two rows of (HM - lambda I) only if the cross product is
+    // not below this fraction of the squared norm of (HM - lambda I), i.e. if the eigenvalue is not degenerate.
+    private static final double DEGENERATE_CROSS_PRODUCT = 1.0e-20;
+
     /**
-     * Perform eigenvalue decomposition for a given Hermitian matrix
+     * Perform eigenvalue decomposition for a given Hermitian matrix.
+     * The eigenvalues are sorted in decreasing order and the eigenvectors are the columns of the eigenvector matrix.
+     * 2x2 and 3x3 matrices are decomposed in closed form without allocating, other matrices by Jacobi iterations.
      *
      * @param n           Matrix dimension
      * @param HMr         Real part of the Hermitian matrix
@@ -30,6 +36,314 @@ public class EigenDecomposition {
     public static void eigenDecomposition(final int n, final double[][] HMr, final double[][] HMi,
                                           final double[][] EigenVectRe, final double[][] EigenVectIm, final double[] EigenVal) {
 
+        if (n == 2) {
+            eigenDecomposition2x2(HMr, HMi, EigenVectRe, EigenVectIm, EigenVal);
+        } else if (n == 3) {
+            eigenDecomposition3x3(HMr, HMi, EigenVectRe, EigenVectIm, EigenVal);
+        } else {
+            jacobiEigenDecomposition(n, HMr, HMi, EigenVectRe, EigenVectIm, EigenVal);
+        }
+    }
+
+    /**
+     * Perform eigenvalue decomposition for a given 2x2 Hermitian matrix in closed form.
+     *
+     * @param HMr         Real part of the Hermitian matrix
+     * @param HMi         Imaginary part of the Hermitian matrix
+     * @param EigenVectRe Real part of the eigenvector matrix
+     * @param EigenVectIm Imaginary part of the eigenvector matrix
+     * @param EigenVal    Eigenvalue vector
+     */
+    public static void eigenDecomposition2x2(final double[][] HMr, final double[][] HMi,
+                                             final double[][] EigenVectRe, final double[][] EigenVectIm,
+                                             final double[] EigenVal) {
+
+        final double a = HMr[0][0];
+        final double d = HMr[1][1];
+        final double br = HMr[0][1];
+        final double bi = HMi[0][1];
+
+        final double half = 0.5 * (a - d);
+        final double r = Math.hypot(half, Math.hypot(br, bi));
+        final double m = 0.5 * (a + d);
+        EigenVal[0] = m + r;
+        EigenVal[1] = m - r;
+
+        if (!(r > 0.0)) {
+            setIdentity(2, EigenVectRe, EigenVectIm);
+            return;
+        }
+
+        // null vector of (HM - lambda0 I) from the row with the larger diagonal difference
+        double v0r, v0i, v1r, v1i;
+        if (half >= 0.0) {
+            v0r = half + r;
+            v0i = 0.0;
+            v1r = br;
+            v1i = -bi;
+        } else {
+            v0r = br;
+            v0i = bi;
+            v1r = r - half;
+            v1i = 0.0;
+        }
+        final double norm = Math.sqrt(v0r * v0r + v0i * v0i + v1r * v1r + v1i * v1i);
+
+        EigenVectRe[0][0] = v0r / norm;
+        EigenVectIm[0][0] = v0i / norm;
+        EigenVectRe[1][0] = v1r / norm;
+        EigenVectIm[1][0] = v1i / norm;
+
+        // the second eigenvector is orthogonal to the first
+        EigenVectRe[0][1] = -EigenVectRe[1][0];
+        EigenVectIm[0][1] = EigenVectIm[1][0];
+        EigenVectRe[1][1] = EigenVectRe[0][0];
+        EigenVectIm[1][1] = -EigenVectIm[0][0];
+    }
+
+    /**
+     * Perform eigenvalue decomposition for a given 3x3 Hermitian matrix in closed form.
+     * The eigenvalues are the roots of the characteristic polynomial computed by the trigonometric method.
+     * The eigenvector of the best separated eigenvalue is the largest cross product of two rows of (HM - lambda I),
+     * the eigenvector of the middle eigenvalue is computed the same way but made orthogonal to the first one, and
+     * the last eigenvector is orthogonal to both. The eigenvalues are finally refined by the Rayleigh quotients.
+     *
+     * @param HMr         Real part of the Hermitian matrix
+     * @param HMi         Imaginary part of the Hermitian matrix
+     * @param EigenVectRe Real part of the eigenvector matrix
+     * @param EigenVectIm Imaginary part of the eigenvector matrix
+     * @param EigenVal    Eigenvalue vector
+     */
+    public static void eigenDecomposition3x3(final double[][] HMr, final double[][] HMi,
+                                             final double[][] EigenVectRe, final double[][] EigenVectIm,
+                                             final double[] EigenVal) {
+
+        final double m = (HMr[0][0] + HMr[1][1] + HMr[2][2]) / 3.0;
+        final double b00 = HMr[0][0] - m;
+        final double b11 = HMr[1][1] - m;
+        final double b22 = HMr[2][2] - m;
+        final double n01 = HMr[0][1] * HMr[0][1] + HMi[0][1] * HMi[0][1];
+        final double n02 = HMr[0][2] * HMr[0][2] + HMi[0][2] * HMi[0][2];
+        final double n12 = HMr[1][2] * HMr[1][2] + HMi[1][2] * HMi[1][2];
+
+        // squared Frobenius norm of HM - mI
+        final double p2 = b00 * b00 + b11 * b11 + b22 * b22 + 2.0 * (n01 + n02 + n12);
+        if (!(p2 > 0.0)) {
+            EigenVal[0] = m;
+            EigenVal[1] = m;
+            EigenVal[2] = m;
+            setIdentity(3, EigenVectRe, EigenVectIm);
+            return;
+        }
+
+        // det(HM - mI), using Re(h01 * h12 * conj(h02))
+        final double xr = HMr[0][1] * HMr[1][2] - HMi[0][1] * HMi[1][2];
+        final double xi = HMr[0][1] * HMi[1][2] + HMi[0][1] * HMr[1][2];
+        final double det = b00 * b11 * b22 + 2.0 * (xr * HMr[0][2] + xi * HMi[0][2])
+                - b00 * n12 - b11 * n02 - b22 * n01;
+
+        final double p = Math.sqrt(p2 / 6.0);
+        final double r = Math.max(-1.0, Math.min(1.0, det / (2.0 * p * p * p)));
+        final double phi = Math.acos(r) / 3.0;
+        final double lambda0 = m + 2.0 * p * Math.cos(phi);
+        final double lambda2 = m + 2.0 * p * Math.cos(phi + 2.0 * Math.PI / 3.0);
+        final double lambda1 = 3.0 * m - lambda0 - lambda2;
+
+        // start with the eigenvalue that is furthest from the others
+        final int first = (lambda0 - lambda1 >= lambda1 - lambda2) ? 0 : 2;
+        final int last = 2 - first;
+
+        if (!(nullVector(HMr, HMi, first == 0 ? lambda0 : lambda2, p2, EigenVectRe, EigenVectIm, first) > 0.0)) {
+            // numerically a multiple of the identity
+            jacobiEigenDecomposition(3, HMr, HMi, EigenVectRe, EigenVectIm, EigenVal);
+            return;
+        }
+        normalize(EigenVectRe, EigenVectIm, first);
+
+        final double cross = nullVector(HMr, HMi, lambda1, p2, EigenVectRe, EigenVectIm, 1);
+        if (!(cross > 0.0) || !orthonormalize(EigenVectRe, EigenVectIm, 1, first)) {
+            // lambda1 is degenerate, any vector orthogonal to the first eigenvector is an eigenvector
+            int minIdx = 0;
+            for (int i = 1; i < 3; ++i) {
+                if (EigenVectRe[i][first] * EigenVectRe[i][first] + EigenVectIm[i][first] * EigenVectIm[i][first] <
+                        EigenVectRe[minIdx][first] * EigenVectRe[minIdx][first] +
+                                EigenVectIm[minIdx][first] * EigenVectIm[minIdx][first]) {
+                    minIdx = i;
+                }
+            }
+            for (int i = 0; i < 3; ++i) {
+                EigenVectRe[i][1] = (i == minIdx) ? 1.0 : 0.0;
+                EigenVectIm[i][1] = 0.0;
+            }
+            orthonormalize(EigenVectRe, EigenVectIm, 1, first);
+        }
+
+        // conj(v_first x v_1) is orthogonal to both
+        for (int c = 0; c < 3; ++c) {
+            final int a = (c + 1) % 3;
+            final int b = (c + 2) % 3;
+            final double ur = EigenVectRe[a][first] * EigenVectRe[b][1] - EigenVectIm[a][first] * EigenVectIm[b][1]
+                    - EigenVectRe[b][first] * EigenVectRe[a][1] + EigenVectIm[b][first] * EigenVectIm[a][1];
+            final double ui = EigenVectRe[a][first] * EigenVectIm[b][1] + EigenVectIm[a][first] * EigenVectRe[b][1]
+                    - EigenVectRe[b][first] * EigenVectIm[a][1] - EigenVectIm[b][first] * EigenVectRe[a][1];
+            EigenVectRe[c][last] = ur;
+            EigenVectIm[c][last] = -ui;
+        }
+        normalize(EigenVectRe, EigenVectIm, last);
+
+        for (int k = 0; k < 3; ++k) {
+            EigenVal[k] = rayleighQuotient(HMr, HMi, EigenVectRe, EigenVectIm, k);
+        }
+
+        // the refined eigenvalues of a near degenerate pair may swap
+        for (int i = 0; i < 2; ++i) {
+            for (int j = i + 1; j < 3; ++j) {
+                if (EigenVal[j] > EigenVal[i]) {
+                    final double tmp = EigenVal[i];
+                    EigenVal[i] = EigenVal[j];
+                    EigenVal[j] = tmp;
+                    for (int k = 0; k < 3; ++k) {
+                        final double tmpRe = EigenVectRe[k][i];
+                        final double tmpIm = EigenVectIm[k][i];
+                        EigenVectRe[k][i] = EigenVectRe[k][j];
+                        EigenVectIm[k][i] = EigenVectIm[k][j];
+                        EigenVectRe[k][j] = tmpRe;
+                        EigenVectIm[k][j] = tmpIm;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the largest cross product of two rows of (HM - lambda I) in column k of V.
+     *
+     * @return the squared norm of the cross product, or 0 if it is too small to be a reliable eigenvector
+     */
+    private static double nullVector(final double[][] HMr, final double[][] HMi, final double lambda,
+                                     final double p2, final double[][] Vr, final double[][] Vi, final int k) {
+
+        final double n01 = crossRows(HMr, HMi, lambda, 0, 1, Vr, Vi, k);
+        final double n02 = crossRows(HMr, HMi, lambda, 0, 2, Vr, Vi, k);
+        final double n12 = crossRows(HMr, HMi, lambda, 1, 2, Vr, Vi, k);
+
+        double maxNorm = n12;
+        if (n01 >= n02 && n01 > n12) {
+            maxNorm = crossRows(HMr, HMi, lambda, 0, 1, Vr, Vi, k);
+        } else if (n02 > n12) {
+            maxNorm = crossRows(HMr, HMi, lambda, 0, 2, Vr, Vi, k);
+        }
+
+        // squared Frobenius norm of HM - lambda I, knowing that HM - mI is traceless
+        final double shift = lambda - (HMr[0][0] + HMr[1][1] + HMr[2][2]) / 3.0;
+        final double f2 = p2 + 3.0 * shift * shift;
+        return maxNorm > DEGENERATE_CROSS_PRODUCT * f2 * f2 ? maxNorm : 0.0;
+    }
+
+    private static double crossRows(final double[][] HMr, final double[][] HMi, final double lambda,
+                                    final int i, final int j, final double[][] Vr, final double[][] Vi, final int k) {
+
+        double norm = 0.0;
+        for (int c = 0; c < 3; ++c) {
+            final int a = (c + 1) % 3;
+            final int b = (c + 2) % 3;
+            final double uar = HMr[i][a] - (a == i ? lambda : 0.0);
+            final double ubr = HMr[i][b] - (b == i ? lambda : 0.0);
+            final double var = HMr[j][a] - (a == j ? lambda : 0.0);
+            final double vbr = HMr[j][b] - (b == j ? lambda : 0.0);
+            final double uai = HMi[i][a];
+            final double ubi = HMi[i][b];
+            final double vai = HMi[j][a];
+            final double vbi = HMi[j][b];
+
+            final double re = (uar * vbr - uai * vbi) - (ubr * var - ubi * vai);
+            final double im = (uar * vbi + uai * vbr) - (ubr * vai + ubi * var);
+            Vr[c][k] = re;
+            Vi[c][k] = im;
+            norm += re * re + im * im;
+        }
+        return norm;
+    }
+
+    private static void normalize(final double[][] Vr, final double[][] Vi, final int k) {
+
+        final double norm = Math.sqrt(Vr[0][k] * Vr[0][k] + Vi[0][k] * Vi[0][k] + Vr[1][k] * Vr[1][k] +
+                Vi[1][k] * Vi[1][k] + Vr[2][k] * Vr[2][k] + Vi[2][k] * Vi[2][k]);
+        for (int i = 0; i < 3; ++i) {
+            Vr[i][k] /= norm;
+            Vi[i][k] /= norm;
+        }
+    }
+
+    /**
+     * Removes the component along the unit column j from column k and normalises column k.
+     *
+     * @return false if nothing is left of column k
+     */
+    private static boolean orthonormalize(final double[][] Vr, final double[][] Vi, final int k, final int j) {
+
+        double normK = 0.0;
+        double dotRe = 0.0;
+        double dotIm = 0.0;
+        for (int i = 0; i < 3; ++i) {
+            normK += Vr[i][k] * Vr[i][k] + Vi[i][k] * Vi[i][k];
+            dotRe += Vr[i][j] * Vr[i][k] + Vi[i][j] * Vi[i][k];
+            dotIm += Vr[i][j] * Vi[i][k] - Vi[i][j] * Vr[i][k];
+        }
+
+        double norm = 0.0;
+        for (int i = 0; i < 3; ++i) {
+            Vr[i][k] -= dotRe * Vr[i][j] - dotIm * Vi[i][j];
+            Vi[i][k] -= dotRe * Vi[i][j] + dotIm * Vr[i][j];
+            norm += Vr[i][k] * Vr[i][k] + Vi[i][k] * Vi[i][k];
+        }
+        if (!(norm > 1.0e-20 * normK)) {
+            return false;
+        }
+
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < 3; ++i) {
+            Vr[i][k] /= norm;
+            Vi[i][k] /= norm;
+        }
+        return true;
+    }
+
+    private static double rayleighQuotient(final double[][] HMr, final double[][] HMi,
+                                           final double[][] Vr, final double[][] Vi, final int k) {
+        double d = 0.0;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                d += Vr[i][k] * (HMr[i][j] * Vr[j][k] - HMi[i][j] * Vi[j][k]);
+                d += Vi[i][k] * (HMr[i][j] * Vi[j][k] + HMi[i][j] * Vr[j][k]);
+            }
+        }
+        return d;
+    }
+
+    private static void setIdentity(final int n, final double[][] Vr, final double[][] Vi) {
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                Vr[i][j] = (i == j) ? 1.0 : 0.0;
+                Vi[i][j] = 0.0;
+            }
+        }
+    }
+
+    /**
+     * Perform eigenvalue decomposition for a given Hermitian matrix by Jacobi iterations
+     *
+     * @param n           Matrix dimension
+     * @param HMr         Real part of the Hermitian matrix
+     * @param HMi         Imaginary part of the Hermitian matrix
+     * @param EigenVectRe Real part of the eigenvector matrix
+     * @param EigenVectIm Imaginary part of the eigenvector matrix
+     * @param EigenVal    Eigenvalue vector
+     */
+    public static void jacobiEigenDecomposition(final int n, final double[][] HMr, final double[][] HMi,
+                                                final double[][] EigenVectRe, final double[][] EigenVectIm,
+                                                final double[] EigenVal) {
+
         final double[][] ar = new double[n][n];
         final double[][] ai = new double[n][n];
         final double[][] vr = new double[n][n];
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.polarimetric.gpf.decompositions;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for the closed form eigen decompositions, validated against the Jacobi eigen decomposition.
+ */
+public class TestEigenDecomposition {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void testRandomMatrices() {
+
+        final Random random = new Random(7);
+        for (int n = 2; n <= 3; ++n) {
+            final double[][] Mr = new double[n][n];
+            final double[][] Mi = new double[n][n];
+            for (int t = 0; t < 2000; ++t) {
+                // coherency matrices are sums of outer products of scattering vectors
+                createMatrix(random, n, 1 + t % 4, Mr, Mi);
+                check(n, Mr, Mi);
+            }
+        }
+    }
+
+    @Test
+    public void testDegenerateMatrices() {
+
+        check(3, new double[][]{{2, 0, 0}, {0, 2, 0}, {0, 0, 2}}, new double[3][3]);
+        check(3, new double[][]{{0, 0, 0}, {0, 0, 0}, {0, 0, 0}}, new double[3][3]);
+        check(3, new double[][]{{1, 0, 0}, {0, 3, 0}, {0, 0, 1}}, new double[3][3]);
+        check(3, new double[][]{{3, 0, 0}, {0, 1, 0}, {0, 0, 3}}, new double[3][3]);
+        check(3, new double[][]{{1, 0, 0}, {0, 2, 0}, {0, 0, 3}}, new double[3][3]);
+        check(2, new double[][]{{2, 0}, {0, 2}}, new double[2][2]);
+        check(2, new double[][]{{1, 0}, {0, 2}}, new double[2][2]);
+        check(2, new double[][]{{1, 0}, {0, 0}}, new double[2][2]);
+
+        // rank one matrices have a degenerate zero eigenvalue
+        final Random random = new Random(11);
+        for (int t = 0; t < 100; ++t) {
+            final double[][] Mr = new double[3][3];
+            final double[][] Mi = new double[3][3];
+            createMatrix(random, 3, 1, Mr, Mi);
+            check(3, Mr, Mi);
+
+            // two equal large eigenvalues
+            final double trace = Mr[0][0] + Mr[1][1] + Mr[2][2];
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    Mr[i][j] = (i == j ? 1.0 : 0.0) - Mr[i][j] / trace;
+                    Mi[i][j] = -Mi[i][j] / trace;
+                }
+            }
+            check(3, Mr, Mi);
+        }
+    }
+
+    private static void check(final int n, final double[][] Mr, final double[][] Mi) {
+
+        final double[][] Vr = new double[n][n];
+        final double[][] Vi = new double[n][n];
+        final double[] lambda = new double[n];
+        EigenDecomposition.eigenDecomposition(n, Mr, Mi, Vr, Vi, lambda);
+
+        final double[][] jacobiVr = new double[n][n];
+        final double[][] jacobiVi = new double[n][n];
+        final double[] jacobiLambda = new double[n];
+        EigenDecomposition.jacobiEigenDecomposition(n, Mr, Mi, jacobiVr, jacobiVi, jacobiLambda);
+
+        double scale = 1.0;
+        for (int k = 0; k < n; ++k) {
+            scale = Math.max(scale, Math.abs(jacobiLambda[k]));
+        }
+
+        for (int k = 0; k < n; ++k) {
+            assertEquals(jacobiLambda[k], lambda[k], TOLERANCE * scale);
+            if (k > 0) {
+                assertTrue(lambda[k - 1] >= lambda[k]);
+            }
+
+            // M v = lambda v
+            for (int i = 0; i < n; ++i) {
+                double re = 0.0;
+                double im = 0.0;
+                for (int j = 0; j < n; ++j) {
+                    re += Mr[i][j] * Vr[j][k] - Mi[i][j] * Vi[j][k];
+                    im += Mr[i][j] * Vi[j][k] + Mi[i][j] * Vr[j][k];
+                }
+                assertEquals(lambda[k] * Vr[i][k], re, TOLERANCE * scale);
+                assertEquals(lambda[k] * Vi[i][k], im, TOLERANCE * scale);
+            }
+
+            // orthonormal
+            for (int l = 0; l < n; ++l) {
+                final double[] dot = innerProduct(n, Vr, Vi, k, Vr, Vi, l);
+                assertEquals(k == l ? 1.0 : 0.0, Math.hypot(dot[0], dot[1]), TOLERANCE);
+            }
+
+            // same eigenvector as Jacobi up to the phase if the eigenvalue is not degenerate
+            boolean isDegenerate = false;
+            for (int l = 0; l < n; ++l) {
+                isDegenerate |= l != k && Math.abs(jacobiLambda[l] - jacobiLambda[k]) < 1e-6 * scale;
+            }
+            if (!isDegenerate) {
+                final double[] dot = innerProduct(n, Vr, Vi, k, jacobiVr, jacobiVi, k);
+                assertEquals(1.0, Math.hypot(dot[0], dot[1]), 1e-6);
+            }
+        }
+    }
+
+    private static double[] innerProduct(final int n, final double[][] Ar, final double[][] Ai, final int k,
+                                         final double[][] Br, final double[][] Bi, final int l) {
+        double re = 0.0;
+        double im = 0.0;
+        for (int i = 0; i < n; ++i) {
+            re += Ar[i][k] * Br[i][l] + Ai[i][k] * Bi[i][l];
+            im += Ar[i][k] * Bi[i][l] - Ai[i][k] * Br[i][l];
+        }
+        return new double[]{re, im};
+    }
+
+    private static void createMatrix(final Random random, final int n, final int rank,
+                                     final double[][] Mr, final double[][] Mi) {
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                Mr[i][j] = 0.0;
+                Mi[i][j] = 0.0;
+            }
+        }
+        final double[] kr = new double[n];
+        final double[] ki = new double[n];
+        for (int r = 0; r < rank; ++r) {
+            for (int i = 0; i < n; ++i) {
+                kr[i] = random.nextGaussian();
+                ki[i] = random.nextGaussian();
+            }
+            for (int i = 0; i < n; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    Mr[i][j] += kr[i] * kr[j] + ki[i] * ki[j];
+                    Mi[i][j] += ki[i] * kr[j] - kr[i] * ki[j];
+                }
+            }
+        }
+    }
+}
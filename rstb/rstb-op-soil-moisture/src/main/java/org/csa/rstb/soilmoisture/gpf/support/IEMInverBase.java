@@ -17,7 +17,6 @@ package org.csa.rstb.soilmoisture.gpf.support;
 
 import au.com.bytecode.opencsv.CSVReader;
 import com.bc.ceres.core.ProgressMonitor;
-import net.sf.javaml.core.kdtree.KDTree;
 import org.apache.commons.lang3.StringUtils;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.MetadataElement;
@@ -161,6 +160,8 @@ public class IEMInverBase extends Operator {
     // Number of columns in the LUT.
     private int lutWidth = 0;
     private ProductData lutData = null;
+    // The compiled LUT, shared with the other operators using the same LUT file.
+    private IEMLookUpTable lookUpTable = null;
     // It is inefficient to build and destroy a KD tree for each pixel.
     // Also, there are multiple threads processing the pixels.
     // Thus, all possible KD trees are built at the beginning.
@@ -170,7 +171,7 @@ public class IEMInverBase extends Operator {
     // (See method convertToKDTreeMapIntKey() in this class.)
     // For Multi-pol, it is simpler since only one image is involved. If the angle range for the AM or PM image is
     // 30 to 32 degrees, only 3 KD trees are needed.
-    private TreeMap<Integer, KDTree> kdTreeMap = null;
+    private TreeMap<Integer, SigmaKDTree> kdTreeMap = null;
     private int srcRasterWidth;
     private int srcRasterHeight;
     // length of the side of the square neighbourhood, must be odd and >= 3
@@ -498,8 +499,18 @@ public class IEMInverBase extends Operator {
 
         getLUTMetadata();
 
+        // The LUT file is only parsed if it has not been compiled yet
+        lookUpTable = IEMLookUpTable.getInstance(lutFile, numParams, NUM_ANGLE_SECTIONS, NUM_ROWS_PER_ANGLE_DEGREE,
+                this::readLUTFile);
+
         // paramLUT contains only rms, (cl if applicable) and RDC
-        paramLUT = new double[NUM_ROWS_PER_ANGLE_DEGREE][numParams];
+        paramLUT = lookUpTable.getParamLUT();
+    }
+
+    // Parses the LUT file for IEMLookUpTable.
+    private void readLUTFile(final double[][] params, final double[] sigmaTable) {
+
+        paramLUT = params;
 
         final String filename = lutFile.getName();
         final String fileExtension = filename.substring(filename.lastIndexOf(".") + 1);
@@ -518,6 +529,27 @@ public class IEMInverBase extends Operator {
 
             throw new OperatorException("LUT files with extension ." + fileExtension + " are not supported. Only ." + MAT_FILE_EXTENSION + " and ." + CSV_FILE_EXTENSION + " are supported (case sensitive)");
         }
+
+        for (int i = 0; i < NUM_ANGLE_SECTIONS; i++) {
+
+            for (int j = 0; j < NUM_ROWS_PER_ANGLE_DEGREE; j++) {
+
+                final int idx = 2 * (i * NUM_ROWS_PER_ANGLE_DEGREE + j);
+                sigmaTable[idx] = (lutData == null) ? getSigmaFromCSV(i, j, 0) : getSigmaFromMatlab(i, j, 0);
+                sigmaTable[idx + 1] = (lutData == null) ? getSigmaFromCSV(i, j, 1) : getSigmaFromMatlab(i, j, 1);
+            }
+        }
+
+        // The sigmas are read from the compiled LUT from now on
+        if (lutData == null) {
+
+            sigmaLUT = null;
+
+        } else {
+
+            lutData.dispose();
+            lutData = null;
+        }
     }
 
     private void initLUTFromMatlabFile() {
@@ -1178,7 +1210,7 @@ public class IEMInverBase extends Operator {
                     sigmaColIdx.length + " should be equal");
         }
 
-        KDTree kdTree;
+        SigmaKDTree kdTree;
 
         if (kdTreeMap == null) {
 
@@ -1196,21 +1228,11 @@ public class IEMInverBase extends Operator {
             return null;
         }
 
-        Object[] object = kdTree.nearest(sigma, N);
-        if (object == null || object.length == 0) { // This should never happen
+        final int[] rowIndices = kdTree.nearest(sigma, N);
+        if (rowIndices.length == 0) { // This should never happen
             return null;
         }
 
-        RowIndex[] result = new RowIndex[object.length];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = (RowIndex) object[i];
-        }
-
-        int[] rowIndices = new int[result.length];
-        for (int i = 0; i < rowIndices.length; i++) {
-            rowIndices[i] = result[i].getIndex();
-        }
-
         return rowIndices;
     }
 
@@ -1230,7 +1252,7 @@ public class IEMInverBase extends Operator {
                     sigmaColIdx.length + " should be equal");
         }
 
-        KDTree kdTree;
+        SigmaKDTree kdTree;
 
         if (kdTreeMap == null) {
 
@@ -1248,17 +1270,8 @@ public class IEMInverBase extends Operator {
             return -1;
         }
 
-        //RowIndex result = (RowIndex) kdTree.nearest(demoteToFloatPrecision(sigma)); // For comparing with matlab
-        RowIndex result = (RowIndex) kdTree.nearest(sigma);
-
-        if (result == null) { // This should never happen
-
-            return -1;
-
-        } else {
-
-            return result.getIndex();
-        }
+        //return kdTree.nearest(demoteToFloatPrecision(sigma)); // For comparing with matlab
+        return kdTree.nearest(sigma);
     }
 
     // Builds a map that maps a key (which can be derived from KDTReeInfo) to the KD Tree built based
@@ -1272,33 +1285,16 @@ public class IEMInverBase extends Operator {
 
             //info.dumpContents();
 
-            final KDTree kdtree = buildOneKDTRee(info.getSectionIdx(), info.getSigmaColIdx());
+            final SigmaKDTree kdtree = buildOneKDTRee(info.getSectionIdx(), info.getSigmaColIdx());
 
             kdTreeMap.put(convertToKDTreeMapIntKey(info), kdtree);
         }
-
-        /*
-        We cannot delete the sigma LUTs here because in searchLUTForN(), we need to access the LUT to get the sigmas of
-        the N closest match from the KD tree.
-
-        // lutData or sigmaLUT can be deleted after all the KD trees are built.
-        // However, if linear search is to be used, then lutData cannot be deleted here.
-        if (lutData == null) {
-
-            sigmaLUT = null;
-
-        } else {
-
-            lutData.dispose();
-            lutData = null;
-        }
-        */
     }
 
     // See explanation above doLinearSearch() and doKDTreeSearch() on sectionIdx and sigmaColIdx.
     // The sigmas comprise the key and the LUT row index (relative to a section) of the sigmas is the value stored
     // in the KD tree for that key.
-    private KDTree buildOneKDTRee(final int[] sectionIdx, final int[] sigmaColIdx) {
+    private SigmaKDTree buildOneKDTRee(final int[] sectionIdx, final int[] sigmaColIdx) {
 
         if (sectionIdx.length != sigmaColIdx.length) {
 
@@ -1311,34 +1307,13 @@ public class IEMInverBase extends Operator {
         // Multi-pol: It is 2. (SigmaHH_AM and SigmaVV_AM) or (SigmaHH_PM and SigmaVV_PM)
         // Multi-angle: It is 2. (SigmaHH_AM and SigmaHH_PM) or (SigmaHH_AM and SigmaVV_PM) or
         // (SigmaVV_AM and SigmaVV_PM) or (SigmaVV_AM and SigmaHH_PM)
-        final int treeDim = sectionIdx.length;
-
-        final KDTree kdtree = new KDTree(treeDim);
-        final double[] sigmas = new double[treeDim];
-        for (int i = 0; i < NUM_ROWS_PER_ANGLE_DEGREE; i++) {
-
-            for (int j = 0; j < treeDim; j++) {
-
-                sigmas[j] = getSigmaFromLUT(sectionIdx[j], i, sigmaColIdx[j]);
-            }
-
-            //kdtree.insert(demoteToFloatPrecision(sigmas), new RowIndex(i)); // For comparing with matlab
-            kdtree.insert(sigmas, new RowIndex(i));
-        }
-
-        return kdtree;
+        // The trees are kept with the compiled LUT, so they are built once for all the operators using the LUT.
+        return lookUpTable.getKDTree(sectionIdx, sigmaColIdx);
     }
 
     private double getSigmaFromLUT(int sectionIdx, int rowIdx, int colIdx) {
 
-        if (lutData == null) {
-
-            return getSigmaFromCSV(sectionIdx, rowIdx, colIdx);
-
-        } else {
-
-            return getSigmaFromMatlab(sectionIdx, rowIdx, colIdx);
-        }
+        return lookUpTable.getSigma(sectionIdx, rowIdx, colIdx);
     }
 
     private double getSigmaFromMatlab(int sectionIdx, int rowIdx, int colIdx) {
@@ -1716,19 +1691,6 @@ public class IEMInverBase extends Operator {
         }
     }
 
-    private static class RowIndex {
-
-        private final int idx;
-
-        public RowIndex(int index) {
-            this.idx = index;
-        }
-
-        public int getIndex() {
-            return this.idx;
-        }
-    }
-
     // KDTreeInfo completely defines a KDTRee.
     // Use convertToKDTreeMapIntKey() to derive a key from KDTReeInfo that can be used as a key to a map.
     protected static class KDTreeInfo {
@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.soilmoisture.gpf.support;
+
+import org.esa.snap.core.util.SystemUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.BufferUnderflowException;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled form of an IEM inversion LUT, shared by all the operators of the JVM using the same LUT.
+ * <p>
+ * The first time a LUT is used, the MATLAB or CSV file is parsed and written to a binary file in the iem_luts
+ * folder of the SNAP cache directory, named after the path, size and modification time of the LUT, so that
+ * read-only LUT folders are supported and a changed LUT is compiled again. The sigma table of the binary file is memory mapped rather than read,
+ * so a LUT is parsed once and kept in memory once. The KD trees are built from the table on first use and
+ * kept with it. LUTs no longer used by an operator are softly referenced, so the garbage collector may release
+ * them and their mappings when memory runs short.
+ * <p>
+ * See the description of the LUT in {@link IEMInverBase}.
+ */
+final class IEMLookUpTable {
+
+    private static final int COMPILED_LUT_MAGIC = 0x49454D4C; // IEML
+    private static final int COMPILED_LUT_VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final String COMPILED_FOLDER_NAME = "iem_luts";
+    private static final String COMPILED_EXTENSION = ".lutbin";
+
+    private static final Map<String, SoftReference<IEMLookUpTable>> lutMap = new HashMap<>();
+
+    private final long lutLength;
+    private final long lutLastModified;
+    private final int numSections;
+    private final int numRowsPerSection;
+    // rms, (cl if applicable) and RDC of the rows of one section
+    private final double[][] paramLUT;
+    // sigmaHH and sigmaVV of all the rows of all the sections
+    private final DoubleBuffer sigmaTable;
+    private final boolean mapped;
+    private final Map<String, SigmaKDTree> kdTreeMap = new ConcurrentHashMap<>();
+
+    /**
+     * Parses a LUT file.
+     */
+    interface Reader {
+
+        /**
+         * @param paramLUT   the parameters of the rows of the first section to fill
+         * @param sigmaTable the sigmaHH and sigmaVV of every row to fill, row after row
+         */
+        void read(final double[][] paramLUT, final double[] sigmaTable) throws IOException;
+    }
+
+    private IEMLookUpTable(final File lutFile, final int numSections, final double[][] paramLUT,
+                           final DoubleBuffer sigmaTable, final boolean mapped) {
+        this.lutLength = lutFile.length();
+        this.lutLastModified = lutFile.lastModified();
+        this.numSections = numSections;
+        this.numRowsPerSection = paramLUT.length;
+        this.paramLUT = paramLUT;
+        this.sigmaTable = sigmaTable;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Get the compiled LUT, compiling the LUT file with the reader if it has not been compiled yet or has changed.
+     *
+     * @param lutFile           the MATLAB or CSV LUT file
+     * @param numParams         the number of parameter columns of the LUT
+     * @param numSections       the number of angle sections
+     * @param numRowsPerSection the number of rows per angle section
+     * @param reader            parses the LUT file
+     * @return the compiled LUT
+     * @throws IOException if the LUT file cannot be read
+     */
+    static synchronized IEMLookUpTable getInstance(final File lutFile, final int numParams, final int numSections,
+                                                   final int numRowsPerSection, final Reader reader)
+            throws IOException {
+
+        final String key = lutFile.getCanonicalPath() + '#' + numParams;
+        final SoftReference<IEMLookUpTable> lutRef = lutMap.get(key);
+        IEMLookUpTable lut = lutRef != null ? lutRef.get() : null;
+        if (lut != null && lut.matches(lutFile, numParams, numSections, numRowsPerSection)) {
+            return lut;
+        }
+
+        final File compiledFile = getCompiledFile(lutFile, numParams);
+        lut = readCompiledFile(compiledFile, lutFile, numParams, numSections, numRowsPerSection);
+        if (lut == null) {
+            final double[][] paramLUT = new double[numRowsPerSection][numParams];
+            final double[] sigmaTable = new double[2 * numSections * numRowsPerSection];
+            reader.read(paramLUT, sigmaTable);
+
+            writeCompiledFile(compiledFile, lutFile, paramLUT, sigmaTable, numSections);
+            lut = readCompiledFile(compiledFile, lutFile, numParams, numSections, numRowsPerSection);
+            if (lut == null) {
+                lut = new IEMLookUpTable(lutFile, numSections, paramLUT, DoubleBuffer.wrap(sigmaTable), false);
+            }
+        }
+
+        lutMap.values().removeIf(ref -> ref.get() == null);
+        lutMap.put(key, new SoftReference<>(lut));
+        return lut;
+    }
+
+    /**
+     * Get the compiled file of the current version of a LUT file.
+     */
+    static File getCompiledFile(final File lutFile, final int numParams) throws IOException {
+        return new File(getCompiledFolder(), getCompiledFilePrefix(lutFile) + Long.toHexString(lutFile.length()) +
+                '_' + Long.toHexString(lutFile.lastModified()) + '.' + numParams + COMPILED_EXTENSION);
+    }
+
+    static File getCompiledFolder() {
+        return new File(SystemUtils.getCacheDir(), COMPILED_FOLDER_NAME);
+    }
+
+    /**
+     * The start of the names of the compiled files of all versions of a LUT file.
+     */
+    static String getCompiledFilePrefix(final File lutFile) throws IOException {
+        return lutFile.getName() + '.' + Integer.toHexString(lutFile.getCanonicalPath().hashCode()) + '.';
+    }
+
+    /**
+     * Delete the compiled files of the other versions of a LUT file.
+     */
+    private static void deleteStaleCompiledFiles(final File compiledFile, final File lutFile) throws IOException {
+        final String prefix = getCompiledFilePrefix(lutFile);
+        final File[] staleFiles = compiledFile.getParentFile().listFiles((dir, name) -> name.startsWith(prefix) &&
+                name.endsWith(COMPILED_EXTENSION) && !name.equals(compiledFile.getName()));
+        if (staleFiles != null) {
+            for (File staleFile : staleFiles) {
+                try {
+                    Files.deleteIfExists(staleFile.toPath());
+                } catch (IOException e) {
+                    // still mapped on some platforms, deleted by a later compilation
+                    SystemUtils.LOG.fine("Unable to delete compiled LUT " + staleFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean matches(final File lutFile, final int numParams, final int numSections,
+                            final int numRowsPerSection) {
+        return lutFile.length() == lutLength && lutFile.lastModified() == lutLastModified &&
+                paramLUT[0].length == numParams && this.numSections == numSections &&
+                this.numRowsPerSection == numRowsPerSection;
+    }
+
+    boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * @return the parameters of the rows of one section, not to be modified
+     */
+    double[][] getParamLUT() {
+        return paramLUT;
+    }
+
+    /**
+     * @param sectionIdx zero-based index of the angle section
+     * @param rowIdx     zero-based row index relative to the start of the angle section
+     * @param colIdx     0 for sigmaHH and 1 for sigmaVV
+     * @return the sigma
+     */
+    double getSigma(final int sectionIdx, final int rowIdx, final int colIdx) {
+        return sigmaTable.get(2 * (sectionIdx * numRowsPerSection + rowIdx) + colIdx);
+    }
+
+    /**
+     * Get the KD tree of the sigmas of a combination of angle sections and polarizations, building it on first use.
+     *
+     * @param sectionIdx  angle section of each sigma
+     * @param sigmaColIdx polarization of each sigma, 0 for HH and 1 for VV
+     * @return the KD tree
+     */
+    SigmaKDTree getKDTree(final int[] sectionIdx, final int[] sigmaColIdx) {
+
+        final StringBuilder key = new StringBuilder();
+        for (int i = 0; i < sectionIdx.length; ++i) {
+            key.append(sectionIdx[i]).append(sigmaColIdx[i] == 0 ? 'H' : 'V');
+        }
+        return kdTreeMap.computeIfAbsent(key.toString(), k -> buildKDTree(sectionIdx, sigmaColIdx));
+    }
+
+    private SigmaKDTree buildKDTree(final int[] sectionIdx, final int[] sigmaColIdx) {
+
+        final int treeDim = sectionIdx.length;
+        final double[] points = new double[numRowsPerSection * treeDim];
+        for (int i = 0; i < numRowsPerSection; ++i) {
+            for (int j = 0; j < treeDim; ++j) {
+                points[i * treeDim + j] = getSigma(sectionIdx[j], i, sigmaColIdx[j]);
+            }
+        }
+        return new SigmaKDTree(points, treeDim);
+    }
+
+    /**
+     * Map a compiled LUT file.
+     *
+     * @return the compiled LUT or null if the file does not exist or does not match the LUT file
+     */
+    static IEMLookUpTable readCompiledFile(final File compiledFile, final File lutFile, final int numParams,
+                                           final int numSections, final int numRowsPerSection) {
+
+        if (!compiledFile.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(compiledFile.toPath(), StandardOpenOption.READ)) {
+            final long sigmaOffset = HEADER_SIZE + (long) numRowsPerSection * numParams * Double.BYTES;
+            final long fileSize = sigmaOffset + 2L * numSections * numRowsPerSection * Double.BYTES;
+            if (channel.size() != fileSize || fileSize > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt() != COMPILED_LUT_MAGIC || buffer.getInt() != COMPILED_LUT_VERSION ||
+                    buffer.getLong() != lutFile.length() || buffer.getLong() != lutFile.lastModified() ||
+                    buffer.getInt() != numParams || buffer.getInt() != numSections ||
+                    buffer.getInt() != numRowsPerSection) {
+                return null;
+            }
+
+            buffer.position(HEADER_SIZE);
+            final double[][] paramLUT = new double[numRowsPerSection][numParams];
+            for (double[] row : paramLUT) {
+                for (int j = 0; j < numParams; ++j) {
+                    row[j] = buffer.getDouble();
+                }
+            }
+
+            final DoubleBuffer sigmaTable = buffer.slice().asDoubleBuffer();
+            return new IEMLookUpTable(lutFile, numSections, paramLUT, sigmaTable, true);
+        } catch (IOException | BufferUnderflowException e) {
+            SystemUtils.LOG.warning("Unable to read compiled LUT " + compiledFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the compiled LUT file. Failures are not fatal, the LUT is then kept in memory and parsed again
+     * by the next JVM.
+     */
+    static void writeCompiledFile(final File compiledFile, final File lutFile, final double[][] paramLUT,
+                                  final double[] sigmaTable, final int numSections) {
+
+        final int numRowsPerSection = paramLUT.length;
+        final int numParams = paramLUT[0].length;
+        if (HEADER_SIZE + ((long) numRowsPerSection * numParams + sigmaTable.length) * Double.BYTES >
+                Integer.MAX_VALUE) {
+            return;
+        }
+
+        Path tmpFile = null;
+        try {
+            // a unique name, other processes may compile the same LUT concurrently
+            final Path folder = compiledFile.getParentFile().toPath();
+            Files.createDirectories(folder);
+            tmpFile = Files.createTempFile(folder, compiledFile.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmpFile)))) {
+                out.writeInt(COMPILED_LUT_MAGIC);
+                out.writeInt(COMPILED_LUT_VERSION);
+                out.writeLong(lutFile.length());
+                out.writeLong(lutFile.lastModified());
+                out.writeInt(numParams);
+                out.writeInt(numSections);
+                out.writeInt(numRowsPerSection);
+                out.writeInt(0); // align the tables on 8 bytes
+
+                for (double[] row : paramLUT) {
+                    for (double val : row) {
+                        out.writeDouble(val);
+                    }
+                }
+                for (double val : sigmaTable) {
+                    out.writeDouble(val);
+                }
+            }
+            try {
+                Files.move(tmpFile, compiledFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, compiledFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            deleteStaleCompiledFiles(compiledFile, lutFile);
+        } catch (IOException e) {
+            SystemUtils.LOG.fine("Unable to write compiled LUT " + compiledFile + ": " + e.getMessage());
+            if (tmpFile != null) {
+                try {
+                    Files.deleteIfExists(tmpFile);
+                } catch (IOException ignored) {
+                    // left for the next compilation
+                }
+            }
+        }
+    }
+}
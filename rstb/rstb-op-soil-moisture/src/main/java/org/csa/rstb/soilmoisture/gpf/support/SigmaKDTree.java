@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.soilmoisture.gpf.support;
+
+import java.util.Arrays;
+
+/**
+ * Balanced KD tree over the sigmas of the rows of one angle section combination of the LUT.
+ * <p>
+ * The tree is implicit: the points are kept in one array in tree order, the root of a range being the median
+ * point of the range split along the axis of its depth, as in the javaml KD tree. The tree is immutable once
+ * built and may be searched concurrently.
+ */
+final class SigmaKDTree {
+
+    private final int dim;
+    private final int size;
+    // coordinates of the points in tree order
+    private final double[] coords;
+    // LUT row index of the points in tree order
+    private final int[] rows;
+
+    /**
+     * @param points the sigmas of LUT row i are points[i * dim] ... points[i * dim + dim - 1]
+     * @param dim    the number of sigmas being compared
+     */
+    SigmaKDTree(final double[] points, final int dim) {
+
+        this.dim = dim;
+        this.size = points.length / dim;
+
+        rows = new int[size];
+        for (int i = 0; i < size; ++i) {
+            rows[i] = i;
+        }
+        build(points, 0, size, 0);
+
+        coords = new double[size * dim];
+        for (int i = 0; i < size; ++i) {
+            System.arraycopy(points, rows[i] * dim, coords, i * dim, dim);
+        }
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getDimension() {
+        return dim;
+    }
+
+    private void build(final double[] points, final int lo, final int hi, final int depth) {
+
+        if (hi - lo <= 1) {
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        select(points, lo, hi - 1, mid, depth % dim);
+        build(points, lo, mid, depth + 1);
+        build(points, mid + 1, hi, depth + 1);
+    }
+
+    // Partially sorts rows[left..right] so that rows[k] is in its sorted place along the axis.
+    private void select(final double[] points, int left, int right, final int k, final int axis) {
+
+        while (right > left) {
+            final double pivot = points[rows[(left + right) >>> 1] * dim + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[rows[i] * dim + axis] < pivot) {
+                    ++i;
+                }
+                while (points[rows[j] * dim + axis] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    final int tmp = rows[i];
+                    rows[i++] = rows[j];
+                    rows[j--] = tmp;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param key the measured sigmas
+     * @return the LUT row index of the nearest point, or -1 if the tree is empty
+     */
+    int nearest(final double[] key) {
+
+        final int[] result = nearest(key, 1);
+        return result.length == 0 ? -1 : result[0];
+    }
+
+    /**
+     * @param key the measured sigmas
+     * @param n   number of neighbours
+     * @return the LUT row indices of the n nearest points, nearest first
+     */
+    int[] nearest(final double[] key, final int n) {
+
+        final int count = Math.min(n, size);
+        final double[] bestDistSq = new double[count];
+        final int[] bestRows = new int[count];
+        Arrays.fill(bestDistSq, Double.POSITIVE_INFINITY);
+        Arrays.fill(bestRows, -1);
+
+        if (count > 0) {
+            search(key, 0, size, 0, bestDistSq, bestRows);
+        }
+        return bestRows;
+    }
+
+    private void search(final double[] key, final int lo, final int hi, final int depth,
+                        final double[] bestDistSq, final int[] bestRows) {
+
+        if (lo >= hi) {
+            return;
+        }
+
+        final int mid = (lo + hi) >>> 1;
+        final int offset = mid * dim;
+
+        double distSq = 0.0;
+        for (int d = 0; d < dim; ++d) {
+            final double diff = key[d] - coords[offset + d];
+            distSq += diff * diff;
+        }
+
+        final int last = bestDistSq.length - 1;
+        if (distSq < bestDistSq[last]) {
+            int i = last;
+            while (i > 0 && bestDistSq[i - 1] > distSq) {
+                bestDistSq[i] = bestDistSq[i - 1];
+                bestRows[i] = bestRows[i - 1];
+                --i;
+            }
+            bestDistSq[i] = distSq;
+            bestRows[i] = rows[mid];
+        }
+
+        final double diff = key[depth % dim] - coords[offset + depth % dim];
+        if (diff < 0) {
+            search(key, lo, mid, depth + 1, bestDistSq, bestRows);
+            if (diff * diff < bestDistSq[last]) {
+                search(key, mid + 1, hi, depth + 1, bestDistSq, bestRows);
+            }
+        } else {
+            search(key, mid + 1, hi, depth + 1, bestDistSq, bestRows);
+            if (diff * diff < bestDistSq[last]) {
+                search(key, lo, mid, depth + 1, bestDistSq, bestRows);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.soilmoisture.gpf.support;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for IEMLookUpTable and SigmaKDTree.
+ */
+public class TestIEMLookUpTable {
+
+    private static final int NUM_PARAMS = 3;
+    private static final int NUM_SECTIONS = 4;
+    private static final int NUM_ROWS = 500;
+
+    @Test
+    public void testKDTreeMatchesLinearSearch() {
+
+        final Random random = new Random(1);
+        for (int dim : new int[]{2, 4}) {
+            final double[] points = new double[NUM_ROWS * dim];
+            for (int i = 0; i < points.length; ++i) {
+                // coarse values so that there are ties along the axes
+                points[i] = -30 + random.nextInt(200) * 0.15;
+            }
+            final SigmaKDTree tree = new SigmaKDTree(points, dim);
+            assertEquals(NUM_ROWS, tree.getSize());
+
+            final double[] key = new double[dim];
+            for (int q = 0; q < 200; ++q) {
+                for (int d = 0; d < dim; ++d) {
+                    key[d] = -35 + random.nextDouble() * 40;
+                }
+
+                final double[] expected = new double[NUM_ROWS];
+                for (int i = 0; i < NUM_ROWS; ++i) {
+                    expected[i] = distSq(points, i, dim, key);
+                }
+                Arrays.sort(expected);
+
+                final int[] rows = tree.nearest(key, 5);
+                assertEquals(5, rows.length);
+                for (int k = 0; k < rows.length; ++k) {
+                    assertEquals(expected[k], distSq(points, rows[k], dim, key), 0.0);
+                }
+                assertEquals(expected[0], distSq(points, tree.nearest(key), dim, key), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testMoreNeighboursThanPoints() {
+        final SigmaKDTree tree = new SigmaKDTree(new double[]{1, 1, 2, 2, 3, 3}, 2);
+        assertArrayEquals(new int[]{1, 2, 0}, tree.nearest(new double[]{2.1, 2.1}, 10));
+    }
+
+    @Test
+    public void testCompiledLUT() throws Exception {
+
+        final File folder = Files.createTempDirectory("sm_luts").toFile();
+        final File lutFile = new File(folder, "test.csv");
+        Files.write(lutFile.toPath(), new byte[]{1, 2, 3});
+
+        final AtomicInteger numReads = new AtomicInteger();
+        final IEMLookUpTable.Reader reader = (paramLUT, sigmaTable) -> {
+            numReads.incrementAndGet();
+            fill(paramLUT, sigmaTable);
+        };
+
+        final IEMLookUpTable lut = IEMLookUpTable.getInstance(lutFile, NUM_PARAMS, NUM_SECTIONS, NUM_ROWS, reader);
+        assertEquals(1, numReads.get());
+        assertTrue(lut.isMapped());
+        assertSame(lut, IEMLookUpTable.getInstance(lutFile, NUM_PARAMS, NUM_SECTIONS, NUM_ROWS, reader));
+        assertEquals(1, numReads.get());
+
+        // a new JVM maps the compiled file, kept in the cache rather than next to the LUT
+        final File compiledFile = IEMLookUpTable.getCompiledFile(lutFile, NUM_PARAMS);
+        assertTrue(compiledFile.exists());
+        assertEquals(IEMLookUpTable.getCompiledFolder(), compiledFile.getParentFile());
+        assertArrayEquals(new String[]{lutFile.getName()}, folder.list());
+        // no temporary file is left behind
+        assertArrayEquals(new File[]{compiledFile}, listCompiledFiles(lutFile));
+        final IEMLookUpTable mapped = IEMLookUpTable.readCompiledFile(compiledFile, lutFile, NUM_PARAMS,
+                NUM_SECTIONS, NUM_ROWS);
+        assertNotNull(mapped);
+        assertNull(IEMLookUpTable.readCompiledFile(compiledFile, lutFile, NUM_PARAMS, NUM_SECTIONS + 1, NUM_ROWS));
+
+        final double[][] expectedParams = new double[NUM_ROWS][NUM_PARAMS];
+        final double[] expectedSigmas = new double[2 * NUM_SECTIONS * NUM_ROWS];
+        fill(expectedParams, expectedSigmas);
+        for (int i = 0; i < NUM_ROWS; ++i) {
+            assertArrayEquals(expectedParams[i], mapped.getParamLUT()[i], 0.0);
+        }
+        for (int s = 0; s < NUM_SECTIONS; ++s) {
+            for (int i = 0; i < NUM_ROWS; ++i) {
+                for (int c = 0; c < 2; ++c) {
+                    assertEquals(expectedSigmas[2 * (s * NUM_ROWS + i) + c], mapped.getSigma(s, i, c), 0.0);
+                }
+            }
+        }
+
+        final int[] sectionIdx = {1, 1, 3, 3};
+        final int[] sigmaColIdx = {0, 1, 0, 1};
+        final SigmaKDTree tree = lut.getKDTree(sectionIdx, sigmaColIdx);
+        assertSame(tree, lut.getKDTree(sectionIdx.clone(), sigmaColIdx.clone()));
+        assertEquals(4, tree.getDimension());
+        final int row = 123;
+        final double[] key = new double[4];
+        for (int j = 0; j < 4; ++j) {
+            key[j] = lut.getSigma(sectionIdx[j], row, sigmaColIdx[j]);
+        }
+        assertEquals(row, tree.nearest(key));
+
+        // the LUT is compiled again when the LUT file changes, replacing the compiled file of the old version
+        assertTrue(lutFile.setLastModified(lutFile.lastModified() - 10000));
+        IEMLookUpTable.getInstance(lutFile, NUM_PARAMS, NUM_SECTIONS, NUM_ROWS, reader);
+        assertEquals(2, numReads.get());
+        final File newCompiledFile = IEMLookUpTable.getCompiledFile(lutFile, NUM_PARAMS);
+        assertNotEquals(compiledFile, newCompiledFile);
+        assertArrayEquals(new File[]{newCompiledFile}, listCompiledFiles(lutFile));
+
+        // a LUT of the same name in another folder is compiled separately
+        final File otherLutFile = new File(Files.createTempDirectory("sm_luts").toFile(), lutFile.getName());
+        Files.write(otherLutFile.toPath(), new byte[]{1, 2, 3});
+        assertTrue(otherLutFile.setLastModified(lutFile.lastModified()));
+        assertNotEquals(newCompiledFile, IEMLookUpTable.getCompiledFile(otherLutFile, NUM_PARAMS));
+
+        Files.delete(newCompiledFile.toPath());
+    }
+
+    /**
+     * The compiled files and temporary files in the cache that start with the LUT file name.
+     */
+    private static File[] listCompiledFiles(final File lutFile) throws Exception {
+        final String prefix = IEMLookUpTable.getCompiledFilePrefix(lutFile);
+        final File[] files = IEMLookUpTable.getCompiledFolder().listFiles((dir, name) -> name.startsWith(prefix));
+        assertNotNull(files);
+        return files;
+    }
+
+    private static void fill(final double[][] paramLUT, final double[] sigmaTable) {
+        final Random random = new Random(2);
+        for (double[] row : paramLUT) {
+            for (int j = 0; j < row.length; ++j) {
+                row[j] = random.nextDouble();
+            }
+        }
+        for (int i = 0; i < sigmaTable.length; ++i) {
+            sigmaTable[i] = -30 + 30 * random.nextDouble();
+        }
+    }
+
+    private static double distSq(final double[] points, final int row, final int dim, final double[] key) {
+        double distSq = 0.0;
+        for (int d = 0; d < dim; ++d) {
+            final double diff = key[d] - points[row * dim + d];
+            distSq += diff * diff;
+        }
+        return distSq;
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.dataop.dem.ElevationModel;
+import org.esa.snap.core.dataop.resamp.Resampling;
+import org.esa.snap.core.dataop.resamp.ResamplingFactory;
+import org.esa.snap.dem.dataio.DEMFactory;
+import org.esa.snap.dem.dataio.EarthGravitationalModel96;
+import org.esa.snap.dem.dataio.FileElevationModel;
+import org.esa.snap.engine_utilities.gpf.TileGeoreferencing;
+import org.esa.snap.runtime.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Pool of elevation models and DEM sample blocks shared by the SAR operators.
+ * <p>
+ * Elevation models are shared between all operators of all graphs that ask for the same DEM, resampling method
+ * and EGM setting, so that the DEM tiles are read and decoded once. The models are reference counted and
+ * disposed when the last operator releases them.
+ * <p>
+ * getLocalDEM() resamples the DEM on the pixels of a SAR tile from blocks of raw DEM samples. The blocks are
+ * cached per elevation model and block position in DEM pixel space, which does not depend on the geocoding of
+ * the SAR product, so the operators of several products over the same area share them while each resamples on
+ * its own grid. The blocks are bounded by the preference s1tbx.dem.tilePoolSizeMB, evicted least recently used
+ * and dropped with their elevation model when the last operator releases it. Delaunay interpolation has no
+ * Resampling and is left to DEMFactory.getLocalDEM().
+ */
+public final class DEMTilePool {
+
+    private static final long DEFAULT_POOL_SIZE_MB = 128;
+    static final int BLOCK_SIZE = 256;
+
+    private static final Map<ModelKey, SharedModel> models = new HashMap<>();
+    private static final Map<ElevationModel, ModelKey> modelKeys = new IdentityHashMap<>();
+
+    private static final Map<BlockKey, double[]> blocks = new LinkedHashMap<>(256, 0.75f, true);
+    private static long maxBytes = Config.instance().preferences().getLong(
+            "s1tbx.dem.tilePoolSizeMB", DEFAULT_POOL_SIZE_MB) * 1024L * 1024L;
+    private static long usedBytes = 0;
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private DEMTilePool() {
+    }
+
+    /**
+     * Get a shared elevation model of an auto downloaded DEM. Every call must be paired with release().
+     *
+     * @param demName            the DEM name
+     * @param demResamplingMethod the DEM resampling method
+     * @return the elevation model
+     * @throws IOException if the DEM cannot be created
+     */
+    public static ElevationModel acquire(final String demName, final String demResamplingMethod) throws IOException {
+
+        return acquire(new ModelKey(demName, demResamplingMethod, 0, false, 0.0),
+                () -> DEMFactory.createElevationModel(demName, demResamplingMethod));
+    }
+
+    /**
+     * Get a shared elevation model of an external DEM file. Every call must be paired with release().
+     *
+     * @param externalDEMFile       the DEM file
+     * @param demResamplingMethod   the DEM resampling method
+     * @param externalDEMNoDataValue the no data value of the DEM file
+     * @param applyEGM              true if the EGM96 geoid is added to the DEM heights
+     * @return the elevation model
+     * @throws IOException if the DEM file cannot be opened
+     */
+    public static ElevationModel acquire(final File externalDEMFile, final String demResamplingMethod,
+                                         final double externalDEMNoDataValue, final boolean applyEGM)
+            throws IOException {
+
+        final ModelKey key = new ModelKey(externalDEMFile.getAbsolutePath(), demResamplingMethod,
+                externalDEMFile.lastModified(), applyEGM, externalDEMNoDataValue);
+        return acquire(key, () -> {
+            final FileElevationModel fileDEM = new FileElevationModel(
+                    externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
+            fileDEM.applyEarthGravitionalModel(applyEGM);
+            return fileDEM;
+        });
+    }
+
+    /**
+     * Get a shared elevation model of an external DEM file with the EGM setting of FileElevationModel. Every
+     * call must be paired with release().
+     *
+     * @param externalDEMFile       the DEM file
+     * @param demResamplingMethod   the DEM resampling method
+     * @param externalDEMNoDataValue the no data value of the DEM file
+     * @return the elevation model
+     * @throws IOException if the DEM file cannot be opened
+     */
+    public static ElevationModel acquire(final File externalDEMFile, final String demResamplingMethod,
+                                         final double externalDEMNoDataValue) throws IOException {
+
+        final ModelKey key = new ModelKey(externalDEMFile.getAbsolutePath(), demResamplingMethod,
+                externalDEMFile.lastModified(), null, externalDEMNoDataValue);
+        return acquire(key, () -> new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue));
+    }
+
+    /**
+     * Get a shared elevation model created by a factory, for the tests.
+     */
+    static ElevationModel acquire(final String name, final String demResamplingMethod,
+                                  final ModelFactory factory) throws IOException {
+        return acquire(new ModelKey(name, demResamplingMethod, 0, false, 0.0), factory);
+    }
+
+    private static ElevationModel acquire(final ModelKey key, final ModelFactory factory) throws IOException {
+        synchronized (models) {
+            SharedModel shared = models.get(key);
+            if (shared == null) {
+                shared = new SharedModel(factory.create());
+                models.put(key, shared);
+                modelKeys.put(shared.dem, key);
+            }
+            ++shared.refCount;
+            return shared.dem;
+        }
+    }
+
+    /**
+     * Release an elevation model obtained from acquire(). Models not created by the pool are disposed directly.
+     *
+     * @param dem the elevation model
+     */
+    public static void release(final ElevationModel dem) {
+        if (dem == null) {
+            return;
+        }
+        synchronized (models) {
+            final ModelKey key = modelKeys.get(dem);
+            if (key == null) {
+                dem.dispose();
+                return;
+            }
+            final SharedModel shared = models.get(key);
+            if (--shared.refCount <= 0) {
+                models.remove(key);
+                modelKeys.remove(dem);
+                removeBlocks(key);
+                dem.dispose();
+            }
+        }
+    }
+
+    /**
+     * Same as DEMFactory.getLocalDEM but the DEM samples are read from the pool if the elevation model was
+     * obtained from acquire(). The DEM is resampled on the tile pixels, with one extra pixel on each side,
+     * with the resampling method of the elevation model. Delaunay interpolation is done by DEMFactory.
+     */
+    public static boolean getLocalDEM(final ElevationModel dem, final double demNoDataValue,
+                                      final String demResamplingMethod, final TileGeoreferencing tileGeoRef,
+                                      final int x0, final int y0, final int w, final int h,
+                                      final Product sourceProduct, final boolean nodataValueAtSea,
+                                      final double[][] localDEM) throws Exception {
+
+        final ModelKey modelKey;
+        synchronized (models) {
+            modelKey = modelKeys.get(dem);
+        }
+        final Resampling resampling = getResampling(demResamplingMethod);
+        if (modelKey == null || resampling == null || getMaxBytes() <= 0) {
+            return DEMFactory.getLocalDEM(dem, demNoDataValue, demResamplingMethod, tileGeoRef, x0, y0, w, h,
+                    sourceProduct, nodataValueAtSea, localDEM);
+        }
+
+        // positions of the tile pixels in the DEM
+        final int width = w + 2;
+        final int height = h + 2;
+        final double[] lat = new double[width * height];
+        final double[] lon = new double[width * height];
+        final double[] demX = new double[width * height];
+        final double[] demY = new double[width * height];
+        final GeoPos geoPos = new GeoPos();
+        for (int y = 0, i = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x, ++i) {
+                tileGeoRef.getGeoPos(x0 - 1 + x, y0 - 1 + y, geoPos);
+                if (!geoPos.isValid()) {
+                    demX[i] = demY[i] = Double.NaN;
+                    continue;
+                }
+                if (geoPos.lon > 180) {
+                    geoPos.lon -= 360;
+                } else if (geoPos.lon < -180) {
+                    geoPos.lon += 360;
+                }
+                final PixelPos pixelPos = dem.getIndex(geoPos);
+                lat[i] = geoPos.lat;
+                lon[i] = geoPos.lon;
+                demX[i] = pixelPos.x;
+                demY[i] = pixelPos.y;
+            }
+        }
+
+        return resample(modelKey, dem::getSample, resampling, demNoDataValue, nodataValueAtSea,
+                lat, lon, demX, demY, localDEM);
+    }
+
+    /**
+     * @return the resampling of a DEM resampling method, or null for Delaunay interpolation, which is not a
+     * Resampling
+     */
+    static Resampling getResampling(final String demResamplingMethod) {
+        if (DEMFactory.DELAUNAY_INTERPOLATION.equals(demResamplingMethod)) {
+            return null;
+        }
+        return ResamplingFactory.createResampling(demResamplingMethod);
+    }
+
+    /**
+     * Reads the DEM samples around a set of DEM pixel positions and resamples them.
+     *
+     * @param modelKey the key of the pooled blocks of the DEM, null to read the samples directly
+     * @param samples  the raw DEM samples
+     * @param lat      the latitudes of the positions
+     * @param lon      the longitudes of the positions
+     * @param demX     the x positions in the DEM, NaN if not valid
+     * @param demY     the y positions in the DEM, NaN if not valid
+     * @param localDEM the resampled elevations, row by row in the order of the positions (output)
+     * @return true if any elevation is valid
+     */
+    static boolean resample(final Object modelKey, final SampleSource samples, final Resampling resampling,
+                            final double demNoDataValue, final boolean nodataValueAtSea,
+                            final double[] lat, final double[] lon, final double[] demX, final double[] demY,
+                            final double[][] localDEM) throws Exception {
+
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < demX.length; ++i) {
+            if (!Double.isNaN(demX[i])) {
+                minX = Math.min(minX, demX[i]);
+                maxX = Math.max(maxX, demX[i]);
+                minY = Math.min(minY, demY[i]);
+                maxY = Math.max(maxY, demY[i]);
+            }
+        }
+
+        if (minX > maxX) {
+            for (double[] row : localDEM) {
+                Arrays.fill(row, demNoDataValue);
+            }
+            return false;
+        }
+
+        // the DEM window covering the positions and the resampling kernel
+        final int margin = resampling.getKernelSize() + 1;
+        final int winX0 = (int) Math.floor(minX) - margin;
+        final int winY0 = (int) Math.floor(minY) - margin;
+        final int winW = (int) Math.floor(maxX) + margin - winX0 + 1;
+        final int winH = (int) Math.floor(maxY) + margin - winY0 + 1;
+        final double[][] window = readWindow(modelKey, samples, demNoDataValue, winX0, winY0, winW, winH);
+
+        final ResamplingRaster raster = new ResamplingRaster(window, demNoDataValue);
+        final Resampling.Index index = resampling.createIndex();
+        final EarthGravitationalModel96 egm = nodataValueAtSea ? null : EarthGravitationalModel96.instance();
+        final int width = localDEM[0].length;
+        boolean valid = false;
+        for (int i = 0; i < demX.length; ++i) {
+            final int y = i / width;
+            final int x = i - y * width;
+            if (Double.isNaN(demX[i])) {
+                localDEM[y][x] = demNoDataValue;
+                continue;
+            }
+
+            resampling.computeIndex(demX[i] - winX0, demY[i] - winY0, winW, winH, index);
+            double alt = resampling.resample(raster, index);
+            if (Double.isNaN(alt) || alt == demNoDataValue) {
+                if (nodataValueAtSea) {
+                    localDEM[y][x] = demNoDataValue;
+                    continue;
+                }
+                alt = egm.getEGM(lat[i], lon[i]);
+            }
+            localDEM[y][x] = alt;
+            valid = true;
+        }
+        return valid;
+    }
+
+    private static double[][] readWindow(final Object modelKey, final SampleSource samples,
+                                         final double demNoDataValue,
+                                         final int winX0, final int winY0, final int winW, final int winH) {
+
+        final double[][] window = new double[winH][winW];
+        if (modelKey == null) {
+            for (int y = 0; y < winH; ++y) {
+                for (int x = 0; x < winW; ++x) {
+                    window[y][x] = getSample(samples, winX0 + x, winY0 + y, demNoDataValue);
+                }
+            }
+            return window;
+        }
+
+        final int firstBlockX = Math.floorDiv(winX0, BLOCK_SIZE);
+        final int firstBlockY = Math.floorDiv(winY0, BLOCK_SIZE);
+        final int lastBlockX = Math.floorDiv(winX0 + winW - 1, BLOCK_SIZE);
+        final int lastBlockY = Math.floorDiv(winY0 + winH - 1, BLOCK_SIZE);
+        for (int by = firstBlockY; by <= lastBlockY; ++by) {
+            for (int bx = firstBlockX; bx <= lastBlockX; ++bx) {
+                final double[] block = getBlock(modelKey, samples, demNoDataValue, bx, by);
+
+                // copy the overlap of the block and the window
+                final int x0 = Math.max(bx * BLOCK_SIZE, winX0);
+                final int x1 = Math.min((bx + 1) * BLOCK_SIZE, winX0 + winW);
+                final int y0 = Math.max(by * BLOCK_SIZE, winY0);
+                final int y1 = Math.min((by + 1) * BLOCK_SIZE, winY0 + winH);
+                for (int y = y0; y < y1; ++y) {
+                    System.arraycopy(block, (y - by * BLOCK_SIZE) * BLOCK_SIZE + x0 - bx * BLOCK_SIZE,
+                            window[y - winY0], x0 - winX0, x1 - x0);
+                }
+            }
+        }
+        return window;
+    }
+
+    private static double[] getBlock(final Object modelKey, final SampleSource samples, final double demNoDataValue,
+                                     final int bx, final int by) {
+        final BlockKey key = new BlockKey(modelKey, bx, by);
+        synchronized (blocks) {
+            final double[] block = blocks.get(key);
+            if (block != null) {
+                ++hits;
+                return block;
+            }
+            ++misses;
+        }
+
+        final double[] block = new double[BLOCK_SIZE * BLOCK_SIZE];
+        for (int y = 0, i = 0; y < BLOCK_SIZE; ++y) {
+            for (int x = 0; x < BLOCK_SIZE; ++x, ++i) {
+                block[i] = getSample(samples, bx * BLOCK_SIZE + x, by * BLOCK_SIZE + y, demNoDataValue);
+            }
+        }
+        put(key, block);
+        return block;
+    }
+
+    private static double getSample(final SampleSource samples, final int x, final int y,
+                                     final double demNoDataValue) {
+        try {
+            final double sample = samples.getSample(x, y);
+            return Double.isNaN(sample) ? demNoDataValue : sample;
+        } catch (Exception e) {
+            // outside of the DEM
+            return demNoDataValue;
+        }
+    }
+
+    private static void put(final BlockKey key, final double[] block) {
+        final long bytes = block.length * 8L;
+        synchronized (blocks) {
+            if (bytes > maxBytes) {
+                return;
+            }
+            if (blocks.put(key, block) == null) {
+                usedBytes += bytes;
+            }
+            evict(block);
+        }
+    }
+
+    private static void evict(final double[] keep) {
+        final Iterator<double[]> it = blocks.values().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            final double[] eldest = it.next();
+            if (eldest == keep) {
+                continue;
+            }
+            usedBytes -= eldest.length * 8L;
+            it.remove();
+        }
+    }
+
+    private static void removeBlocks(final Object modelKey) {
+        synchronized (blocks) {
+            final Iterator<Map.Entry<BlockKey, double[]>> it = blocks.entrySet().iterator();
+            while (it.hasNext()) {
+                final Map.Entry<BlockKey, double[]> entry = it.next();
+                if (entry.getKey().model.equals(modelKey)) {
+                    usedBytes -= entry.getValue().length * 8L;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static long getMaxBytes() {
+        synchronized (blocks) {
+            return maxBytes;
+        }
+    }
+
+    /**
+     * Set the maximum size of the cached DEM blocks, evicting blocks if needed.
+     *
+     * @param sizeInBytes the maximum size in bytes, 0 disables the block cache
+     */
+    public static void setMaxBytes(final long sizeInBytes) {
+        synchronized (blocks) {
+            maxBytes = sizeInBytes;
+            evict(null);
+        }
+    }
+
+    /**
+     * Remove all cached DEM blocks. Shared elevation models stay with their operators.
+     */
+    public static void clear() {
+        synchronized (blocks) {
+            blocks.clear();
+            usedBytes = 0;
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    public static long getUsedBytes() {
+        synchronized (blocks) {
+            return usedBytes;
+        }
+    }
+
+    public static long getHitCount() {
+        synchronized (blocks) {
+            return hits;
+        }
+    }
+
+    public static long getMissCount() {
+        synchronized (blocks) {
+            return misses;
+        }
+    }
+
+    private static final class SharedModel {
+        final ElevationModel dem;
+        int refCount;
+
+        SharedModel(final ElevationModel dem) {
+            this.dem = dem;
+        }
+    }
+
+    /**
+     * Creates the elevation model of a pool entry.
+     */
+    interface ModelFactory {
+        ElevationModel create() throws IOException;
+    }
+
+    /**
+     * The raw samples of an elevation model in DEM pixel space, as ElevationModel.getSample().
+     */
+    interface SampleSource {
+        double getSample(double x, double y) throws Exception;
+    }
+
+    private static final class ResamplingRaster implements Resampling.Raster {
+
+        private final double[][] data;
+        private final double noDataValue;
+
+        ResamplingRaster(final double[][] data, final double noDataValue) {
+            this.data = data;
+            this.noDataValue = noDataValue;
+        }
+
+        public int getWidth() {
+            return data[0].length;
+        }
+
+        public int getHeight() {
+            return data.length;
+        }
+
+        public boolean getSamples(final int[] x, final int[] y, final double[][] samples) {
+            boolean allValid = true;
+            for (int i = 0; i < y.length; ++i) {
+                for (int j = 0; j < x.length; ++j) {
+                    double val = data[y[i]][x[j]];
+                    if (noDataValue == val) {
+                        val = Double.NaN;
+                        allValid = false;
+                    }
+                    samples[i][j] = val;
+                }
+            }
+            return allValid;
+        }
+    }
+
+    private static final class ModelKey {
+        final String name;
+        final String resampling;
+        final long lastModified;
+        final Boolean applyEGM;
+        final double noDataValue;
+
+        ModelKey(final String name, final String resampling, final long lastModified, final Boolean applyEGM,
+                 final double noDataValue) {
+            this.name = name;
+            this.resampling = resampling;
+            this.lastModified = lastModified;
+            this.applyEGM = applyEGM;
+            this.noDataValue = noDataValue;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ModelKey)) return false;
+            final ModelKey that = (ModelKey) o;
+            return lastModified == that.lastModified && Objects.equals(applyEGM, that.applyEGM) &&
+                    Double.compare(noDataValue, that.noDataValue) == 0 &&
+                    name.equals(that.name) && Objects.equals(resampling, that.resampling);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, resampling, lastModified, applyEGM, noDataValue);
+        }
+    }
+
+    private static final class BlockKey {
+        final Object model;
+        final int x;
+        final int y;
+
+        BlockKey(final Object model, final int x, final int y) {
+            this.model = model;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlockKey)) return false;
+            final BlockKey that = (BlockKey) o;
+            return x == that.x && y == that.y && model.equals(that.model);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * model.hashCode() + x) + y;
+        }
+    }
+}
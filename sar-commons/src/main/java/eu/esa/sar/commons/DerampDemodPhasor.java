@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import java.awt.*;
+
+/**
+ * Rotation factors exp(i * phase) of the TOPS deramp and demodulation phase of a burst, as computed by
+ * Sentinel1Utils.computeDerampDemodPhase.
+ * <p>
+ * For a range sample the phase is quadratic in the line number n, phase(n) = a n^2 + b n + c, so the rotation
+ * factor of the next line is the current one times exp(i * (phase(n + 1) - phase(n))), and that step factor is
+ * itself multiplied by the constant exp(i * 2a) from line to line. A pixel then costs two complex multiplications
+ * instead of a power, a cosine and a sine. The recurrence is re-anchored with a direct evaluation every
+ * ANCHOR_INTERVAL lines so that rounding errors cannot accumulate.
+ * <p>
+ * The phasor keeps its buffers from one call to the next and must not be shared between threads.
+ */
+public class DerampDemodPhasor {
+
+    private static final int ANCHOR_INTERVAL = 64;
+
+    // interleaved cos/sin of the last computed rectangle
+    private float[] phasors = new float[0];
+    private int width;
+    private int height;
+
+    // per range sample state of the recurrence
+    private double[] zRe = new double[0], zIm = new double[0];
+    private double[] rRe = new double[0], rIm = new double[0];
+    private double[] qRe = new double[0], qIm = new double[0];
+
+    /**
+     * Compute the rotation factors of the deramp and demodulation phase for a rectangle of a burst.
+     *
+     * @param subSwath      the sub-swaths
+     * @param subSwathIndex the sub-swath index, starting at 1
+     * @param burstIndex    the burst index
+     * @param rectangle     the rectangle in image coordinates
+     * @return cos and sin of the phase, interleaved, row by row. The array is reused by the next call.
+     */
+    public float[] compute(final Sentinel1Utils.SubSwathInfo[] subSwath, final int subSwathIndex,
+                           final int burstIndex, final Rectangle rectangle) {
+        return compute(subSwath, subSwathIndex, burstIndex, rectangle, null);
+    }
+
+    /**
+     * Compute the rotation factors of the deramp and demodulation phase for a rectangle of a burst, and the phase
+     * itself in the same pass, e.g. for the phase to be interpolated at the slave positions.
+     *
+     * @param subSwath      the sub-swaths
+     * @param subSwathIndex the sub-swath index, starting at 1
+     * @param burstIndex    the burst index
+     * @param rectangle     the rectangle in image coordinates
+     * @param phase         receives the phase, [height][width] of the rectangle, or null
+     * @return cos and sin of the phase, interleaved, row by row. The array is reused by the next call.
+     */
+    public float[] compute(final Sentinel1Utils.SubSwathInfo[] subSwath, final int subSwathIndex,
+                           final int burstIndex, final Rectangle rectangle, final double[][] phase) {
+
+        final Sentinel1Utils.SubSwathInfo sw = subSwath[subSwathIndex - 1];
+        return compute(sw.dopplerRate[burstIndex], sw.referenceTime[burstIndex], sw.dopplerCentroid[burstIndex],
+                sw.azimuthTimeInterval, burstIndex * sw.linesPerBurst, rectangle, phase);
+    }
+
+    /**
+     * Compute the rotation factors of the deramp and demodulation phase
+     * -PI * kt * (ta - tref)^2 - 2 * PI * fdc * ta, with ta the azimuth time from the first line of the burst.
+     *
+     * @param dopplerRate         the Doppler rate kt of each range sample
+     * @param referenceTime       the reference time tref of each range sample
+     * @param dopplerCentroid     the Doppler centroid fdc of each range sample
+     * @param azimuthTimeInterval the azimuth time interval
+     * @param firstLineInBurst    the first line of the burst in image coordinates
+     * @param rectangle           the rectangle in image coordinates
+     * @return cos and sin of the phase, interleaved, row by row. The array is reused by the next call.
+     */
+    public float[] compute(final double[] dopplerRate, final double[] referenceTime, final double[] dopplerCentroid,
+                           final double azimuthTimeInterval, final int firstLineInBurst, final Rectangle rectangle) {
+        return compute(dopplerRate, referenceTime, dopplerCentroid, azimuthTimeInterval, firstLineInBurst,
+                rectangle, null);
+    }
+
+    private float[] compute(final double[] dopplerRate, final double[] referenceTime, final double[] dopplerCentroid,
+                            final double azimuthTimeInterval, final int firstLineInBurst, final Rectangle rectangle,
+                            final double[][] phase) {
+
+        final int x0 = rectangle.x;
+        final int y0 = rectangle.y;
+        final int w = rectangle.width;
+        final int h = rectangle.height;
+        allocate(w, h);
+
+        final double dt = azimuthTimeInterval;
+        for (int xx = 0; xx < w; xx++) {
+            final double twoA = -2.0 * Math.PI * dopplerRate[x0 + xx] * dt * dt;
+            qRe[xx] = Math.cos(twoA);
+            qIm[xx] = Math.sin(twoA);
+        }
+
+        for (int yy = 0; yy < h; yy++) {
+            final int n = y0 + yy - firstLineInBurst;
+            if (yy % ANCHOR_INTERVAL == 0) {
+                anchor(dopplerRate, referenceTime, dopplerCentroid, dt, n, x0, w);
+            }
+
+            if (phase != null) {
+                final double[] phaseRow = phase[yy];
+                final double ta = n * dt;
+                for (int xx = 0; xx < w; xx++) {
+                    final double u = ta - referenceTime[x0 + xx];
+                    phaseRow[xx] = -Math.PI * dopplerRate[x0 + xx] * u * u
+                            - 2.0 * Math.PI * dopplerCentroid[x0 + xx] * ta;
+                }
+            }
+
+            int k = 2 * yy * w;
+            for (int xx = 0; xx < w; xx++, k += 2) {
+                final double re = zRe[xx];
+                final double im = zIm[xx];
+                phasors[k] = (float) re;
+                phasors[k + 1] = (float) im;
+
+                // advance to the next line
+                final double sRe = rRe[xx];
+                final double sIm = rIm[xx];
+                zRe[xx] = re * sRe - im * sIm;
+                zIm[xx] = re * sIm + im * sRe;
+                rRe[xx] = sRe * qRe[xx] - sIm * qIm[xx];
+                rIm[xx] = sRe * qIm[xx] + sIm * qRe[xx];
+            }
+        }
+        return phasors;
+    }
+
+    /**
+     * Evaluate the rotation factor of line n and the step to line n + 1 directly.
+     */
+    private void anchor(final double[] dopplerRate, final double[] referenceTime, final double[] dopplerCentroid,
+                        final double dt, final int n, final int x0, final int w) {
+
+        final double ta = n * dt;
+        for (int xx = 0; xx < w; xx++) {
+            final double kt = dopplerRate[x0 + xx];
+            final double tref = referenceTime[x0 + xx];
+            final double fdc = dopplerCentroid[x0 + xx];
+
+            final double u = ta - tref;
+            final double phase = -Math.PI * kt * u * u - 2.0 * Math.PI * fdc * ta;
+            zRe[xx] = Math.cos(phase);
+            zIm[xx] = Math.sin(phase);
+
+            // phase(n + 1) - phase(n) = -PI * kt * dt * (2u + dt) - 2 * PI * fdc * dt
+            final double step = -Math.PI * kt * dt * (2.0 * u + dt) - 2.0 * Math.PI * fdc * dt;
+            rRe[xx] = Math.cos(step);
+            rIm[xx] = Math.sin(step);
+        }
+    }
+
+    private void allocate(final int w, final int h) {
+        width = w;
+        height = h;
+        if (phasors.length < 2 * w * h) {
+            phasors = new float[2 * w * h];
+        }
+        if (zRe.length < w) {
+            zRe = new double[w];
+            zIm = new double[w];
+            rRe = new double[w];
+            rIm = new double[w];
+            qRe = new double[w];
+            qIm = new double[w];
+        }
+    }
+
+    /**
+     * Multiply complex samples in place by the rotation factors of the last computed rectangle, i.e.
+     * I' = I cos - Q sin and Q' = I sin + Q cos.
+     *
+     * @param dataI the real parts, [height][width] of the last computed rectangle
+     * @param dataQ the imaginary parts, [height][width] of the last computed rectangle
+     */
+    public void apply(final double[][] dataI, final double[][] dataQ) {
+        for (int yy = 0; yy < height; yy++) {
+            final double[] rowI = dataI[yy];
+            final double[] rowQ = dataQ[yy];
+            int k = 2 * yy * width;
+            for (int xx = 0; xx < width; xx++, k += 2) {
+                final double cosPhase = phasors[k];
+                final double sinPhase = phasors[k + 1];
+                final double valueI = rowI[xx];
+                final double valueQ = rowQ[xx];
+                rowI[xx] = valueI * cosPhase - valueQ * sinPhase;
+                rowQ[xx] = valueI * sinPhase + valueQ * cosPhase;
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-place 1-D and 2-D complex FFTs of flat, interleaved complex arrays, in float and double precision.
+ * <p>
+ * A 2-D array of rows x cols complex samples holds sample (r, c) at [2 * (r * cols + c)] (real) and
+ * [2 * (r * cols + c) + 1] (imaginary). A batch holds several such patches back to back.
+ * <p>
+ * JTransforms plans are expensive to set up, especially for sizes that are not a power of two, so they are cached
+ * per thread and size together with the scratch buffers used for the column transforms. Each thread keeps the
+ * plans of the last {@link #MAX_CACHED_SIZES} sizes it used. The plans handed out by {@link #getPlan(int)} and
+ * {@link #getFloatPlan(int)} belong to the calling thread and must not be shared.
+ */
+public final class FFT2D {
+
+    static final int MAX_CACHED_SIZES = 8;
+
+    private static final ThreadLocal<Plans> threadPlans = ThreadLocal.withInitial(Plans::new);
+
+    private FFT2D() {
+    }
+
+    /**
+     * @param n the transform length
+     * @return the double precision 1-D plan of the calling thread for the length
+     */
+    public static DoubleFFT_1D getPlan(final int n) {
+        return threadPlans.get().getPlan(n);
+    }
+
+    /**
+     * @param n the transform length
+     * @return the single precision 1-D plan of the calling thread for the length
+     */
+    public static FloatFFT_1D getFloatPlan(final int n) {
+        return threadPlans.get().getFloatPlan(n);
+    }
+
+    // ---------------------------------------------------------------------------------------------- double precision
+
+    public static void complexForward(final double[] a, final int rows, final int cols) {
+        complexForward(a, 0, rows, cols);
+    }
+
+    public static void complexInverse(final double[] a, final int rows, final int cols, final boolean scale) {
+        complexInverse(a, 0, rows, cols, scale);
+    }
+
+    /**
+     * Forward 2-D transform of the patch starting at an offset.
+     */
+    public static void complexForward(final double[] a, final int offset, final int rows, final int cols) {
+        final Plans plans = threadPlans.get();
+        transformRows(plans.getPlan(cols), a, offset, rows, cols, true, false);
+        transformColumns(plans, a, offset, rows, cols, true, false);
+    }
+
+    /**
+     * Inverse 2-D transform of the patch starting at an offset.
+     *
+     * @param scale whether to divide by rows * cols
+     */
+    public static void complexInverse(final double[] a, final int offset, final int rows, final int cols,
+                                      final boolean scale) {
+        final Plans plans = threadPlans.get();
+        transformColumns(plans, a, offset, rows, cols, false, scale);
+        transformRows(plans.getPlan(cols), a, offset, rows, cols, false, scale);
+    }
+
+    /**
+     * Forward 2-D transforms of a batch of patches stored back to back.
+     */
+    public static void complexForwardBatch(final double[] a, final int rows, final int cols, final int numPatches) {
+        for (int p = 0; p < numPatches; ++p) {
+            complexForward(a, 2 * p * rows * cols, rows, cols);
+        }
+    }
+
+    /**
+     * Inverse 2-D transforms of a batch of patches stored back to back.
+     */
+    public static void complexInverseBatch(final double[] a, final int rows, final int cols, final int numPatches,
+                                           final boolean scale) {
+        for (int p = 0; p < numPatches; ++p) {
+            complexInverse(a, 2 * p * rows * cols, rows, cols, scale);
+        }
+    }
+
+    /**
+     * Forward 1-D transform of every row, for example the range lines of a tile.
+     */
+    public static void complexForwardRows(final double[] a, final int rows, final int cols) {
+        transformRows(getPlan(cols), a, 0, rows, cols, true, false);
+    }
+
+    /**
+     * Inverse 1-D transform of every row.
+     */
+    public static void complexInverseRows(final double[] a, final int rows, final int cols, final boolean scale) {
+        transformRows(getPlan(cols), a, 0, rows, cols, false, scale);
+    }
+
+    private static void transformRows(final DoubleFFT_1D plan, final double[] a, final int offset,
+                                      final int rows, final int cols, final boolean forward, final boolean scale) {
+        for (int r = 0; r < rows; ++r) {
+            if (forward) {
+                plan.complexForward(a, offset + 2 * r * cols);
+            } else {
+                plan.complexInverse(a, offset + 2 * r * cols, scale);
+            }
+        }
+    }
+
+    private static void transformColumns(final Plans plans, final double[] a, final int offset,
+                                         final int rows, final int cols, final boolean forward, final boolean scale) {
+        final DoubleFFT_1D plan = plans.getPlan(rows);
+        final double[] column = plans.getColumn(2 * rows);
+        final int stride = 2 * cols;
+        for (int c = 0; c < cols; ++c) {
+            for (int r = 0, k = offset + 2 * c; r < rows; ++r, k += stride) {
+                column[2 * r] = a[k];
+                column[2 * r + 1] = a[k + 1];
+            }
+            if (forward) {
+                plan.complexForward(column);
+            } else {
+                plan.complexInverse(column, scale);
+            }
+            for (int r = 0, k = offset + 2 * c; r < rows; ++r, k += stride) {
+                a[k] = column[2 * r];
+                a[k + 1] = column[2 * r + 1];
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------- single precision
+
+    public static void complexForward(final float[] a, final int rows, final int cols) {
+        complexForward(a, 0, rows, cols);
+    }
+
+    public static void complexInverse(final float[] a, final int rows, final int cols, final boolean scale) {
+        complexInverse(a, 0, rows, cols, scale);
+    }
+
+    public static void complexForward(final float[] a, final int offset, final int rows, final int cols) {
+        final Plans plans = threadPlans.get();
+        transformRows(plans.getFloatPlan(cols), a, offset, rows, cols, true, false);
+        transformColumns(plans, a, offset, rows, cols, true, false);
+    }
+
+    public static void complexInverse(final float[] a, final int offset, final int rows, final int cols,
+                                      final boolean scale) {
+        final Plans plans = threadPlans.get();
+        transformColumns(plans, a, offset, rows, cols, false, scale);
+        transformRows(plans.getFloatPlan(cols), a, offset, rows, cols, false, scale);
+    }
+
+    public static void complexForwardBatch(final float[] a, final int rows, final int cols, final int numPatches) {
+        for (int p = 0; p < numPatches; ++p) {
+            complexForward(a, 2 * p * rows * cols, rows, cols);
+        }
+    }
+
+    public static void complexInverseBatch(final float[] a, final int rows, final int cols, final int numPatches,
+                                           final boolean scale) {
+        for (int p = 0; p < numPatches; ++p) {
+            complexInverse(a, 2 * p * rows * cols, rows, cols, scale);
+        }
+    }
+
+    public static void complexForwardRows(final float[] a, final int rows, final int cols) {
+        transformRows(getFloatPlan(cols), a, 0, rows, cols, true, false);
+    }
+
+    public static void complexInverseRows(final float[] a, final int rows, final int cols, final boolean scale) {
+        transformRows(getFloatPlan(cols), a, 0, rows, cols, false, scale);
+    }
+
+    private static void transformRows(final FloatFFT_1D plan, final float[] a, final int offset,
+                                      final int rows, final int cols, final boolean forward, final boolean scale) {
+        for (int r = 0; r < rows; ++r) {
+            if (forward) {
+                plan.complexForward(a, offset + 2 * r * cols);
+            } else {
+                plan.complexInverse(a, offset + 2 * r * cols, scale);
+            }
+        }
+    }
+
+    private static void transformColumns(final Plans plans, final float[] a, final int offset,
+                                         final int rows, final int cols, final boolean forward, final boolean scale) {
+        final FloatFFT_1D plan = plans.getFloatPlan(rows);
+        final float[] column = plans.getFloatColumn(2 * rows);
+        final int stride = 2 * cols;
+        for (int c = 0; c < cols; ++c) {
+            for (int r = 0, k = offset + 2 * c; r < rows; ++r, k += stride) {
+                column[2 * r] = a[k];
+                column[2 * r + 1] = a[k + 1];
+            }
+            if (forward) {
+                plan.complexForward(column);
+            } else {
+                plan.complexInverse(column, scale);
+            }
+            for (int r = 0, k = offset + 2 * c; r < rows; ++r, k += stride) {
+                a[k] = column[2 * r];
+                a[k + 1] = column[2 * r + 1];
+            }
+        }
+    }
+
+    /**
+     * The plans and column buffers of one thread.
+     */
+    private static final class Plans {
+
+        private final Map<Integer, DoubleFFT_1D> plans = new LruMap<>();
+        private final Map<Integer, FloatFFT_1D> floatPlans = new LruMap<>();
+        private final Map<Integer, double[]> columns = new LruMap<>();
+        private final Map<Integer, float[]> floatColumns = new LruMap<>();
+
+        DoubleFFT_1D getPlan(final int n) {
+            return plans.computeIfAbsent(n, DoubleFFT_1D::new);
+        }
+
+        FloatFFT_1D getFloatPlan(final int n) {
+            return floatPlans.computeIfAbsent(n, FloatFFT_1D::new);
+        }
+
+        // the column transforms work on the whole buffer, so there is one buffer per length
+        double[] getColumn(final int length) {
+            return columns.computeIfAbsent(length, double[]::new);
+        }
+
+        float[] getFloatColumn(final int length) {
+            return floatColumns.computeIfAbsent(length, float[]::new);
+        }
+    }
+
+    /**
+     * Keeps the entries of the most recently used sizes.
+     */
+    private static final class LruMap<V> extends LinkedHashMap<Integer, V> {
+
+        LruMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, V> eldest) {
+            return size() > MAX_CACHED_SIZES;
+        }
+    }
+}
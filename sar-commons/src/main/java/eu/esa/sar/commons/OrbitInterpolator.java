@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+
+import java.util.Arrays;
+
+/**
+ * Lagrange interpolation of orbit state vectors with precomputed coefficients.
+ * <p>
+ * The interpolation uses the same window of nv state vectors as the classic implementation in
+ * OrbitStateVectors. For every interval between two state vectors the Lagrange polynomials of its window are
+ * expanded once into monomials of the normalised time (t - centre) / dt, so that an evaluation is a Horner
+ * scheme of nv terms per component instead of an O(nv^2) product of weights.
+ * <p>
+ * The interpolator is immutable and may be shared between threads. Results are written into caller
+ * supplied vectors and no objects are allocated per evaluation.
+ */
+public final class OrbitInterpolator {
+
+    private static final int NUM_COMPONENTS = 6;
+
+    private final int numSegments;
+    private final int order;
+    private final double firstTime;
+    private final double dt;
+    private final double invDt;
+
+    // per segment: NUM_COMPONENTS blocks of order coefficients, highest power first
+    private final double[] coefficients;
+
+    /**
+     * @param orbitStateVectors state vectors sorted by strictly increasing time
+     * @param nv                the number of state vectors used for each interpolation
+     */
+    public OrbitInterpolator(final OrbitStateVector[] orbitStateVectors, final int nv) {
+
+        final int numVectors = orbitStateVectors.length;
+        if (numVectors == 0) {
+            throw new IllegalArgumentException("no orbit state vectors");
+        }
+
+        this.numSegments = numVectors;
+        this.order = Math.min(nv, numVectors);
+        this.firstTime = orbitStateVectors[0].time_mjd;
+        this.dt = numVectors > 1 ? (orbitStateVectors[numVectors - 1].time_mjd - firstTime) / (numVectors - 1) : 1.0;
+        this.invDt = 1.0 / dt;
+        this.coefficients = new double[numSegments * NUM_COMPONENTS * order];
+
+        final double[] nodes = new double[order];
+        final double[][] basis = new double[order][order];
+        final double[] values = new double[order];
+
+        for (int segment = 0; segment < numSegments; ++segment) {
+            final int i0 = getFirstVector(segment, numVectors, nv);
+            final double centre = getCentre(segment);
+            for (int i = 0; i < order; ++i) {
+                nodes[i] = (orbitStateVectors[i0 + i].time_mjd - centre) * invDt;
+            }
+            computeLagrangeBasis(nodes, basis);
+
+            for (int c = 0; c < NUM_COMPONENTS; ++c) {
+                for (int i = 0; i < order; ++i) {
+                    values[i] = getComponent(orbitStateVectors[i0 + i], c);
+                }
+                final int offset = (segment * NUM_COMPONENTS + c) * order;
+                for (int k = 0; k < order; ++k) {
+                    double sum = 0;
+                    for (int i = 0; i < order; ++i) {
+                        sum += values[i] * basis[i][k];
+                    }
+                    coefficients[offset + k] = sum;
+                }
+            }
+        }
+    }
+
+    /**
+     * First vector of the interpolation window of a segment, identical to the window selection in OrbitStateVectors.
+     */
+    private static int getFirstVector(final int segment, final int numVectors, final int nv) {
+        if (numVectors <= nv) {
+            return 0;
+        }
+        final int i0 = Math.max(segment - nv / 2 + 1, 0);
+        final int iN = Math.min(i0 + nv - 1, numVectors - 1);
+        return iN < numVectors - 1 ? i0 : iN - nv + 1;
+    }
+
+    private double getCentre(final int segment) {
+        return firstTime + (segment + 0.5) * dt;
+    }
+
+    /**
+     * Expand the Lagrange basis polynomials of the nodes into monomial coefficients, highest power first.
+     */
+    private static void computeLagrangeBasis(final double[] nodes, final double[][] basis) {
+        final int n = nodes.length;
+        final double[] poly = new double[n];
+        for (int i = 0; i < n; ++i) {
+            // poly holds the coefficients lowest power first while multiplying by (s - nodes[j])
+            Arrays.fill(poly, 0.0);
+            poly[0] = 1.0;
+            int degree = 0;
+            double denominator = 1.0;
+            for (int j = 0; j < n; ++j) {
+                if (j == i) {
+                    continue;
+                }
+                ++degree;
+                for (int k = degree; k > 0; --k) {
+                    poly[k] = poly[k - 1] - nodes[j] * poly[k];
+                }
+                poly[0] = -nodes[j] * poly[0];
+                denominator *= nodes[i] - nodes[j];
+            }
+            for (int k = 0; k < n; ++k) {
+                basis[i][n - 1 - k] = poly[k] / denominator;
+            }
+        }
+    }
+
+    private static double getComponent(final OrbitStateVector osv, final int component) {
+        switch (component) {
+            case 0:
+                return osv.x_pos;
+            case 1:
+                return osv.y_pos;
+            case 2:
+                return osv.z_pos;
+            case 3:
+                return osv.x_vel;
+            case 4:
+                return osv.y_vel;
+            default:
+                return osv.z_vel;
+        }
+    }
+
+    private int getSegment(final double time) {
+        final int segment = (int) ((time - firstTime) * invDt);
+        return segment < 0 ? 0 : Math.min(segment, numSegments - 1);
+    }
+
+    private double evaluate(final int offset, final double s) {
+        double value = coefficients[offset];
+        for (int k = 1; k < order; ++k) {
+            value = value * s + coefficients[offset + k];
+        }
+        return value;
+    }
+
+    /**
+     * Interpolate the sensor position and velocity.
+     *
+     * @param time     the time in days (MJD)
+     * @param position the interpolated position
+     * @param velocity the interpolated velocity
+     */
+    public void getPositionVelocity(final double time, final PosVector position, final PosVector velocity) {
+        final int segment = getSegment(time);
+        final double s = (time - getCentre(segment)) * invDt;
+        final int offset = segment * NUM_COMPONENTS * order;
+
+        position.x = evaluate(offset, s);
+        position.y = evaluate(offset + order, s);
+        position.z = evaluate(offset + 2 * order, s);
+        velocity.x = evaluate(offset + 3 * order, s);
+        velocity.y = evaluate(offset + 4 * order, s);
+        velocity.z = evaluate(offset + 5 * order, s);
+    }
+
+    /**
+     * Interpolate the sensor position.
+     *
+     * @param time     the time in days (MJD)
+     * @param position the interpolated position
+     * @return the position
+     */
+    public PosVector getPosition(final double time, final PosVector position) {
+        final int segment = getSegment(time);
+        final double s = (time - getCentre(segment)) * invDt;
+        final int offset = segment * NUM_COMPONENTS * order;
+
+        position.x = evaluate(offset, s);
+        position.y = evaluate(offset + order, s);
+        position.z = evaluate(offset + 2 * order, s);
+        return position;
+    }
+
+    /**
+     * Interpolate the sensor velocity.
+     *
+     * @param time     the time in days (MJD)
+     * @param velocity the interpolated velocity
+     * @return the velocity
+     */
+    public PosVector getVelocity(final double time, final PosVector velocity) {
+        final int segment = getSegment(time);
+        final double s = (time - getCentre(segment)) * invDt;
+        final int offset = (segment * NUM_COMPONENTS + 3) * order;
+
+        velocity.x = evaluate(offset, s);
+        velocity.y = evaluate(offset + order, s);
+        velocity.z = evaluate(offset + 2 * order, s);
+        return velocity;
+    }
+}
@@ -4,45 +4,51 @@ import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public final class OrbitStateVectors {
 
     public OrbitStateVector[] orbitStateVectors = null;
     public PosVector[] sensorPosition = null; // sensor position for all range lines
     public PosVector[] sensorVelocity = null; // sensor velocity for all range lines
-    private double dt = 0.0;
-    private final Map<Double, PositionVelocity> timeMap = new HashMap<>();
+    private OrbitInterpolator interpolator = null;
+    private final PositionVelocityCache cache;
 
     private static final int nv = 8;
+    private static final int DEFAULT_CACHE_SIZE = 4096;
 
     public OrbitStateVectors(final OrbitStateVector[] orbitStateVectors,
                              final double firstLineUTC, final double lineTimeInterval, final int sourceImageHeight) {
+        this.cache = new PositionVelocityCache(DEFAULT_CACHE_SIZE);
         if(orbitStateVectors != null && orbitStateVectors.length > 0) {
             this.orbitStateVectors = removeRedundantVectors(orbitStateVectors);
-
-            this.dt = (this.orbitStateVectors[this.orbitStateVectors.length - 1].time_mjd -
-                    this.orbitStateVectors[0].time_mjd) / (this.orbitStateVectors.length - 1);
+            this.interpolator = new OrbitInterpolator(this.orbitStateVectors, nv);
 
             this.sensorPosition = new PosVector[sourceImageHeight];
             this.sensorVelocity = new PosVector[sourceImageHeight];
             for (int i = 0; i < sourceImageHeight; i++) {
                 final double time = firstLineUTC + i * lineTimeInterval;
-                PositionVelocity pv = getPositionVelocity(time);
-                sensorPosition[i] = pv.position;
-                sensorVelocity[i] = pv.velocity;
+                sensorPosition[i] = new PosVector();
+                sensorVelocity[i] = new PosVector();
+                interpolator.getPositionVelocity(time, sensorPosition[i], sensorVelocity[i]);
             }
         }
     }
 
     public OrbitStateVectors(final OrbitStateVector[] orbitStateVectors) {
+        this(orbitStateVectors, DEFAULT_CACHE_SIZE);
+    }
 
-        this.orbitStateVectors = removeRedundantVectors(orbitStateVectors);
+    /**
+     * @param orbitStateVectors the orbit state vectors
+     * @param cacheSize         the number of interpolated times cached by getPositionVelocity(Double), 0 to disable
+     */
+    public OrbitStateVectors(final OrbitStateVector[] orbitStateVectors, final int cacheSize) {
 
-        this.dt = (this.orbitStateVectors[orbitStateVectors.length - 1].time_mjd -
-                this.orbitStateVectors[0].time_mjd) / (this.orbitStateVectors.length - 1);
+        this.orbitStateVectors = removeRedundantVectors(orbitStateVectors);
+        this.interpolator = new OrbitInterpolator(this.orbitStateVectors, nv);
+        this.cache = new PositionVelocityCache(cacheSize);
     }
 
     private static OrbitStateVector[] removeRedundantVectors(OrbitStateVector[] orbitStateVectors) {
@@ -62,114 +68,44 @@ public final class OrbitStateVectors {
         return vectorList.toArray(new OrbitStateVector[0]);
     }
 
+    /**
+     * Interpolated position and velocity at the given time. The returned object may be shared with other callers
+     * through the cache and must not be modified. Use getPositionVelocity(double, PosVector, PosVector) in inner
+     * loops to avoid the allocation.
+     */
     public PositionVelocity getPositionVelocity(final Double time) {
 
-        PositionVelocity cachedPosVel = timeMap.get(time);
-        if(cachedPosVel != null) {
-            return cachedPosVel;
-        }
-
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
-        }
-
-        //lagrangeInterpolatingPolynomial
-        final PositionVelocity pv = new PositionVelocity();
-
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
-
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
-            }
-
-            pv.position.x += weight * orbI.x_pos;
-            pv.position.y += weight * orbI.y_pos;
-            pv.position.z += weight * orbI.z_pos;
-
-            pv.velocity.x += weight * orbI.x_vel;
-            pv.velocity.y += weight * orbI.y_vel;
-            pv.velocity.z += weight * orbI.z_vel;
+        final double t = time;
+        PositionVelocity pv = cache.get(t);
+        if (pv == null) {
+            pv = new PositionVelocity();
+            interpolator.getPositionVelocity(t, pv.position, pv.velocity);
+            cache.put(t, pv);
         }
-
-        timeMap.put(time, pv);
         return pv;
     }
 
-    PosVector getPosition(final double time, final PosVector position) {
-
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
-        }
-
-        //lagrangeInterpolatingPolynomial
-        position.x = 0;
-        position.y = 0;
-        position.z = 0;
-
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
+    /**
+     * Interpolate position and velocity into caller supplied vectors.
+     *
+     * @param time     the time in days (MJD)
+     * @param position the interpolated position
+     * @param velocity the interpolated velocity
+     */
+    public void getPositionVelocity(final double time, final PosVector position, final PosVector velocity) {
+        interpolator.getPositionVelocity(time, position, velocity);
+    }
 
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
-            }
-            position.x += weight * orbI.x_pos;
-            position.y += weight * orbI.y_pos;
-            position.z += weight * orbI.z_pos;
-        }
-        return position;
+    public PosVector getPosition(final double time, final PosVector position) {
+        return interpolator.getPosition(time, position);
     }
 
     PosVector getVelocity(final double time) {
+        return interpolator.getVelocity(time, new PosVector());
+    }
 
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
-        }
-
-        //lagrangeInterpolatingPolynomial
-        final PosVector velocity = new PosVector();
-
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
-
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
-            }
-            velocity.x += weight * orbI.x_vel;
-            velocity.y += weight * orbI.y_vel;
-            velocity.z += weight * orbI.z_vel;
-        }
-        return velocity;
+    public PosVector getVelocity(final double time, final PosVector velocity) {
+        return interpolator.getVelocity(time, velocity);
     }
 
     private int[] findAdjacentVectors(final double time) {
@@ -219,4 +155,50 @@ public final class OrbitStateVectors {
         public final PosVector position = new PosVector();
         public final PosVector velocity = new PosVector();
     }
+
+    /**
+     * Direct mapped cache of interpolated times. Entries are immutable once published, so lookups need no locking
+     * and a collision simply replaces the previous entry.
+     */
+    private static final class PositionVelocityCache {
+
+        private final AtomicReferenceArray<Entry> entries;
+        private final int mask;
+
+        PositionVelocityCache(final int size) {
+            final int capacity = size > 1 ? Integer.highestOneBit(size - 1) << 1 : size;
+            this.entries = capacity > 0 ? new AtomicReferenceArray<>(capacity) : null;
+            this.mask = capacity - 1;
+        }
+
+        PositionVelocity get(final double time) {
+            if (entries == null) {
+                return null;
+            }
+            final Entry entry = entries.get(index(time));
+            return entry != null && entry.time == time ? entry.pv : null;
+        }
+
+        void put(final double time, final PositionVelocity pv) {
+            if (entries != null) {
+                entries.set(index(time), new Entry(time, pv));
+            }
+        }
+
+        private int index(final double time) {
+            final long bits = Double.doubleToLongBits(time);
+            final int hash = (int) (bits ^ (bits >>> 32));
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private static final class Entry {
+            final double time;
+            final PositionVelocity pv;
+
+            Entry(final double time, final PositionVelocity pv) {
+                this.time = time;
+                this.pv = pv;
+            }
+        }
+    }
 }
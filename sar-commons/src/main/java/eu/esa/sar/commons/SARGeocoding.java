@@ -129,8 +129,10 @@ public final class SARGeocoding {
         double oldTime, oldFreq;
         double newTime = (firstVecTime + lastVecTime) / 2.0, oldFreqDel;
 
-        OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(newTime);
-        double newFreq = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+        final PosVector sensorPosition = new PosVector();
+        final PosVector sensorVelocity = new PosVector();
+        orbit.getPositionVelocity(newTime, sensorPosition, sensorVelocity);
+        double newFreq = getDopplerFrequency(earthPoint, sensorPosition, sensorVelocity, wavelength);
 
         double d;
         int numIter = 0;
@@ -138,8 +140,8 @@ public final class SARGeocoding {
             oldTime = newTime;
             oldFreq = newFreq;
 
-            pv = orbit.getPositionVelocity(oldTime + lineTimeInterval);
-            oldFreqDel = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+            orbit.getPositionVelocity(oldTime + lineTimeInterval, sensorPosition, sensorVelocity);
+            oldFreqDel = getDopplerFrequency(earthPoint, sensorPosition, sensorVelocity, wavelength);
 
             d = (oldFreqDel - oldFreq) / lineTimeInterval;
 
@@ -150,8 +152,8 @@ public final class SARGeocoding {
                 newTime = lastVecTime;
             }
 
-            pv = orbit.getPositionVelocity(newTime);
-            newFreq = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+            orbit.getPositionVelocity(newTime, sensorPosition, sensorVelocity);
+            newFreq = getDopplerFrequency(earthPoint, sensorPosition, sensorVelocity, wavelength);
             numIter++;
         }
 
@@ -207,11 +209,13 @@ public final class SARGeocoding {
 
         final int totalIterations = (int)(diffTime/ absLineTimeInterval) + 1;
         int numIterations = 0;
+        final PosVector sensorPosition = new PosVector();
+        final PosVector sensorVelocity = new PosVector();
         while (diffTime > absLineTimeInterval && numIterations <= totalIterations) {
 
             midTime = (upperBoundTime + lowerBoundTime) / 2.0;
-            OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(midTime);
-            midFreq = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+            orbit.getPositionVelocity(midTime, sensorPosition, sensorVelocity);
+            midFreq = getDopplerFrequency(earthPoint, sensorPosition, sensorVelocity, wavelength);
 
             if (midFreq * lowerBoundFreq > 0.0) {
                 lowerBoundTime = midTime;
@@ -850,23 +850,24 @@ public final class Sentinel1Utils {
 
         final int x0 = rectangle.x;
         final int y0 = rectangle.y;
-        final int w = rectangle.width;
-        final int h = rectangle.height;
-        final int xMax = x0 + w;
-        final int yMax = y0 + h;
+        final int xMax = x0 + rectangle.width;
+        final int yMax = y0 + rectangle.height;
         final int s = subSwathIndex - 1;
 
-        final double[][] phase = new double[h][w];
+        final double[][] phase = new double[rectangle.height][rectangle.width];
+
+        final double[] dopplerRate = subSwath[s].dopplerRate[sBurstIndex];
+        final double[] referenceTime = subSwath[s].referenceTime[sBurstIndex];
+        final double[] dopplerCentroid = subSwath[s].dopplerCentroid[sBurstIndex];
         final int firstLineInBurst = sBurstIndex*subSwath[s].linesPerBurst;
         for (int y = y0; y < yMax; y++) {
-            final int yy = y - y0;
+            final double[] phaseRow = phase[y - y0];
             final double ta = (y - firstLineInBurst)*subSwath[s].azimuthTimeInterval;
             for (int x = x0; x < xMax; x++) {
-                final int xx = x - x0;
-                final double kt = subSwath[s].dopplerRate[sBurstIndex][x];
-                final double deramp = -Constants.PI * kt * FastMath.pow(ta - subSwath[s].referenceTime[sBurstIndex][x], 2);
-                final double demod = -Constants.TWO_PI * subSwath[s].dopplerCentroid[sBurstIndex][x] * ta;
-                phase[yy][xx] = deramp + demod;
+                final double dt = ta - referenceTime[x];
+                final double deramp = -Constants.PI * dopplerRate[x] * dt * dt;
+                final double demod = -Constants.TWO_PI * dopplerCentroid[x] * ta;
+                phaseRow[x - x0] = deramp + demod;
             }
         }
 
@@ -893,7 +894,8 @@ public final class Sentinel1Utils {
             for (int x = x0; x < xMax; x++) {
                 final int xx = x - x0;
                 final double kt = subSwath[s].dopplerRate[burstIndex][x];
-                phase[yy][xx] = -Constants.PI * kt * FastMath.pow(ta - subSwath[s].referenceTime[burstIndex][x], 2);
+                final double dt = ta - subSwath[s].referenceTime[burstIndex][x];
+                phase[yy][xx] = -Constants.PI * kt * dt * dt;
             }
         }
 
@@ -919,7 +921,6 @@ public final class Sentinel1Utils {
             final double ta = (y - firstLineInBurst)*subSwath[s].azimuthTimeInterval;
             for (int x = x0; x < xMax; x++) {
                 final int xx = x - x0;
-                final double kt = subSwath[s].dopplerRate[sBurstIndex][x];
                 phase[yy][xx] = -Constants.TWO_PI * subSwath[s].dopplerCentroid[sBurstIndex][x] * ta;
             }
         }
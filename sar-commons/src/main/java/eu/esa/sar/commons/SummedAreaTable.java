@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Summed-area tables of the values, squared values and valid sample count of a raster, giving the sums over any
+ * window, or over a window less an inner window, in constant time.
+ * <p>
+ * No data samples are left out of the sums. The sums are taken over the values minus the mean of the valid samples
+ * of the raster, see getOffset(), and kept as unevaluated sums of two doubles, so that the window sums of a dark
+ * area next to a strong point target do not lose their precision to the large table values.
+ * <p>
+ * Windows are given as [minX, maxX) x [minY, maxY) in raster coordinates and must lie within the raster.
+ */
+public final class SummedAreaTable {
+
+    private final int stride;
+    private final double offset;
+
+    // (width + 1) x (height + 1) tables with a leading row and column of zeros, high and low parts
+    private final double[] sumHi;
+    private final double[] sumLo;
+    private final double[] sumSqHi;
+    private final double[] sumSqLo;
+    private final int[] count;
+
+    /**
+     * @param values      the raster, row by row
+     * @param width       the raster width
+     * @param height      the raster height
+     * @param noDataValue the no data value
+     */
+    public SummedAreaTable(final double[] values, final int width, final int height, final double noDataValue) {
+        this(i -> values[i], width, height, noDataValue);
+    }
+
+    /**
+     * @param values      the raster, row by row
+     * @param width       the raster width
+     * @param height      the raster height
+     * @param noDataValue the no data value
+     */
+    public SummedAreaTable(final float[] values, final int width, final int height, final double noDataValue) {
+        this(i -> values[i], width, height, noDataValue);
+    }
+
+    private SummedAreaTable(final IntToDoubleFunction values, final int width, final int height,
+                            final double noDataValue) {
+        this.stride = width + 1;
+
+        double total = 0.0;
+        int numValid = 0;
+        for (int i = 0; i < width * height; ++i) {
+            final double v = values.applyAsDouble(i);
+            if (v != noDataValue) {
+                total += v;
+                ++numValid;
+            }
+        }
+        this.offset = numValid > 0 ? total / numValid : 0.0;
+
+        final int size = stride * (height + 1);
+        sumHi = new double[size];
+        sumLo = new double[size];
+        sumSqHi = new double[size];
+        sumSqLo = new double[size];
+        count = new int[size];
+
+        for (int y = 0; y < height; ++y) {
+            double rowSumHi = 0.0, rowSumLo = 0.0, rowSumSqHi = 0.0, rowSumSqLo = 0.0;
+            int rowCount = 0;
+            final int src = y * width;
+            final int above = y * stride + 1;
+            final int dst = above + stride;
+            for (int x = 0; x < width; ++x) {
+                final double v = values.applyAsDouble(src + x);
+                if (v != noDataValue) {
+                    final double d = v - offset;
+                    final double d2 = d * d;
+                    rowSumLo += twoSumError(rowSumHi, d);
+                    rowSumHi += d;
+                    rowSumSqLo += twoSumError(rowSumSqHi, d2) + Math.fma(d, d, -d2);
+                    rowSumSqHi += d2;
+                    ++rowCount;
+                }
+                sumHi[dst + x] = sumHi[above + x] + rowSumHi;
+                sumLo[dst + x] = sumLo[above + x] + rowSumLo + twoSumError(sumHi[above + x], rowSumHi);
+                sumSqHi[dst + x] = sumSqHi[above + x] + rowSumSqHi;
+                sumSqLo[dst + x] = sumSqLo[above + x] + rowSumSqLo + twoSumError(sumSqHi[above + x], rowSumSqHi);
+                count[dst + x] = count[above + x] + rowCount;
+            }
+        }
+    }
+
+    /**
+     * The rounding error of a + b.
+     */
+    private static double twoSumError(final double a, final double b) {
+        final double s = a + b;
+        final double bb = s - a;
+        return (a - (s - bb)) + (b - bb);
+    }
+
+    /**
+     * The sum d - b - c + a over a window less gd - gb - gc + ga over an inner window of a double-double table,
+     * accumulated in local variables so that the per pixel statistics do not allocate. An empty inner window is
+     * given by the indices of the zero corner of the table.
+     */
+    private static double getSum(final double[] hi, final double[] lo,
+                                 final int a, final int b, final int c, final int d,
+                                 final int ga, final int gb, final int gc, final int gd) {
+        double s = hi[d];
+        double e = lo[d];
+        e += twoSumError(s, -hi[b]) - lo[b];
+        s -= hi[b];
+        e += twoSumError(s, -hi[c]) - lo[c];
+        s -= hi[c];
+        e += twoSumError(s, hi[a]) + lo[a];
+        s += hi[a];
+        e += twoSumError(s, -hi[gd]) - lo[gd];
+        s -= hi[gd];
+        e += twoSumError(s, hi[gb]) + lo[gb];
+        s += hi[gb];
+        e += twoSumError(s, hi[gc]) + lo[gc];
+        s += hi[gc];
+        e += twoSumError(s, -hi[ga]) - lo[ga];
+        s -= hi[ga];
+        return s + e;
+    }
+
+    private int getCount(final int a, final int b, final int c, final int d,
+                         final int ga, final int gb, final int gc, final int gd) {
+        return count[d] - count[b] - count[c] + count[a] - count[gd] + count[gb] + count[gc] - count[ga];
+    }
+
+    /**
+     * @return the mean of the valid samples of the raster, which is subtracted from the values before summing
+     */
+    public double getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the number of valid samples in the window
+     */
+    public int getCount(final int minX, final int minY, final int maxX, final int maxY) {
+        return getCount(minY * stride + minX, minY * stride + maxX, maxY * stride + minX, maxY * stride + maxX,
+                0, 0, 0, 0);
+    }
+
+    /**
+     * @return the sum of the valid values minus the offset in the window
+     */
+    public double getSum(final int minX, final int minY, final int maxX, final int maxY) {
+        return getSum(sumHi, sumLo, minY * stride + minX, minY * stride + maxX, maxY * stride + minX,
+                maxY * stride + maxX, 0, 0, 0, 0);
+    }
+
+    /**
+     * @return the sum of the squares of the valid values minus the offset in the window
+     */
+    public double getSumSq(final int minX, final int minY, final int maxX, final int maxY) {
+        return getSum(sumSqHi, sumSqLo, minY * stride + minX, minY * stride + maxX, maxY * stride + minX,
+                maxY * stride + maxX, 0, 0, 0, 0);
+    }
+
+    /**
+     * @return the number of valid samples in the window less the inner window [gMinX, gMaxX) x [gMinY, gMaxY),
+     * which must lie within the window or be empty
+     */
+    public int getRingCount(final int minX, final int minY, final int maxX, final int maxY,
+                            final int gMinX, final int gMinY, final int gMaxX, final int gMaxY) {
+        if (gMinX >= gMaxX || gMinY >= gMaxY) {
+            return getCount(minX, minY, maxX, maxY);
+        }
+        return getCount(minY * stride + minX, minY * stride + maxX, maxY * stride + minX, maxY * stride + maxX,
+                gMinY * stride + gMinX, gMinY * stride + gMaxX, gMaxY * stride + gMinX, gMaxY * stride + gMaxX);
+    }
+
+    /**
+     * @return the sum of the valid values minus the offset in the window less the inner window, which must lie
+     * within the window or be empty
+     */
+    public double getRingSum(final int minX, final int minY, final int maxX, final int maxY,
+                             final int gMinX, final int gMinY, final int gMaxX, final int gMaxY) {
+        if (gMinX >= gMaxX || gMinY >= gMaxY) {
+            return getSum(minX, minY, maxX, maxY);
+        }
+        return getSum(sumHi, sumLo, minY * stride + minX, minY * stride + maxX, maxY * stride + minX,
+                maxY * stride + maxX, gMinY * stride + gMinX, gMinY * stride + gMaxX, gMaxY * stride + gMinX,
+                gMaxY * stride + gMaxX);
+    }
+
+    /**
+     * @return the sum of the squares of the valid values minus the offset in the window less the inner window,
+     * which must lie within the window or be empty
+     */
+    public double getRingSumSq(final int minX, final int minY, final int maxX, final int maxY,
+                               final int gMinX, final int gMinY, final int gMaxX, final int gMaxY) {
+        if (gMinX >= gMaxX || gMinY >= gMaxY) {
+            return getSumSq(minX, minY, maxX, maxY);
+        }
+        return getSum(sumSqHi, sumSqLo, minY * stride + minX, minY * stride + maxX, maxY * stride + minX,
+                maxY * stride + maxX, gMinY * stride + gMinX, gMinY * stride + gMaxX, gMaxY * stride + gMinX,
+                gMaxY * stride + gMaxX);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+
+/**
+ * Zero Doppler time of many earth points at once, e.g. the DEM samples of one row of a terrain corrected tile.
+ * <p>
+ * The solution is the same as SARGeocoding.getEarthPointZeroDopplerTime: the zero crossing of the Doppler
+ * frequency is bracketed between two range lines and then linearly interpolated. Instead of a bisection over
+ * the whole image, the bracket search starts from the solution of the neighbouring point and takes Newton steps
+ * in units of range lines, which typically finds the bracket with two or three Doppler evaluations.
+ * <p>
+ * The solver keeps the last solution as state and must not be shared between threads.
+ */
+public class ZeroDopplerSolver {
+
+    private static final int MAX_NEWTON_STEPS = 8;
+
+    private final double firstLineUTC;
+    private final double lineTimeInterval;
+    private final double wavelength;
+    private final PosVector[] sensorPosition;
+    private final PosVector[] sensorVelocity;
+    private final int maxLine;
+
+    private int rowStartLine = -1;
+
+    public ZeroDopplerSolver(final double firstLineUTC, final double lineTimeInterval, final double wavelength,
+                             final OrbitStateVectors orbit) {
+        this.firstLineUTC = firstLineUTC;
+        this.lineTimeInterval = lineTimeInterval;
+        this.wavelength = wavelength;
+        this.sensorPosition = orbit.sensorPosition;
+        this.sensorVelocity = orbit.sensorVelocity;
+        this.maxLine = sensorPosition.length - 2;
+    }
+
+    /**
+     * Compute the zero Doppler times of a row of earth points. Each point is started from the solution of
+     * the previous point and the first point from the first point of the previous row.
+     *
+     * @param earthPoints      the earth points in xyz coordinates. Points with a NaN x coordinate are skipped.
+     * @param count            the number of points
+     * @param zeroDopplerTimes the zero Doppler times in days, SARGeocoding.NonValidZeroDopplerTime if not found
+     */
+    public void getZeroDopplerTimes(final PosVector[] earthPoints, final int count, final double[] zeroDopplerTimes) {
+
+        int line = rowStartLine;
+        boolean firstValid = true;
+        for (int i = 0; i < count; ++i) {
+            final PosVector earthPoint = earthPoints[i];
+            if (Double.isNaN(earthPoint.x)) {
+                zeroDopplerTimes[i] = SARGeocoding.NonValidZeroDopplerTime;
+                continue;
+            }
+
+            final double lineIndex = line < 0 ? -1.0 : findLineIndex(earthPoint, line);
+            if (lineIndex < 0) {
+                // no usable start or the Newton steps did not converge
+                zeroDopplerTimes[i] = SARGeocoding.getEarthPointZeroDopplerTime(
+                        firstLineUTC, lineTimeInterval, wavelength, earthPoint, sensorPosition, sensorVelocity);
+            } else {
+                zeroDopplerTimes[i] = firstLineUTC + lineIndex * lineTimeInterval;
+            }
+
+            if (zeroDopplerTimes[i] != SARGeocoding.NonValidZeroDopplerTime) {
+                line = (int) ((zeroDopplerTimes[i] - firstLineUTC) / lineTimeInterval);
+                if (firstValid) {
+                    rowStartLine = line;
+                    firstValid = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the zero Doppler time of a single earth point starting the search at the given range line.
+     *
+     * @param earthPoint the earth point in xyz coordinate
+     * @param startLine  the range line the search starts from
+     * @return the zero Doppler time in days, SARGeocoding.NonValidZeroDopplerTime if not found
+     */
+    public double getZeroDopplerTime(final PosVector earthPoint, final int startLine) {
+        final double lineIndex = findLineIndex(earthPoint, startLine);
+        if (lineIndex < 0) {
+            return SARGeocoding.getEarthPointZeroDopplerTime(
+                    firstLineUTC, lineTimeInterval, wavelength, earthPoint, sensorPosition, sensorVelocity);
+        }
+        return firstLineUTC + lineIndex * lineTimeInterval;
+    }
+
+    /**
+     * @return the fractional range line of the zero Doppler crossing or -1 if it was not bracketed
+     */
+    private double findLineIndex(final PosVector earthPoint, final int startLine) {
+        if (maxLine < 0) {
+            return -1.0;
+        }
+
+        int lower = Math.max(0, Math.min(startLine, maxLine));
+        double lowerFreq = getDoppler(earthPoint, lower);
+        double upperFreq = getDoppler(earthPoint, lower + 1);
+
+        for (int step = 0; step < MAX_NEWTON_STEPS; ++step) {
+            if (lowerFreq * upperFreq <= 0.0) {
+                if (lowerFreq == upperFreq) {
+                    return lower;
+                }
+                return lower - lowerFreq / (upperFreq - lowerFreq);
+            }
+
+            final double slope = upperFreq - lowerFreq;
+            if (slope == 0.0) {
+                return -1.0;
+            }
+            final double next = Math.floor(lower - lowerFreq / slope);
+            final int nextLine = (int) Math.max(0, Math.min(next, maxLine));
+            if (nextLine == lower) {
+                // the crossing is outside of the image
+                return -1.0;
+            }
+
+            if (nextLine == lower + 1) {
+                lowerFreq = upperFreq;
+                upperFreq = getDoppler(earthPoint, nextLine + 1);
+            } else if (nextLine == lower - 1) {
+                upperFreq = lowerFreq;
+                lowerFreq = getDoppler(earthPoint, nextLine);
+            } else {
+                lowerFreq = getDoppler(earthPoint, nextLine);
+                upperFreq = getDoppler(earthPoint, nextLine + 1);
+            }
+            lower = nextLine;
+        }
+        return -1.0;
+    }
+
+    /**
+     * Doppler frequency up to the positive factor 2 / (wavelength * distance), which does not change the zero
+     * crossing. The same scaling is used by the bisection in SARGeocoding.
+     */
+    private double getDoppler(final PosVector earthPoint, final int line) {
+        final PosVector pos = sensorPosition[line];
+        final PosVector vel = sensorVelocity[line];
+        return vel.x * (earthPoint.x - pos.x) + vel.y * (earthPoint.y - pos.y) + vel.z * (earthPoint.z - pos.z);
+    }
+}
@@ -23,7 +23,9 @@ import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.gpf.InputProductValidator;
 import org.esa.snap.engine_utilities.gpf.ReaderUtils;
 import org.esa.snap.engine_utilities.util.ZipUtils;
+import org.esa.snap.runtime.Config;
 
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -50,6 +52,11 @@ public abstract class AbstractProductDirectory {
     protected transient final Map<String, ImageIOFile> bandImageFileMap = new TreeMap<>();
     protected transient final Map<Band, ImageIOFile.BandInfo> bandMap = new HashMap<>(3);
 
+    private transient StoredZipEntries storedZipEntries = null;
+
+    private static final boolean useMappedZipEntries =
+            Config.instance().preferences().getBoolean("s1tbx.readers.useMappedZipEntries", true);
+
     protected AbstractProductDirectory(final File inputFile) {
         Guardian.assertNotNull("inputFile", inputFile);
         this.productInputFile = inputFile;
@@ -280,6 +287,29 @@ public abstract class AbstractProductDirectory {
         return inStream;
     }
 
+    /**
+     * Map an image file that a zipped product holds without compression, so that it can be read in place
+     * instead of being copied into a memory or file cache.
+     *
+     * @param path the path of the file in the product
+     * @return the mapped file, or null if the product is not zipped or the file is compressed
+     */
+    protected synchronized ImageInputStream getStoredImageInputStream(final String path) {
+        if (!useMappedZipEntries || !isCompressed()) {
+            return null;
+        }
+        try {
+            if (storedZipEntries == null) {
+                storedZipEntries = StoredZipEntries.read(baseDir);
+            }
+            return storedZipEntries.createImageInputStream(path);
+        } catch (IOException e) {
+            // fall back to the cached streams
+            SystemUtils.LOG.fine("Unable to map " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
     protected File getBaseDir() {
         return baseDir;
     }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons.io;
+
+import org.esa.snap.core.util.SystemUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases memory mapped buffers without waiting for the garbage collector. Until a mapping is released the
+ * file cannot be deleted, replaced or renamed on Windows.
+ */
+public final class MappedBuffers {
+
+    private static final Object unsafe;
+    private static final Method invokeCleaner;
+
+    static {
+        Object theUnsafe = null;
+        Method cleaner = null;
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            theUnsafe = field.get(null);
+            cleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Exception e) {
+            // the mappings are then released by the garbage collector
+            SystemUtils.LOG.fine("Unable to release mapped buffers: " + e.getMessage());
+        }
+        unsafe = theUnsafe;
+        invokeCleaner = cleaner;
+    }
+
+    private MappedBuffers() {
+    }
+
+    /**
+     * Release a mapping. The buffer, and every duplicate or slice of it, must not be accessed afterwards.
+     *
+     * @param buffer the buffer returned by FileChannel.map(), may be null
+     */
+    public static void unmap(final ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || invokeCleaner == null) {
+            return;
+        }
+        try {
+            invokeCleaner.invoke(unsafe, buffer);
+        } catch (Exception e) {
+            SystemUtils.LOG.fine("Unable to release mapped buffer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Release several mappings.
+     *
+     * @param buffers the buffers returned by FileChannel.map(), may be null or contain nulls
+     */
+    public static void unmap(final ByteBuffer[] buffers) {
+        if (buffers != null) {
+            for (ByteBuffer buffer : buffers) {
+                unmap(buffer);
+            }
+        }
+    }
+}
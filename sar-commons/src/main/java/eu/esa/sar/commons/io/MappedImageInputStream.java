@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons.io;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A seekable ImageInputStream over a memory mapped region of a file, such as an entry stored without compression
+ * in a zip file. Nothing is copied or cached: reads go straight to the page cache of the operating system.
+ */
+public class MappedImageInputStream extends ImageInputStreamImpl {
+
+    // keep each mapping well below the 2GB limit of a MappedByteBuffer
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final long length;
+    private ByteBuffer[] segments;
+
+    /**
+     * Map a region of a file.
+     *
+     * @param file   the file
+     * @param offset the position of the first byte of the region in the file
+     * @param length the length of the region
+     * @throws IOException if the file cannot be mapped or is shorter than the region
+     */
+    public MappedImageInputStream(final File file, final long offset, final long length) throws IOException {
+        this.length = length;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (offset < 0 || length < 0 || offset + length > channel.size()) {
+                throw new IOException(file.getName() + " is truncated");
+            }
+            final int numSegments = (int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+            segments = new ByteBuffer[numSegments];
+            for (int s = 0; s < numSegments; ++s) {
+                final long start = (long) s << SEGMENT_SHIFT;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start,
+                        Math.min(SEGMENT_SIZE, length - start));
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (streamPos >= length) {
+            return -1;
+        }
+        final int b = segments[(int) (streamPos >>> SEGMENT_SHIFT)].get((int) (streamPos & (SEGMENT_SIZE - 1)));
+        ++streamPos;
+        return b & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        checkClosed();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        bitOffset = 0;
+        if (len == 0) {
+            return 0;
+        }
+        if (streamPos >= length) {
+            return -1;
+        }
+
+        // reads never cross a segment boundary, callers such as readFully() come back for the rest
+        final ByteBuffer segment = segments[(int) (streamPos >>> SEGMENT_SHIFT)];
+        final int position = (int) (streamPos & (SEGMENT_SIZE - 1));
+        final int n = Math.min(len, segment.limit() - position);
+        segment.position(position);
+        segment.get(b, off, n);
+        streamPos += n;
+        return n;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        // release the mappings now so the product file can be deleted or replaced on Windows
+        MappedBuffers.unmap(segments);
+        segments = null;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons.io;
+
+import org.esa.snap.core.datamodel.ProductData;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes raster data at absolute file positions so that the tiles of a band can be written by several threads at
+ * once. There is no shared file pointer and no lock: each write converts the samples to the byte order of the file
+ * in a direct buffer pooled per thread and hands it to {@link FileChannel#write(ByteBuffer, long)}.
+ */
+public final class PositionalFileWriter implements Closeable {
+
+    private static final ThreadLocal<ByteBuffer[]> bufferPool = ThreadLocal.withInitial(() -> new ByteBuffer[1]);
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteOrder byteOrder;
+
+    /**
+     * Opens the file for writing, creating it if it does not exist. An existing file is not truncated.
+     *
+     * @param file      the file
+     * @param byteOrder the byte order of the samples in the file
+     * @throws IOException if the file cannot be opened
+     */
+    public PositionalFileWriter(final File file, final ByteOrder byteOrder) throws IOException {
+        this.file = file;
+        this.byteOrder = byteOrder;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    /**
+     * Writes elements of a buffer, as {@link ProductData#writeTo(int, int, javax.imageio.stream.ImageOutputStream, long)}
+     * does.
+     *
+     * @param data      the source buffer
+     * @param startPos  the index of the first element to write
+     * @param numElems  the number of elements to write
+     * @param outputPos the position in the file, in elements
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final ProductData data, final int startPos, final int numElems, final long outputPos)
+            throws IOException {
+
+        final Object elems = data.getElems();
+        final int elemSize = data.getElemSize();
+        final ByteBuffer buffer = getBuffer(numElems * elemSize);
+
+        if (elems instanceof byte[]) {
+            buffer.put((byte[]) elems, startPos, numElems);
+        } else if (elems instanceof short[]) {
+            buffer.asShortBuffer().put((short[]) elems, startPos, numElems);
+        } else if (elems instanceof int[]) {
+            buffer.asIntBuffer().put((int[]) elems, startPos, numElems);
+        } else if (elems instanceof float[]) {
+            buffer.asFloatBuffer().put((float[]) elems, startPos, numElems);
+        } else if (elems instanceof double[]) {
+            buffer.asDoubleBuffer().put((double[]) elems, startPos, numElems);
+        } else if (elems instanceof long[]) {
+            buffer.asLongBuffer().put((long[]) elems, startPos, numElems);
+        } else {
+            throw new IOException("Unsupported data type " + data.getTypeString());
+        }
+
+        write(buffer, numElems * elemSize, outputPos * elemSize);
+    }
+
+    /**
+     * @param values  the samples
+     * @param off     the index of the first sample to write
+     * @param len     the number of samples to write
+     * @param bytePos the position in the file, in bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeFloats(final float[] values, final int off, final int len, final long bytePos)
+            throws IOException {
+        final ByteBuffer buffer = getBuffer(len * Float.BYTES);
+        buffer.asFloatBuffer().put(values, off, len);
+        write(buffer, len * Float.BYTES, bytePos);
+    }
+
+    /**
+     * @param values  the samples
+     * @param off     the index of the first sample to write
+     * @param len     the number of samples to write
+     * @param bytePos the position in the file, in bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeShorts(final short[] values, final int off, final int len, final long bytePos)
+            throws IOException {
+        final ByteBuffer buffer = getBuffer(len * Short.BYTES);
+        buffer.asShortBuffer().put(values, off, len);
+        write(buffer, len * Short.BYTES, bytePos);
+    }
+
+    private ByteBuffer getBuffer(final int numBytes) {
+        final ByteBuffer[] pooled = bufferPool.get();
+        if (pooled[0] == null || pooled[0].capacity() < numBytes) {
+            pooled[0] = ByteBuffer.allocateDirect(Math.max(numBytes, 8192));
+        }
+        final ByteBuffer buffer = pooled[0];
+        buffer.clear();
+        buffer.order(byteOrder);
+        return buffer;
+    }
+
+    private void write(final ByteBuffer buffer, final int numBytes, long position) throws IOException {
+        buffer.position(0);
+        buffer.limit(numBytes);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons.io;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The central directory of a zip file, locating the data of the entries stored without compression so that they
+ * can be read in place. SAFE products store their measurement files this way.
+ * <p>
+ * java.util.zip does not give the position of an entry in the file, so the central directory is parsed here,
+ * including the ZIP64 extensions used by zips larger than 4GB.
+ */
+public final class StoredZipEntries {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_SIZE = 0xffff;
+
+    private static final int METHOD_STORED = 0;
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_UTF8 = 1 << 11;
+
+    private final File zipFile;
+    private final Map<String, Entry> entries;
+
+    private StoredZipEntries(final File zipFile, final Map<String, Entry> entries) {
+        this.zipFile = zipFile;
+        this.entries = entries;
+    }
+
+    /**
+     * Read the central directory of a zip file.
+     *
+     * @param zipFile the zip file
+     * @return the stored entries
+     * @throws IOException if the file is not a zip file or its central directory cannot be read
+     */
+    public static StoredZipEntries read(final File zipFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+
+            // the end of central directory record is followed by a comment of up to 64K
+            final int tailSize = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT_SIZE);
+            final ByteBuffer tail = readFully(channel, fileSize - tailSize, tailSize);
+            int end = -1;
+            for (int i = tailSize - END_SIZE; i >= 0; --i) {
+                if (tail.getInt(i) == END_SIGNATURE && i + END_SIZE + (tail.getShort(i + 20) & 0xffff) == tailSize) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                throw new IOException(zipFile.getName() + " is not a zip file");
+            }
+
+            long numEntries = tail.getShort(end + 10) & 0xffff;
+            long centralSize = tail.getInt(end + 12) & 0xffffffffL;
+            long centralOffset = tail.getInt(end + 16) & 0xffffffffL;
+
+            final long endPosition = fileSize - tailSize + end;
+            if (endPosition >= ZIP64_LOCATOR_SIZE) {
+                final ByteBuffer locator = readFully(channel, endPosition - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+                if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+                    final ByteBuffer zip64End = readFully(channel, locator.getLong(8), ZIP64_END_SIZE);
+                    if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+                        throw new IOException(zipFile.getName() + ": invalid ZIP64 end of central directory");
+                    }
+                    numEntries = zip64End.getLong(32);
+                    centralSize = zip64End.getLong(40);
+                    centralOffset = zip64End.getLong(48);
+                }
+            }
+            if (centralSize > Integer.MAX_VALUE || centralOffset + centralSize > fileSize) {
+                throw new IOException(zipFile.getName() + ": invalid central directory");
+            }
+
+            final ByteBuffer central = readFully(channel, centralOffset, (int) centralSize);
+            final Map<String, Entry> entries = new HashMap<>();
+            int pos = 0;
+            for (long e = 0; e < numEntries; ++e) {
+                if (pos + CENTRAL_HEADER_SIZE > centralSize || central.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+                    throw new IOException(zipFile.getName() + ": invalid central directory");
+                }
+                final int flags = central.getShort(pos + 8) & 0xffff;
+                final int method = central.getShort(pos + 10) & 0xffff;
+                long compressedSize = central.getInt(pos + 20) & 0xffffffffL;
+                long size = central.getInt(pos + 24) & 0xffffffffL;
+                final int nameLength = central.getShort(pos + 28) & 0xffff;
+                final int extraLength = central.getShort(pos + 30) & 0xffff;
+                final int commentLength = central.getShort(pos + 32) & 0xffff;
+                long localHeaderOffset = central.getInt(pos + 42) & 0xffffffffL;
+
+                final byte[] nameBytes = new byte[nameLength];
+                central.position(pos + CENTRAL_HEADER_SIZE);
+                central.get(nameBytes);
+                final String name = new String(nameBytes,
+                        (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+
+                // the ZIP64 extra field holds, in this order, the values too large for their 32 bit fields
+                int extra = pos + CENTRAL_HEADER_SIZE + nameLength;
+                final int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    final int id = central.getShort(extra) & 0xffff;
+                    final int length = central.getShort(extra + 2) & 0xffff;
+                    if (id == ZIP64_EXTRA_ID) {
+                        int field = extra + 4;
+                        if (size == 0xffffffffL) {
+                            size = central.getLong(field);
+                            field += 8;
+                        }
+                        if (compressedSize == 0xffffffffL) {
+                            compressedSize = central.getLong(field);
+                            field += 8;
+                        }
+                        if (localHeaderOffset == 0xffffffffL) {
+                            localHeaderOffset = central.getLong(field);
+                        }
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+
+                if (method == METHOD_STORED && (flags & FLAG_ENCRYPTED) == 0 && compressedSize == size) {
+                    entries.put(name, new Entry(localHeaderOffset, size));
+                }
+                pos = extraEnd + commentLength;
+            }
+            return new StoredZipEntries(zipFile, entries);
+        }
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel, final long position, final int length)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer;
+    }
+
+    public File getZipFile() {
+        return zipFile;
+    }
+
+    /**
+     * @param name the entry name
+     * @return true if the zip file holds the entry without compression
+     */
+    public boolean isStored(final String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Get the position of the data of a stored entry in the zip file.
+     *
+     * @param name the entry name
+     * @return the offset of the first byte of the entry data, or -1 if the entry is not stored without compression
+     * @throws IOException if the local header of the entry cannot be read
+     */
+    public long getDataOffset(final String name) throws IOException {
+        final Entry entry = entries.get(name);
+        if (entry == null) {
+            return -1;
+        }
+        if (entry.dataOffset < 0) {
+            // the local header may have an extra field of a different length than the central header
+            try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+                final ByteBuffer header = readFully(channel, entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+                if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+                    throw new IOException(zipFile.getName() + ": invalid local header for " + name);
+                }
+                entry.dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE +
+                        (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+            }
+        }
+        return entry.dataOffset;
+    }
+
+    /**
+     * @param name the entry name
+     * @return the size of a stored entry, or -1 if the entry is not stored without compression
+     */
+    public long getSize(final String name) {
+        final Entry entry = entries.get(name);
+        return entry == null ? -1 : entry.size;
+    }
+
+    /**
+     * Map the data of a stored entry.
+     *
+     * @param name the entry name
+     * @return a seekable stream over the entry data in the zip file, or null if the entry is not stored without
+     * compression
+     * @throws IOException if the entry cannot be mapped
+     */
+    public ImageInputStream createImageInputStream(final String name) throws IOException {
+        final long offset = getDataOffset(name);
+        if (offset < 0) {
+            return null;
+        }
+        return new MappedImageInputStream(zipFile, offset, getSize(name));
+    }
+
+    private static final class Entry {
+        final long localHeaderOffset;
+        final long size;
+        volatile long dataOffset = -1;
+
+        Entry(final long localHeaderOffset, final long size) {
+            this.localHeaderOffset = localHeaderOffset;
+            this.size = size;
+        }
+    }
+}
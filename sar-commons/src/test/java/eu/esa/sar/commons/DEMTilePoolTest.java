@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.dataop.dem.ElevationModel;
+import org.esa.snap.core.dataop.dem.ElevationModelDescriptor;
+import org.esa.snap.core.dataop.resamp.Resampling;
+import org.esa.snap.core.dataop.resamp.ResamplingFactory;
+import org.esa.snap.dem.dataio.DEMFactory;
+import org.esa.snap.engine_utilities.gpf.TileGeoreferencing;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DEMTilePoolTest {
+
+    private static final double NO_DATA = -32768.0;
+    private static final int DEM_WIDTH = 700;
+    private static final int DEM_HEIGHT = 600;
+    private static final int TILE_WIDTH = 52;
+    private static final int TILE_HEIGHT = 41;
+
+    // the synthetic DEM is a geographic grid of 3 arc seconds starting at 10E 50N
+    private static final double LON0 = 10.0;
+    private static final double LAT0 = 50.0;
+    private static final double RES = 1.0 / 1200.0;
+
+    @Before
+    public void setUp() {
+        DEMTilePool.clear();
+        DEMTilePool.setMaxBytes(64L * 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        DEMTilePool.clear();
+    }
+
+    @Test
+    public void testPooledMatchesUnpooled() throws Exception {
+        final String[] methods = {ResamplingFactory.NEAREST_NEIGHBOUR_NAME,
+                ResamplingFactory.BILINEAR_INTERPOLATION_NAME, ResamplingFactory.CUBIC_CONVOLUTION_NAME};
+        for (String method : methods) {
+            final Resampling resampling = ResamplingFactory.createResampling(method);
+            final String modelKey = "dem/" + method;
+
+            // two overlapping tiles with different geometries, the second one partly outside of the DEM
+            final double[][] tiles = {{250.3, 180.7, 0.8, 0.15}, {-3.2, 540.1, 1.1, -0.2}, {251.0, 181.0, 0.7, 0.2}};
+            for (double[] tile : tiles) {
+                final double[] demX = new double[TILE_WIDTH * TILE_HEIGHT];
+                final double[] demY = new double[TILE_WIDTH * TILE_HEIGHT];
+                final double[] lat = new double[demX.length];
+                final double[] lon = new double[demX.length];
+                createGrid(tile[0], tile[1], tile[2], tile[3], demX, demY);
+
+                final double[][] unpooled = new double[TILE_HEIGHT][TILE_WIDTH];
+                final boolean unpooledValid = DEMTilePool.resample(null, DEMTilePoolTest::getSample, resampling,
+                        NO_DATA, true, lat, lon, demX, demY, unpooled);
+                final double[][] pooled = new double[TILE_HEIGHT][TILE_WIDTH];
+                final boolean pooledValid = DEMTilePool.resample(modelKey, DEMTilePoolTest::getSample, resampling,
+                        NO_DATA, true, lat, lon, demX, demY, pooled);
+
+                assertEquals(unpooledValid, pooledValid);
+                assertTrue(pooledValid);
+                for (int y = 0; y < TILE_HEIGHT; ++y) {
+                    for (int x = 0; x < TILE_WIDTH; ++x) {
+                        assertEquals(method, unpooled[y][x], pooled[y][x], 0.0);
+                    }
+                }
+            }
+        }
+        assertTrue(DEMTilePool.getHitCount() > 0);
+        assertTrue(DEMTilePool.getUsedBytes() > 0);
+    }
+
+    @Test
+    public void testLocalDEMMatchesDEMFactory() throws Exception {
+        final String[] methods = {ResamplingFactory.NEAREST_NEIGHBOUR_NAME,
+                ResamplingFactory.BILINEAR_INTERPOLATION_NAME, ResamplingFactory.CUBIC_CONVOLUTION_NAME};
+        for (String method : methods) {
+            final ElevationModel dem = DEMTilePool.acquire("synthetic", method, () -> new SyntheticDEM(method));
+            try {
+                compareLocalDEM(dem, method);
+            } finally {
+                DEMTilePool.release(dem);
+            }
+        }
+        assertTrue(DEMTilePool.getMissCount() > 0);
+    }
+
+    @Test
+    public void testDelaunayIsLeftToDEMFactory() throws Exception {
+        assertNull(DEMTilePool.getResampling(DEMFactory.DELAUNAY_INTERPOLATION));
+
+        final String method = DEMFactory.DELAUNAY_INTERPOLATION;
+        final ElevationModel dem = DEMTilePool.acquire("synthetic", method, () -> new SyntheticDEM(method));
+        try {
+            compareLocalDEM(dem, method);
+        } finally {
+            DEMTilePool.release(dem);
+        }
+        assertEquals(0, DEMTilePool.getMissCount());
+    }
+
+    /**
+     * Compare the local DEM of a tile over the hole of the DEM with the one of DEMFactory.getLocalDEM().
+     */
+    private static void compareLocalDEM(final ElevationModel dem, final String method) throws Exception {
+        final int width = 60, height = 50;
+        final Product product = new Product("test", "test", width, height);
+        product.setSceneGeoCoding(new CrsGeoCoding(DefaultGeographicCRS.WGS84, width, height,
+                LON0 + 370 * RES, LAT0 - 275 * RES, 1.37 * RES, 1.21 * RES, 0, 0));
+
+        final int x0 = 5, y0 = 4, w = 40, h = 30;
+        final TileGeoreferencing tileGeoRef = new TileGeoreferencing(product, x0 - 1, y0 - 1, w + 2, h + 2);
+        final double[][] expected = new double[h + 2][w + 2];
+        final boolean expectedValid = DEMFactory.getLocalDEM(dem, NO_DATA, method, tileGeoRef, x0, y0, w, h,
+                product, true, expected);
+        final double[][] localDEM = new double[h + 2][w + 2];
+        final boolean valid = DEMTilePool.getLocalDEM(dem, NO_DATA, method, tileGeoRef, x0, y0, w, h,
+                product, true, localDEM);
+
+        assertEquals(expectedValid, valid);
+        for (int y = 0; y < h + 2; ++y) {
+            for (int x = 0; x < w + 2; ++x) {
+                assertEquals(method, expected[y][x], localDEM[y][x], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testNoDataAndInvalidPositions() throws Exception {
+        final Resampling resampling = ResamplingFactory.createResampling(ResamplingFactory.BILINEAR_INTERPOLATION_NAME);
+        final double[] demX = new double[TILE_WIDTH * TILE_HEIGHT];
+        final double[] demY = new double[TILE_WIDTH * TILE_HEIGHT];
+        final double[] lat = new double[demX.length];
+        final double[] lon = new double[demX.length];
+
+        // a tile over the hole of the DEM
+        createGrid(400.5, 300.5, 0.1, 0.0, demX, demY);
+        demX[7] = demY[7] = Double.NaN;
+        final double[][] localDEM = new double[TILE_HEIGHT][TILE_WIDTH];
+        assertFalse(DEMTilePool.resample("dem", DEMTilePoolTest::getSample, resampling,
+                NO_DATA, true, lat, lon, demX, demY, localDEM));
+        for (double[] row : localDEM) {
+            for (double v : row) {
+                assertEquals(NO_DATA, v, 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedSize() throws Exception {
+        final Resampling resampling = ResamplingFactory.createResampling(ResamplingFactory.BILINEAR_INTERPOLATION_NAME);
+        final double[] demX = new double[TILE_WIDTH * TILE_HEIGHT];
+        final double[] demY = new double[TILE_WIDTH * TILE_HEIGHT];
+        final double[] lat = new double[demX.length];
+        final double[] lon = new double[demX.length];
+        final double[][] localDEM = new double[TILE_HEIGHT][TILE_WIDTH];
+
+        final long blockBytes = 8L * DEMTilePool.BLOCK_SIZE * DEMTilePool.BLOCK_SIZE;
+        DEMTilePool.setMaxBytes(2 * blockBytes);
+        for (int i = 0; i < 6; ++i) {
+            createGrid(20.0 + i * 100.0, 20.0 + i * 90.0, 1.0, 0.0, demX, demY);
+            DEMTilePool.resample("dem", DEMTilePoolTest::getSample, resampling,
+                    NO_DATA, true, lat, lon, demX, demY, localDEM);
+            assertTrue(DEMTilePool.getUsedBytes() <= 2 * blockBytes);
+        }
+
+        DEMTilePool.clear();
+        assertEquals(0, DEMTilePool.getUsedBytes());
+    }
+
+    /**
+     * DEM positions of a tile rotated and scaled with respect to the DEM grid.
+     */
+    private static void createGrid(final double x0, final double y0, final double scale, final double rotation,
+                                   final double[] demX, final double[] demY) {
+        final double cos = Math.cos(rotation) * scale;
+        final double sin = Math.sin(rotation) * scale;
+        for (int y = 0, i = 0; y < TILE_HEIGHT; ++y) {
+            for (int x = 0; x < TILE_WIDTH; ++x, ++i) {
+                demX[i] = x0 + x * cos - y * sin;
+                demY[i] = y0 + x * sin + y * cos;
+            }
+        }
+    }
+
+    /**
+     * A smooth synthetic DEM with a hole of no data, throwing outside of its extent like an elevation model.
+     */
+    private static double getSample(final double x, final double y) {
+        if (x < 0 || y < 0 || x >= DEM_WIDTH || y >= DEM_HEIGHT) {
+            throw new ArrayIndexOutOfBoundsException("outside of the DEM");
+        }
+        if (x >= 390 && x < 420 && y >= 290 && y < 320) {
+            return NO_DATA;
+        }
+        return 300.0 * Math.sin(x * 0.031) * Math.cos(y * 0.017) + 0.25 * x + 1000.0;
+    }
+
+    /**
+     * An elevation model of getSample() on a geographic grid, resampling as BaseElevationModel does.
+     */
+    private static final class SyntheticDEM implements ElevationModel, Resampling.Raster {
+
+        private final Resampling resampling;
+        private final ElevationModelDescriptor descriptor;
+
+        SyntheticDEM(final String method) {
+            this.resampling = ResamplingFactory.createResampling(method);
+            // only the name, no data value and raster geometry of the descriptor are of use here
+            this.descriptor = (ElevationModelDescriptor) Proxy.newProxyInstance(
+                    ElevationModelDescriptor.class.getClassLoader(), new Class<?>[]{ElevationModelDescriptor.class},
+                    (proxy, m, args) -> {
+                        switch (m.getName()) {
+                            case "getName": return "synthetic";
+                            case "getNoDataValue": return NO_DATA;
+                            case "getTileWidthInDegrees": return DEM_WIDTH * RES;
+                            case "getTileWidth": case "getRasterWidth": return DEM_WIDTH;
+                            case "getRasterHeight": return DEM_HEIGHT;
+                            case "getNumXTiles": case "getNumYTiles": return 1;
+                            default:
+                                return m.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                        }
+                    });
+        }
+
+        @Override
+        public ElevationModelDescriptor getDescriptor() {
+            return descriptor;
+        }
+
+        @Override
+        public double getElevation(final GeoPos geoPos) throws Exception {
+            final PixelPos pixelPos = getIndex(geoPos);
+            final Resampling.Index index = resampling.createIndex();
+            resampling.computeIndex(pixelPos.x, pixelPos.y, DEM_WIDTH, DEM_HEIGHT, index);
+            final double elevation = resampling.resample(this, index);
+            return Double.isNaN(elevation) ? NO_DATA : elevation;
+        }
+
+        @Override
+        public PixelPos getIndex(final GeoPos geoPos) {
+            return new PixelPos((geoPos.lon - LON0) / RES, (LAT0 - geoPos.lat) / RES);
+        }
+
+        @Override
+        public GeoPos getGeoPos(final PixelPos pixelPos) {
+            return new GeoPos(LAT0 - pixelPos.y * RES, LON0 + pixelPos.x * RES);
+        }
+
+        @Override
+        public double getSample(final double pixelX, final double pixelY) {
+            return DEMTilePoolTest.getSample(pixelX, pixelY);
+        }
+
+        @Override
+        public boolean getSamples(final int[] x, final int[] y, final double[][] samples) {
+            boolean allValid = true;
+            for (int i = 0; i < y.length; ++i) {
+                for (int j = 0; j < x.length; ++j) {
+                    final double v = DEMTilePoolTest.getSample(x[j], y[i]);
+                    samples[i][j] = v == NO_DATA ? Double.NaN : v;
+                    allValid &= v != NO_DATA;
+                }
+            }
+            return allValid;
+        }
+
+        @Override
+        public Resampling getResampling() {
+            return resampling;
+        }
+
+        @Override
+        public int getWidth() {
+            return DEM_WIDTH;
+        }
+
+        @Override
+        public int getHeight() {
+            return DEM_HEIGHT;
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
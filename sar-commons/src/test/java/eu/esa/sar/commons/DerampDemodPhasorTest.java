@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class DerampDemodPhasorTest {
+
+    // Sentinel-1 IW like burst parameters
+    private static final int WIDTH = 300;
+    private static final int LINES_PER_BURST = 1500;
+    private static final double AZIMUTH_TIME_INTERVAL = 2.055556299999998E-3;
+
+    private final double[] dopplerRate = new double[WIDTH];
+    private final double[] referenceTime = new double[WIDTH];
+    private final double[] dopplerCentroid = new double[WIDTH];
+
+    public DerampDemodPhasorTest() {
+        for (int x = 0; x < WIDTH; ++x) {
+            dopplerRate[x] = -1850.0 + 0.3 * x;
+            referenceTime[x] = 1.54 + 1.0e-4 * x;
+            dopplerCentroid[x] = 30.0 - 0.05 * x;
+        }
+    }
+
+    @Test
+    public void testMatchesDirectPhase() {
+        final DerampDemodPhasor phasor = new DerampDemodPhasor();
+        final int burstIndex = 2;
+        final int firstLine = burstIndex * LINES_PER_BURST;
+
+        // a whole burst, then a smaller tile reusing the buffers
+        for (Rectangle rect : new Rectangle[]{new Rectangle(0, firstLine, WIDTH, LINES_PER_BURST),
+                new Rectangle(17, firstLine + 700, 50, 90)}) {
+            final float[] phasors = phasor.compute(dopplerRate, referenceTime, dopplerCentroid,
+                    AZIMUTH_TIME_INTERVAL, firstLine, rect);
+
+            for (int y = rect.y; y < rect.y + rect.height; ++y) {
+                final double ta = (y - firstLine) * AZIMUTH_TIME_INTERVAL;
+                for (int x = rect.x; x < rect.x + rect.width; ++x) {
+                    final double phase = -Math.PI * dopplerRate[x] * Math.pow(ta - referenceTime[x], 2)
+                            - 2.0 * Math.PI * dopplerCentroid[x] * ta;
+                    final int k = 2 * ((y - rect.y) * rect.width + x - rect.x);
+                    assertEquals(Math.cos(phase), phasors[k], 1e-6);
+                    assertEquals(Math.sin(phase), phasors[k + 1], 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPhase() {
+        final DerampDemodPhasor phasor = new DerampDemodPhasor();
+        final Rectangle rect = new Rectangle(40, LINES_PER_BURST + 300, 60, 150);
+        final double[][] phase = new double[rect.height][rect.width];
+        final float[] phasors = phasor.compute(dopplerRate, referenceTime, dopplerCentroid,
+                AZIMUTH_TIME_INTERVAL, LINES_PER_BURST, rect);
+        final float[] expected = phasors.clone();
+
+        final Sentinel1Utils.SubSwathInfo[] subSwath = {new Sentinel1Utils.SubSwathInfo()};
+        subSwath[0].dopplerRate = new double[][]{dopplerRate, dopplerRate};
+        subSwath[0].referenceTime = new double[][]{referenceTime, referenceTime};
+        subSwath[0].dopplerCentroid = new double[][]{dopplerCentroid, dopplerCentroid};
+        subSwath[0].azimuthTimeInterval = AZIMUTH_TIME_INTERVAL;
+        subSwath[0].linesPerBurst = LINES_PER_BURST;
+        final float[] phasorsWithPhase = phasor.compute(subSwath, 1, 1, rect, phase);
+
+        for (int yy = 0; yy < rect.height; ++yy) {
+            final double ta = (rect.y + yy - LINES_PER_BURST) * AZIMUTH_TIME_INTERVAL;
+            for (int xx = 0; xx < rect.width; ++xx) {
+                final int x = rect.x + xx;
+                final double direct = -Math.PI * dopplerRate[x] * Math.pow(ta - referenceTime[x], 2)
+                        - 2.0 * Math.PI * dopplerCentroid[x] * ta;
+                assertEquals(direct, phase[yy][xx], 1e-9 * Math.abs(direct) + 1e-9);
+
+                final int k = 2 * (yy * rect.width + xx);
+                assertEquals(expected[k], phasorsWithPhase[k], 0.0f);
+                assertEquals(expected[k + 1], phasorsWithPhase[k + 1], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testApply() {
+        final DerampDemodPhasor phasor = new DerampDemodPhasor();
+        final Rectangle rect = new Rectangle(5, 10, 4, 3);
+        final float[] phasors = phasor.compute(dopplerRate, referenceTime, dopplerCentroid,
+                AZIMUTH_TIME_INTERVAL, 0, rect);
+
+        final double[][] dataI = new double[3][4];
+        final double[][] dataQ = new double[3][4];
+        for (int y = 0; y < 3; ++y) {
+            for (int x = 0; x < 4; ++x) {
+                dataI[y][x] = 1.0 + x;
+                dataQ[y][x] = 2.0 - y;
+            }
+        }
+        phasor.apply(dataI, dataQ);
+
+        for (int y = 0; y < 3; ++y) {
+            for (int x = 0; x < 4; ++x) {
+                final double c = phasors[2 * (y * 4 + x)];
+                final double s = phasors[2 * (y * 4 + x) + 1];
+                assertEquals((1.0 + x) * c - (2.0 - y) * s, dataI[y][x], 1e-12);
+                assertEquals((1.0 + x) * s + (2.0 - y) * c, dataQ[y][x], 1e-12);
+            }
+        }
+    }
+}
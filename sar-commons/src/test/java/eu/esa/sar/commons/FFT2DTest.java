@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit test for the shared 2-D FFT kernel.
+ */
+public class FFT2DTest {
+
+    private static final int[][] SIZES = {{8, 8}, {16, 32}, {15, 9}, {33, 1}, {1, 12}};
+
+    @Test
+    public void testForwardMatchesDFT() {
+        final Random random = new Random(3);
+        for (int[] size : SIZES) {
+            final int rows = size[0];
+            final int cols = size[1];
+            final double[] a = createData(random, 2 * rows * cols);
+            final double[] expected = dft2D(a, 0, rows, cols, -1);
+
+            FFT2D.complexForward(a, rows, cols);
+            assertArrayEquals(expected, a, 1e-9 * rows * cols);
+        }
+    }
+
+    @Test
+    public void testInverseMatchesDFT() {
+        final Random random = new Random(4);
+        for (int[] size : SIZES) {
+            final int rows = size[0];
+            final int cols = size[1];
+            final double[] a = createData(random, 2 * rows * cols);
+            final double[] expected = dft2D(a, 0, rows, cols, 1);
+
+            final double[] unscaled = a.clone();
+            FFT2D.complexInverse(unscaled, rows, cols, false);
+            assertArrayEquals(expected, unscaled, 1e-9 * rows * cols);
+
+            FFT2D.complexInverse(a, rows, cols, true);
+            for (int i = 0; i < expected.length; ++i) {
+                expected[i] /= rows * cols;
+            }
+            assertArrayEquals(expected, a, 1e-9);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Random random = new Random(5);
+        final double[] a = createData(random, 2 * 64 * 48);
+        final double[] original = a.clone();
+        FFT2D.complexForward(a, 64, 48);
+        FFT2D.complexInverse(a, 64, 48, true);
+        assertArrayEquals(original, a, 1e-12);
+    }
+
+    @Test
+    public void testBatch() {
+        final Random random = new Random(6);
+        final int rows = 12;
+        final int cols = 10;
+        final int patchSize = 2 * rows * cols;
+        final double[] a = createData(random, 3 * patchSize);
+
+        final double[] expected = new double[a.length];
+        for (int p = 0; p < 3; ++p) {
+            System.arraycopy(dft2D(a, p * patchSize, rows, cols, -1), 0, expected, p * patchSize, patchSize);
+        }
+
+        FFT2D.complexForwardBatch(a, rows, cols, 3);
+        assertArrayEquals(expected, a, 1e-9 * rows * cols);
+
+        FFT2D.complexInverseBatch(a, rows, cols, 3, true);
+        FFT2D.complexForwardBatch(a, rows, cols, 3);
+        assertArrayEquals(expected, a, 1e-9 * rows * cols);
+    }
+
+    @Test
+    public void testRows() {
+        final Random random = new Random(7);
+        final int rows = 5;
+        final int cols = 24;
+        final double[] a = createData(random, 2 * rows * cols);
+        final double[] expected = a.clone();
+        for (int r = 0; r < rows; ++r) {
+            new DoubleFFT_1D(cols).complexForward(expected, 2 * r * cols);
+        }
+
+        FFT2D.complexForwardRows(a, rows, cols);
+        assertArrayEquals(expected, a, 1e-12);
+    }
+
+    @Test
+    public void testFloat() {
+        final Random random = new Random(8);
+        for (int[] size : SIZES) {
+            final int rows = size[0];
+            final int cols = size[1];
+            final double[] a = createData(random, 2 * rows * cols);
+            final double[] expected = dft2D(a, 0, rows, cols, -1);
+
+            final float[] f = new float[a.length];
+            for (int i = 0; i < a.length; ++i) {
+                f[i] = (float) a[i];
+            }
+            FFT2D.complexForward(f, rows, cols);
+            for (int i = 0; i < a.length; ++i) {
+                assertEquals(expected[i], f[i], 1e-5 * rows * cols);
+            }
+
+            FFT2D.complexInverse(f, rows, cols, true);
+            for (int i = 0; i < a.length; ++i) {
+                assertEquals(a[i], f[i], 1e-5);
+            }
+        }
+    }
+
+    @Test
+    public void testPlansAreCachedPerThread() throws InterruptedException {
+        assertSame(FFT2D.getPlan(100), FFT2D.getPlan(100));
+        assertSame(FFT2D.getFloatPlan(100), FFT2D.getFloatPlan(100));
+
+        final DoubleFFT_1D plan = FFT2D.getPlan(100);
+        final DoubleFFT_1D[] otherPlan = new DoubleFFT_1D[1];
+        final Thread thread = new Thread(() -> otherPlan[0] = FFT2D.getPlan(100));
+        thread.start();
+        thread.join();
+        assertNotSame(plan, otherPlan[0]);
+    }
+
+    @Test
+    public void testPlanCacheIsBounded() {
+        final DoubleFFT_1D plan = FFT2D.getPlan(100);
+        for (int n = 1; n < FFT2D.MAX_CACHED_SIZES; ++n) {
+            FFT2D.getPlan(100 + n);
+        }
+        // still one of the most recently used sizes
+        assertSame(plan, FFT2D.getPlan(100));
+
+        for (int n = 1; n <= FFT2D.MAX_CACHED_SIZES; ++n) {
+            FFT2D.getPlan(200 + n);
+        }
+        assertNotSame(plan, FFT2D.getPlan(100));
+
+        // sizes whose plans were evicted are planned again
+        FFT2D.complexForward(createData(new Random(5), 2 * 6 * 10), 6, 10);
+        for (int n = 1; n <= FFT2D.MAX_CACHED_SIZES; ++n) {
+            FFT2D.complexForward(createData(new Random(n), 2 * 20 * (20 + n)), 20, 20 + n);
+        }
+        final double[] a = createData(new Random(6), 2 * 6 * 10);
+        final double[] expected = dft2D(a, 0, 6, 10, -1);
+        FFT2D.complexForward(a, 6, 10);
+        assertArrayEquals(expected, a, 1e-9 * 60);
+    }
+
+    private static double[] createData(final Random random, final int length) {
+        final double[] a = new double[length];
+        for (int i = 0; i < length; ++i) {
+            a[i] = random.nextGaussian();
+        }
+        return a;
+    }
+
+    /**
+     * Direct evaluation of the unscaled 2-D DFT with the given sign of the exponent.
+     */
+    private static double[] dft2D(final double[] a, final int offset, final int rows, final int cols,
+                                  final int sign) {
+        final double[] out = new double[2 * rows * cols];
+        for (int u = 0; u < rows; ++u) {
+            for (int v = 0; v < cols; ++v) {
+                double re = 0.0;
+                double im = 0.0;
+                for (int r = 0; r < rows; ++r) {
+                    for (int c = 0; c < cols; ++c) {
+                        final double phase = sign * 2.0 * Math.PI * ((double) u * r / rows + (double) v * c / cols);
+                        final double cos = Math.cos(phase);
+                        final double sin = Math.sin(phase);
+                        final int k = offset + 2 * (r * cols + c);
+                        re += a[k] * cos - a[k + 1] * sin;
+                        im += a[k] * sin + a[k + 1] * cos;
+                    }
+                }
+                out[2 * (u * cols + v)] = re;
+                out[2 * (u * cols + v) + 1] = im;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class OrbitInterpolatorTest {
+
+    private static final double SECONDS_PER_DAY = 86400.0;
+    private static final double FIRST_VECTOR_MJD = 8000.25;
+    private static final double ORBIT_RADIUS = 7071000.0;
+    private static final double ANGULAR_RATE = 2.0 * Math.PI / 5924.0;
+
+    @Test
+    public void testMatchesLagrangeInterpolation() {
+        for (int numVectors : new int[]{5, 8, 17, 60}) {
+            final OrbitStateVector[] vectors = createOrbitStateVectors(numVectors, 10.0);
+            final OrbitInterpolator interpolator = new OrbitInterpolator(vectors, 8);
+
+            final Random random = new Random(numVectors);
+            final double first = vectors[0].time_mjd;
+            final double last = vectors[numVectors - 1].time_mjd;
+            final PosVector position = new PosVector();
+            final PosVector velocity = new PosVector();
+            for (int i = 0; i < 1000; ++i) {
+                final double time = first + random.nextDouble() * (last - first);
+                interpolator.getPositionVelocity(time, position, velocity);
+
+                final double[] expected = lagrange(vectors, time, 8);
+                assertEquals(expected[0], position.x, 1e-4);
+                assertEquals(expected[1], position.y, 1e-4);
+                assertEquals(expected[2], position.z, 1e-4);
+                assertEquals(expected[3], velocity.x, 1e-7);
+                assertEquals(expected[4], velocity.y, 1e-7);
+                assertEquals(expected[5], velocity.z, 1e-7);
+            }
+        }
+    }
+
+    @Test
+    public void testReproducesStateVectors() {
+        final OrbitStateVector[] vectors = createOrbitStateVectors(30, 10.0);
+        final OrbitInterpolator interpolator = new OrbitInterpolator(vectors, 8);
+
+        final PosVector position = new PosVector();
+        final PosVector velocity = new PosVector();
+        for (OrbitStateVector osv : vectors) {
+            interpolator.getPositionVelocity(osv.time_mjd, position, velocity);
+            assertEquals(osv.x_pos, position.x, 1e-4);
+            assertEquals(osv.y_pos, position.y, 1e-4);
+            assertEquals(osv.z_pos, position.z, 1e-4);
+            assertEquals(osv.x_vel, velocity.x, 1e-7);
+            assertEquals(osv.z_vel, velocity.z, 1e-7);
+        }
+    }
+
+    @Test
+    public void testOrbitStateVectorsCache() {
+        final OrbitStateVector[] vectors = createOrbitStateVectors(17, 10.0);
+        final OrbitStateVectors orbit = new OrbitStateVectors(vectors);
+
+        final double time = vectors[5].time_mjd + 3.3 / SECONDS_PER_DAY;
+        final OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(time);
+        assertSame(pv, orbit.getPositionVelocity(time));
+
+        final PosVector position = new PosVector();
+        final PosVector velocity = new PosVector();
+        orbit.getPositionVelocity(time, position, velocity);
+        assertEquals(pv.position.x, position.x, 0.0);
+        assertEquals(pv.velocity.z, velocity.z, 0.0);
+
+        final OrbitStateVectors uncached = new OrbitStateVectors(vectors, 0);
+        assertEquals(pv.position.z, uncached.getPositionVelocity(time).position.z, 0.0);
+    }
+
+    private static OrbitStateVector[] createOrbitStateVectors(final int numVectors, final double intervalSec) {
+        final OrbitStateVector[] vectors = new OrbitStateVector[numVectors];
+        for (int i = 0; i < numVectors; ++i) {
+            final double t = i * intervalSec;
+            final double a = ANGULAR_RATE * t;
+            final double v = ORBIT_RADIUS * ANGULAR_RATE;
+            vectors[i] = new OrbitStateVector(new ProductData.UTC(FIRST_VECTOR_MJD + t / SECONDS_PER_DAY),
+                    ORBIT_RADIUS * Math.cos(a), 1000.0 * Math.sin(3 * a), ORBIT_RADIUS * Math.sin(a),
+                    -v * Math.sin(a), 3000.0 * ANGULAR_RATE * Math.cos(3 * a), v * Math.cos(a));
+        }
+        return vectors;
+    }
+
+    /**
+     * Reference Lagrange interpolation with the window selection of OrbitStateVectors.
+     */
+    private static double[] lagrange(final OrbitStateVector[] vectors, final double time, final int nv) {
+        final double dt = (vectors[vectors.length - 1].time_mjd - vectors[0].time_mjd) / (vectors.length - 1);
+        int i0, iN;
+        if (vectors.length <= nv) {
+            i0 = 0;
+            iN = vectors.length - 1;
+        } else {
+            i0 = Math.max((int) ((time - vectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
+            iN = Math.min(i0 + nv - 1, vectors.length - 1);
+            i0 = (iN < vectors.length - 1 ? i0 : iN - nv + 1);
+        }
+
+        final double[] result = new double[6];
+        for (int i = i0; i <= iN; ++i) {
+            final OrbitStateVector orbI = vectors[i];
+            double weight = 1;
+            for (int j = i0; j <= iN; ++j) {
+                if (j != i) {
+                    weight *= (time - vectors[j].time_mjd) / (orbI.time_mjd - vectors[j].time_mjd);
+                }
+            }
+            result[0] += weight * orbI.x_pos;
+            result[1] += weight * orbI.y_pos;
+            result[2] += weight * orbI.z_pos;
+            result[3] += weight * orbI.x_vel;
+            result[4] += weight * orbI.y_vel;
+            result[5] += weight * orbI.z_vel;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for the shared summed-area tables.
+ */
+public class SummedAreaTableTest {
+
+    private static final double NO_DATA = -1.0;
+    private static final int WIDTH = 23;
+    private static final int HEIGHT = 17;
+
+    @Test
+    public void testWindowsMatchDirectSums() {
+        final double[] values = createValues(new Random(5));
+        final SummedAreaTable table = new SummedAreaTable(values, WIDTH, HEIGHT, NO_DATA);
+        final double offset = table.getOffset();
+        assertEquals(mean(values), offset, 1e-12);
+
+        final double[] expected = new double[3];
+        for (int minY = 0; minY < HEIGHT; minY += 3) {
+            for (int maxY = minY + 1; maxY <= HEIGHT; maxY += 4) {
+                for (int minX = 0; minX < WIDTH; minX += 2) {
+                    for (int maxX = minX + 1; maxX <= WIDTH; maxX += 5) {
+                        directSums(values, WIDTH, offset, minX, minY, maxX, maxY, 0, 0, 0, 0, expected);
+                        assertEquals((int) expected[0], table.getCount(minX, minY, maxX, maxY));
+                        assertEquals(expected[1], table.getSum(minX, minY, maxX, maxY), 1e-9);
+                        assertEquals(expected[2], table.getSumSq(minX, minY, maxX, maxY),
+                                1e-12 * expected[2] + 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRingsMatchDirectSums() {
+        final double[] values = createValues(new Random(6));
+        final SummedAreaTable table = new SummedAreaTable(values, WIDTH, HEIGHT, NO_DATA);
+        final double offset = table.getOffset();
+
+        final double[] expected = new double[3];
+        // inner windows inside, touching the border of, equal to and empty within the outer window
+        final int[][] rings = {{2, 3, 20, 15, 5, 6, 9, 11}, {0, 0, WIDTH, HEIGHT, 0, 4, 7, HEIGHT},
+                {4, 4, 10, 10, 4, 4, 10, 10}, {1, 2, 12, 13, 6, 6, 6, 9}, {3, 1, 18, 16, 8, 12, 15, 12}};
+        for (int[] r : rings) {
+            directSums(values, WIDTH, offset, r[0], r[1], r[2], r[3], r[4], r[5], r[6], r[7], expected);
+            assertEquals((int) expected[0], table.getRingCount(r[0], r[1], r[2], r[3], r[4], r[5], r[6], r[7]));
+            assertEquals(expected[1], table.getRingSum(r[0], r[1], r[2], r[3], r[4], r[5], r[6], r[7]), 1e-9);
+            assertEquals(expected[2], table.getRingSumSq(r[0], r[1], r[2], r[3], r[4], r[5], r[6], r[7]),
+                    1e-12 * expected[2] + 1e-9);
+        }
+    }
+
+    @Test
+    public void testFloatMatchesDouble() {
+        final double[] values = createValues(new Random(7));
+        final float[] floats = new float[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            floats[i] = (float) values[i];
+            values[i] = floats[i];
+        }
+        final SummedAreaTable doubleTable = new SummedAreaTable(values, WIDTH, HEIGHT, NO_DATA);
+        final SummedAreaTable floatTable = new SummedAreaTable(floats, WIDTH, HEIGHT, NO_DATA);
+
+        assertEquals(doubleTable.getOffset(), floatTable.getOffset(), 0.0);
+        assertEquals(doubleTable.getSum(1, 2, 19, 13), floatTable.getSum(1, 2, 19, 13), 0.0);
+        assertEquals(doubleTable.getRingSumSq(0, 0, WIDTH, HEIGHT, 3, 3, 8, 9),
+                floatTable.getRingSumSq(0, 0, WIDTH, HEIGHT, 3, 3, 8, 9), 0.0);
+    }
+
+    @Test
+    public void testDarkWindowNextToBrightTarget() {
+        final int width = 1000;
+        final int height = 50;
+        final double[] values = new double[width * height];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = 1e-3 * (1 + i % 7);
+        }
+        values[3] = 1e12;
+
+        // the tables reach 1e12 while the window sum is of the order of 1e-2
+        final SummedAreaTable table = new SummedAreaTable(values, width, height, NO_DATA);
+        final double[] expected = new double[3];
+        directSums(values, width, 0.0, 900, 40, 903, 43, 0, 0, 0, 0, expected);
+        final double mean = expected[1] / 9;
+        assertEquals(9, table.getCount(900, 40, 903, 43));
+        assertEquals(mean, table.getSum(900, 40, 903, 43) / 9 + table.getOffset(), 1e-5 * mean);
+    }
+
+    /**
+     * Uniform values with a few outliers and a block of no data.
+     */
+    private static double[] createValues(final Random random) {
+        final double[] values = new double[WIDTH * HEIGHT];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = 10.0 * random.nextDouble();
+        }
+        values[random.nextInt(values.length)] = 1e4;
+        values[random.nextInt(values.length)] = 1e4;
+        for (int y = 4; y < 9; ++y) {
+            for (int x = 6; x < 13; ++x) {
+                values[y * WIDTH + x] = NO_DATA;
+            }
+        }
+        return values;
+    }
+
+    private static double mean(final double[] values) {
+        double sum = 0.0;
+        int n = 0;
+        for (double v : values) {
+            if (v != NO_DATA) {
+                sum += v;
+                ++n;
+            }
+        }
+        return sum / n;
+    }
+
+    /**
+     * The count, sum and sum of squares of the valid values minus the offset in a window less an inner window.
+     */
+    private static void directSums(final double[] values, final int width, final double offset,
+                                   final int minX, final int minY, final int maxX, final int maxY,
+                                   final int gMinX, final int gMinY, final int gMaxX, final int gMaxY,
+                                   final double[] expected) {
+        expected[0] = expected[1] = expected[2] = 0.0;
+        for (int y = minY; y < maxY; ++y) {
+            for (int x = minX; x < maxX; ++x) {
+                final double v = values[y * width + x];
+                final boolean inGuard = x >= gMinX && x < gMaxX && y >= gMinY && y < gMaxY;
+                if (v != NO_DATA && !inGuard) {
+                    final double d = v - offset;
+                    expected[0] += 1;
+                    expected[1] += d;
+                    expected[2] += d * d;
+                }
+            }
+        }
+    }
+}
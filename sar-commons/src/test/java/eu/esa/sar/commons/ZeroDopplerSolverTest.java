@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ZeroDopplerSolverTest {
+
+    private static final double SECONDS_PER_DAY = 86400.0;
+    private static final double FIRST_VECTOR_MJD = 8000.25;
+    private static final double ORBIT_RADIUS = 7071000.0;
+    private static final double EARTH_RADIUS = 6371000.0;
+    private static final double ANGULAR_RATE = 2.0 * Math.PI / 5924.0;
+    private static final double WAVELENGTH = 0.0555;
+
+    private static final int NUM_LINES = 3000;
+    private static final double LINE_TIME_SEC = 0.002;
+    private static final double FIRST_LINE_SEC = 30.0;
+
+    @Test
+    public void testMatchesBisection() {
+        final OrbitStateVectors orbit = createOrbit();
+        final double firstLineUTC = FIRST_VECTOR_MJD + FIRST_LINE_SEC / SECONDS_PER_DAY;
+        final double lineTimeInterval = LINE_TIME_SEC / SECONDS_PER_DAY;
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(firstLineUTC, lineTimeInterval, WAVELENGTH, orbit);
+
+        final int width = 50;
+        final PosVector[] earthPoints = new PosVector[width];
+        final double[] times = new double[width];
+        for (int row = 0; row < 20; ++row) {
+            for (int i = 0; i < width; ++i) {
+                // a row of ground points slightly skewed in azimuth, some outside of the image
+                final double t = FIRST_LINE_SEC - 1.0 + row * 0.3 + i * 0.01;
+                earthPoints[i] = createEarthPoint(t, 0.03 + i * 0.0005, 500.0 * Math.sin(i));
+            }
+            earthPoints[7].x = Double.NaN;
+
+            solver.getZeroDopplerTimes(earthPoints, width, times);
+
+            for (int i = 0; i < width; ++i) {
+                if (i == 7) {
+                    assertEquals(SARGeocoding.NonValidZeroDopplerTime, times[i], 0.0);
+                    continue;
+                }
+                final double expected = SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC, lineTimeInterval,
+                        WAVELENGTH, earthPoints[i], orbit.sensorPosition, orbit.sensorVelocity);
+                if (expected == SARGeocoding.NonValidZeroDopplerTime) {
+                    assertEquals(expected, times[i], 0.0);
+                } else {
+                    // within a hundredth of a line
+                    assertEquals(expected, times[i], 0.01 * lineTimeInterval);
+                }
+            }
+        }
+    }
+
+    private static OrbitStateVectors createOrbit() {
+        final int numVectors = 17;
+        final OrbitStateVector[] vectors = new OrbitStateVector[numVectors];
+        for (int i = 0; i < numVectors; ++i) {
+            final double t = i * 10.0;
+            final double a = ANGULAR_RATE * t;
+            final double v = ORBIT_RADIUS * ANGULAR_RATE;
+            vectors[i] = new OrbitStateVector(new ProductData.UTC(FIRST_VECTOR_MJD + t / SECONDS_PER_DAY),
+                    ORBIT_RADIUS * Math.cos(a), 0.0, ORBIT_RADIUS * Math.sin(a),
+                    -v * Math.sin(a), 0.0, v * Math.cos(a));
+        }
+        return new OrbitStateVectors(vectors, FIRST_VECTOR_MJD + FIRST_LINE_SEC / SECONDS_PER_DAY,
+                LINE_TIME_SEC / SECONDS_PER_DAY, NUM_LINES);
+    }
+
+    /**
+     * Point on the earth sphere which is seen at zero Doppler at time t, displaced across track by the look angle.
+     */
+    private static PosVector createEarthPoint(final double t, final double lookOffset, final double height) {
+        final double a = ANGULAR_RATE * t;
+        final double r = EARTH_RADIUS + height;
+        return new PosVector(r * Math.cos(a) * Math.cos(lookOffset), r * Math.sin(lookOffset),
+                r * Math.sin(a) * Math.cos(lookOffset));
+    }
+}
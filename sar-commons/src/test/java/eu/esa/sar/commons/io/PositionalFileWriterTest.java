@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons.io;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class PositionalFileWriterTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+    private static final int TILE_SIZE = 64;
+
+    @Test
+    public void testConcurrentTiles() throws Exception {
+        testConcurrentTiles(ByteOrder.BIG_ENDIAN);
+        testConcurrentTiles(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void testConcurrentTiles(final ByteOrder byteOrder) throws Exception {
+
+        final File file = File.createTempFile("positionalWriter", ".img");
+        file.deleteOnExit();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (PositionalFileWriter writer = new PositionalFileWriter(file, byteOrder)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int ty = 0; ty < HEIGHT; ty += TILE_SIZE) {
+                for (int tx = 0; tx < WIDTH; tx += TILE_SIZE) {
+                    final int x0 = tx;
+                    final int y0 = ty;
+                    futures.add(executor.submit(() -> {
+                        writeTile(writer, x0, y0, Math.min(TILE_SIZE, WIDTH - x0), Math.min(TILE_SIZE, HEIGHT - y0));
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(byteOrder);
+        assertEquals((long) WIDTH * HEIGHT * Float.BYTES, buffer.capacity());
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                assertEquals(getValue(x, y), buffer.getFloat(), 0.0f);
+            }
+        }
+    }
+
+    private static void writeTile(final PositionalFileWriter writer, final int x0, final int y0,
+                                  final int w, final int h) throws Exception {
+        final float[] samples = new float[w * h];
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                samples[y * w + x] = getValue(x0 + x, y0 + y);
+            }
+        }
+        final ProductData data = ProductData.createInstance(samples);
+        for (int y = 0; y < h; ++y) {
+            writer.write(data, y * w, w, (long) (y0 + y) * WIDTH + x0);
+        }
+    }
+
+    private static float getValue(final int x, final int y) {
+        return y * 1000.5f + x;
+    }
+
+    @Test
+    public void testElementTypes() throws Exception {
+
+        final File file = File.createTempFile("positionalWriter", ".img");
+        file.deleteOnExit();
+
+        try (PositionalFileWriter writer = new PositionalFileWriter(file, ByteOrder.BIG_ENDIAN)) {
+            writer.write(ProductData.createInstance(new short[]{0, 1, 2, -3}), 1, 3, 0);
+            writer.write(ProductData.createInstance(new double[]{2.5}), 0, 1, 1);
+            writer.write(ProductData.createInstance(new byte[]{7, 8}), 0, 2, 16);
+            writer.writeFloats(new float[]{1.5f, -2.5f}, 0, 2, 18);
+            writer.writeShorts(new short[]{4, 5, 6}, 1, 2, 26);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        assertEquals(30, buffer.capacity());
+        assertEquals(1, buffer.getShort(0));
+        assertEquals(2, buffer.getShort(2));
+        assertEquals(-3, buffer.getShort(4));
+        assertEquals(2.5, buffer.getDouble(8), 0.0);
+        assertEquals(7, buffer.get(16));
+        assertEquals(8, buffer.get(17));
+        assertEquals(1.5f, buffer.getFloat(18), 0.0f);
+        assertEquals(-2.5f, buffer.getFloat(22), 0.0f);
+        assertEquals(5, buffer.getShort(26));
+        assertEquals(6, buffer.getShort(28));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.commons.io;
+
+import org.junit.Test;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StoredZipEntriesTest {
+
+    private static final String MEASUREMENT = "S1A_TEST.SAFE/measurement/s1a-iw-grd-vv.tiff";
+    private static final String ANNOTATION = "S1A_TEST.SAFE/annotation/s1a-iw-grd-vv.xml";
+
+    @Test
+    public void testStoredEntryIsMapped() throws IOException {
+        final byte[] measurement = createData(new Random(1), 100000);
+        final byte[] annotation = createData(new Random(2), 5000);
+        final File zipFile = createZip(measurement, annotation, 0);
+        try {
+            final StoredZipEntries entries = StoredZipEntries.read(zipFile);
+            assertTrue(entries.isStored(MEASUREMENT));
+            assertFalse(entries.isStored(ANNOTATION));
+            assertEquals(measurement.length, entries.getSize(MEASUREMENT));
+            assertEquals(-1, entries.getDataOffset(ANNOTATION));
+            assertNull(entries.createImageInputStream(ANNOTATION));
+            assertNull(entries.createImageInputStream("missing.tiff"));
+
+            try (ImageInputStream stream = entries.createImageInputStream(MEASUREMENT)) {
+                checkStream(stream, measurement);
+            }
+        } finally {
+            Files.delete(zipFile.toPath());
+        }
+    }
+
+    @Test
+    public void testZip64() throws IOException {
+        // more than 65535 entries make the zip use the ZIP64 end of central directory record
+        final byte[] measurement = createData(new Random(3), 20000);
+        final File zipFile = createZip(measurement, new byte[10], 70000);
+        try {
+            final StoredZipEntries entries = StoredZipEntries.read(zipFile);
+            assertTrue(entries.isStored(MEASUREMENT));
+            assertTrue(entries.isStored("padding/69999"));
+            try (ImageInputStream stream = entries.createImageInputStream(MEASUREMENT)) {
+                checkStream(stream, measurement);
+            }
+        } finally {
+            Files.delete(zipFile.toPath());
+        }
+    }
+
+    @Test
+    public void testClosedStreamIsUnmapped() throws IOException {
+        final byte[] measurement = createData(new Random(5), 30000);
+        final File zipFile = createZip(measurement, new byte[10], 0);
+        try {
+            final ImageInputStream stream = StoredZipEntries.read(zipFile).createImageInputStream(MEASUREMENT);
+            stream.close();
+            try {
+                stream.read();
+                fail("read after close");
+            } catch (IOException e) {
+                // the released mapping is not touched
+            }
+
+            // the unmapped file can be replaced and mapped again
+            final byte[] newMeasurement = createData(new Random(6), 30000);
+            Files.move(createZip(newMeasurement, new byte[10], 0).toPath(), zipFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            try (ImageInputStream newStream = StoredZipEntries.read(zipFile).createImageInputStream(MEASUREMENT)) {
+                checkStream(newStream, newMeasurement);
+            }
+        } finally {
+            Files.delete(zipFile.toPath());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAZip() throws IOException {
+        final File file = File.createTempFile("notazip", ".zip");
+        try {
+            Files.write(file.toPath(), createData(new Random(4), 1000));
+            StoredZipEntries.read(file);
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    private static void checkStream(final ImageInputStream stream, final byte[] expected) throws IOException {
+        assertEquals(expected.length, stream.length());
+
+        final byte[] all = new byte[expected.length];
+        stream.readFully(all);
+        assertArrayEquals(expected, all);
+        assertEquals(-1, stream.read());
+
+        stream.seek(1234);
+        assertEquals(expected[1234] & 0xff, stream.read());
+
+        stream.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        stream.seek(100);
+        final int value = (expected[100] & 0xff) | (expected[101] & 0xff) << 8 |
+                (expected[102] & 0xff) << 16 | (expected[103] & 0xff) << 24;
+        assertEquals(value, stream.readInt());
+
+        stream.seek(expected.length - 3);
+        final byte[] last = new byte[10];
+        assertEquals(3, stream.read(last, 0, 10));
+        assertEquals(expected[expected.length - 1], last[2]);
+    }
+
+    private static byte[] createData(final Random random, final int length) {
+        final byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    /**
+     * A SAFE like zip with a stored measurement, a deflated annotation and some stored padding entries.
+     */
+    private static File createZip(final byte[] measurement, final byte[] annotation, final int numPadding)
+            throws IOException {
+        final File zipFile = File.createTempFile("safe", ".zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            zip.setMethod(ZipOutputStream.DEFLATED);
+            zip.putNextEntry(new ZipEntry(ANNOTATION));
+            zip.write(annotation);
+            zip.closeEntry();
+
+            putStoredEntry(zip, MEASUREMENT, measurement);
+            for (int i = 0; i < numPadding; ++i) {
+                putStoredEntry(zip, "padding/" + i, new byte[0]);
+            }
+        }
+        return zipFile;
+    }
+
+    private static void putStoredEntry(final ZipOutputStream zip, final String name, final byte[] data)
+            throws IOException {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        entry.setCrc(crc.getValue());
+        // an extra field that makes the data offset differ from a plain local header
+        entry.setExtra(new byte[]{(byte) 0xfe, (byte) 0xca, 4, 0, 1, 2, 3, 4});
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.orbits.io.sentinel1;
+
+import Jama.Matrix;
+import org.esa.snap.engine_utilities.datamodel.Orbits;
+import org.esa.snap.engine_utilities.util.Maths;
+
+import java.util.List;
+
+/**
+ * Piecewise polynomial model of an orbit: the orbit state vector at a time is given by the polynomial fitted to the
+ * polyDegree + 1 state vectors around it.
+ * <p>
+ * A window of state vectors is fitted once, the first time it is used, and its coefficients are kept so that
+ * queries only evaluate polynomials. The windows and the fit are the same as fitting the window on every query.
+ * The model may be shared between threads.
+ */
+final class OrbitPolynomialModel {
+
+    private final int polyDegree;
+    private final int numVectors;
+    private final double t0;
+    private final double tN;
+    private final double[] time;
+    private final double[][] stateVectors;   // [x, y, z, vx, vy, vz][vector]
+
+    // windows by index of their first state vector, fitted on first use
+    private final Window[] windows;
+
+    OrbitPolynomialModel(final List<Orbits.OrbitVector> osvList, final int polyDegree) {
+
+        this.polyDegree = polyDegree;
+        this.numVectors = osvList.size();
+        this.t0 = osvList.get(0).utcMJD;
+        this.tN = osvList.get(numVectors - 1).utcMJD;
+
+        time = new double[numVectors];
+        stateVectors = new double[6][numVectors];
+        for (int i = 0; i < numVectors; i++) {
+            final Orbits.OrbitVector osv = osvList.get(i);
+            time[i] = osv.utcMJD - t0;
+            stateVectors[0][i] = osv.xPos;
+            stateVectors[1][i] = osv.yPos;
+            stateVectors[2][i] = osv.zPos;
+            stateVectors[3][i] = osv.xVel;
+            stateVectors[4][i] = osv.yVel;
+            stateVectors[5][i] = osv.zVel;
+        }
+
+        windows = new Window[Math.max(numVectors - polyDegree, 1)];
+    }
+
+    /**
+     * Get orbit state vector for given time.
+     *
+     * @param utc The UTC in days.
+     * @return The orbit state vector.
+     */
+    Orbits.OrbitVector getOrbitData(final double utc) {
+
+        final Window window = getWindow(getFirstVectorIndex(utc));
+        final double normalizedTime = utc - t0;
+
+        return new Orbits.OrbitVector(utc,
+                Maths.polyVal(normalizedTime, window.coefficients[0]),
+                Maths.polyVal(normalizedTime, window.coefficients[1]),
+                Maths.polyVal(normalizedTime, window.coefficients[2]),
+                Maths.polyVal(normalizedTime, window.coefficients[3]),
+                Maths.polyVal(normalizedTime, window.coefficients[4]),
+                Maths.polyVal(normalizedTime, window.coefficients[5]));
+    }
+
+    /**
+     * Index of the first of the polyDegree + 1 state vectors fitted for a time.
+     */
+    private int getFirstVectorIndex(final double utc) {
+
+        final int numVecPolyFit = polyDegree + 1;
+        final int halfNumVecPolyFit = numVecPolyFit / 2;
+
+        final int vecIdx = (int) ((utc - t0) / (tN - t0) * (numVectors - 1));
+        if (vecIdx <= halfNumVecPolyFit - 1) {
+            return 0;
+        } else if (vecIdx >= numVectors - halfNumVecPolyFit) {
+            return numVectors - numVecPolyFit;
+        } else {
+            // an odd number of vectors would otherwise run past the last one
+            return Math.min(vecIdx - halfNumVecPolyFit + 1, numVectors - numVecPolyFit);
+        }
+    }
+
+    private Window getWindow(final int firstVectorIndex) {
+
+        // a window fitted concurrently by two threads is fitted twice, the final fields make either result visible
+        Window window = windows[firstVectorIndex];
+        if (window == null) {
+            window = new Window(firstVectorIndex);
+            windows[firstVectorIndex] = window;
+        }
+        return window;
+    }
+
+    private final class Window {
+
+        private final double[][] coefficients = new double[6][];
+
+        Window(final int firstVectorIndex) {
+
+            final int numVecPolyFit = polyDegree + 1;
+            final double[] timeArray = new double[numVecPolyFit];
+            System.arraycopy(time, firstVectorIndex, timeArray, 0, numVecPolyFit);
+
+            final Matrix A = Maths.createVandermondeMatrix(timeArray, polyDegree);
+            final double[] values = new double[numVecPolyFit];
+            for (int c = 0; c < 6; c++) {
+                System.arraycopy(stateVectors[c], firstVectorIndex, values, 0, numVecPolyFit);
+                coefficients[c] = Maths.polyFit(A, values);
+            }
+        }
+    }
+}
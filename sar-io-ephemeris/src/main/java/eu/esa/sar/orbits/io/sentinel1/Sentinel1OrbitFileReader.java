@@ -15,6 +15,7 @@
  */
 package eu.esa.sar.orbits.io.sentinel1;
 
+import eu.esa.sar.commons.io.MappedBuffers;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.dataop.downloadable.XMLSupport;
 import org.esa.snap.core.util.SystemUtils;
@@ -22,7 +23,18 @@ import org.esa.snap.engine_utilities.datamodel.Orbits;
 import org.jdom2.Document;
 import org.jdom2.Element;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -36,6 +48,11 @@ public class Sentinel1OrbitFileReader {
     final static DateFormat dateFormat = ProductData.UTC.createDateFormat("yyyyMMdd-HHmmss");
     final static DateFormat orbitDateFormat = ProductData.UTC.createDateFormat("yyyy-MM-dd HH:mm:ss");
 
+    // binary state vector cache, see Sentinel1OrbitIndex
+    private final static int OSV_CACHE_MAGIC = 0x53314F56;    // "S1OV"
+    private final static int OSV_CACHE_VERSION = 1;
+    private final static int OSV_CACHE_RECORD_SIZE = 7 * Double.BYTES;
+
     private FixedHeader fixedHeader = null;
     private final File orbitFile;
     private List<Orbits.OrbitVector> osvList = new ArrayList<>();
@@ -50,13 +67,27 @@ public class Sentinel1OrbitFileReader {
 
     void read() throws Exception {
 
+        final File cacheFile = Sentinel1OrbitIndex.getStateVectorCacheFile(orbitFile);
+        if (cacheFile != null && readStateVectorCache(cacheFile)) {
+            return;
+        }
+
+        readXML();
+        if (cacheFile != null) {
+            writeStateVectorCache(cacheFile);
+        }
+    }
+
+    private void readXML() throws Exception {
+
         final Document doc;
         if (orbitFile.getName().toLowerCase().endsWith(".zip")) {
-            final ZipFile productZip = new ZipFile(orbitFile, ZipFile.OPEN_READ);
-            final Enumeration<? extends ZipEntry> entries = productZip.entries();
-            final ZipEntry zipEntry = entries.nextElement();
+            try (ZipFile productZip = new ZipFile(orbitFile, ZipFile.OPEN_READ)) {
+                final Enumeration<? extends ZipEntry> entries = productZip.entries();
+                final ZipEntry zipEntry = entries.nextElement();
 
-            doc = XMLSupport.LoadXML(productZip.getInputStream(zipEntry));
+                doc = XMLSupport.LoadXML(productZip.getInputStream(zipEntry));
+            }
         } else {
             doc = XMLSupport.LoadXML(orbitFile.getPath());
         }
@@ -77,6 +108,108 @@ public class Sentinel1OrbitFileReader {
         }
     }
 
+    /**
+     * Read the header and state vectors from the memory-mapped binary cache of the orbit file.
+     *
+     * @return false if there is no valid cache for the current orbit file
+     */
+    private boolean readStateVectorCache(final File cacheFile) {
+
+        if (!cacheFile.exists()) {
+            return false;
+        }
+        MappedByteBuffer buffer = null;
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != OSV_CACHE_MAGIC || buffer.getInt() != OSV_CACHE_VERSION ||
+                    buffer.getLong() != orbitFile.length() || buffer.getLong() != orbitFile.lastModified()) {
+                return false;
+            }
+
+            FixedHeader header = null;
+            if (buffer.get() != 0) {
+                header = new FixedHeader(getString(buffer), getString(buffer), getString(buffer),
+                        getString(buffer), getString(buffer));
+            }
+
+            final int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / OSV_CACHE_RECORD_SIZE) {
+                SystemUtils.LOG.warning("Invalid orbit cache " + cacheFile + ": " + count + " state vectors");
+                return false;
+            }
+            final List<Orbits.OrbitVector> list = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                list.add(new Orbits.OrbitVector(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+            }
+
+            fixedHeader = header;
+            osvList = list;
+            return true;
+        } catch (IOException | BufferUnderflowException e) {
+            SystemUtils.LOG.warning("Unable to read orbit cache " + cacheFile + ": " + e.getMessage());
+            return false;
+        } finally {
+            // release the mapping so the cache can be replaced on Windows
+            MappedBuffers.unmap(buffer);
+        }
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the header and state vectors to the binary cache of the orbit file. Failures are not fatal,
+     * the orbit file is then parsed again on the next run.
+     */
+    private void writeStateVectorCache(final File cacheFile) {
+
+        Path tmpFile = null;
+        try {
+            tmpFile = Sentinel1OrbitIndex.createTempFile(cacheFile);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmpFile)))) {
+                out.writeInt(OSV_CACHE_MAGIC);
+                out.writeInt(OSV_CACHE_VERSION);
+                out.writeLong(orbitFile.length());
+                out.writeLong(orbitFile.lastModified());
+
+                out.writeByte(fixedHeader != null ? 1 : 0);
+                if (fixedHeader != null) {
+                    writeString(out, fixedHeader.mission);
+                    writeString(out, fixedHeader.fileType);
+                    writeString(out, fixedHeader.validityStart);
+                    writeString(out, fixedHeader.validityStop);
+                    writeString(out, fixedHeader.version);
+                }
+
+                out.writeInt(osvList.size());
+                for (Orbits.OrbitVector osv : osvList) {
+                    out.writeDouble(osv.utcMJD);
+                    out.writeDouble(osv.xPos);
+                    out.writeDouble(osv.yPos);
+                    out.writeDouble(osv.zPos);
+                    out.writeDouble(osv.xVel);
+                    out.writeDouble(osv.yVel);
+                    out.writeDouble(osv.zVel);
+                }
+            }
+            Sentinel1OrbitIndex.replaceFile(tmpFile, cacheFile);
+        } catch (IOException e) {
+            SystemUtils.LOG.fine("Unable to write orbit cache " + cacheFile + ": " + e.getMessage());
+            Sentinel1OrbitIndex.deleteQuietly(tmpFile);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String str) throws IOException {
+        final byte[] bytes = (str != null ? str : "").getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
     private static FixedHeader readFixedHeader(final Element fixedHeaderElem) {
 
         String mission = fixedHeaderElem.getChild("Mission").getText();
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.orbits.io.sentinel1;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.engine_utilities.util.Settings;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of the Sentinel-1 orbit files of a local orbit folder: the validity period of each file, so that
+ * finding the orbit file of a product does not parse the names of the whole folder on every run.
+ * <p>
+ * The index of a month folder such as POEORB/S1A/2015/08 is stored in POEORB/S1A/2015/.orbitindex/08.idx, next to
+ * the binary state vector caches of its orbit files, see Sentinel1OrbitFileReader. Each entry keeps the size and
+ * modification time of its orbit file, the index is rebuilt when an orbit file was added, removed or replaced.
+ * <p>
+ * The main method rebuilds the indices and state vector caches of an existing orbit directory offline.
+ */
+public final class Sentinel1OrbitIndex {
+
+    static final String INDEX_FOLDER_NAME = ".orbitindex";
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final String OSV_CACHE_EXTENSION = ".osv";
+    private static final String INDEX_HEADER = "# Sentinel-1 orbit index v2";
+
+    private static final Map<File, Sentinel1OrbitIndex> indexMap = new ConcurrentHashMap<>();
+
+    private final List<Entry> entries;
+
+    private Sentinel1OrbitIndex(final List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Get the index of an orbit folder, loading or rebuilding it if needed.
+     *
+     * @param folder the month folder holding the orbit files
+     * @return the index
+     */
+    public static Sentinel1OrbitIndex getIndex(final File folder) {
+
+        final File[] orbitFiles = listOrbitFiles(folder);
+        final Sentinel1OrbitIndex index = indexMap.get(folder);
+        if (index != null && index.isCurrent(orbitFiles)) {
+            return index;
+        }
+
+        Sentinel1OrbitIndex newIndex = readIndex(folder);
+        if (newIndex == null || !newIndex.isCurrent(orbitFiles)) {
+            newIndex = buildIndex(orbitFiles);
+            writeIndex(folder, newIndex);
+        }
+        indexMap.put(folder, newIndex);
+        return newIndex;
+    }
+
+    /**
+     * Find the orbit file whose validity period, as given by its name, contains a time.
+     *
+     * @param prefix the file name prefix of the mission and orbit type, upper case
+     * @param mjd    the time
+     * @return the orbit file or null if none is found
+     */
+    public String findOrbitFile(final String prefix, final double mjd) {
+        for (Entry entry : entries) {
+            if (entry.fileName.toUpperCase().startsWith(prefix) &&
+                    mjd >= entry.validityStartMJD && mjd < entry.validityStopMJD) {
+                return entry.fileName;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the binary state vector cache file of an orbit file.
+     *
+     * @return the cache file or null if the orbit file has no month folder with a parent to hold the cache
+     */
+    static File getStateVectorCacheFile(final File orbitFile) {
+        final File folder = orbitFile.getAbsoluteFile().getParentFile();
+        if (folder == null || folder.getParentFile() == null) {
+            return null;
+        }
+        return new File(new File(getIndexFolder(folder), folder.getName()), orbitFile.getName() + OSV_CACHE_EXTENSION);
+    }
+
+    private static File getIndexFolder(final File folder) {
+        return new File(folder.getParentFile(), INDEX_FOLDER_NAME);
+    }
+
+    private static File getIndexFile(final File folder) {
+        return new File(getIndexFolder(folder), folder.getName() + INDEX_EXTENSION);
+    }
+
+    static boolean isOrbitFile(final String name) {
+        final String upperName = name.toUpperCase();
+        return (upperName.endsWith(".ZIP") || upperName.endsWith(".EOF")) && upperName.contains("_OPER_AUX_");
+    }
+
+    /**
+     * Create a file next to the target, to be written and then moved over the target with replaceFile(). The
+     * unique name keeps processes writing the same target from interfering.
+     */
+    static Path createTempFile(final File file) throws IOException {
+        final Path dir = file.getParentFile().toPath();
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, file.getName(), ".tmp");
+    }
+
+    /**
+     * Move a file written next to the target over the target, atomically where the file system supports it.
+     */
+    static void replaceFile(final Path tmpFile, final File file) throws IOException {
+        try {
+            Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static File[] listOrbitFiles(final File folder) {
+        final File[] files = folder.listFiles((dir, name) -> isOrbitFile(name));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * Check that the index holds exactly the given orbit files, with their current size and modification time.
+     */
+    private boolean isCurrent(final File[] orbitFiles) {
+        if (entries.size() != orbitFiles.length) {
+            return false;
+        }
+        for (int i = 0; i < orbitFiles.length; ++i) {
+            final Entry entry = entries.get(i);
+            final File file = orbitFiles[i];
+            if (!entry.fileName.equals(file.getName()) || entry.size != file.length() ||
+                    entry.lastModified != file.lastModified()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Sentinel1OrbitIndex buildIndex(final File[] orbitFiles) {
+
+        final List<Entry> entries = new ArrayList<>(orbitFiles.length);
+        for (File file : orbitFiles) {
+            final String name = file.getName();
+            // files without a valid validity period in their name are kept so the index stays current
+            double startMJD = Double.NaN, stopMJD = Double.NaN;
+            try {
+                final ProductData.UTC utcStart = Sentinel1OrbitFileReader.getValidityStartFromFilenameUTC(name);
+                final ProductData.UTC utcEnd = Sentinel1OrbitFileReader.getValidityStopFromFilenameUTC(name);
+                if (utcStart != null && utcEnd != null) {
+                    startMJD = utcStart.getMJD();
+                    stopMJD = utcEnd.getMJD();
+                }
+            } catch (Exception e) {
+                // not a valid orbit file name
+            }
+            entries.add(new Entry(name, file.length(), file.lastModified(), startMJD, stopMJD));
+        }
+        return new Sentinel1OrbitIndex(Collections.unmodifiableList(entries));
+    }
+
+    private static Sentinel1OrbitIndex readIndex(final File folder) {
+
+        final File indexFile = getIndexFile(folder);
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            final String header = reader.readLine();
+            if (header == null || !header.equals(INDEX_HEADER)) {
+                return null;
+            }
+            final List<Entry> entries = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] tokens = line.split("\t");
+                if (tokens.length != 5) {
+                    return null;
+                }
+                entries.add(new Entry(tokens[0], Long.parseLong(tokens[1]), Long.parseLong(tokens[2]),
+                        Double.parseDouble(tokens[3]), Double.parseDouble(tokens[4])));
+            }
+            return new Sentinel1OrbitIndex(Collections.unmodifiableList(entries));
+        } catch (Exception e) {
+            SystemUtils.LOG.warning("Unable to read orbit index " + indexFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeIndex(final File folder, final Sentinel1OrbitIndex index) {
+
+        final File indexFile = getIndexFile(folder);
+        Path tmpFile = null;
+        try {
+            tmpFile = createTempFile(indexFile);
+            try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                writer.write(INDEX_HEADER);
+                writer.newLine();
+                for (Entry entry : index.entries) {
+                    writer.write(entry.fileName + '\t' + entry.size + '\t' + entry.lastModified + '\t' +
+                            entry.validityStartMJD + '\t' + entry.validityStopMJD);
+                    writer.newLine();
+                }
+            }
+            replaceFile(tmpFile, indexFile);
+        } catch (IOException e) {
+            // the orbit folder may be read-only, the index is then rebuilt in memory on each run
+            SystemUtils.LOG.fine("Unable to write orbit index " + indexFile + ": " + e.getMessage());
+            deleteQuietly(tmpFile);
+        }
+    }
+
+    static void deleteQuietly(final Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                SystemUtils.LOG.fine("Unable to delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuild the index and the state vector caches of all orbit folders below a directory.
+     *
+     * @param dir the orbit directory
+     * @return the number of orbit files cached
+     */
+    public static int rebuild(final File dir) throws IOException {
+
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("Unable to list " + dir);
+        }
+        Arrays.sort(files);
+
+        int numCached = 0;
+        boolean hasOrbitFiles = false;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (!file.getName().equals(INDEX_FOLDER_NAME)) {
+                    numCached += rebuild(file);
+                }
+            } else if (isOrbitFile(file.getName())) {
+                hasOrbitFiles = true;
+                try {
+                    final File cacheFile = getStateVectorCacheFile(file);
+                    if (cacheFile == null) {
+                        continue;
+                    }
+                    Files.deleteIfExists(cacheFile.toPath());
+                    new Sentinel1OrbitFileReader(file).read();
+                    if (cacheFile.exists()) {
+                        ++numCached;
+                    }
+                } catch (Exception e) {
+                    SystemUtils.LOG.warning("Unable to read orbit file " + file + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (hasOrbitFiles) {
+            final Sentinel1OrbitIndex index = buildIndex(listOrbitFiles(dir));
+            writeIndex(dir, index);
+            indexMap.put(dir, index);
+        }
+        return numCached;
+    }
+
+    /**
+     * Rebuild the orbit indices and state vector caches offline.
+     *
+     * @param args the orbit directories, by default the Sentinel-1 POEORB and RESORB folders
+     */
+    public static void main(final String[] args) throws IOException {
+
+        final List<File> dirs = new ArrayList<>();
+        if (args.length > 0) {
+            for (String arg : args) {
+                dirs.add(new File(arg));
+            }
+        } else {
+            final File orbitRoot = SystemUtils.getAuxDataPath().resolve("Orbits").resolve("Sentinel-1").toFile();
+            dirs.add(new File(Settings.instance().get("OrbitFiles.sentinel1POEOrbitPath",
+                    new File(orbitRoot, "POEORB").getPath())));
+            dirs.add(new File(Settings.instance().get("OrbitFiles.sentinel1RESOrbitPath",
+                    new File(orbitRoot, "RESORB").getPath())));
+        }
+
+        for (File dir : dirs) {
+            if (!dir.isDirectory()) {
+                System.out.println(dir + " not found");
+                continue;
+            }
+            final int numCached = rebuild(dir);
+            System.out.println(dir + ": " + numCached + " orbit files cached");
+        }
+    }
+
+    private static final class Entry {
+        private final String fileName;
+        private final long size;
+        private final long lastModified;
+        private final double validityStartMJD;
+        private final double validityStopMJD;
+
+        Entry(final String fileName, final long size, final long lastModified,
+              final double validityStartMJD, final double validityStopMJD) {
+            this.fileName = fileName;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.validityStartMJD = validityStartMJD;
+            this.validityStopMJD = validityStopMJD;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.orbits.io.sentinel1;
+
+import Jama.Matrix;
+import org.esa.snap.engine_utilities.datamodel.Orbits;
+import org.esa.snap.engine_utilities.util.Maths;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * To test OrbitPolynomialModel against fitting the state vectors on every query
+ */
+public class TestOrbitPolynomialModel {
+
+    private final static double POSITION_TOLERANCE = 1e-4;  // m
+    private final static double VELOCITY_TOLERANCE = 1e-7;  // m/s
+
+    private final static double SECONDS_PER_DAY = 86400.0;
+    private final static double T0 = 5600.25;               // MJD2000 of the first state vector
+    private final static double INTERVAL = 10.0;            // s
+    private final static int NUM_VECTORS = 200;
+
+    private final List<Orbits.OrbitVector> osvList = createOrbit();
+
+    @Test
+    public void testCubic() {
+        compareWithDirectFit(3);
+    }
+
+    @Test
+    public void testQuartic() {
+        compareWithDirectFit(4);
+    }
+
+    private void compareWithDirectFit(final int polyDegree) {
+        final OrbitPolynomialModel model = new OrbitPolynomialModel(osvList, polyDegree);
+
+        // the whole orbit and a little beyond, at times that do not fall on the state vectors
+        final double dt = 0.37 / SECONDS_PER_DAY;
+        for (double utc = T0 - 5.0 / SECONDS_PER_DAY;
+             utc < T0 + (NUM_VECTORS * INTERVAL + 5.0) / SECONDS_PER_DAY; utc += dt) {
+
+            final Orbits.OrbitVector expected = directFit(osvList, polyDegree, utc);
+            final Orbits.OrbitVector actual = model.getOrbitData(utc);
+
+            assertEquals(expected.utcMJD, actual.utcMJD, 0.0);
+            assertEquals(expected.xPos, actual.xPos, POSITION_TOLERANCE);
+            assertEquals(expected.yPos, actual.yPos, POSITION_TOLERANCE);
+            assertEquals(expected.zPos, actual.zPos, POSITION_TOLERANCE);
+            assertEquals(expected.xVel, actual.xVel, VELOCITY_TOLERANCE);
+            assertEquals(expected.yVel, actual.yVel, VELOCITY_TOLERANCE);
+            assertEquals(expected.zVel, actual.zVel, VELOCITY_TOLERANCE);
+        }
+    }
+
+    /**
+     * Circular orbit at Sentinel-1 altitude and inclination.
+     */
+    private static List<Orbits.OrbitVector> createOrbit() {
+        final double radius = 7071000.0;
+        final double omega = 2.0 * Math.PI / 5924.0;
+        final double inclination = Math.toRadians(98.18);
+        final double cosI = Math.cos(inclination);
+        final double sinI = Math.sin(inclination);
+
+        final List<Orbits.OrbitVector> osvList = new ArrayList<>();
+        for (int i = 0; i < NUM_VECTORS; i++) {
+            final double t = i * INTERVAL;
+            final double u = omega * t + 0.3;
+            final double x = radius * Math.cos(u);
+            final double y = radius * Math.sin(u);
+            final double vx = -radius * omega * Math.sin(u);
+            final double vy = radius * omega * Math.cos(u);
+            osvList.add(new Orbits.OrbitVector(T0 + t / SECONDS_PER_DAY,
+                    x, y * cosI, y * sinI, vx, vy * cosI, vy * sinI));
+        }
+        return osvList;
+    }
+
+    /**
+     * Fit the state vectors around a time on every query, as SentinelPODOrbitFile used to.
+     * For an odd number of vectors, the last window is clamped to the end of the orbit.
+     */
+    private static Orbits.OrbitVector directFit(final List<Orbits.OrbitVector> osvList, final int polyDegree,
+                                                final double utc) {
+
+        final int numVectors = osvList.size();
+        final double t0 = osvList.get(0).utcMJD;
+        final double tN = osvList.get(numVectors - 1).utcMJD;
+
+        final int numVecPolyFit = polyDegree + 1;
+        final int halfNumVecPolyFit = numVecPolyFit / 2;
+        final int[] vectorIndices = new int[numVecPolyFit];
+
+        final int vecIdx = (int) ((utc - t0) / (tN - t0) * (numVectors - 1));
+        for (int i = 0; i < numVecPolyFit; i++) {
+            if (vecIdx <= halfNumVecPolyFit - 1) {
+                vectorIndices[i] = i;
+            } else if (vecIdx >= numVectors - halfNumVecPolyFit) {
+                vectorIndices[i] = numVectors - numVecPolyFit + i;
+            } else {
+                vectorIndices[i] = Math.min(vecIdx - halfNumVecPolyFit + 1, numVectors - numVecPolyFit) + i;
+            }
+        }
+
+        final double[] timeArray = new double[numVecPolyFit];
+        final double[][] values = new double[6][numVecPolyFit];
+        for (int i = 0; i < numVecPolyFit; i++) {
+            final Orbits.OrbitVector osv = osvList.get(vectorIndices[i]);
+            timeArray[i] = osv.utcMJD - t0;
+            values[0][i] = osv.xPos;
+            values[1][i] = osv.yPos;
+            values[2][i] = osv.zPos;
+            values[3][i] = osv.xVel;
+            values[4][i] = osv.yVel;
+            values[5][i] = osv.zVel;
+        }
+
+        final Matrix A = Maths.createVandermondeMatrix(timeArray, polyDegree);
+        final double normalizedTime = utc - t0;
+        final double[] result = new double[6];
+        for (int c = 0; c < 6; c++) {
+            result[c] = Maths.polyVal(normalizedTime, Maths.polyFit(A, values[c]));
+        }
+        return new Orbits.OrbitVector(utc, result[0], result[1], result[2], result[3], result[4], result[5]);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.orbits.io.sentinel1;
+
+import org.esa.snap.engine_utilities.datamodel.Orbits;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * To test the state vector cache of Sentinel1OrbitFileReader
+ */
+public class TestSentinel1OrbitFileReader {
+
+    final static String ORBIT_FILE = "S1A_OPER_AUX_POEORB_OPOD_20150901T122206_V20150811T225944_20150813T005944.EOF";
+
+    @Test
+    public void testCacheRoundTrip() throws Exception {
+        final File orbitFile = writeOrbitFile(createMonthFolder(), ORBIT_FILE, 1000.0);
+
+        final Sentinel1OrbitFileReader xmlReader = new Sentinel1OrbitFileReader(orbitFile);
+        xmlReader.read();
+        final File cacheFile = Sentinel1OrbitIndex.getStateVectorCacheFile(orbitFile);
+        assertTrue(cacheFile.exists());
+
+        // the orbit file can no longer be parsed, but its size and modification time are unchanged
+        final long lastModified = orbitFile.lastModified();
+        final byte[] garbage = new byte[(int) orbitFile.length()];
+        Arrays.fill(garbage, (byte) ' ');
+        Files.write(orbitFile.toPath(), garbage);
+        assertTrue(orbitFile.setLastModified(lastModified));
+
+        final Sentinel1OrbitFileReader cacheReader = new Sentinel1OrbitFileReader(orbitFile);
+        cacheReader.read();
+        assertEquals("Sentinel-1A", cacheReader.getMissionFromHeader());
+        assertEquals("AUX_POEORB", cacheReader.getFileTypeFromHeader());
+        assertEquals("UTC=2015-08-11T22:59:44", cacheReader.getValidityStartFromHeader());
+        assertEquals("UTC=2015-08-13T00:59:44", cacheReader.getValidityStopFromHeader());
+        assertEquals("1.10.1", cacheReader.getFileVersion());
+        assertOrbitVectors(xmlReader.getOrbitStateVectors(), cacheReader.getOrbitStateVectors());
+        assertEquals(1000.0, cacheReader.getOrbitStateVectors().get(0).xPos, 0.0);
+    }
+
+    @Test
+    public void testStaleCacheIgnored() throws Exception {
+        final File orbitFile = writeOrbitFile(createMonthFolder(), ORBIT_FILE, 1000.0);
+        new Sentinel1OrbitFileReader(orbitFile).read();
+        final long lastModified = orbitFile.lastModified();
+
+        // a newer orbit file of the same size
+        writeOrbitFile(orbitFile.getParentFile(), ORBIT_FILE, 2000.0);
+        assertTrue(orbitFile.setLastModified(lastModified + 60000));
+
+        final Sentinel1OrbitFileReader reader = new Sentinel1OrbitFileReader(orbitFile);
+        reader.read();
+        assertEquals(2000.0, reader.getOrbitStateVectors().get(0).xPos, 0.0);
+    }
+
+    @Test
+    public void testCorruptCacheFallsBackToXML() throws Exception {
+        final File orbitFile = writeOrbitFile(createMonthFolder(), ORBIT_FILE, 1000.0);
+        final Sentinel1OrbitFileReader xmlReader = new Sentinel1OrbitFileReader(orbitFile);
+        xmlReader.read();
+        final File cacheFile = Sentinel1OrbitIndex.getStateVectorCacheFile(orbitFile);
+
+        // truncated
+        final byte[] bytes = Files.readAllBytes(cacheFile.toPath());
+        Files.write(cacheFile.toPath(), Arrays.copyOf(bytes, bytes.length - 20));
+        Sentinel1OrbitFileReader reader = new Sentinel1OrbitFileReader(orbitFile);
+        reader.read();
+        assertOrbitVectors(xmlReader.getOrbitStateVectors(), reader.getOrbitStateVectors());
+        assertEquals(bytes.length, cacheFile.length());
+
+        // a valid header followed by a negative count
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(cacheFile.toPath()))) {
+            out.write(bytes, 0, 24);
+            out.writeByte(0);
+            out.writeInt(-1);
+        }
+        reader = new Sentinel1OrbitFileReader(orbitFile);
+        reader.read();
+        assertOrbitVectors(xmlReader.getOrbitStateVectors(), reader.getOrbitStateVectors());
+        assertEquals("1.10.1", reader.getFileVersion());
+        assertEquals(bytes.length, cacheFile.length());
+    }
+
+    @Test
+    public void testCacheFileOfRelativeOrbitFile() {
+        final File cacheFile = Sentinel1OrbitIndex.getStateVectorCacheFile(new File(ORBIT_FILE));
+        assertNotNull(cacheFile);
+        assertEquals(ORBIT_FILE + ".osv", cacheFile.getName());
+    }
+
+    private static void assertOrbitVectors(final List<Orbits.OrbitVector> expected,
+                                           final List<Orbits.OrbitVector> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            final Orbits.OrbitVector e = expected.get(i);
+            final Orbits.OrbitVector a = actual.get(i);
+            assertEquals(e.utcMJD, a.utcMJD, 0.0);
+            assertEquals(e.xPos, a.xPos, 0.0);
+            assertEquals(e.yPos, a.yPos, 0.0);
+            assertEquals(e.zPos, a.zPos, 0.0);
+            assertEquals(e.xVel, a.xVel, 0.0);
+            assertEquals(e.yVel, a.yVel, 0.0);
+            assertEquals(e.zVel, a.zVel, 0.0);
+        }
+    }
+
+    private static File createMonthFolder() throws Exception {
+        final File monthFolder = new File(Files.createTempDirectory("orbits").toFile(), "2015/08");
+        assertTrue(monthFolder.mkdirs());
+        return monthFolder;
+    }
+
+    /**
+     * Write a small orbit file with three state vectors, the first at position x.
+     */
+    static File writeOrbitFile(final File folder, final String name, final double x) throws Exception {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Earth_Explorer_File>\n");
+        xml.append("  <Earth_Explorer_Header>\n    <Fixed_Header>\n");
+        xml.append("      <Mission>Sentinel-1A</Mission>\n      <File_Type>AUX_POEORB</File_Type>\n");
+        xml.append("      <Validity_Period>\n        <Validity_Start>UTC=2015-08-11T22:59:44</Validity_Start>\n");
+        xml.append("        <Validity_Stop>UTC=2015-08-13T00:59:44</Validity_Stop>\n      </Validity_Period>\n");
+        xml.append("      <Source>\n        <Creator_Version>1.10.1</Creator_Version>\n      </Source>\n");
+        xml.append("    </Fixed_Header>\n  </Earth_Explorer_Header>\n");
+        xml.append("  <Data_Block type=\"xml\">\n    <List_of_OSVs count=\"3\">\n");
+        for (int i = 0; i < 3; ++i) {
+            xml.append("      <OSV>\n        <UTC>UTC=2015-08-11T22:59:").append(44 + 10 * i).append(".000000</UTC>\n");
+            xml.append("        <X>").append(x + 100.0 * i).append("</X>\n");
+            xml.append("        <Y>").append(-2299963.236657 + i).append("</Y>\n");
+            xml.append("        <Z>").append(6671242.884855 - i).append("</Z>\n");
+            xml.append("        <VX>-2359.280562</VX>\n        <VY>6854.762675</VY>\n        <VZ>2224.473155</VZ>\n");
+            xml.append("      </OSV>\n");
+        }
+        xml.append("    </List_of_OSVs>\n  </Data_Block>\n</Earth_Explorer_File>\n");
+
+        final File file = new File(folder, name);
+        Files.write(file.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.orbits.io.sentinel1;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * To test Sentinel1OrbitIndex
+ */
+public class TestSentinel1OrbitIndex {
+
+    private final static String PREFIX = "S1A_OPER_AUX_POEORB_OPOD_";
+    private final static String FILE1 = PREFIX + "20150901T122206_V20150811T225944_20150813T005944.EOF";
+    private final static String FILE2 = PREFIX + "20150902T122149_V20150812T225944_20150814T005944.EOF";
+    private final static String FILE3 = PREFIX + "20151001T122206_V20150911T225944_20150913T005944.EOF";
+    private final static String FILE4 = PREFIX + "20151002T122149_V20150912T225944_20150914T005944.EOF";
+
+    @Test
+    public void testFindOrbitFile() throws Exception {
+        final File monthFolder = createMonthFolder();
+
+        final Sentinel1OrbitIndex index = Sentinel1OrbitIndex.getIndex(monthFolder);
+        assertEquals(FILE1, index.findOrbitFile(PREFIX, Sentinel1OrbitFileReader.toUTC("2015-08-12T12:00:00").getMJD()));
+        assertEquals(FILE2, index.findOrbitFile(PREFIX, Sentinel1OrbitFileReader.toUTC("2015-08-13T12:00:00").getMJD()));
+        assertNull(index.findOrbitFile(PREFIX, Sentinel1OrbitFileReader.toUTC("2015-08-15T12:00:00").getMJD()));
+        assertNull(index.findOrbitFile("S1B_OPER_AUX_POEORB_OPOD_", Sentinel1OrbitFileReader.toUTC("2015-08-12T12:00:00").getMJD()));
+
+        // the index is stored next to the month folder, not in it
+        assertTrue(new File(monthFolder.getParentFile(), Sentinel1OrbitIndex.INDEX_FOLDER_NAME + "/08.idx").exists());
+        assertFalse(new File(monthFolder, Sentinel1OrbitIndex.INDEX_FOLDER_NAME).exists());
+    }
+
+    @Test
+    public void testIndexRebuiltWhenOrbitFilesChange() throws Exception {
+        final File monthFolder = createMonthFolder();
+        final long folderLastModified = monthFolder.lastModified();
+        // within the validity of both files
+        final double mjd = Sentinel1OrbitFileReader.toUTC("2015-08-13T00:30:00").getMJD();
+        assertEquals(FILE1, Sentinel1OrbitIndex.getIndex(monthFolder).findOrbitFile(PREFIX, mjd));
+
+        // the folder modification time is not relied upon, it has a coarse resolution on some file systems
+        assertTrue(new File(monthFolder, FILE1).delete());
+        assertTrue(monthFolder.setLastModified(folderLastModified));
+        final Sentinel1OrbitIndex index = Sentinel1OrbitIndex.getIndex(monthFolder);
+        assertEquals(FILE2, index.findOrbitFile(PREFIX, mjd));
+        assertSame(index, Sentinel1OrbitIndex.getIndex(monthFolder));
+
+        // an orbit file replaced in place
+        Files.write(new File(monthFolder, FILE2).toPath(), new byte[]{1, 2, 3});
+        assertTrue(monthFolder.setLastModified(folderLastModified));
+        final Sentinel1OrbitIndex newIndex = Sentinel1OrbitIndex.getIndex(monthFolder);
+        assertNotSame(index, newIndex);
+        assertEquals(FILE2, newIndex.findOrbitFile(PREFIX, mjd));
+
+        // no temporary files are left behind
+        final String[] names = new File(monthFolder.getParentFile(), Sentinel1OrbitIndex.INDEX_FOLDER_NAME).list();
+        assertNotNull(names);
+        assertArrayEquals(new String[]{"08.idx"}, names);
+    }
+
+    @Test
+    public void testRebuild() throws Exception {
+        final File orbitDir = Files.createTempDirectory("orbits").toFile();
+        final File augustFolder = new File(orbitDir, "2015/08");
+        final File septemberFolder = new File(orbitDir, "2015/09");
+        assertTrue(augustFolder.mkdirs());
+        assertTrue(septemberFolder.mkdirs());
+        final File orbitFile1 = TestSentinel1OrbitFileReader.writeOrbitFile(augustFolder, FILE1, 1000.0);
+        final File orbitFile2 = TestSentinel1OrbitFileReader.writeOrbitFile(augustFolder, FILE2, 1000.0);
+        final File orbitFile3 = TestSentinel1OrbitFileReader.writeOrbitFile(septemberFolder, FILE3, 1000.0);
+        // an orbit file that cannot be parsed is skipped
+        assertTrue(new File(septemberFolder, FILE4).createNewFile());
+
+        // a stale state vector cache is replaced
+        final File cacheFile1 = Sentinel1OrbitIndex.getStateVectorCacheFile(orbitFile1);
+        assertTrue(cacheFile1.getParentFile().mkdirs());
+        Files.write(cacheFile1.toPath(), new byte[]{1, 2, 3});
+
+        assertEquals(3, Sentinel1OrbitIndex.rebuild(orbitDir));
+
+        for (File orbitFile : new File[]{orbitFile1, orbitFile2, orbitFile3}) {
+            final File cacheFile = Sentinel1OrbitIndex.getStateVectorCacheFile(orbitFile);
+            assertTrue(cacheFile.exists());
+            assertTrue(cacheFile.length() > 3);
+        }
+        final File indexFolder = new File(orbitDir, "2015/" + Sentinel1OrbitIndex.INDEX_FOLDER_NAME);
+        assertTrue(new File(indexFolder, "08.idx").exists());
+        assertTrue(new File(indexFolder, "09.idx").exists());
+
+        final double mjd = Sentinel1OrbitFileReader.toUTC("2015-09-12T12:00:00").getMJD();
+        assertEquals(FILE3, Sentinel1OrbitIndex.getIndex(septemberFolder).findOrbitFile(PREFIX, mjd));
+
+        // the command line entry point rebuilds the given directories
+        assertTrue(cacheFile1.delete());
+        Sentinel1OrbitIndex.main(new String[]{orbitDir.getPath()});
+        assertTrue(cacheFile1.exists());
+    }
+
+    private static File createMonthFolder() throws Exception {
+        final File monthFolder = new File(Files.createTempDirectory("orbits").toFile(), "2015/08");
+        assertTrue(monthFolder.mkdirs());
+        assertTrue(new File(monthFolder, FILE1).createNewFile());
+        assertTrue(new File(monthFolder, FILE2).createNewFile());
+        assertTrue(new File(monthFolder, "readme.txt").createNewFile());
+        return monthFolder;
+    }
+}
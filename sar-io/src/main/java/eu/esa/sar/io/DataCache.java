@@ -66,7 +66,7 @@ public class DataCache {
 
         @Override
         public int hashCode() {
-            return img.hashCode();
+            return 31 * img.hashCode() + rect.hashCode();
         }
 
         @Override
@@ -0,0 +1,558 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.io;
+
+import eu.esa.sar.commons.io.MappedBuffers;
+import org.esa.snap.core.datamodel.ProductData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory mapped access to an uncompressed TIFF or BigTIFF image such as the Sentinel-1 measurement files.
+ * <p>
+ * The first IFD is parsed once when the file is opened. Strips or tiles are then read straight from the
+ * mapped file into the destination ProductData without ImageIO and without any locking, so any number of
+ * threads may read from the same file concurrently.
+ * <p>
+ * Only uncompressed, pixel interleaved images with 8, 16 or 32 bit components are supported.
+ * Complex sample formats are exposed as two components per pixel, the real part first.
+ */
+public class MappedTiffFile {
+
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_STRIP_OFFSETS = 273;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_ROWS_PER_STRIP = 278;
+    private static final int TAG_STRIP_BYTE_COUNTS = 279;
+    private static final int TAG_PLANAR_CONFIGURATION = 284;
+    private static final int TAG_TILE_WIDTH = 322;
+    private static final int TAG_TILE_LENGTH = 323;
+    private static final int TAG_TILE_OFFSETS = 324;
+    private static final int TAG_TILE_BYTE_COUNTS = 325;
+    private static final int TAG_SAMPLE_FORMAT = 339;
+
+    private static final int SAMPLE_FORMAT_UINT = 1;
+    private static final int SAMPLE_FORMAT_INT = 2;
+    private static final int SAMPLE_FORMAT_FLOAT = 3;
+    private static final int SAMPLE_FORMAT_COMPLEX_INT = 5;
+    private static final int SAMPLE_FORMAT_COMPLEX_FLOAT = 6;
+
+    // keep each mapping, plus the overlap of one chunk row, well below the 2GB limit of a MappedByteBuffer
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private final File file;
+    private final ByteOrder byteOrder;
+    private final int width, height;
+    private final int chunkWidth, chunkHeight, chunksAcross;
+    private final int numComponents;
+    private final int componentBytes;
+    private final int componentFormat;
+    private final int pixelBytes;
+
+    private final long[] chunkOffsets;
+    private final long dataStart;
+    private final long segmentSize;
+    private volatile ByteBuffer[] segments;
+
+    private MappedTiffFile(final File file, final ByteOrder byteOrder, final int width, final int height,
+                           final int chunkWidth, final int chunkHeight,
+                           final int numComponents, final int componentBytes, final int componentFormat,
+                           final long[] chunkOffsets, final long[] chunkByteCounts,
+                           final FileChannel channel, final long segmentSize) throws IOException {
+        this.file = file;
+        this.byteOrder = byteOrder;
+        this.width = width;
+        this.height = height;
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.chunksAcross = (width + chunkWidth - 1) / chunkWidth;
+        this.numComponents = numComponents;
+        this.componentBytes = componentBytes;
+        this.componentFormat = componentFormat;
+        this.pixelBytes = numComponents * componentBytes;
+        this.chunkOffsets = chunkOffsets;
+        this.segmentSize = segmentSize;
+
+        final long rowBytes = (long) chunkWidth * pixelBytes;
+        if (rowBytes > MAX_SEGMENT_SIZE) {
+            throw new IOException(file.getName() + ": strip or tile rows are too large to be mapped");
+        }
+
+        long start = Long.MAX_VALUE;
+        long end = 0;
+        for (int i = 0; i < chunkOffsets.length; ++i) {
+            start = Math.min(start, chunkOffsets[i]);
+            end = Math.max(end, chunkOffsets[i] + chunkByteCounts[i]);
+        }
+        if (end > channel.size()) {
+            throw new IOException(file.getName() + " is truncated");
+        }
+        this.dataStart = start;
+
+        // Consecutive segments overlap by one chunk row, so that every row run read by readComponent() lies
+        // within a single segment whatever the size of the strips or tiles.
+        final int numSegments = (int) ((end - start + segmentSize - 1) / segmentSize);
+        final ByteBuffer[] mapped = new ByteBuffer[numSegments];
+        try {
+            for (int s = 0; s < numSegments; ++s) {
+                final long segmentStart = start + s * segmentSize;
+                mapped[s] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                        Math.min(segmentSize + rowBytes, end - segmentStart)).order(byteOrder);
+            }
+        } catch (IOException | RuntimeException e) {
+            MappedBuffers.unmap(mapped);
+            throw e;
+        }
+        this.segments = mapped;
+    }
+
+    /**
+     * Map an image file.
+     *
+     * @param file the TIFF file
+     * @return the mapped image
+     * @throws IOException if the file cannot be read or the layout is not supported, e.g. the image is compressed.
+     */
+    public static MappedTiffFile open(final File file) throws IOException {
+        return open(file, MAX_SEGMENT_SIZE);
+    }
+
+    static MappedTiffFile open(final File file, final long segmentSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final IFD ifd = new IFD(channel, file);
+
+            final int width = (int) ifd.getValue(TAG_IMAGE_WIDTH, -1);
+            final int height = (int) ifd.getValue(TAG_IMAGE_LENGTH, -1);
+            if (width <= 0 || height <= 0) {
+                throw new IOException(file.getName() + ": missing image dimensions");
+            }
+            if (ifd.getValue(TAG_COMPRESSION, 1) != 1) {
+                throw new IOException(file.getName() + ": compressed images are not supported");
+            }
+            final int samplesPerPixel = (int) ifd.getValue(TAG_SAMPLES_PER_PIXEL, 1);
+            if (samplesPerPixel > 1 && ifd.getValue(TAG_PLANAR_CONFIGURATION, 1) != 1) {
+                throw new IOException(file.getName() + ": planar images are not supported");
+            }
+
+            final long[] bitsPerSample = ifd.getValues(TAG_BITS_PER_SAMPLE);
+            final int bits = bitsPerSample == null ? 1 : (int) bitsPerSample[0];
+            if (bitsPerSample != null) {
+                for (long b : bitsPerSample) {
+                    if (b != bits) {
+                        throw new IOException(file.getName() + ": mixed sample sizes are not supported");
+                    }
+                }
+            }
+
+            final int sampleFormat = (int) ifd.getValue(TAG_SAMPLE_FORMAT, SAMPLE_FORMAT_UINT);
+            final boolean isComplex = sampleFormat == SAMPLE_FORMAT_COMPLEX_INT || sampleFormat == SAMPLE_FORMAT_COMPLEX_FLOAT;
+            final int componentBits = isComplex ? bits / 2 : bits;
+            final int numComponents = isComplex ? 2 * samplesPerPixel : samplesPerPixel;
+            final int componentFormat;
+            if (sampleFormat == SAMPLE_FORMAT_COMPLEX_INT) {
+                componentFormat = SAMPLE_FORMAT_INT;
+            } else if (sampleFormat == SAMPLE_FORMAT_COMPLEX_FLOAT) {
+                componentFormat = SAMPLE_FORMAT_FLOAT;
+            } else {
+                componentFormat = sampleFormat;
+            }
+            if (componentBits != 8 && componentBits != 16 && componentBits != 32) {
+                throw new IOException(file.getName() + ": " + bits + " bit samples are not supported");
+            }
+            if (componentFormat == SAMPLE_FORMAT_FLOAT && componentBits != 32) {
+                throw new IOException(file.getName() + ": " + bits + " bit floating point samples are not supported");
+            }
+
+            final int chunkWidth, chunkHeight;
+            final long[] offsets, byteCounts;
+            if (ifd.getValues(TAG_TILE_OFFSETS) != null) {
+                chunkWidth = (int) ifd.getValue(TAG_TILE_WIDTH, -1);
+                chunkHeight = (int) ifd.getValue(TAG_TILE_LENGTH, -1);
+                offsets = ifd.getValues(TAG_TILE_OFFSETS);
+                byteCounts = ifd.getValues(TAG_TILE_BYTE_COUNTS);
+            } else {
+                chunkWidth = width;
+                chunkHeight = (int) Math.min(ifd.getValue(TAG_ROWS_PER_STRIP, height), height);
+                offsets = ifd.getValues(TAG_STRIP_OFFSETS);
+                byteCounts = ifd.getValues(TAG_STRIP_BYTE_COUNTS);
+            }
+            if (chunkWidth <= 0 || chunkHeight <= 0 || offsets == null || byteCounts == null ||
+                    offsets.length != byteCounts.length) {
+                throw new IOException(file.getName() + ": invalid strip or tile layout");
+            }
+
+            final int numChunks = ((width + chunkWidth - 1) / chunkWidth) * ((height + chunkHeight - 1) / chunkHeight);
+            final long chunkSize = (long) chunkWidth * chunkHeight * numComponents * (componentBits / 8);
+            if (offsets.length < numChunks) {
+                throw new IOException(file.getName() + ": missing strips or tiles");
+            }
+            for (int i = 0; i < numChunks; ++i) {
+                // the last strip may be shorter than the others
+                final long expected = ifd.isTiled() ? chunkSize :
+                        (long) Math.min(chunkHeight, height - i * chunkHeight) * chunkWidth * numComponents * (componentBits / 8);
+                if (byteCounts[i] < expected) {
+                    throw new IOException(file.getName() + ": unexpected strip or tile size");
+                }
+            }
+
+            return new MappedTiffFile(file, ifd.byteOrder, width, height, chunkWidth, chunkHeight,
+                    numComponents, componentBits / 8, componentFormat,
+                    Arrays.copyOf(offsets, numChunks), Arrays.copyOf(byteCounts, numChunks), channel, segmentSize);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the number of components per pixel, two for each complex sample
+     */
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * Read one component of a source region into a ProductData buffer.
+     * As in ImageIOFile.readImageIORasterBand(), the destination region is located in the image sub-sampled from
+     * (sourceOffsetX % sourceStepX, sourceOffsetY % sourceStepY), so that the destination pixel (x, y) is read from
+     * source pixel (sourceOffsetX % sourceStepX + (destOffsetX + x) * sourceStepX,
+     * sourceOffsetY % sourceStepY + (destOffsetY + y) * sourceStepY).
+     *
+     * @param sourceOffsetX the x offset in the image
+     * @param sourceOffsetY the y offset in the image
+     * @param sourceStepX   the sub-sampling in x
+     * @param sourceStepY   the sub-sampling in y
+     * @param component     the component of the pixel, e.g. 0 for the real and 1 for the imaginary part
+     * @param destBuffer    the destination buffer
+     * @param destOffsetX   the x offset of the destination region in the sub-sampled image
+     * @param destOffsetY   the y offset of the destination region in the sub-sampled image
+     * @param destWidth     the width of the destination
+     * @param destHeight    the height of the destination
+     * @throws IOException if the file has been closed
+     */
+    public void readComponent(final int sourceOffsetX, final int sourceOffsetY,
+                              final int sourceStepX, final int sourceStepY, final int component,
+                              final ProductData destBuffer, final int destOffsetX, final int destOffsetY,
+                              final int destWidth, final int destHeight) throws IOException {
+
+        if (component < 0 || component >= numComponents) {
+            throw new IllegalArgumentException("invalid component " + component);
+        }
+        final ByteBuffer[] mapped = segments;
+        if (mapped == null) {
+            throw new IOException(file.getName() + " is closed");
+        }
+        final Object dest = destBuffer.getElems();
+        final int componentOffset = component * componentBytes;
+        final long rowBytes = (long) chunkWidth * pixelBytes;
+        final int startX = sourceOffsetX % sourceStepX + destOffsetX * sourceStepX;
+        final int startY = sourceOffsetY % sourceStepY + destOffsetY * sourceStepY;
+
+        // thread confined views, the mapped segments themselves are never repositioned
+        final ByteBuffer[] views = new ByteBuffer[mapped.length];
+
+        for (int y = 0; y < destHeight; ++y) {
+            final int srcY = startY + y * sourceStepY;
+            if (srcY >= height) {
+                break;
+            }
+            final int chunkRow = srcY / chunkHeight;
+            final int rowInChunk = srcY - chunkRow * chunkHeight;
+            final int destRowOffset = y * destWidth;
+
+            int x = 0;
+            while (x < destWidth) {
+                final int srcX = startX + x * sourceStepX;
+                if (srcX >= width) {
+                    break;
+                }
+                final int chunkCol = srcX / chunkWidth;
+                final int chunk = chunkRow * chunksAcross + chunkCol;
+                final int xInChunk = srcX - chunkCol * chunkWidth;
+
+                // number of destination pixels served by this chunk
+                final int chunkEnd = Math.min((chunkCol + 1) * chunkWidth, width);
+                final int count = Math.min(destWidth - x, (chunkEnd - srcX + sourceStepX - 1) / sourceStepX);
+
+                // the segment holding the start of the chunk row holds all of it
+                final long rowStart = chunkOffsets[chunk] + rowInChunk * rowBytes;
+                final int s = (int) ((rowStart - dataStart) / segmentSize);
+                ByteBuffer view = views[s];
+                if (view == null) {
+                    view = mapped[s].duplicate().order(byteOrder);
+                    views[s] = view;
+                }
+                final int pos = (int) (rowStart - dataStart - s * segmentSize) +
+                        xInChunk * pixelBytes + componentOffset;
+
+                copy(view, pos, sourceStepX * pixelBytes, count, dest, destBuffer, destRowOffset + x);
+                x += count;
+            }
+        }
+    }
+
+    /**
+     * Release the mappings so that the file can be deleted or replaced. No read may be in progress or follow.
+     */
+    public void close() {
+        final ByteBuffer[] mapped = segments;
+        segments = null;
+        MappedBuffers.unmap(mapped);
+    }
+
+    private void copy(final ByteBuffer view, final int pos, final int stride, final int count,
+                      final Object dest, final ProductData destBuffer, final int destPos) {
+
+        if (componentBytes == 2) {
+            if (dest instanceof short[]) {
+                final short[] array = (short[]) dest;
+                if (stride == 2) {
+                    view.position(pos);
+                    view.asShortBuffer().get(array, destPos, count);
+                } else {
+                    for (int i = 0, p = pos; i < count; ++i, p += stride) {
+                        array[destPos + i] = view.getShort(p);
+                    }
+                }
+                return;
+            } else if (dest instanceof int[]) {
+                final int[] array = (int[]) dest;
+                if (componentFormat == SAMPLE_FORMAT_UINT) {
+                    for (int i = 0, p = pos; i < count; ++i, p += stride) {
+                        array[destPos + i] = view.getShort(p) & 0xFFFF;
+                    }
+                } else {
+                    for (int i = 0, p = pos; i < count; ++i, p += stride) {
+                        array[destPos + i] = view.getShort(p);
+                    }
+                }
+                return;
+            } else if (dest instanceof float[]) {
+                final float[] array = (float[]) dest;
+                final int mask = componentFormat == SAMPLE_FORMAT_UINT ? 0xFFFF : 0xFFFFFFFF;
+                for (int i = 0, p = pos; i < count; ++i, p += stride) {
+                    array[destPos + i] = view.getShort(p) & mask;
+                }
+                return;
+            }
+        } else if (componentBytes == 4) {
+            if (componentFormat == SAMPLE_FORMAT_FLOAT && dest instanceof float[]) {
+                final float[] array = (float[]) dest;
+                if (stride == 4) {
+                    view.position(pos);
+                    view.asFloatBuffer().get(array, destPos, count);
+                } else {
+                    for (int i = 0, p = pos; i < count; ++i, p += stride) {
+                        array[destPos + i] = view.getFloat(p);
+                    }
+                }
+                return;
+            } else if (componentFormat != SAMPLE_FORMAT_FLOAT && dest instanceof int[]) {
+                final int[] array = (int[]) dest;
+                if (stride == 4) {
+                    view.position(pos);
+                    view.asIntBuffer().get(array, destPos, count);
+                } else {
+                    for (int i = 0, p = pos; i < count; ++i, p += stride) {
+                        array[destPos + i] = view.getInt(p);
+                    }
+                }
+                return;
+            }
+        } else if (dest instanceof byte[]) {
+            final byte[] array = (byte[]) dest;
+            for (int i = 0, p = pos; i < count; ++i, p += stride) {
+                array[destPos + i] = view.get(p);
+            }
+            return;
+        }
+
+        for (int i = 0, p = pos; i < count; ++i, p += stride) {
+            destBuffer.setElemDoubleAt(destPos + i, getComponent(view, p));
+        }
+    }
+
+    private double getComponent(final ByteBuffer view, final int pos) {
+        switch (componentBytes) {
+            case 1:
+                return componentFormat == SAMPLE_FORMAT_INT ? view.get(pos) : view.get(pos) & 0xFF;
+            case 2:
+                return componentFormat == SAMPLE_FORMAT_INT ? view.getShort(pos) : view.getShort(pos) & 0xFFFF;
+            default:
+                if (componentFormat == SAMPLE_FORMAT_FLOAT) {
+                    return view.getFloat(pos);
+                }
+                return componentFormat == SAMPLE_FORMAT_INT ? view.getInt(pos) : view.getInt(pos) & 0xFFFFFFFFL;
+        }
+    }
+
+    /**
+     * The first image file directory of a TIFF or BigTIFF file.
+     */
+    private static final class IFD {
+
+        private final ByteOrder byteOrder;
+        private final boolean bigTiff;
+        private final FileChannel channel;
+        private final File file;
+        private final Map<Integer, long[]> values = new HashMap<>();
+
+        IFD(final FileChannel channel, final File file) throws IOException {
+            this.channel = channel;
+            this.file = file;
+
+            final ByteBuffer header = read(0, 16, ByteOrder.LITTLE_ENDIAN);
+            final int magic = header.getShort(0);
+            if (magic == 0x4949) {
+                byteOrder = ByteOrder.LITTLE_ENDIAN;
+            } else if (magic == 0x4D4D) {
+                byteOrder = ByteOrder.BIG_ENDIAN;
+            } else {
+                throw new IOException(file.getName() + " is not a TIFF file");
+            }
+            header.order(byteOrder);
+
+            final int version = header.getShort(2);
+            final long ifdOffset;
+            if (version == 42) {
+                bigTiff = false;
+                ifdOffset = header.getInt(4) & 0xFFFFFFFFL;
+            } else if (version == 43) {
+                bigTiff = true;
+                ifdOffset = header.getLong(8);
+            } else {
+                throw new IOException(file.getName() + " is not a TIFF file");
+            }
+
+            final int countSize = bigTiff ? 8 : 2;
+            final int entrySize = bigTiff ? 20 : 12;
+            final ByteBuffer countBuffer = read(ifdOffset, countSize, byteOrder);
+            final long numEntries = bigTiff ? countBuffer.getLong(0) : countBuffer.getShort(0) & 0xFFFF;
+
+            final ByteBuffer entries = read(ifdOffset + countSize, (int) numEntries * entrySize, byteOrder);
+            for (int i = 0; i < numEntries; ++i) {
+                final int pos = i * entrySize;
+                final int tag = entries.getShort(pos) & 0xFFFF;
+                final int type = entries.getShort(pos + 2) & 0xFFFF;
+                final long count = bigTiff ? entries.getLong(pos + 4) : entries.getInt(pos + 4) & 0xFFFFFFFFL;
+                final int valueOffset = pos + (bigTiff ? 12 : 8);
+
+                final int typeSize = getTypeSize(type);
+                if (typeSize == 0 || count > Integer.MAX_VALUE / 8) {
+                    continue;
+                }
+                final long size = count * typeSize;
+                final ByteBuffer data;
+                int dataPos;
+                if (size <= (bigTiff ? 8 : 4)) {
+                    data = entries;
+                    dataPos = valueOffset;
+                } else {
+                    final long offset = bigTiff ? entries.getLong(valueOffset) : entries.getInt(valueOffset) & 0xFFFFFFFFL;
+                    data = read(offset, (int) size, byteOrder);
+                    dataPos = 0;
+                }
+
+                final long[] array = new long[(int) count];
+                for (int c = 0; c < count; ++c, dataPos += typeSize) {
+                    switch (type) {
+                        case 1: // BYTE
+                        case 2: // ASCII
+                        case 7: // UNDEFINED
+                            array[c] = data.get(dataPos) & 0xFF;
+                            break;
+                        case 3: // SHORT
+                            array[c] = data.getShort(dataPos) & 0xFFFF;
+                            break;
+                        case 4: // LONG
+                        case 13: // IFD
+                            array[c] = data.getInt(dataPos) & 0xFFFFFFFFL;
+                            break;
+                        case 16: // LONG8
+                        case 18: // IFD8
+                            array[c] = data.getLong(dataPos);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                values.put(tag, array);
+            }
+        }
+
+        private static int getTypeSize(final int type) {
+            switch (type) {
+                case 1:
+                case 2:
+                case 7:
+                    return 1;
+                case 3:
+                    return 2;
+                case 4:
+                case 13:
+                    return 4;
+                case 16:
+                case 18:
+                    return 8;
+                default:
+                    return 0;
+            }
+        }
+
+        private ByteBuffer read(final long offset, final int length, final ByteOrder order) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(length).order(order);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException(file.getName() + " is truncated");
+                }
+            }
+            return buffer;
+        }
+
+        boolean isTiled() {
+            return values.containsKey(TAG_TILE_OFFSETS);
+        }
+
+        long[] getValues(final int tag) {
+            return values.get(tag);
+        }
+
+        long getValue(final int tag, final long defaultValue) {
+            final long[] array = values.get(tag);
+            return array == null || array.length == 0 ? defaultValue : array[0];
+        }
+    }
+}
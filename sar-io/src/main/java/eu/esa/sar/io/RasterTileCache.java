@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.io;
+
+import org.esa.snap.runtime.Config;
+
+import java.awt.*;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size bounded cache of decoded raster rectangles shared between the bands of one image file,
+ * e.g. the i and q bands of a complex Sentinel-1 measurement TIFF.
+ * <p>
+ * Entries are weighted by their size in bytes and evicted with a second chance (clock) policy once the
+ * memory budget is exceeded. Concurrent requests for the same rectangle are deduplicated so that only one
+ * thread decodes it while the others wait for the result. Requests for different rectangles never block
+ * each other in the cache.
+ */
+public class RasterTileCache {
+
+    private static final long DEFAULT_MAX_BYTES =
+            Config.instance().preferences().getLong("s1tbx.readers.tileCacheSizeMB", 256L) * 1024L * 1024L;
+
+    private final long maxBytes;
+    private final ConcurrentHashMap<Key, Entry> map = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicLong weight = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public interface Loader {
+        int[] load() throws IOException;
+    }
+
+    public RasterTileCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes The memory budget in bytes of all cached rectangles.
+     */
+    public RasterTileCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the samples of a rectangle, decoding them with the loader if they are not cached yet.
+     *
+     * @param img    The image file the samples are read from.
+     * @param rect   The rectangle in the image.
+     * @param stepX  The sub-sampling in x.
+     * @param stepY  The sub-sampling in y.
+     * @param loader Decodes the rectangle if it is not in the cache.
+     * @return the samples of the rectangle. The array is shared and must not be modified.
+     * @throws IOException if the loader fails.
+     */
+    public int[] get(final Object img, final Rectangle rect, final int stepX, final int stepY,
+                     final Loader loader) throws IOException {
+
+        final Key key = new Key(img, rect, stepX, stepY);
+        Entry entry = map.get(key);
+        if (entry == null) {
+            final Entry newEntry = new Entry(key);
+            entry = map.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                missCount.increment();
+                return load(newEntry, loader);
+            }
+        }
+
+        hitCount.increment();
+        entry.referenced = true;
+        return await(entry);
+    }
+
+    private int[] load(final Entry entry, final Loader loader) throws IOException {
+        final int[] data;
+        try {
+            data = loader.load();
+        } catch (IOException | RuntimeException | Error e) {
+            map.remove(entry.key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+
+        entry.bytes = 4L * data.length;
+        entry.future.complete(data);
+        synchronized (entry) {
+            // the entry may have been invalidated while it was loading
+            if (map.get(entry.key) == entry) {
+                weight.addAndGet(entry.bytes);
+                entry.accounted = true;
+            }
+        }
+        if (entry.accounted) {
+            clock.offer(entry);
+            evict();
+        }
+        return data;
+    }
+
+    private boolean remove(final Entry entry) {
+        if (map.remove(entry.key, entry)) {
+            synchronized (entry) {
+                if (entry.accounted) {
+                    weight.addAndGet(-entry.bytes);
+                    entry.accounted = false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static int[] await(final Entry entry) throws IOException {
+        try {
+            return entry.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + entry.key, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Unable to read " + entry.key, cause);
+        }
+    }
+
+    private void evict() {
+        int attempts = 2 * map.size() + 1;
+        while (weight.get() > maxBytes && attempts-- > 0) {
+            final Entry entry = clock.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.referenced) {
+                // second chance
+                entry.referenced = false;
+                clock.offer(entry);
+            } else if (remove(entry)) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Remove all rectangles of an image, e.g. when the image file is closed.
+     *
+     * @param img The image file.
+     */
+    public void invalidate(final Object img) {
+        for (Entry entry : map.values()) {
+            if (entry.key.img == img) {
+                remove(entry);
+            }
+        }
+        clock.removeIf(entry -> entry.key.img == img);
+    }
+
+    public void clear() {
+        for (Entry entry : map.values()) {
+            remove(entry);
+        }
+        clock.clear();
+    }
+
+    public long size() {
+        return map.size();
+    }
+
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public long getMaxWeight() {
+        return maxBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public String stats() {
+        return "RasterTileCache{size=" + size() + ", bytes=" + getWeight() + '/' + maxBytes +
+                ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + '}';
+    }
+
+    private static final class Entry {
+        final Key key;
+        final CompletableFuture<int[]> future = new CompletableFuture<>();
+        volatile long bytes;
+        volatile boolean referenced;
+        volatile boolean accounted;
+
+        Entry(final Key key) {
+            this.key = key;
+        }
+    }
+
+    static final class Key {
+        private final Object img;
+        private final int x, y, width, height;
+        private final int stepX, stepY;
+        private final int hash;
+
+        Key(final Object img, final Rectangle rect, final int stepX, final int stepY) {
+            this.img = img;
+            this.x = rect.x;
+            this.y = rect.y;
+            this.width = rect.width;
+            this.height = rect.height;
+            this.stepX = stepX;
+            this.stepY = stepY;
+
+            int h = System.identityHashCode(img);
+            h = 31 * h + x;
+            h = 31 * h + y;
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + stepX;
+            h = 31 * h + stepY;
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) obj;
+            return img == key.img && x == key.x && y == key.y && width == key.width && height == key.height &&
+                    stepX == key.stepX && stepY == key.stepY;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "[x=" + x + ",y=" + y + ",width=" + width + ",height=" + height + ']';
+        }
+    }
+}
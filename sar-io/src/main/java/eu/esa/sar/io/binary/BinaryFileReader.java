@@ -15,7 +15,10 @@
  */
 package eu.esa.sar.io.binary;
 
+import eu.esa.sar.commons.io.FileImageInputStreamExtImpl;
+
 import javax.imageio.stream.ImageInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -44,6 +47,20 @@ public final class BinaryFileReader {
         stream.setByteOrder(order);
     }
 
+    public ByteOrder getByteOrder() {
+        return stream.getByteOrder();
+    }
+
+    /**
+     * @return the file read by the stream or null if the stream is not backed by a file
+     */
+    public File getFile() {
+        if (stream instanceof FileImageInputStreamExtImpl) {
+            return ((FileImageInputStreamExtImpl) stream).getFile();
+        }
+        return null;
+    }
+
     public void seek(final long pos) throws IOException {
         stream.seek(pos);
     }
@@ -22,7 +22,12 @@ import org.esa.snap.core.datamodel.MetadataElement;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.engine_utilities.eo.Constants;
 
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 
 /**
@@ -40,6 +45,10 @@ public abstract class CEOSImageFile {
     protected long startPosImageRecords = 0;
     protected int imageHeaderLength = 0;
 
+    // positional reads of the image records, null if the image is not a plain file
+    private volatile FileChannel imageChannel = null;
+    private volatile boolean imageChannelOpened = false;
+
     public BinaryRecord getImageFileDescriptor() {
         return imageFDR;
     }
@@ -66,12 +75,15 @@ public abstract class CEOSImageFile {
     protected abstract BinaryRecord createNewImageRecord(final int line) throws IOException;
 
     BinaryRecord getImageRecord(int line) throws IOException {
-        if (imageRecords[line] == null) {
-
-            binaryReader.seek(imageFDR.getAbsolutPosition(imageFDR.getRecordLength()));
-            imageRecords[line] = createNewImageRecord(line);
+        // read under the lock as well: the records array gives no safe publication of lazily created records.
+        // Image records are only read for metadata, the image lines do not go through here.
+        synchronized (binaryReader) {
+            if (imageRecords[line] == null) {
+                binaryReader.seek(imageFDR.getAbsolutPosition(imageFDR.getRecordLength()));
+                imageRecords[line] = createNewImageRecord(line);
+            }
+            return imageRecords[line];
         }
-        return imageRecords[line];
     }
 
     public double getSlantRangeToFirstPixel(int line) {
@@ -165,6 +177,7 @@ public abstract class CEOSImageFile {
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
             final short[] srcLine = new short[sourceWidth];
+            final ByteBuffer lineBuffer = createLineBuffer(srcLine.length * 2);
             short[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new short[destWidth];
@@ -174,10 +187,7 @@ public abstract class CEOSImageFile {
                 }
 
                 // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+                readLine(_imageRecordLength * y + xpos, lineBuffer, srcLine);
 
                 // Copy source line into destination buffer
                 int currentLineIndex = (y - sourceOffsetY) * destWidth;
@@ -216,6 +226,7 @@ public abstract class CEOSImageFile {
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
             final int[] srcLine = new int[sourceWidth];
+            final ByteBuffer lineBuffer = createLineBuffer(srcLine.length * 4);
             int[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new int[destWidth];
@@ -225,10 +236,7 @@ public abstract class CEOSImageFile {
                 }
 
                 // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+                readLine(_imageRecordLength * y + xpos, lineBuffer, srcLine);
 
                 // Copy source line into destination buffer
                 final int currentLineIndex = (y - sourceOffsetY) * destWidth;
@@ -260,6 +268,7 @@ public abstract class CEOSImageFile {
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
             final float[] srcLine = new float[sourceWidth];
+            final ByteBuffer lineBuffer = createLineBuffer(srcLine.length * 4);
             float[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new float[destWidth];
@@ -269,10 +278,7 @@ public abstract class CEOSImageFile {
                 }
 
                 // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+                readLine(_imageRecordLength * y + xpos, lineBuffer, srcLine);
 
                 // Copy source line into destination buffer
                 final int currentLineIndex = (y - sourceOffsetY) * destWidth;
@@ -303,6 +309,7 @@ public abstract class CEOSImageFile {
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
             final byte[] srcLine = new byte[sourceWidth];
+            final ByteBuffer lineBuffer = ByteBuffer.wrap(srcLine);
             byte[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new byte[destWidth];
@@ -311,11 +318,8 @@ public abstract class CEOSImageFile {
                     break;
                 }
 
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+                // Read source line, the line buffer wraps srcLine
+                readLine(_imageRecordLength * y + xpos, lineBuffer);
 
                 // Copy source line into destination buffer
                 final int currentLineIndex = (y - sourceOffsetY) * destWidth;
@@ -347,6 +351,7 @@ public abstract class CEOSImageFile {
 
         try {
             final short[] srcLine = new short[sourceWidth * 2];
+            final ByteBuffer lineBuffer = createLineBuffer(srcLine.length * 2);
             for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
 
                 /*
@@ -374,10 +379,7 @@ public abstract class CEOSImageFile {
                 }   */
 
                 // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+                readLine(_imageRecordLength * y + xpos, lineBuffer, srcLine);
 
                 // Copy source line into destination buffer
                 final int currentLineIndex = (y - sourceOffsetY) * destWidth;
@@ -392,7 +394,7 @@ public abstract class CEOSImageFile {
         }
     }
 
-    public synchronized void readBandRasterDataSLCFloat(final int sourceOffsetX, final int sourceOffsetY,
+    public void readBandRasterDataSLCFloat(final int sourceOffsetX, final int sourceOffsetY,
                                            final int sourceWidth, final int sourceHeight,
                                            final int sourceStepX, final int sourceStepY,
                                            final int destWidth, final ProductData destBuffer, boolean oneOf2,
@@ -404,13 +406,11 @@ public abstract class CEOSImageFile {
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
             final float[] srcLine = new float[sourceWidth * 2];
+            final ByteBuffer lineBuffer = createLineBuffer(srcLine.length * 4);
             final float[] destLine = new float[destWidth];
             for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
                 // Read source line
-                //synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                //}
+                readLine(_imageRecordLength * y + xpos, lineBuffer, srcLine);
 
                 // Copy source line into destination buffer
                 final int currentLineIndex = (y - sourceOffsetY) * destWidth;
@@ -438,17 +438,15 @@ public abstract class CEOSImageFile {
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
             final byte[] srcLine = new byte[sourceWidth * 2];
+            final ByteBuffer lineBuffer = ByteBuffer.wrap(srcLine);
             final byte[] destLine = new byte[destWidth];
             for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
                 if (pm.isCanceled()) {
                     break;
                 }
 
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+                // Read source line, the line buffer wraps srcLine
+                readLine(_imageRecordLength * y + xpos, lineBuffer);
 
                 // Copy source line into destination buffer
                 final int currentLineIndex = (y - sourceOffsetY) * destWidth;
@@ -467,6 +465,73 @@ public abstract class CEOSImageFile {
         }
     }
 
+    private ByteBuffer createLineBuffer(final int numBytes) {
+        return ByteBuffer.allocate(numBytes).order(binaryReader.getByteOrder());
+    }
+
+    /**
+     * Open a channel on the image file for positional reads. Streams which are not backed by a plain file,
+     * such as entries of a zip, are read through the shared binary reader instead.
+     */
+    private FileChannel getImageChannel() {
+        if (!imageChannelOpened) {
+            synchronized (this) {
+                if (!imageChannelOpened) {
+                    final File file = binaryReader.getFile();
+                    if (file != null) {
+                        try {
+                            imageChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                        } catch (IOException e) {
+                            imageChannel = null;
+                        }
+                    }
+                    imageChannelOpened = true;
+                }
+            }
+        }
+        return imageChannel;
+    }
+
+    /**
+     * Read the bytes of a line at an absolute file position. Positional reads do not move a shared file pointer,
+     * so lines of different tiles can be read concurrently.
+     */
+    private void readLine(final long pos, final ByteBuffer lineBuffer) throws IOException {
+        final FileChannel channel = getImageChannel();
+        if (channel != null) {
+            lineBuffer.clear();
+            long filePos = pos;
+            while (lineBuffer.hasRemaining()) {
+                final int n = channel.read(lineBuffer, filePos);
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of image file at " + filePos);
+                }
+                filePos += n;
+            }
+        } else {
+            synchronized (binaryReader) {
+                binaryReader.seek(pos);
+                binaryReader.read(lineBuffer.array());
+            }
+        }
+        lineBuffer.clear();
+    }
+
+    private void readLine(final long pos, final ByteBuffer lineBuffer, final short[] srcLine) throws IOException {
+        readLine(pos, lineBuffer);
+        lineBuffer.asShortBuffer().get(srcLine);
+    }
+
+    private void readLine(final long pos, final ByteBuffer lineBuffer, final int[] srcLine) throws IOException {
+        readLine(pos, lineBuffer);
+        lineBuffer.asIntBuffer().get(srcLine);
+    }
+
+    private void readLine(final long pos, final ByteBuffer lineBuffer, final float[] srcLine) throws IOException {
+        readLine(pos, lineBuffer);
+        lineBuffer.asFloatBuffer().get(srcLine);
+    }
+
     private static void copyLine(final short[] srcLine, final short[] destLine, final int sourceStepX) {
         for (int x = 0, i = 0; x < destLine.length; ++x, i += sourceStepX) {
             destLine[x] = srcLine[i];
@@ -549,6 +614,13 @@ public abstract class CEOSImageFile {
     }
 
     public void close() throws IOException {
+        synchronized (this) {
+            if (imageChannel != null) {
+                imageChannel.close();
+                imageChannel = null;
+            }
+            imageChannelOpened = true;
+        }
         binaryReader.close();
         binaryReader = null;
     }
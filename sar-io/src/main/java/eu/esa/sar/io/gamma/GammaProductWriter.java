@@ -17,7 +17,7 @@ package eu.esa.sar.io.gamma;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.glevel.MultiLevelImage;
-import eu.esa.sar.commons.io.FileImageOutputStreamExtImpl;
+import eu.esa.sar.commons.io.PositionalFileWriter;
 import eu.esa.sar.io.gamma.header.GammaConstants;
 import eu.esa.sar.io.gamma.header.HeaderDEMWriter;
 import eu.esa.sar.io.gamma.header.HeaderDiffWriter;
@@ -30,7 +30,6 @@ import org.esa.snap.core.gpf.internal.TileImpl;
 import org.esa.snap.core.util.Guardian;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 
-import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.Raster;
 import java.io.File;
@@ -48,7 +47,7 @@ public class GammaProductWriter extends AbstractProductWriter {
     private File outputDir;
     private File outputFile;
     private Product srcProduct;
-    private Map<Band, ImageOutputStream> bandOutputStreams;
+    private Map<Band, PositionalFileWriter> bandOutputStreams;
     private HeaderWriter headerWriter;
 
     public GammaProductWriter(final ProductWriterPlugIn writerPlugIn) {
@@ -89,26 +88,25 @@ public class GammaProductWriter extends AbstractProductWriter {
         headerWriter.writeParFile();
     }
 
-    private ImageOutputStream createImageOutputStream(final Band band) throws IOException {
-        final ImageOutputStream out = new FileImageOutputStreamExtImpl(getValidImageFile(band));
-        out.setByteOrder(ByteOrder.BIG_ENDIAN);
-        return out;
+    private PositionalFileWriter createImageOutputStream(final Band band) throws IOException {
+        return new PositionalFileWriter(getValidImageFile(band), ByteOrder.BIG_ENDIAN);
     }
 
     /**
      * {@inheritDoc}
      */
-    public synchronized void writeBandRasterData(Band sourceBand,
-                                                 int sourceOffsetX, int sourceOffsetY,
-                                                 int sourceWidth, int sourceHeight,
-                                                 ProductData sourceBuffer,
-                                                 ProgressMonitor pm) throws IOException {
+    public void writeBandRasterData(Band sourceBand,
+                                    int sourceOffsetX, int sourceOffsetY,
+                                    int sourceWidth, int sourceHeight,
+                                    ProductData sourceBuffer,
+                                    ProgressMonitor pm) throws IOException {
         Guardian.assertNotNull("sourceBand", sourceBand);
         Guardian.assertNotNull("sourceBuffer", sourceBuffer);
         final int sourceBandWidth = sourceBand.getRasterWidth();
         final int elemSize = headerWriter.getHighestElemSize();
 
-        final ImageOutputStream outputStream = getOrCreateImageOutputStream(sourceBand);
+        // tiles are written concurrently at their positions in the file
+        final PositionalFileWriter outputStream = getOrCreateImageOutputStream(sourceBand);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
         try {
             if (isComplex(sourceBand)) {
@@ -129,8 +127,8 @@ public class GammaProductWriter extends AbstractProductWriter {
                             srcCnt++;
                         }
 
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeFloats(destBuffer, 0, destBuffer.length);
+                        outputStream.writeFloats(destBuffer, 0, destBuffer.length,
+                                elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
                     }
                 } else {
                     final short[] destBuffer = new short[sourceWidth * numInterleaved];
@@ -143,8 +141,8 @@ public class GammaProductWriter extends AbstractProductWriter {
                             srcCnt++;
                         }
 
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeShorts(destBuffer, 0, destBuffer.length);
+                        outputStream.writeShorts(destBuffer, 0, destBuffer.length,
+                                elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
                     }
                 }
 
@@ -154,7 +152,7 @@ public class GammaProductWriter extends AbstractProductWriter {
                 long outputPos = (long) sourceOffsetY * (long) sourceBandWidth + sourceOffsetX;
                 final long max = sourceHeight * sourceWidth;
                 for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                    sourceBuffer.writeTo(sourcePos, sourceWidth, outputStream, outputPos);
+                    outputStream.write(sourceBuffer, sourcePos, sourceWidth, outputPos);
                     outputPos += sourceBandWidth;
                 }
             }
@@ -188,12 +186,7 @@ public class GammaProductWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (bandOutputStreams == null) {
-            return;
-        }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).flush();
-        }
+        // the tiles are written to the files directly, nothing is buffered
     }
 
     /**
@@ -205,8 +198,8 @@ public class GammaProductWriter extends AbstractProductWriter {
         if (bandOutputStreams == null) {
             return;
         }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).close();
+        for (PositionalFileWriter o : bandOutputStreams.values()) {
+            o.close();
         }
         bandOutputStreams.clear();
         bandOutputStreams = null;
@@ -227,8 +220,8 @@ public class GammaProductWriter extends AbstractProductWriter {
      * Returns the data output stream associated with the given <code>Band</code>. If no stream exists, one is created
      * and fed into the hash map
      */
-    private ImageOutputStream getOrCreateImageOutputStream(final Band band) throws IOException {
-        ImageOutputStream outputStream = getImageOutputStream(band);
+    private synchronized PositionalFileWriter getOrCreateImageOutputStream(final Band band) throws IOException {
+        PositionalFileWriter outputStream = getImageOutputStream(band);
         if (outputStream == null) {
             outputStream = createImageOutputStream(band);
             if (bandOutputStreams == null) {
@@ -239,7 +232,7 @@ public class GammaProductWriter extends AbstractProductWriter {
         return outputStream;
     }
 
-    private ImageOutputStream getImageOutputStream(final Band band) {
+    private PositionalFileWriter getImageOutputStream(final Band band) {
         if (bandOutputStreams != null) {
             return bandOutputStreams.get(band);
         }
@@ -5,7 +5,7 @@ import com.bc.ceres.glevel.MultiLevelImage;
 import eu.esa.sar.io.gamma.pyrate.pyrateheader.PyRateHeaderDEMWriter;
 import eu.esa.sar.io.gamma.pyrate.pyrateheader.PyRateHeaderDiffWriter;
 import eu.esa.sar.io.gamma.pyrate.pyrateheader.PyRateHeaderWriter;
-import eu.esa.sar.commons.io.FileImageOutputStreamExtImpl;
+import eu.esa.sar.commons.io.PositionalFileWriter;
 import eu.esa.sar.io.gamma.header.GammaConstants;
 import eu.esa.sar.io.gamma.pyrate.pyrateheader.*;
 import org.esa.snap.core.dataio.AbstractProductWriter;
@@ -17,7 +17,6 @@ import org.esa.snap.core.util.Guardian;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 
 
-import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.Raster;
 import java.io.File;
@@ -31,7 +30,7 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
     private File outputDir;
     private File outputFile;
     private Product srcProduct;
-    private Map<Band, ImageOutputStream> bandOutputStreams;
+    private Map<Band, PositionalFileWriter> bandOutputStreams;
     private PyRateHeaderWriter headerWriter;
     private String doubleDate = "";
     protected String baseFileName;
@@ -92,32 +91,34 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
         headerWriter.writeParFile();
     }
 
-    private ImageOutputStream createImageOutputStream(final Band band) throws IOException {
-        final ImageOutputStream out = new FileImageOutputStreamExtImpl(getValidImageFile(band));
-        out.setByteOrder(ByteOrder.BIG_ENDIAN);
-        return out;
+    private PositionalFileWriter createImageOutputStream(final Band band) throws IOException {
+        return new PositionalFileWriter(getValidImageFile(band), ByteOrder.BIG_ENDIAN);
     }
 
     /**
      * {@inheritDoc}
      */
-    public synchronized void writeBandRasterData(Band sourceBand,
-                                                 int sourceOffsetX, int sourceOffsetY,
-                                                 int sourceWidth, int sourceHeight,
-                                                 ProductData sourceBuffer,
-                                                 ProgressMonitor pm) throws IOException {
+    public void writeBandRasterData(Band sourceBand,
+                                    int sourceOffsetX, int sourceOffsetY,
+                                    int sourceWidth, int sourceHeight,
+                                    ProductData sourceBuffer,
+                                    ProgressMonitor pm) throws IOException {
         Guardian.assertNotNull("sourceBand", sourceBand);
         Guardian.assertNotNull("sourceBuffer", sourceBuffer);
         final int sourceBandWidth = sourceBand.getRasterWidth();
         final int elemSize = headerWriter.getHighestElemSize();
 
-        if (sourceBand.getName().toLowerCase().contains("phase")){
-            if( ! sourceBand.getName().toLowerCase().contains(doubleDate)){
-                sourceBand.setName(sourceBand.getName() + "_" + doubleDate);
+        // the tiles of a band may be written concurrently, rename it once
+        synchronized (this) {
+            if (sourceBand.getName().toLowerCase().contains("phase")){
+                if( ! sourceBand.getName().toLowerCase().contains(doubleDate)){
+                    sourceBand.setName(sourceBand.getName() + "_" + doubleDate);
+                }
             }
         }
 
-        final ImageOutputStream outputStream = getOrCreateImageOutputStream(sourceBand);
+        // tiles are written concurrently at their positions in the file
+        final PositionalFileWriter outputStream = getOrCreateImageOutputStream(sourceBand);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
         try {
             if (isComplex(sourceBand)) {
@@ -138,8 +139,8 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
                             srcCnt++;
                         }
 
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeFloats(destBuffer, 0, destBuffer.length);
+                        outputStream.writeFloats(destBuffer, 0, destBuffer.length,
+                                elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
                     }
                 } else {
                     final short[] destBuffer = new short[sourceWidth * numInterleaved];
@@ -152,8 +153,8 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
                             srcCnt++;
                         }
 
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeShorts(destBuffer, 0, destBuffer.length);
+                        outputStream.writeShorts(destBuffer, 0, destBuffer.length,
+                                elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
                     }
                 }
 
@@ -163,7 +164,7 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
                 long outputPos = (long) sourceOffsetY * (long) sourceBandWidth + sourceOffsetX;
                 final long max = sourceHeight * sourceWidth;
                 for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                    sourceBuffer.writeTo(sourcePos, sourceWidth, outputStream, outputPos);
+                    outputStream.write(sourceBuffer, sourcePos, sourceWidth, outputPos);
                     outputPos += sourceBandWidth;
                 }
             }
@@ -197,12 +198,7 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (bandOutputStreams == null) {
-            return;
-        }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).flush();
-        }
+        // the tiles are written to the files directly, nothing is buffered
     }
 
     /**
@@ -214,8 +210,8 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
         if (bandOutputStreams == null) {
             return;
         }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).close();
+        for (PositionalFileWriter o : bandOutputStreams.values()) {
+            o.close();
         }
         bandOutputStreams.clear();
         bandOutputStreams = null;
@@ -236,8 +232,8 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
      * Returns the data output stream associated with the given <code>Band</code>. If no stream exists, one is created
      * and fed into the hash map
      */
-    protected ImageOutputStream getOrCreateImageOutputStream(final Band band) throws IOException {
-        ImageOutputStream outputStream = getImageOutputStream(band);
+    protected synchronized PositionalFileWriter getOrCreateImageOutputStream(final Band band) throws IOException {
+        PositionalFileWriter outputStream = getImageOutputStream(band);
         if (outputStream == null) {
             outputStream = createImageOutputStream(band);
             if (bandOutputStreams == null) {
@@ -248,7 +244,7 @@ public class PyRateGammaProductWriter  extends AbstractProductWriter {
         return outputStream;
     }
 
-    private ImageOutputStream getImageOutputStream(final Band band) {
+    private PositionalFileWriter getImageOutputStream(final Band band) {
         if (bandOutputStreams != null) {
             return bandOutputStreams.get(band);
         }
@@ -16,6 +16,7 @@
 package eu.esa.sar.io.generic;
 
 import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.io.PositionalFileWriter;
 import org.esa.snap.core.dataio.AbstractProductWriter;
 import org.esa.snap.core.dataio.ProductWriterPlugIn;
 import org.esa.snap.core.datamodel.Band;
@@ -27,19 +28,19 @@ import org.esa.snap.core.util.Guardian;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.metadata.AbstractMetadataIO;
 
-import javax.imageio.stream.FileImageOutputStream;
-import javax.imageio.stream.ImageOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
 
 
 public class GenericBSQWriter extends AbstractProductWriter {
 
-    private ImageOutputStream _outputStream = null;
+    private PositionalFileWriter _outputStream = null;
 
-    private String bandName = null;
-    private int bandCounter = 0;
+    // order number of the written bands, the tiles of the bands may be written concurrently
+    private final Map<String, Integer> bandIndexMap = new HashMap<>();
     private int numOfWriteBands = 0; // number of bands that are written (no virtual bands)
 
     /**
@@ -70,9 +71,8 @@ public class GenericBSQWriter extends AbstractProductWriter {
             file = (File) getOutput();
         }
 
-        _outputStream = new FileImageOutputStream(file);
         // Default to nativeOrder
-        _outputStream.setByteOrder(ByteOrder.nativeOrder());
+        _outputStream = new PositionalFileWriter(file, ByteOrder.nativeOrder());
 
         final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(getSourceProduct());
         AbstractMetadataIO.saveExternalMetadata(getSourceProduct(), absRoot, file);
@@ -80,7 +80,9 @@ public class GenericBSQWriter extends AbstractProductWriter {
         // Get number of Real (not Virtual) bands
         final int numOfBands = getSourceProduct().getNumBands();
         for (int i = 0; i < numOfBands; i++) {
-            if (!(getSourceProduct().getBandAt(i) instanceof VirtualBand)) {
+            final Band band = getSourceProduct().getBandAt(i);
+            if (!(band instanceof VirtualBand)) {
+                bandIndexMap.put(band.getName(), numOfWriteBands);
                 numOfWriteBands++;
             }
         }
@@ -108,20 +110,18 @@ public class GenericBSQWriter extends AbstractProductWriter {
         checkSourceRegionInsideBandRegion(sourceWidth, sourceBandWidth, sourceHeight, sourceBandHeight, sourceOffsetX, sourceOffsetY);
 
         // Define order number of Band that is being saved
-        if (bandName == null) {
-            bandName = sourceBand.getName();
-        } else if (!bandName.equals(sourceBand.getName())) {
-            bandName = sourceBand.getName();
-            bandCounter++;
+        final Integer bandIndex = bandIndexMap.get(sourceBand.getName());
+        if (bandIndex == null) {
+            throw new IOException("Band " + sourceBand.getName() + " is not written");
         }
 
         // Write all source NOT VIRTUAL bands in BSQ : Band Sequential Format
-        long outputPos = sourceOffsetY * (numOfWriteBands * sourceBandWidth) + sourceOffsetX + (bandCounter * sourceBandWidth);
+        long outputPos = (long) sourceOffsetY * (numOfWriteBands * sourceBandWidth) + sourceOffsetX + ((long) bandIndex * sourceBandWidth);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
         try {
             final long max = sourceHeight * sourceWidth;
             for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                sourceBuffer.writeTo(sourcePos, sourceWidth, _outputStream, outputPos);
+                _outputStream.write(sourceBuffer, sourcePos, sourceWidth, outputPos);
                 outputPos += (numOfWriteBands * sourceBandWidth);
             }
             pm.worked(1);
@@ -162,9 +162,7 @@ public class GenericBSQWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (_outputStream != null) {
-            _outputStream.flush();
-        }
+        // the tiles are written to the file directly, nothing is buffered
     }
 
     /**
@@ -174,7 +172,6 @@ public class GenericBSQWriter extends AbstractProductWriter {
      */
     public void close() throws IOException {
         if (_outputStream != null) {
-            _outputStream.flush();
             _outputStream.close();
             _outputStream = null;
         }
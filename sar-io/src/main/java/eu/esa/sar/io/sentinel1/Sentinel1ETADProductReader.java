@@ -18,7 +18,7 @@ package eu.esa.sar.io.sentinel1;
 import com.bc.ceres.core.ProgressMonitor;
 import eu.esa.sar.commons.io.ImageIOFile;
 import eu.esa.sar.commons.io.SARReader;
-import eu.esa.sar.io.DataCache;
+import eu.esa.sar.io.RasterTileCache;
 import org.esa.snap.core.dataio.ProductReaderPlugIn;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
@@ -40,6 +40,7 @@ import java.nio.file.Path;
 public class Sentinel1ETADProductReader extends SARReader {
 
     protected Sentinel1Directory dataDir = null;
+    private final RasterTileCache cache = new RasterTileCache();
 
     /**
      * Constructs a new abstract product reader.
@@ -65,6 +66,7 @@ public class Sentinel1ETADProductReader extends SARReader {
     @Override
     public void close() throws IOException {
         super.close();
+        cache.clear();
         if (dataDir != null) {
             dataDir.close();
             dataDir = null;
@@ -144,16 +146,14 @@ public class Sentinel1ETADProductReader extends SARReader {
                                   final ProductData destBuffer,
                                   final int destOffsetX, final int destOffsetY,
                                   int destWidth, int destHeight,
-                                  final ImageIOFile.BandInfo bandInfo) {
+                                  final ImageIOFile.BandInfo bandInfo) throws IOException {
 
         final int length;
         final int[] srcArray;
         final Rectangle destRect = new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight);
 
-        DataCache.Data cachedData = readRect(null, bandInfo,
-                sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
-
-        srcArray = cachedData.intArray;
+        srcArray = cache.get(bandInfo.img, destRect, sourceStepX, sourceStepY,
+                () -> readRect(bandInfo, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect));
         length = srcArray.length;
 
         if(destBuffer.getElemSize() > 2) {
@@ -203,19 +203,23 @@ public class Sentinel1ETADProductReader extends SARReader {
         }
     }
 
-    private synchronized DataCache.Data readRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
-                                         int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
-                                         final Rectangle destRect) {
+    private static int[] readRect(final ImageIOFile.BandInfo bandInfo,
+                                  int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                  final Rectangle destRect) {
         try {
-            final ImageReader imageReader = bandInfo.img.getReader();
-            final ImageReadParam readParam = imageReader.getDefaultReadParam();
-            if (sourceStepX == 1 && sourceStepY == 1) {
-                readParam.setSourceRegion(destRect);
-            }
-            readParam.setSourceSubsampling(sourceStepX, sourceStepY, sourceOffsetX % sourceStepX, sourceOffsetY % sourceStepY);
-            final RenderedImage subsampledImage = imageReader.readAsRenderedImage(0, readParam);
+            final Raster data;
+            // ImageIO readers are not thread safe, only reads from the same image file are serialised
+            synchronized (bandInfo.img) {
+                final ImageReader imageReader = bandInfo.img.getReader();
+                final ImageReadParam readParam = imageReader.getDefaultReadParam();
+                if (sourceStepX == 1 && sourceStepY == 1) {
+                    readParam.setSourceRegion(destRect);
+                }
+                readParam.setSourceSubsampling(sourceStepX, sourceStepY, sourceOffsetX % sourceStepX, sourceOffsetY % sourceStepY);
+                final RenderedImage subsampledImage = imageReader.readAsRenderedImage(0, readParam);
 
-            final Raster data = subsampledImage.getData(destRect);
+                data = subsampledImage.getData(destRect);
+            }
 
             final SampleModel sampleModel = data.getSampleModel();
             final int destWidth = Math.min((int) destRect.getWidth(), sampleModel.getWidth());
@@ -224,13 +228,9 @@ public class Sentinel1ETADProductReader extends SARReader {
             final int length = destWidth * destHeight;
             final int[] srcArray = new int[length];
             sampleModel.getSamples(0, 0, destWidth, destHeight, bandInfo.bandSampleOffset, srcArray, data.getDataBuffer());
-
-            DataCache.Data cachedData = new DataCache.Data(srcArray);
-            return cachedData;
+            return srcArray;
         } catch (Exception e) {
-            final int[] srcArray = new int[(int)destRect.getWidth()*(int)destRect.getHeight()];
-            DataCache.Data cachedData = new DataCache.Data(srcArray);
-            return cachedData;
+            return new int[(int) destRect.getWidth() * (int) destRect.getHeight()];
         }
     }
 }
@@ -15,6 +15,7 @@
  */
 package eu.esa.sar.io.sentinel1;
 
+import eu.esa.sar.io.MappedTiffFile;
 import eu.esa.sar.io.geotiffxml.GeoTiffUtils;
 import eu.esa.sar.commons.io.ImageIOFile;
 import eu.esa.sar.commons.io.JSONProductDirectory;
@@ -39,6 +40,7 @@ import org.esa.snap.engine_utilities.datamodel.metadata.AbstractMetadataIO;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
 import org.esa.snap.engine_utilities.gpf.ReaderUtils;
+import org.esa.snap.runtime.Config;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.json.simple.JSONObject;
@@ -62,10 +64,13 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
 
     private final Map<Band, TiePointGeoCoding> bandGeocodingMap = new HashMap<>(5);
     private final transient Map<String, String> imgBandMetadataMap = new HashMap<>(4);
+    private final transient Map<String, MappedTiffFile> mappedTiffMap = new HashMap<>(4);
     private String acqMode = "";
 
     private final static Double NoDataValue = 0.0;//-9999.0;
 
+    private static final boolean useMappedTiff = Config.instance().preferences().getBoolean("s1tbx.readers.useMappedTiff", true);
+
     public Sentinel1Level1Directory(final File inputFile) {
         super(inputFile);
     }
@@ -83,15 +88,23 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
         if ((name.endsWith("tiff"))) {
             try {
                 final Dimension bandDimensions = getBandDimensions(newRoot, imgBandMetadataMap.get(name));
-                final InputStream inStream = getInputStream(imgPath);
-                if(inStream.available() > 0) {
-                    final ImageInputStream imgStream = createImageInputStream(inStream, bandDimensions, isSLC());
-
+                ImageInputStream imgStream = getStoredImageInputStream(imgPath);
+                if (imgStream == null) {
+                    final InputStream inStream = getInputStream(imgPath);
+                    if (inStream.available() > 0) {
+                        imgStream = createImageInputStream(inStream, bandDimensions, isSLC());
+                    } else {
+                        inStream.close();
+                    }
+                }
+                if (imgStream != null) {
                     final ImageIOFile img = new ImageIOFile(name, imgStream, GeoTiffUtils.getTiffIIOReader(imgStream),
                                 1, 1, ProductData.TYPE_INT32, productInputFile);
                     bandImageFileMap.put(img.getName(), img);
-                } else {
-                    inStream.close();
+
+                    if (useMappedTiff && !isCompressed()) {
+                        addMappedTiff(img.getName(), getFile(imgPath));
+                    }
                 }
             } catch (Exception e) {
                 SystemUtils.LOG.severe(imgPath +" not found");
@@ -99,6 +112,34 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
         }
     }
 
+    private void addMappedTiff(final String name, final File file) {
+        try {
+            mappedTiffMap.put(name, MappedTiffFile.open(file));
+        } catch (IOException | IllegalArgumentException e) {
+            // fall back to ImageIO
+            SystemUtils.LOG.fine("Unable to map " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the memory mapped measurement file of an image if it could be mapped.
+     *
+     * @param img the image file
+     * @return the mapped file or null if the image must be read through ImageIO
+     */
+    public MappedTiffFile getMappedTiff(final ImageIOFile img) {
+        return mappedTiffMap.get(img.getName());
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MappedTiffFile mappedTiff : mappedTiffMap.values()) {
+            mappedTiff.close();
+        }
+        mappedTiffMap.clear();
+        super.close();
+    }
+
     public static ImageInputStream createImageInputStream(final InputStream inStream, final Dimension bandDimensions,
                                                           final boolean isSLC) throws IOException {
         final long maxMemory = Runtime.getRuntime().maxMemory() / 1024 / 1024;
@@ -19,7 +19,7 @@ import com.bc.ceres.core.ProgressMonitor;
 import eu.esa.sar.commons.io.ImageIOFile;
 import eu.esa.sar.commons.io.SARProductReaderPlugIn;
 import eu.esa.sar.commons.io.SARReader;
-import eu.esa.sar.io.DataCache;
+import eu.esa.sar.io.RasterTileCache;
 import org.esa.snap.core.dataio.ProductReaderPlugIn;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
@@ -44,7 +44,7 @@ import java.nio.file.Path;
 public class SpacetyProductReader extends SARReader {
 
     protected SpacetyDirectory dataDir = null;
-    private final DataCache cache;
+    private final RasterTileCache cache;
     private final boolean useCache = true;
 
     /**
@@ -55,7 +55,7 @@ public class SpacetyProductReader extends SARReader {
      */
     public SpacetyProductReader(final ProductReaderPlugIn readerPlugIn) {
         super(readerPlugIn);
-        cache = useCache ? new DataCache() : null;
+        cache = useCache ? new RasterTileCache() : null;
     }
 
     /**
@@ -72,6 +72,9 @@ public class SpacetyProductReader extends SARReader {
     @Override
     public void close() throws IOException {
         super.close();
+        if (cache != null) {
+            cache.clear();
+        }
         if (dataDir != null) {
             dataDir.close();
             dataDir = null;
@@ -158,34 +161,19 @@ public class SpacetyProductReader extends SARReader {
                                    final ProductData destBuffer,
                                    final int destOffsetX, final int destOffsetY,
                                    int destWidth, int destHeight,
-                                   final ImageIOFile.BandInfo bandInfo) {
+                                   final ImageIOFile.BandInfo bandInfo) throws IOException {
 
         final int length;
         final int[] srcArray;
         final Rectangle destRect = new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight);
 
         if (useCache) {
-            final DataCache.DataKey datakey = new DataCache.DataKey(bandInfo.img, destRect);
-            DataCache.Data cachedData = cache.get(datakey);
-            if (cachedData != null && cachedData.valid) {
-                srcArray = cachedData.intArray;
-                length = srcArray.length;
-            } else {
-                cachedData = readRect(datakey, bandInfo,
-                        sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY,
-                        destRect);
-
-                srcArray = cachedData.intArray;
-                length = srcArray.length;
-            }
+            srcArray = cache.get(bandInfo.img, destRect, sourceStepX, sourceStepY,
+                    () -> readRect(bandInfo, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect));
         } else {
-
-            DataCache.Data cachedData = readRect(null, bandInfo,
-                    sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
-
-            srcArray = cachedData.intArray;
-            length = srcArray.length;
+            srcArray = readRect(bandInfo, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
         }
+        length = srcArray.length;
 
         if (destBuffer.getElemSize() > 2) {
             final short[] destArray = (short[]) destBuffer.getElems();
@@ -234,19 +222,23 @@ public class SpacetyProductReader extends SARReader {
         }
     }
 
-    private synchronized DataCache.Data readRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
-                                                 int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
-                                                 final Rectangle destRect) {
+    private static int[] readRect(final ImageIOFile.BandInfo bandInfo,
+                                  int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                  final Rectangle destRect) {
         try {
-            final ImageReader imageReader = bandInfo.img.getReader();
-            final ImageReadParam readParam = imageReader.getDefaultReadParam();
-            if (sourceStepX == 1 && sourceStepY == 1) {
-                readParam.setSourceRegion(destRect);
-            }
-            readParam.setSourceSubsampling(sourceStepX, sourceStepY, sourceOffsetX % sourceStepX, sourceOffsetY % sourceStepY);
-            final RenderedImage subsampledImage = imageReader.readAsRenderedImage(0, readParam);
+            final Raster data;
+            // ImageIO readers are not thread safe, only reads from the same image file are serialised
+            synchronized (bandInfo.img) {
+                final ImageReader imageReader = bandInfo.img.getReader();
+                final ImageReadParam readParam = imageReader.getDefaultReadParam();
+                if (sourceStepX == 1 && sourceStepY == 1) {
+                    readParam.setSourceRegion(destRect);
+                }
+                readParam.setSourceSubsampling(sourceStepX, sourceStepY, sourceOffsetX % sourceStepX, sourceOffsetY % sourceStepY);
+                final RenderedImage subsampledImage = imageReader.readAsRenderedImage(0, readParam);
 
-            final Raster data = subsampledImage.getData(destRect);
+                data = subsampledImage.getData(destRect);
+            }
 
             final SampleModel sampleModel = data.getSampleModel();
             final int destWidth = Math.min((int) destRect.getWidth(), sampleModel.getWidth());
@@ -255,19 +247,9 @@ public class SpacetyProductReader extends SARReader {
             final int length = destWidth * destHeight;
             final int[] srcArray = new int[length];
             sampleModel.getSamples(0, 0, destWidth, destHeight, bandInfo.bandSampleOffset, srcArray, data.getDataBuffer());
-
-            DataCache.Data cachedData = new DataCache.Data(srcArray);
-            if (datakey != null) {
-                cache.put(datakey, cachedData);
-            }
-            return cachedData;
+            return srcArray;
         } catch (Exception e) {
-            final int[] srcArray = new int[(int) destRect.getWidth() * (int) destRect.getHeight()];
-            DataCache.Data cachedData = new DataCache.Data(srcArray);
-            if (datakey != null) {
-                cache.put(datakey, cachedData);
-            }
-            return cachedData;
+            return new int[(int) destRect.getWidth() * (int) destRect.getHeight()];
         }
     }
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.io;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MappedTiffFileTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+    private static final int ROWS_PER_STRIP = 4;
+
+    @Test
+    public void testComplexInt16() throws IOException {
+        final File file = writeTiff(ByteOrder.LITTLE_ENDIAN, 5, 32, 1);
+        try {
+            final MappedTiffFile tiff = MappedTiffFile.open(file);
+            assertEquals(WIDTH, tiff.getWidth());
+            assertEquals(HEIGHT, tiff.getHeight());
+            assertEquals(2, tiff.getNumComponents());
+
+            final ProductData i = ProductData.createInstance(ProductData.TYPE_INT16, WIDTH * HEIGHT);
+            final ProductData q = ProductData.createInstance(ProductData.TYPE_INT16, WIDTH * HEIGHT);
+            tiff.readComponent(0, 0, 1, 1, 0, i, 0, 0, WIDTH, HEIGHT);
+            tiff.readComponent(0, 0, 1, 1, 1, q, 0, 0, WIDTH, HEIGHT);
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    assertEquals(real(x, y), i.getElemIntAt(y * WIDTH + x));
+                    assertEquals(imag(x, y), q.getElemIntAt(y * WIDTH + x));
+                }
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testSubsampledRegion() throws IOException {
+        final File file = writeTiff(ByteOrder.BIG_ENDIAN, 5, 32, 1);
+        try {
+            final MappedTiffFile tiff = MappedTiffFile.open(file);
+
+            final int offsetX = 3, offsetY = 2, stepX = 2, stepY = 3;
+            final int w = 10, h = 7;
+            final ProductData q = ProductData.createInstance(ProductData.TYPE_INT32, w * h);
+            tiff.readComponent(offsetX, offsetY, stepX, stepY, 1, q, offsetX / stepX, offsetY / stepY, w, h);
+            for (int y = 0; y < h; ++y) {
+                for (int x = 0; x < w; ++x) {
+                    assertEquals(imag(offsetX + x * stepX, offsetY + y * stepY), q.getElemIntAt(y * w + x));
+                }
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testDestinationOffset() throws IOException {
+        final File file = writeTiff(ByteOrder.LITTLE_ENDIAN, 5, 32, 1);
+        try {
+            final MappedTiffFile tiff = MappedTiffFile.open(file);
+
+            // the region is placed in the sub-sampled image as ImageIOFile.readImageIORasterBand() does
+            final int stepX = 3, stepY = 2;
+            final int destOffsetX = 4, destOffsetY = 5;
+            final int w = 6, h = 4;
+            final ProductData i = ProductData.createInstance(ProductData.TYPE_INT16, w * h);
+            tiff.readComponent(1, 0, stepX, stepY, 0, i, destOffsetX, destOffsetY, w, h);
+            for (int y = 0; y < h; ++y) {
+                for (int x = 0; x < w; ++x) {
+                    assertEquals(real(1 + (destOffsetX + x) * stepX, (destOffsetY + y) * stepY),
+                            i.getElemIntAt(y * w + x));
+                }
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testSmallSegments() throws IOException {
+        final File file = writeTiff(ByteOrder.LITTLE_ENDIAN, 5, 32, 1);
+        try {
+            // segments much smaller than a strip, as for strips larger than the 2GB limit of a single mapping
+            final MappedTiffFile tiff = MappedTiffFile.open(file, 100);
+
+            final ProductData q = ProductData.createInstance(ProductData.TYPE_INT32, WIDTH * HEIGHT);
+            tiff.readComponent(0, 0, 1, 1, 1, q, 0, 0, WIDTH, HEIGHT);
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    assertEquals(imag(x, y), q.getElemIntAt(y * WIDTH + x));
+                }
+            }
+
+            tiff.close();
+            try {
+                tiff.readComponent(0, 0, 1, 1, 1, q, 0, 0, WIDTH, HEIGHT);
+                fail("IOException expected");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            // the mappings are released so the file can be deleted on any platform
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testUnsignedInt16() throws IOException {
+        final File file = writeTiff(ByteOrder.LITTLE_ENDIAN, 1, 16, 1);
+        try {
+            final MappedTiffFile tiff = MappedTiffFile.open(file);
+            assertEquals(1, tiff.getNumComponents());
+
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_UINT16, WIDTH * HEIGHT);
+            tiff.readComponent(0, 0, 1, 1, 0, data, 0, 0, WIDTH, HEIGHT);
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    assertEquals(real(x, y) & 0xFFFF, data.getElemIntAt(y * WIDTH + x));
+                }
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testCompressedIsRejected() throws IOException {
+        final File file = writeTiff(ByteOrder.LITTLE_ENDIAN, 1, 16, 5);
+        try {
+            MappedTiffFile.open(file);
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    private static short real(final int x, final int y) {
+        return (short) (y * 1000 + x - 12000);
+    }
+
+    private static short imag(final int x, final int y) {
+        return (short) (-y * 700 + 3 * x);
+    }
+
+    /**
+     * Write a stripped, uncompressed TIFF holding real(x,y) or real(x,y) + j imag(x,y) per pixel.
+     */
+    private static File writeTiff(final ByteOrder order, final int sampleFormat, final int bitsPerSample,
+                                  final int compression) throws IOException {
+        final int pixelBytes = bitsPerSample / 8;
+        final int numStrips = (HEIGHT + ROWS_PER_STRIP - 1) / ROWS_PER_STRIP;
+        final int numEntries = 10;
+        final int ifdOffset = 8;
+        final int ifdSize = 2 + numEntries * 12 + 4;
+        final int offsetsPos = ifdOffset + ifdSize;
+        final int countsPos = offsetsPos + 4 * numStrips;
+        final int dataPos = countsPos + 4 * numStrips;
+
+        final ByteBuffer buf = ByteBuffer.allocate(dataPos + WIDTH * HEIGHT * pixelBytes).order(order);
+        buf.putShort((short) (order == ByteOrder.LITTLE_ENDIAN ? 0x4949 : 0x4D4D));
+        buf.putShort((short) 42);
+        buf.putInt(ifdOffset);
+
+        buf.putShort((short) numEntries);
+        putEntry(buf, 256, 3, 1, WIDTH);
+        putEntry(buf, 257, 3, 1, HEIGHT);
+        putEntry(buf, 258, 3, 1, bitsPerSample);
+        putEntry(buf, 259, 3, 1, compression);
+        putEntry(buf, 273, 4, numStrips, offsetsPos);
+        putEntry(buf, 277, 3, 1, 1);
+        putEntry(buf, 278, 3, 1, ROWS_PER_STRIP);
+        putEntry(buf, 279, 4, numStrips, countsPos);
+        putEntry(buf, 284, 3, 1, 1);
+        putEntry(buf, 339, 3, 1, sampleFormat);
+        buf.putInt(0);
+
+        for (int s = 0; s < numStrips; ++s) {
+            buf.putInt(dataPos + s * ROWS_PER_STRIP * WIDTH * pixelBytes);
+        }
+        for (int s = 0; s < numStrips; ++s) {
+            final int rows = Math.min(ROWS_PER_STRIP, HEIGHT - s * ROWS_PER_STRIP);
+            buf.putInt(rows * WIDTH * pixelBytes);
+        }
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                buf.putShort(real(x, y));
+                if (pixelBytes == 4) {
+                    buf.putShort(imag(x, y));
+                }
+            }
+        }
+
+        final File file = File.createTempFile("mapped", ".tiff");
+        Files.write(file.toPath(), buf.array());
+        return file;
+    }
+
+    private static void putEntry(final ByteBuffer buf, final int tag, final int type, final int count, final int value) {
+        buf.putShort((short) tag);
+        buf.putShort((short) type);
+        buf.putInt(count);
+        if (type == 3 && count == 1) {
+            buf.putShort((short) value);
+            buf.putShort((short) 0);
+        } else {
+            buf.putInt(value);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.io;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RasterTileCacheTest {
+
+    private final Object img = new Object();
+
+    @Test
+    public void testHitAndMiss() throws IOException {
+        final RasterTileCache cache = new RasterTileCache(1024 * 1024);
+        final Rectangle rect = new Rectangle(0, 0, 10, 10);
+
+        final int[] first = cache.get(img, rect, 1, 1, () -> new int[100]);
+        final int[] second = cache.get(img, new Rectangle(rect), 1, 1, () -> {
+            fail("rectangle should be cached");
+            return null;
+        });
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(400, cache.getWeight());
+
+        // a different sub-sampling is a different rectangle
+        cache.get(img, rect, 2, 2, () -> new int[25]);
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        final RasterTileCache cache = new RasterTileCache(1000);
+        for (int i = 0; i < 10; ++i) {
+            cache.get(img, new Rectangle(i * 10, 0, 10, 10), 1, 1, () -> new int[100]);
+            assertTrue(cache.getWeight() <= cache.getMaxWeight());
+        }
+        assertEquals(8, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testInvalidate() throws IOException {
+        final RasterTileCache cache = new RasterTileCache(1024 * 1024);
+        final Object otherImg = new Object();
+        cache.get(img, new Rectangle(0, 0, 10, 10), 1, 1, () -> new int[100]);
+        cache.get(otherImg, new Rectangle(0, 0, 10, 10), 1, 1, () -> new int[100]);
+
+        cache.invalidate(img);
+        assertEquals(1, cache.size());
+        assertEquals(400, cache.getWeight());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws IOException {
+        final RasterTileCache cache = new RasterTileCache(1024 * 1024);
+        final Rectangle rect = new Rectangle(0, 0, 10, 10);
+        try {
+            cache.get(img, rect, 1, 1, () -> {
+                throw new IOException("read error");
+            });
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("read error", e.getMessage());
+        }
+        assertEquals(0, cache.size());
+        assertEquals(100, cache.get(img, rect, 1, 1, () -> new int[100]).length);
+    }
+
+    @Test
+    public void testConcurrentRequestsLoadOnce() throws Exception {
+        final RasterTileCache cache = new RasterTileCache(1024 * 1024);
+        final Rectangle rect = new Rectangle(0, 0, 10, 10);
+        final AtomicInteger loads = new AtomicInteger();
+        final int numThreads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<int[]>> results = new ArrayList<>();
+            for (int i = 0; i < numThreads; ++i) {
+                final Callable<int[]> task = () -> {
+                    start.await();
+                    return cache.get(img, rect, 1, 1, () -> {
+                        loads.incrementAndGet();
+                        LockSupport.parkNanos(50_000_000L);
+                        return new int[100];
+                    });
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+
+            final int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertSame(first, result.get());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.io.ceos;
+
+import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.io.FileImageInputStreamExtImpl;
+import eu.esa.sar.io.binary.BinaryFileReader;
+import eu.esa.sar.io.binary.BinaryRecord;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CEOSImageFileTest {
+
+    private static final int WIDTH = 31;
+    private static final int HEIGHT = 17;
+    private static final int START_POS = 720;
+    private static final int HEADER_LENGTH = 12;
+    private static final int RECORD_LENGTH = HEADER_LENGTH + 4 * WIDTH;
+
+    @Test
+    public void testFileAndStreamReadsMatch() throws IOException {
+        final byte[] bytes = createImage();
+        final File file = File.createTempFile("ceos", ".dat");
+        try {
+            Files.write(file.toPath(), bytes);
+
+            // positional reads on the file channel
+            final TestImageFile fileImage = new TestImageFile(new FileImageInputStreamExtImpl(file));
+            assertNotNull(fileImage.binaryReader.getFile());
+            // seek and read under the shared reader lock
+            final TestImageFile streamImage = new TestImageFile(
+                    new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+            assertNull(streamImage.binaryReader.getFile());
+
+            try {
+                for (TestImageFile image : new TestImageFile[]{fileImage, streamImage}) {
+                    checkShort(image, 0, 0, WIDTH, HEIGHT, 1);
+                    checkShort(image, 3, 2, 11, 9, 2);
+                    checkFloat(image, 5, 4, 8, 6);
+                    checkByte(image, 7, 1, 13, 5);
+                }
+            } finally {
+                fileImage.close();
+                streamImage.close();
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    private static void checkShort(final TestImageFile image, final int x0, final int y0, final int w, final int h,
+                                   final int stepX) {
+        final int destWidth = (w - 1) / stepX + 1;
+        final ProductData data = ProductData.createInstance(ProductData.TYPE_INT16, destWidth * h);
+        image.readBandRasterDataShort(x0, y0, w, h, stepX, 1, destWidth, data, ProgressMonitor.NULL);
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < destWidth; ++x) {
+                assertEquals(shortValue(x0 + x * stepX, y0 + y), data.getElemIntAt(y * destWidth + x));
+            }
+        }
+    }
+
+    private static void checkFloat(final TestImageFile image, final int x0, final int y0, final int w, final int h)
+            throws IOException {
+        // the float samples of a line start at the beginning of the image record data
+        final ProductData data = ProductData.createInstance(ProductData.TYPE_FLOAT32, w * h);
+        image.readBandRasterDataFloat(x0, y0, w, h, 1, 1, w, data, ProgressMonitor.NULL);
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                final int shortX = 2 * (x0 + x);
+                final int bits = (shortValue(shortX, y0 + y) << 16) | (shortValue(shortX + 1, y0 + y) & 0xFFFF);
+                assertEquals(Float.intBitsToFloat(bits), data.getElemFloatAt(y * w + x), 0.0f);
+            }
+        }
+    }
+
+    private static void checkByte(final TestImageFile image, final int x0, final int y0, final int w, final int h)
+            throws IOException {
+        final ProductData data = ProductData.createInstance(ProductData.TYPE_INT8, w * h);
+        image.readBandRasterDataByte(x0, y0, w, h, 1, 1, w, data, ProgressMonitor.NULL);
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                final int shortX = (x0 + x) / 2;
+                final short value = shortValue(shortX, y0 + y);
+                final byte expected = (byte) ((x0 + x) % 2 == 0 ? value >> 8 : value);
+                assertEquals(expected, data.getElemIntAt(y * w + x));
+            }
+        }
+    }
+
+    private static short shortValue(final int x, final int y) {
+        return (short) (y * 1009 - x * 37 + 5);
+    }
+
+    /**
+     * A file descriptor area followed by HEIGHT image records of big endian shorts.
+     */
+    private static byte[] createImage() {
+        final ByteBuffer buf = ByteBuffer.allocate(START_POS + HEIGHT * RECORD_LENGTH);
+        for (int y = 0; y < HEIGHT; ++y) {
+            buf.position(START_POS + y * RECORD_LENGTH);
+            buf.put(new byte[HEADER_LENGTH]);
+            for (int x = 0; x < 2 * WIDTH; ++x) {
+                buf.putShort(shortValue(x, y));
+            }
+        }
+        return buf.array();
+    }
+
+    private static class TestImageFile extends CEOSImageFile {
+
+        TestImageFile(final ImageInputStream stream) {
+            binaryReader = new BinaryFileReader(stream);
+            imageRecords = new BinaryRecord[HEIGHT];
+            _imageRecordLength = RECORD_LENGTH;
+            startPosImageRecords = START_POS;
+            imageHeaderLength = HEADER_LENGTH;
+        }
+
+        @Override
+        protected BinaryRecord createNewImageRecord(final int line) {
+            return null;
+        }
+    }
+}
@@ -88,6 +88,10 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
     private Band coPolBand = null;
     private boolean thermalNoiseCorrectionPerformed = false;
 
+    static final byte MASK_VALID = 0;
+    static final byte MASK_BORDER = 1;
+    static final byte MASK_NO_DATA = 2;
+
     private boolean useBorderDetection = true;
     private boolean borderDetected = false;
     private int topBorder = 0;
@@ -414,10 +418,6 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
             throws OperatorException {
 
         try {
-            if (useBorderDetection && !borderDetected) {
-                detectBorders();
-            }
-
             final int x0 = targetRectangle.x;
             final int y0 = targetRectangle.y;
             final int w = targetRectangle.width;
@@ -449,40 +449,27 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
             final TileIndex srcIndex = new TileIndex(sourceTile[0]);
             final TileIndex tgtIndex = new TileIndex(targetTile[0]);
 
-            final Tile coPolTile = getSourceTile(coPolBand, targetRectangle);
-            final ProductData coPolData = coPolTile.getDataBuffer();
+            final byte[] mask = new byte[w * h];
+            computeBorderMask(targetRectangle, mask);
 
-            double coPolDataValue, deNoisedDataValue;
             for (int y = y0; y < yMax; y++) {
                 srcIndex.calculateStride(y);
                 tgtIndex.calculateStride(y);
+                final int maskOffset = (y - y0) * w - x0;
 
                 for (int x = x0; x < xMax; x++) {
-                    final int srcIdx = srcIndex.getIndex(x);
-
-                    boolean testPixel = x < leftBorder || x > rightBorder || y < topBorder || y > bottomBorder;
-
-                    if (testPixel) {
-                        coPolDataValue = coPolData.getElemDoubleAt(srcIdx);
-                        if (noDataValue.equals(coPolDataValue)) {
-                            continue;
-                        }
-
-                        deNoisedDataValue =
-                                Math.sqrt(Math.max(coPolDataValue * coPolDataValue - noiseLUT[x], 0.0));
-
-                        if (deNoisedDataValue < trimThreshold || coPolDataValue < 30) {
-                            final int tgtIdx = tgtIndex.getIndex(x);
-                            for (int i = 0; i < numBands; i++) {
-                                targetData[i].setElemDoubleAt(tgtIdx, bandNoDataValues[i]);
-                            }
-                        } else {
-                            testPixel = false;
-                        }
+                    final byte flag = mask[maskOffset + x];
+                    if (flag == MASK_NO_DATA) {
+                        continue;
                     }
 
-                    if (!testPixel) {
-                        final int tgtIdx = tgtIndex.getIndex(x);
+                    final int tgtIdx = tgtIndex.getIndex(x);
+                    if (flag == MASK_BORDER) {
+                        for (int i = 0; i < numBands; i++) {
+                            targetData[i].setElemDoubleAt(tgtIdx, bandNoDataValues[i]);
+                        }
+                    } else {
+                        final int srcIdx = srcIndex.getIndex(x);
                         for (int i = 0; i < numBands; i++) {
                             targetData[i].setElemDoubleAt(tgtIdx, sourceData[i].getElemDoubleAt(srcIdx));
                         }
@@ -495,6 +482,53 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
         }
     }
 
+    /**
+     * Classify the pixels of a rectangle from the co-polarisation band. The result applies to all bands.
+     *
+     * @param rectangle The rectangle.
+     * @param mask      Receives, row by row, MASK_BORDER for border noise, MASK_NO_DATA for no-data pixels in the
+     *                  border region, which are left untouched, and MASK_VALID for pixels to be kept.
+     */
+    void computeBorderMask(final Rectangle rectangle, final byte[] mask) throws OperatorException {
+
+        if (useBorderDetection && !borderDetected) {
+            detectBorders();
+        }
+
+        final int x0 = rectangle.x;
+        final int y0 = rectangle.y;
+        final int xMax = x0 + rectangle.width;
+        final int yMax = y0 + rectangle.height;
+
+        final Tile coPolTile = getSourceTile(coPolBand, rectangle);
+        final ProductData coPolData = coPolTile.getDataBuffer();
+        final TileIndex srcIndex = new TileIndex(coPolTile);
+
+        double coPolDataValue, deNoisedDataValue;
+        int k = 0;
+        for (int y = y0; y < yMax; y++) {
+            srcIndex.calculateStride(y);
+
+            for (int x = x0; x < xMax; x++, k++) {
+                mask[k] = MASK_VALID;
+                if (x < leftBorder || x > rightBorder || y < topBorder || y > bottomBorder) {
+                    coPolDataValue = coPolData.getElemDoubleAt(srcIndex.getIndex(x));
+                    if (noDataValue.equals(coPolDataValue)) {
+                        mask[k] = MASK_NO_DATA;
+                        continue;
+                    }
+
+                    deNoisedDataValue =
+                            Math.sqrt(Math.max(coPolDataValue * coPolDataValue - noiseLUT[x], 0.0));
+
+                    if (deNoisedDataValue < trimThreshold || coPolDataValue < 30) {
+                        mask[k] = MASK_BORDER;
+                    }
+                }
+            }
+        }
+    }
+
     private synchronized void detectBorders() throws OperatorException {
 
         if (borderDetected) return;
@@ -0,0 +1,491 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.calibration.gpf;
+
+import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.calibration.gpf.calibrators.Sentinel1Calibrator;
+import eu.esa.sar.commons.Sentinel1Utils;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.VirtualBand;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.Parameter;
+import org.esa.snap.core.gpf.annotations.SourceProduct;
+import org.esa.snap.core.gpf.annotations.TargetProduct;
+import org.esa.snap.core.util.ProductUtils;
+import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.gpf.InputProductValidator;
+import org.esa.snap.engine_utilities.gpf.OperatorUtils;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GRD border noise removal, thermal noise removal and calibration of Sentinel-1 Level-1 GRD products in one pass.
+ * <p>
+ * The result is the one of the Remove-GRD-Border-Noise, ThermalNoiseRemoval and Calibration operators chained in
+ * a graph, but no intermediate band is written: for each tile the border mask is computed once for all
+ * polarisations, and the noise LUT row and calibration vector interpolation weights of a polarisation are computed
+ * once for all its sigma0, gamma0 and beta0 bands. Border detection and noise LUTs are delegated to the operators
+ * of the chain, which are run internally on the source product.
+ */
+@OperatorMetadata(alias = "S1-Radiometric-Preprocessing",
+        category = "Radar/Radiometric",
+        authors = "Jun Lu, Luis Veci",
+        copyright = "Copyright (C) 2024 by SkyWatch Space Applications Inc.",
+        version = "1.0",
+        description = "Border noise removal, thermal noise removal and calibration of S-1 GRD products")
+public final class Sentinel1RadiometricPreprocessingOp extends Operator {
+
+    @SourceProduct
+    private Product sourceProduct;
+
+    @TargetProduct
+    private Product targetProduct;
+
+    @Parameter(description = "The list of polarisations", label = "Polarisations")
+    private String[] selectedPolarisations;
+
+    @Parameter(description = "The border margin limit", defaultValue = "500", label = "Border margin limit[pixels]")
+    private int borderLimit = 500;
+
+    @Parameter(description = "The trim threshold", defaultValue = "0.5", label = "Threshold")
+    private double trimThreshold = 0.5;
+
+    @Parameter(description = "Output sigma0 band", defaultValue = "true", label = "Output sigma0 band")
+    private Boolean outputSigmaBand = true;
+
+    @Parameter(description = "Output gamma0 band", defaultValue = "false", label = "Output gamma0 band")
+    private Boolean outputGammaBand = false;
+
+    @Parameter(description = "Output beta0 band", defaultValue = "false", label = "Output beta0 band")
+    private Boolean outputBetaBand = false;
+
+    private RemoveGRDBorderNoiseOp borderNoiseOp = null;
+    private Sentinel1RemoveThermalNoiseOp thermalNoiseOp = null;
+    private List<String> selectedPolList = null;
+    private final List<PolarisationInfo> polInfoList = new ArrayList<>(4);
+    private int subsetOffsetX = 0;
+    private int subsetOffsetY = 0;
+
+    private static final String PRODUCT_SUFFIX = "_NR_Cal";
+
+    /**
+     * Default constructor. The graph processing framework
+     * requires that an operator has a default constructor.
+     */
+    public Sentinel1RadiometricPreprocessingOp() {
+    }
+
+    /**
+     * Initializes this operator and sets the one and only target product.
+     * <p>The target product can be either defined by a field of type {@link Product} annotated with the
+     * {@link TargetProduct TargetProduct} annotation or
+     * by calling {@link #setTargetProduct} method.</p>
+     * <p>The framework calls this method after it has created this operator.
+     * Any client code that must be performed before computation of tile data
+     * should be placed here.</p>
+     *
+     * @throws OperatorException If an error occurs during operator initialisation.
+     * @see #getTargetProduct()
+     */
+    @Override
+    public void initialize() throws OperatorException {
+
+        try {
+            final InputProductValidator validator = new InputProductValidator(sourceProduct);
+            validator.checkIfSentinel1Product();
+            validator.checkIfGRD();
+            validator.checkIfCalibrated(false);
+
+            final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(sourceProduct);
+            subsetOffsetX = absRoot.getAttributeInt(AbstractMetadata.subset_offset_x);
+            subsetOffsetY = absRoot.getAttributeInt(AbstractMetadata.subset_offset_y);
+
+            String[] selectedPols = selectedPolarisations;
+            if (selectedPols == null || selectedPols.length == 0) {
+                selectedPols = Sentinel1Utils.getProductPolarizations(absRoot);
+            }
+            selectedPolList = new ArrayList<>(4);
+            for (String pol : selectedPols) {
+                selectedPolList.add(pol.toUpperCase());
+            }
+
+            if (!outputSigmaBand && !outputGammaBand && !outputBetaBand) {
+                outputSigmaBand = true;
+            }
+
+            createChainedOperators();
+
+            createTargetProduct();
+
+            getCalibrationVectors();
+
+            updateTargetProductMetadata();
+
+        } catch (Throwable e) {
+            OperatorUtils.catchOperatorException(getId(), e);
+        }
+    }
+
+    /**
+     * Create the border noise and thermal noise operators on the source product. They provide the border mask and
+     * the noise LUTs, their target products are never computed.
+     */
+    private void createChainedOperators() {
+
+        final OperatorSpi borderNoiseSpi = new RemoveGRDBorderNoiseOp.Spi();
+        borderNoiseOp = (RemoveGRDBorderNoiseOp) borderNoiseSpi.createOperator();
+        borderNoiseOp.setSourceProduct(sourceProduct);
+        borderNoiseOp.setParameter("selectedPolarisations", selectedPolarisations);
+        borderNoiseOp.setParameter("borderLimit", borderLimit);
+        borderNoiseOp.setParameter("trimThreshold", trimThreshold);
+        borderNoiseOp.getTargetProduct();
+
+        final OperatorSpi thermalNoiseSpi = new Sentinel1RemoveThermalNoiseOp.Spi();
+        thermalNoiseOp = (Sentinel1RemoveThermalNoiseOp) thermalNoiseSpi.createOperator();
+        thermalNoiseOp.setSourceProduct(sourceProduct);
+        thermalNoiseOp.setParameter("selectedPolarisations", selectedPolarisations);
+        thermalNoiseOp.getTargetProduct();
+    }
+
+    /**
+     * Create a target product for output.
+     */
+    private void createTargetProduct() {
+
+        targetProduct = new Product(sourceProduct.getName() + PRODUCT_SUFFIX,
+                sourceProduct.getProductType(),
+                sourceProduct.getSceneRasterWidth(),
+                sourceProduct.getSceneRasterHeight());
+
+        for (Band srcBand : sourceProduct.getBands()) {
+            if (srcBand instanceof VirtualBand) {
+                continue;
+            }
+
+            final String unit = srcBand.getUnit();
+            if (unit == null) {
+                throw new OperatorException("band " + srcBand.getName() + " requires a unit");
+            }
+
+            if (!unit.contains(Unit.AMPLITUDE) && !unit.contains(Unit.INTENSITY)) {
+                continue;
+            }
+
+            final String srcBandName = srcBand.getName();
+            final String pol = srcBandName.substring(srcBandName.lastIndexOf("_") + 1);
+            if (!selectedPolList.contains(pol)) {
+                continue;
+            }
+
+            final PolarisationInfo polInfo = new PolarisationInfo(pol, srcBand,
+                    thermalNoiseOp.createTargetBandName(srcBandName));
+
+            final String bandPol = srcBandName.substring(srcBandName.indexOf("_"));
+            if (outputSigmaBand) {
+                polInfo.targetBands.add(addTargetBand("Sigma0" + bandPol, srcBand));
+                polInfo.calTypes.add(Sentinel1Calibrator.CALTYPE.SIGMA0);
+            }
+            if (outputGammaBand) {
+                polInfo.targetBands.add(addTargetBand("Gamma0" + bandPol, srcBand));
+                polInfo.calTypes.add(Sentinel1Calibrator.CALTYPE.GAMMA);
+            }
+            if (outputBetaBand) {
+                polInfo.targetBands.add(addTargetBand("Beta0" + bandPol, srcBand));
+                polInfo.calTypes.add(Sentinel1Calibrator.CALTYPE.BETA0);
+            }
+            polInfoList.add(polInfo);
+        }
+
+        if (polInfoList.isEmpty()) {
+            throw new OperatorException("No amplitude or intensity band found for the selected polarisations");
+        }
+
+        ProductUtils.copyProductNodes(sourceProduct, targetProduct);
+    }
+
+    private Band addTargetBand(final String targetBandName, final Band srcBand) {
+
+        final Band targetBand = new Band(targetBandName,
+                ProductData.TYPE_FLOAT32,
+                srcBand.getRasterWidth(),
+                srcBand.getRasterHeight());
+
+        targetBand.setUnit(Unit.INTENSITY);
+        targetBand.setDescription(srcBand.getDescription());
+        targetBand.setNoDataValue(srcBand.getNoDataValue());
+        targetBand.setNoDataValueUsed(true);
+        targetProduct.addBand(targetBand);
+        return targetBand;
+    }
+
+    /**
+     * Get the calibration vectors of the selected polarisations from the original product metadata.
+     */
+    private void getCalibrationVectors() throws Exception {
+
+        final Sentinel1Calibrator.CalibrationInfo[] calibration = Sentinel1Calibrator.getCalibrationVectors(
+                sourceProduct, selectedPolList, outputSigmaBand, outputBetaBand, outputGammaBand, false);
+
+        for (PolarisationInfo polInfo : polInfoList) {
+            for (Sentinel1Calibrator.CalibrationInfo cal : calibration) {
+                if (polInfo.pol.contains(cal.polarization)) {
+                    polInfo.calInfo = cal;
+                    break;
+                }
+            }
+            if (polInfo.calInfo == null) {
+                throw new OperatorException("Calibration information not found for " + polInfo.pol);
+            }
+        }
+    }
+
+    /**
+     * Update the target product metadata as the chained operators do.
+     */
+    private void updateTargetProductMetadata() {
+
+        final MetadataElement absTgt = AbstractMetadata.getAbstractedMetadata(targetProduct);
+        absTgt.getAttribute(AbstractMetadata.abs_calibration_flag).getData().setElemBoolean(true);
+        absTgt.setAttributeString(AbstractMetadata.SAMPLE_TYPE, "DETECTED");
+
+        Sentinel1Utils.updateBandNames(absTgt, selectedPolList, targetProduct.getBandNames());
+
+        final MetadataElement[] bandMetadataList = AbstractMetadata.getBandAbsMetadataList(absTgt);
+        for (MetadataElement bandMeta : bandMetadataList) {
+            boolean polFound = false;
+            for (String pol : selectedPolList) {
+                if (bandMeta.getName().contains(pol)) {
+                    polFound = true;
+                    break;
+                }
+            }
+            if (!polFound) {
+                // remove band metadata if polarization is not included
+                absTgt.removeElement(bandMeta);
+            }
+        }
+
+        final MetadataElement origMetadataRoot = AbstractMetadata.getOriginalProductMetadata(targetProduct);
+        final MetadataElement annotationElem = origMetadataRoot.getElement("annotation");
+        for (MetadataElement elem : annotationElem.getElements()) {
+            final MetadataElement productElem = elem.getElement("product");
+            final MetadataElement imageAnnotationElem = productElem.getElement("imageAnnotation");
+            final MetadataElement processingInformationElem = imageAnnotationElem.getElement("processingInformation");
+            processingInformationElem.getAttribute("thermalNoiseCorrectionPerformed").getData().setElems("true");
+        }
+    }
+
+    /**
+     * Called by the framework in order to compute a tile for the given target band.
+     * <p>The default implementation throws a runtime exception with the message "not implemented".</p>
+     *
+     * @param targetTileMap   The target tiles associated with all target bands to be computed.
+     * @param targetRectangle The rectangle of target tile.
+     * @param pm              A progress monitor which should be used to determine computation cancelation requests.
+     * @throws OperatorException If an error occurs during computation of the target raster.
+     */
+    @Override
+    public void computeTileStack(Map<Band, Tile> targetTileMap, Rectangle targetRectangle, ProgressMonitor pm)
+            throws OperatorException {
+
+        final int x0 = targetRectangle.x;
+        final int y0 = targetRectangle.y;
+        final int w = targetRectangle.width;
+        final int h = targetRectangle.height;
+        final int xMax = x0 + w;
+        final int yMax = y0 + h;
+
+        try {
+            // shared by all polarisations
+            final byte[] mask = new byte[w * h];
+            borderNoiseOp.computeBorderMask(targetRectangle, mask);
+
+            // shared by all bands of a polarisation
+            final float[] denoised = new float[w];
+            final int[] pixelIdx = new int[w];
+            final double[] muX = new double[w];
+
+            final float trgFloorValue = Sentinel1RemoveThermalNoiseOp.trgFloorValue;
+
+            for (PolarisationInfo polInfo : polInfoList) {
+
+                final int numBands = polInfo.targetBands.size();
+                final Tile[] targetTiles = new Tile[numBands];
+                final ProductData[] targetData = new ProductData[numBands];
+                boolean requested = false;
+                for (int b = 0; b < numBands; ++b) {
+                    targetTiles[b] = targetTileMap.get(polInfo.targetBands.get(b));
+                    if (targetTiles[b] != null) {
+                        targetData[b] = targetTiles[b].getDataBuffer();
+                        requested = true;
+                    }
+                }
+                if (!requested) {
+                    continue;
+                }
+
+                final Tile srcTile = getSourceTile(polInfo.srcBand, targetRectangle);
+                final ProductData srcData = srcTile.getDataBuffer();
+                final TileIndex srcIndex = new TileIndex(srcTile);
+                final double srcNoDataValue = polInfo.srcBand.getNoDataValue();
+                final boolean isAmplitude = Unit.getUnitType(polInfo.srcBand) == Unit.UnitType.AMPLITUDE;
+
+                final double[][] noiseLUT = thermalNoiseOp.computeNoiseLUT(polInfo.noiseBandName, targetRectangle);
+
+                final Sentinel1Calibrator.CalibrationInfo calInfo = polInfo.calInfo;
+                int lastPixelIdx = -1;
+
+                for (int y = y0; y < yMax; ++y) {
+                    srcIndex.calculateStride(y);
+                    final int yy = y - y0;
+                    final double[] lut = noiseLUT[yy];
+
+                    // border masking and noise removal, as stored in the float bands of the chained operators
+                    for (int x = x0, k = yy * w; x < xMax; ++x, ++k) {
+                        final byte flag = mask[k];
+                        final double v;
+                        if (flag == RemoveGRDBorderNoiseOp.MASK_VALID) {
+                            v = srcData.getElemDoubleAt(srcIndex.getIndex(x));
+                        } else if (flag == RemoveGRDBorderNoiseOp.MASK_BORDER) {
+                            v = srcNoDataValue;
+                        } else {
+                            v = 0.0;
+                        }
+
+                        final double dn2 = isAmplitude ? v * v : v;
+                        double value;
+                        if (dn2 == srcNoDataValue) {
+                            value = srcNoDataValue;
+                        } else {
+                            value = dn2 - lut[x - x0];
+                            if (value < 0) {
+                                value = trgFloorValue;
+                            }
+                        }
+                        denoised[x - x0] = (float) value;
+                    }
+
+                    // calibration vector interpolation weights
+                    final int calVecIdx = calInfo.getCalibrationVectorIndex(subsetOffsetY + y);
+                    final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
+                    final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
+                    final double azTime = calInfo.firstLineTime + (subsetOffsetY + y) * calInfo.lineTimeInterval;
+                    final double muY = (azTime - vec0.timeMJD) / (vec1.timeMJD - vec0.timeMJD);
+                    final int[] vec0Pixels = vec0.pixels;
+                    final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
+                    for (int x = x0; x < xMax; ++x) {
+                        lastPixelIdx = Sentinel1Calibrator.getPixelIndex(calVec, lastPixelIdx, subsetOffsetX + x);
+                        pixelIdx[x - x0] = lastPixelIdx;
+                        muX[x - x0] = (subsetOffsetX + x - vec0Pixels[lastPixelIdx]) /
+                                (double) (vec0Pixels[lastPixelIdx + 1] - vec0Pixels[lastPixelIdx]);
+                    }
+
+                    for (int b = 0; b < numBands; ++b) {
+                        if (targetTiles[b] == null) {
+                            continue;
+                        }
+                        final ProductData tgtData = targetData[b];
+                        final TileIndex tgtIndex = new TileIndex(targetTiles[b]);
+                        tgtIndex.calculateStride(y);
+                        final float[] vec0LUT = Sentinel1Calibrator.getVector(polInfo.calTypes.get(b), vec0);
+                        final float[] vec1LUT = Sentinel1Calibrator.getVector(polInfo.calTypes.get(b), vec1);
+
+                        for (int x = x0; x < xMax; ++x) {
+                            final int xx = x - x0;
+                            final int p = pixelIdx[xx];
+                            final double mx = muX[xx];
+                            final double lutVal = (1 - muY) * ((1 - mx) * vec0LUT[p] + mx * vec0LUT[p + 1]) +
+                                    muY * ((1 - mx) * vec1LUT[p] + mx * vec1LUT[p + 1]);
+                            final double calibrationFactor = 1.0 / (lutVal * lutVal);
+
+                            double dn = denoised[xx];
+                            double calValue = dn * calibrationFactor;
+                            if (dn == trgFloorValue) {
+                                while ((float) calValue < 0.00001) {
+                                    dn *= 2;
+                                    calValue = dn * calibrationFactor;
+                                }
+                            }
+                            tgtData.setElemDoubleAt(tgtIndex.getIndex(x), calValue);
+                        }
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            OperatorUtils.catchOperatorException(getId(), e);
+        } finally {
+            pm.done();
+        }
+    }
+
+    /**
+     * Release the internal border and thermal noise operators, which are not part of the graph.
+     */
+    @Override
+    public void dispose() {
+        if (borderNoiseOp != null) {
+            borderNoiseOp.dispose();
+            borderNoiseOp = null;
+        }
+        if (thermalNoiseOp != null) {
+            thermalNoiseOp.dispose();
+            thermalNoiseOp = null;
+        }
+        super.dispose();
+    }
+
+    private static class PolarisationInfo {
+        final String pol;
+        final Band srcBand;
+        final String noiseBandName;
+        final List<Band> targetBands = new ArrayList<>(3);
+        final List<Sentinel1Calibrator.CALTYPE> calTypes = new ArrayList<>(3);
+        Sentinel1Calibrator.CalibrationInfo calInfo = null;
+
+        PolarisationInfo(final String pol, final Band srcBand, final String noiseBandName) {
+            this.pol = pol;
+            this.srcBand = srcBand;
+            this.noiseBandName = noiseBandName;
+        }
+    }
+
+    /**
+     * The SPI is used to register this operator in the graph processing framework
+     * via the SPI configuration file
+     * {@code META-INF/services/org.esa.snap.core.gpf.OperatorSpi}.
+     * This class may also serve as a factory for new operator instances.
+     *
+     * @see OperatorSpi#createOperator()
+     * @see OperatorSpi#createOperator(Map, Map)
+     */
+    public static class Spi extends OperatorSpi {
+        public Spi() {
+            super(Sentinel1RadiometricPreprocessingOp.class);
+        }
+    }
+}
@@ -472,7 +472,7 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
      * @param sourceBandName Source band name string.
      * @return Target band name string.
      */
-    private String createTargetBandName(final String sourceBandName) {
+    String createTargetBandName(final String sourceBandName) {
 
         final String pol = sourceBandName.substring(sourceBandName.indexOf('_'));
 
@@ -584,15 +584,10 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
         final int y0 = targetTileRectangle.y;
         final int w = targetTileRectangle.width;
         final int h = targetTileRectangle.height;
-        final int sx0 = subsetOffsetX + x0; // tile start x coordinate in original image
-        final int sy0 = subsetOffsetY + y0; // tile start y coordinate in original image
         //System.out.println("x0 = " + x0 + ", y0 = " + y0 + ", w = " + w + ", h = " + h + ", target band = " + targetBandName);
 
         try {
-            double[][] noiseBlock = null;
-            if (version >= 2.9 && !isSM) {
-                noiseBlock = populateNoiseAzimuthBlock(sx0, sy0, w, h, targetBandName);
-            }
+            final double[][] noiseLUT = computeNoiseLUT(targetBandName, targetTileRectangle);
 
             Tile sourceRaster1 = null;
             ProductData srcData1 = null;
@@ -632,47 +627,12 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
                 }
             }
 
-            Sentinel1Calibrator.CalibrationInfo calInfo = null;
-            Sentinel1Calibrator.CALTYPE calType = null;
-            if (absoluteCalibrationPerformed) {
-                calInfo = getCalInfo(targetBandName);
-                calType = Sentinel1Calibrator.getCalibrationType(targetBandName);
-            }
-
             double dn, dn2, i, q;
             int srcIdx, tgtIdx;
             for (int y = y0; y < maxY; ++y) {
                 srcIndex.calculateStride(y);
                 tgtIndex.calculateStride(y);
-                final int sy = y + subsetOffsetY;
-
-                double[] lut = new double[w];
-                if (absoluteCalibrationPerformed) {
-                    final int calVecIdx = calInfo.getCalibrationVectorIndex(sy);
-                    final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
-                    final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
-                    final float[] vec0LUT = Sentinel1Calibrator.getVector(calType, vec0);
-                    final float[] vec1LUT = Sentinel1Calibrator.getVector(calType, vec1);
-                    final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
-                    final int pixelIdx0 = calVec.getPixelIndex(sx0);
-
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileScaledNoiseLUT(sy, sx0, w, noiseInfo, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    } else {
-                        computeTileScaledNoiseLUT(sy, sx0, sy0, w, noiseBlock, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    }
-
-                } else {
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileNoiseLUT(sy, sx0, w, noiseInfo, lut);
-                    } else {
-                        computeTileNoiseLUT(sy - sy0, sx0, w, noiseBlock, lut);
-                    }
-                }
+                final double[] lut = noiseLUT[y - y0];
 
                 for (int x = x0; x < maxX; ++x) {
                     final int xx = x - x0;
@@ -718,61 +678,21 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
         final int y0 = targetTileRectangle.y;
         final int w = targetTileRectangle.width;
         final int h = targetTileRectangle.height;
-        final int sx0 = subsetOffsetX + x0; // tile start x coordinate in original image
-        final int sy0 = subsetOffsetY + y0; // tile start y coordinate in original image
         //System.out.println("x0 = " + x0 + ", y0 = " + y0 + ", w = " + w + ", h = " + h + ", target band = " + targetBandName);
 
         try {
             final String targetBandName = targetNoiseBandNameToImageBandName.get(targetNoiseBandName);
-            double[][] noiseBlock = null;
-            if (version >= 2.9 && !isSM) {
-                noiseBlock = populateNoiseAzimuthBlock(sx0, sy0, w, h, targetBandName);
-            }
+            final double[][] noiseLUT = computeNoiseLUT(targetBandName, targetTileRectangle);
 
             final ProductData tgtData = targetTile.getDataBuffer();
             final TileIndex tgtIndex = new TileIndex(targetTile);
             final int maxY = y0 + h;
             final int maxX = x0 + w;
 
-            Sentinel1Calibrator.CalibrationInfo calInfo = null;
-            Sentinel1Calibrator.CALTYPE calType = null;
-            if (absoluteCalibrationPerformed) {
-                calInfo = getCalInfo(targetBandName);
-                calType = Sentinel1Calibrator.getCalibrationType(targetBandName);
-            }
-
             int tgtIdx;
             for (int y = y0; y < maxY; ++y) {
                 tgtIndex.calculateStride(y);
-                final int sy = y + subsetOffsetY;
-
-                double[] lut = new double[w];
-                if (absoluteCalibrationPerformed) {
-                    final int calVecIdx = calInfo.getCalibrationVectorIndex(sy);
-                    final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
-                    final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
-                    final float[] vec0LUT = Sentinel1Calibrator.getVector(calType, vec0);
-                    final float[] vec1LUT = Sentinel1Calibrator.getVector(calType, vec1);
-                    final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
-                    final int pixelIdx0 = calVec.getPixelIndex(sx0);
-
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileScaledNoiseLUT(sy, sx0, w, noiseInfo, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    } else {
-                        computeTileScaledNoiseLUT(sy, sx0, sy0, w, noiseBlock, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    }
-
-                } else {
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileNoiseLUT(sy, sx0, w, noiseInfo, lut);
-                    } else {
-                        computeTileNoiseLUT(sy - sy0, sx0, w, noiseBlock, lut);
-                    }
-                }
+                final double[] lut = noiseLUT[y - y0];
 
                 for (int x = x0; x < maxX; ++x) {
                     final int xx = x - x0;
@@ -785,6 +705,67 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
         }
     }
 
+    /**
+     * Compute the noise LUT rows of a rectangle for a target image band: the noise power subtracted from the
+     * intensity, scaled by the calibration LUT if the source product is calibrated.
+     *
+     * @param targetBandName Target image band name.
+     * @param rectangle      The rectangle in target image coordinates.
+     * @return The noise LUT, [rectangle.height][rectangle.width].
+     */
+    double[][] computeNoiseLUT(final String targetBandName, final Rectangle rectangle) throws OperatorException {
+
+        final int w = rectangle.width;
+        final int h = rectangle.height;
+        final int sx0 = subsetOffsetX + rectangle.x; // tile start x coordinate in original image
+        final int sy0 = subsetOffsetY + rectangle.y; // tile start y coordinate in original image
+
+        double[][] noiseBlock = null;
+        if (version >= 2.9 && !isSM) {
+            noiseBlock = populateNoiseAzimuthBlock(sx0, sy0, w, h, targetBandName);
+        }
+
+        Sentinel1Calibrator.CalibrationInfo calInfo = null;
+        Sentinel1Calibrator.CALTYPE calType = null;
+        if (absoluteCalibrationPerformed) {
+            calInfo = getCalInfo(targetBandName);
+            calType = Sentinel1Calibrator.getCalibrationType(targetBandName);
+        }
+
+        final double[][] noiseLUT = new double[h][w];
+        for (int yy = 0; yy < h; ++yy) {
+            final int sy = sy0 + yy;
+            final double[] lut = noiseLUT[yy];
+            if (absoluteCalibrationPerformed) {
+                final int calVecIdx = calInfo.getCalibrationVectorIndex(sy);
+                final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
+                final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
+                final float[] vec0LUT = Sentinel1Calibrator.getVector(calType, vec0);
+                final float[] vec1LUT = Sentinel1Calibrator.getVector(calType, vec1);
+                final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
+                final int pixelIdx0 = calVec.getPixelIndex(sx0);
+
+                if (version < 2.9 || isSM) {
+                    final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
+                    computeTileScaledNoiseLUT(sy, sx0, w, noiseInfo, calInfo, vec0.timeMJD, vec1.timeMJD,
+                            vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
+                } else {
+                    computeTileScaledNoiseLUT(sy, sx0, sy0, w, noiseBlock, calInfo, vec0.timeMJD, vec1.timeMJD,
+                            vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
+                }
+
+            } else {
+                if (version < 2.9 || isSM) {
+                    final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
+                    computeTileNoiseLUT(sy, sx0, w, noiseInfo, lut);
+                } else {
+                    computeTileNoiseLUT(yy, sx0, w, noiseBlock, lut);
+                }
+            }
+        }
+        return noiseLUT;
+    }
+
     /**
      * Get thermal noise information for given target band.
      *
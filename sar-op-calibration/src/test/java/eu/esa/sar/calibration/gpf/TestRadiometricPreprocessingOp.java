@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.calibration.gpf;
+
+import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.test.TestData;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.engine_utilities.util.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit test for S1-Radiometric-Preprocessing Operator.
+ */
+public class TestRadiometricPreprocessingOp {
+
+    private final static File inputFile = TestData.inputS1_GRD;
+
+    @Before
+    public void setUp() {
+        // If the file does not exist: the test will be ignored
+        assumeTrue(inputFile + "not found", inputFile.exists());
+    }
+
+    static {
+        TestUtils.initTestEnvironment();
+    }
+
+    @Test
+    public void testSameAsChainedOperators() throws Exception {
+        final Product sourceProduct = TestUtils.readSourceProduct(inputFile);
+
+        final Operator fusedOp = new Sentinel1RadiometricPreprocessingOp.Spi().createOperator();
+        fusedOp.setSourceProduct(sourceProduct);
+        fusedOp.setParameter("outputGammaBand", true);
+        final Product fusedProduct = fusedOp.getTargetProduct();
+        TestUtils.verifyProduct(fusedProduct, true, true, true);
+
+        final Operator borderOp = new RemoveGRDBorderNoiseOp.Spi().createOperator();
+        borderOp.setSourceProduct(sourceProduct);
+        final Operator thermalOp = new Sentinel1RemoveThermalNoiseOp.Spi().createOperator();
+        thermalOp.setSourceProduct(borderOp.getTargetProduct());
+        final Operator calibrationOp = new CalibrationOp.Spi().createOperator();
+        calibrationOp.setSourceProduct(thermalOp.getTargetProduct());
+        calibrationOp.setParameter("outputGammaBand", true);
+        final Product chainedProduct = calibrationOp.getTargetProduct();
+
+        final int width = sourceProduct.getSceneRasterWidth();
+        final int height = 50;
+        for (String bandName : new String[]{"Sigma0_VV", "Gamma0_VV"}) {
+            final Band fusedBand = fusedProduct.getBand(bandName);
+            final Band chainedBand = chainedProduct.getBand(bandName);
+            assertNotNull(fusedBand);
+            assertNotNull(chainedBand);
+
+            // the first lines include the near and far range border
+            final float[] fusedValues = new float[width * height];
+            final float[] chainedValues = new float[width * height];
+            fusedBand.readPixels(0, 0, width, height, fusedValues, ProgressMonitor.NULL);
+            chainedBand.readPixels(0, 0, width, height, chainedValues, ProgressMonitor.NULL);
+
+            assertArrayEquals(chainedValues, fusedValues, 0.0f);
+        }
+    }
+}
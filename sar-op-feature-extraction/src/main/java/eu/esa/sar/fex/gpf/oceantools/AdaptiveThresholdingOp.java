@@ -95,6 +95,10 @@ public class AdaptiveThresholdingOp extends Operator {
     @Parameter(description = "Rough estimation of background threshold for quicker processing", defaultValue = "false", label = "Estimate background")
     private Boolean estimateBackground = false;
 
+    @Parameter(description = "Compute the target window and background ring statistics from summed-area tables",
+            defaultValue = "false", label = "Use Integral Image")
+    private Boolean useIntegralImage = false;
+
     private int sourceImageWidth;
     private int sourceImageHeight;
     private int targetWindowSize;
@@ -155,6 +159,9 @@ public class AdaptiveThresholdingOp extends Operator {
             if (estimateBackground == null) {
                 estimateBackground = false;
             }
+            if (useIntegralImage == null) {
+                useIntegralImage = false;
+            }
 
             if (doKDistribution) {
                 final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(sourceProduct);
@@ -322,6 +329,9 @@ public class AdaptiveThresholdingOp extends Operator {
                 backgroundThreshold = computeBackgroundThreshold(data, noDataValue);
             }
 
+            final IntegralImageCFAR integralImage = useIntegralImage ? new IntegralImageCFAR(data, w, h, noDataValue) : null;
+            final double[] stats = new double[3];
+
             final int maxy = ty0 + th;
             final int maxx = tx0 + tw;
             for (int ty = ty0; ty < maxy; ty++) {
@@ -329,7 +339,9 @@ public class AdaptiveThresholdingOp extends Operator {
                 trgIndex.calculateStride(ty);
                 for (int tx = tx0; tx < maxx; tx++) {
                     //System.out.println("ty = " + ty + " tx = " + tx);
-                    final double targetMean = computeTargetMean(tx, ty, data, x0, y0, w, h, noDataValue);
+                    final double targetMean = integralImage != null ?
+                            integralImage.getTargetMean(tx - x0, ty - y0, halfTargetWindowSize) :
+                            computeTargetMean(tx, ty, data, x0, y0, w, h, noDataValue);
                     if (noDataValue == targetMean) {
                         trgData.setElemIntAt(trgIndex.getIndex(tx), 0);
                         continue;
@@ -340,7 +352,13 @@ public class AdaptiveThresholdingOp extends Operator {
                             trgData.setElemIntAt(trgIndex.getIndex(tx), 0);
                             continue;
                         }
-                        backgroundThreshold = computeBackgroundThreshold(tx, ty, data, x0, y0, w, h, noDataValue);
+                        if (integralImage != null) {
+                            integralImage.getBackgroundStatistics(tx - x0, ty - y0, halfBackgroundWindowSize,
+                                    halfGuardWindowSize, stats);
+                            backgroundThreshold = stats[0] + stats[2] * t;
+                        } else {
+                            backgroundThreshold = computeBackgroundThreshold(tx, ty, data, x0, y0, w, h, noDataValue);
+                        }
 
                         // DEBUG...
                         /*
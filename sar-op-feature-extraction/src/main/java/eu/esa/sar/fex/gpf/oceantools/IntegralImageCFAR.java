@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.fex.gpf.oceantools;
+
+import eu.esa.sar.commons.SummedAreaTable;
+
+/**
+ * Summed-area tables of the values, squared values and valid pixel count of a source tile, giving the statistics
+ * of the target window and of the background ring of the CFAR detector in constant time per pixel.
+ * <p>
+ * The ring is the background window less the guard window, both clipped to the tile, which is the set of pixels
+ * scanned by AdaptiveThresholdingOp.computeBackgroundThreshold().
+ * <p>
+ * All coordinates are relative to the upper left corner of the tile.
+ */
+final class IntegralImageCFAR {
+
+    private final int width;
+    private final int height;
+    private final double noDataValue;
+    private final float[] data;
+    private final SummedAreaTable table;
+
+    /**
+     * @param data        the source tile, row by row
+     * @param width       the tile width
+     * @param height      the tile height
+     * @param noDataValue the no data value
+     */
+    IntegralImageCFAR(final float[] data, final int width, final int height, final double noDataValue) {
+        this.width = width;
+        this.height = height;
+        this.noDataValue = noDataValue;
+        this.data = data;
+        this.table = new SummedAreaTable(data, width, height, noDataValue);
+    }
+
+    /**
+     * Compute the mean value for pixels in the target window, as AdaptiveThresholdingOp.computeTargetMean() does.
+     *
+     * @param x                    The x coordinate of the central point of the target window.
+     * @param y                    The y coordinate of the central point of the target window.
+     * @param halfTargetWindowSize Half the target window size.
+     * @return The mean value, or the no data value if the central pixel or more than a tenth of the window is
+     * no data.
+     */
+    double getTargetMean(final int x, final int y, final int halfTargetWindowSize) {
+
+        final double v = data[y * width + x];
+        if (noDataValue == v) {
+            return noDataValue;
+        }
+        if (halfTargetWindowSize == 0) {
+            return v;
+        }
+
+        final int minX = Math.max(x - halfTargetWindowSize, 0);
+        final int minY = Math.max(y - halfTargetWindowSize, 0);
+        final int maxX = Math.min(x + halfTargetWindowSize + 1, width);
+        final int maxY = Math.min(y + halfTargetWindowSize + 1, height);
+        final int area = (maxX - minX) * (maxY - minY);
+        final int n = table.getCount(minX, minY, maxX, maxY);
+        if (area - n > 0.1 * area) {
+            return noDataValue;
+        }
+
+        return table.getSum(minX, minY, maxX, maxY) / n + table.getOffset();
+    }
+
+    /**
+     * Compute the statistics of the valid pixels in the background ring.
+     *
+     * @param x                        The x coordinate of the central point of the target window.
+     * @param y                        The y coordinate of the central point of the target window.
+     * @param halfBackgroundWindowSize Half the background window size.
+     * @param halfGuardWindowSize      Half the guard window size.
+     * @param stats                    The mean, mean of square and standard deviation values (output).
+     * @return The number of valid pixels in the ring. The statistics are NaN if there are none.
+     */
+    int getBackgroundStatistics(final int x, final int y, final int halfBackgroundWindowSize,
+                                final int halfGuardWindowSize, final double[] stats) {
+
+        final int minX = Math.max(x - halfBackgroundWindowSize, 0);
+        final int minY = Math.max(y - halfBackgroundWindowSize, 0);
+        final int maxX = Math.min(x + halfBackgroundWindowSize + 1, width);
+        final int maxY = Math.min(y + halfBackgroundWindowSize + 1, height);
+
+        // the guard window, clipped to the background window
+        final int gMinX = Math.max(x - halfGuardWindowSize, minX);
+        final int gMinY = Math.max(y - halfGuardWindowSize, minY);
+        final int gMaxX = Math.min(x + halfGuardWindowSize + 1, maxX);
+        final int gMaxY = Math.min(y + halfGuardWindowSize + 1, maxY);
+
+        final int n = table.getRingCount(minX, minY, maxX, maxY, gMinX, gMinY, gMaxX, gMaxY);
+        if (n == 0) {
+            stats[0] = stats[1] = stats[2] = Double.NaN;
+            return 0;
+        }
+
+        final double s = table.getRingSum(minX, minY, maxX, maxY, gMinX, gMinY, gMaxX, gMaxY);
+        final double s2 = table.getRingSumSq(minX, minY, maxX, maxY, gMinX, gMinY, gMaxX, gMaxY);
+
+        final double d = s / n;
+        final double var = Math.max(s2 / n - d * d, 0.0);
+        final double mean = d + table.getOffset();
+        stats[0] = mean;
+        stats[1] = var + mean * mean;
+        stats[2] = Math.sqrt(var);
+        return n;
+    }
+}
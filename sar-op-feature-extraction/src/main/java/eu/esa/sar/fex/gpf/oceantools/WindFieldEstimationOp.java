@@ -17,9 +17,9 @@ package eu.esa.sar.fex.gpf.oceantools;
 
 import Jama.Matrix;
 import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.FFT2D;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.collections.list.SynchronizedList;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.snap.core.datamodel.Band;
@@ -597,90 +597,47 @@ public class WindFieldEstimationOp extends Operator {
 
     private void computeSpectrum(final double[][] srcImage, final int fftSize, final double[][] spec) {
 
-        final double[][] F1 = new double[fftSize][fftSize];
-        final double[][] F2 = new double[fftSize][fftSize];
-        final double[][] F3 = new double[fftSize][fftSize];
-        final double[][] F4 = new double[fftSize][fftSize];
-        perform2DFFT(srcImage, 0, fftSize - 1, 0, fftSize - 1, F1);
-        perform2DFFT(srcImage, 0, fftSize - 1, windowSize - fftSize, windowSize - 1, F2);
-        perform2DFFT(srcImage, windowSize - fftSize, windowSize - 1, 0, fftSize - 1, F3);
-        perform2DFFT(srcImage, windowSize - fftSize, windowSize - 1, windowSize - fftSize, windowSize - 1, F4);
+        // the spectra of the four corner imagettes are transformed as one batch
+        final int patchSize = 2 * fftSize * fftSize;
+        final double[] patches = new double[4 * patchSize];
+        getPatch(srcImage, 0, 0, fftSize, patches, 0);
+        getPatch(srcImage, 0, windowSize - fftSize, fftSize, patches, patchSize);
+        getPatch(srcImage, windowSize - fftSize, 0, fftSize, patches, 2 * patchSize);
+        getPatch(srcImage, windowSize - fftSize, windowSize - fftSize, fftSize, patches, 3 * patchSize);
 
+        FFT2D.complexForwardBatch(patches, fftSize, fftSize, 4);
+
+        // get spectrum magnitude and perform fftshift
+        final int secondHalfFFTSize = fftSize / 2;
+        final int firstHalfFFTSize = fftSize - secondHalfFFTSize;
         for (int r = 0; r < fftSize; r++) {
+            final int rr = r < firstHalfFFTSize ? r + secondHalfFFTSize : r - firstHalfFFTSize;
             for (int c = 0; c < fftSize; c++) {
-                spec[r][c] = (F1[r][c] + F2[r][c] + F3[r][c] + F4[r][c]) / 4.0;
+                final int cc = c < firstHalfFFTSize ? c + secondHalfFFTSize : c - firstHalfFFTSize;
+                final int k = 2 * (r * fftSize + c);
+                spec[rr][cc] = (getPower(patches, k) + getPower(patches, k + patchSize) +
+                        getPower(patches, k + 2 * patchSize) + getPower(patches, k + 3 * patchSize)) / 4.0;
             }
         }
     }
 
-    private static void perform2DFFT(final double[][] srcImage, final int xMin, final int xMax,
-                                     final int yMin, final int yMax, final double[][] spec) {
-
-        // perform 1-D FFT to each row
-        final int rowFFTSize = xMax - xMin + 1;
-        final int colFFTSize = yMax - yMin + 1;
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(rowFFTSize);
-        final double[][] complexDataI = new double[colFFTSize][rowFFTSize];
-        final double[][] complexDataQ = new double[colFFTSize][rowFFTSize];
-        final double[] rowArray = new double[2 * rowFFTSize];
-        for (int y = yMin; y <= yMax; y++) {
-            int k = 0;
-            for (int x = xMin; x <= xMax; x++) {
-                rowArray[k++] = srcImage[y][x];
-                rowArray[k++] = 0.0;
-            }
-            row_fft.complexForward(rowArray);
-            for (int c = 0; c < rowFFTSize; c++) {
-                complexDataI[y - yMin][c] = rowArray[c + c];
-                complexDataQ[y - yMin][c] = rowArray[c + c + 1];
-            }
-        }
-        // dumpData("complexDataI after row FFT", complexDataI);
-        // dumpData("complexDataQ after row FFT", complexDataQ);
-
-        // perform 1-D FFT to each column
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(colFFTSize);
-        final double[] colArray = new double[2 * colFFTSize];
-        for (int x = xMin; x <= xMax; x++) {
-            int k = 0;
-            for (int y = yMin; y <= yMax; y++) {
-                colArray[k++] = complexDataI[y - yMin][x - xMin];
-                colArray[k++] = complexDataQ[y - yMin][x - xMin];
-            }
-            col_fft.complexForward(colArray);
-            for (int r = 0; r < colFFTSize; r++) {
-                complexDataI[r][x - xMin] = colArray[r + r];
-                complexDataQ[r][x - xMin] = colArray[r + r + 1];
+    /**
+     * Copies a square imagette into a batch of interleaved complex patches, with zero imaginary part.
+     */
+    private static void getPatch(final double[][] srcImage, final int xMin, final int yMin, final int fftSize,
+                                 final double[] patches, final int offset) {
+
+        int k = offset;
+        for (int y = yMin; y < yMin + fftSize; y++) {
+            for (int x = xMin; x < xMin + fftSize; x++) {
+                patches[k++] = srcImage[y][x];
+                patches[k++] = 0.0;
             }
         }
-        // dumpData("complexDataI after col FFT", complexDataI);
-        // dumpData("complexDataQ after col FFT", complexDataQ);
-
-        // get spectrum magnitude and perform fftshift
-        final int secondHalfColFFTSize = colFFTSize / 2;
-        final int firstHalfColFFTSize = colFFTSize - secondHalfColFFTSize;
-        final int secondHalfRowFFTSize = rowFFTSize / 2;
-        final int firstHalfRowFFTSize = rowFFTSize - secondHalfRowFFTSize;
-        int rr, cc;
-        for (int y = yMin; y <= yMax; y++) {
-            int r = y - yMin;
-            if (r < firstHalfColFFTSize) {
-                rr = r + secondHalfColFFTSize;
-            } else {
-                rr = r - firstHalfColFFTSize;
-            }
+    }
 
-            for (int x = xMin; x <= xMax; x++) {
-                int c = x - xMin;
-                if (c < firstHalfRowFFTSize) {
-                    cc = c + secondHalfRowFFTSize;
-                } else {
-                    cc = c - firstHalfRowFFTSize;
-                }
-                spec[rr][cc] = complexDataI[r][c] * complexDataI[r][c] + complexDataQ[r][c] * complexDataQ[r][c];
-            }
-        }
-        // dumpData("spec", spec);
+    private static double getPower(final double[] patches, final int k) {
+        return patches[k] * patches[k] + patches[k + 1] * patches[k + 1];
     }
 
     private static RenderedImage createRenderedImage(double[] array, int width, int height) {
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.fex.gpf.oceantools;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.util.TestUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for the summed-area table statistics of the CFAR ship detector.
+ */
+public class TestIntegralImageCFAR {
+
+    private static final double NO_DATA = 0.0;
+
+    @Test
+    public void testMatchesWindowScans() {
+        final int width = 61;
+        final int height = 47;
+        final float[] data = createSea(new Random(3), width, height);
+
+        final IntegralImageCFAR integralImage = new IntegralImageCFAR(data, width, height, NO_DATA);
+        final double[] stats = new double[3];
+        final double[] expected = new double[4];
+        for (int[] sizes : new int[][]{{0, 4, 10}, {1, 3, 15}, {2, 7, 20}, {1, 30, 12}}) {
+            final int halfTarget = sizes[0];
+            final int halfGuard = sizes[1];
+            final int halfBackground = sizes[2];
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    assertEquals(targetMean(data, x, y, width, height, halfTarget),
+                            integralImage.getTargetMean(x, y, halfTarget), 1e-6);
+
+                    final int n = integralImage.getBackgroundStatistics(x, y, halfBackground, halfGuard, stats);
+                    backgroundStatistics(data, x, y, width, height, halfBackground, halfGuard, expected);
+                    assertEquals((int) expected[3], n);
+                    if (n > 0) {
+                        assertEquals(expected[0], stats[0], 1e-9 * expected[0]);
+                        assertEquals(expected[1], stats[1], 1e-9 * expected[1]);
+                        assertEquals(expected[2], stats[2], 1e-6 * expected[2] + 1e-12);
+                    } else {
+                        assertTrue(Double.isNaN(stats[0]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOperatorMatchesWindowScans() throws Exception {
+        final Product sourceProduct = createTestProduct(80, 64);
+
+        final int[] expected = computeShipMask(sourceProduct, false);
+        final int[] actual = computeShipMask(sourceProduct, true);
+
+        int numDetected = 0;
+        for (int v : expected) {
+            numDetected += v;
+        }
+        assertTrue(numDetected > 0);
+        assertArrayEquals(expected, actual);
+    }
+
+    private static int[] computeShipMask(final Product sourceProduct, final boolean useIntegralImage)
+            throws Exception {
+        final AdaptiveThresholdingOp op = (AdaptiveThresholdingOp) new AdaptiveThresholdingOp.Spi().createOperator();
+        op.setSourceProduct(sourceProduct);
+        op.setParameter("targetWindowSizeInMeter", 30);
+        op.setParameter("guardWindowSizeInMeter", 100.0);
+        op.setParameter("backgroundWindowSizeInMeter", 200.0);
+        op.setParameter("useIntegralImage", useIntegralImage);
+
+        final Product targetProduct = op.getTargetProduct();
+        final Band maskBand = targetProduct.getBand("Sigma0_VV" + AdaptiveThresholdingOp.SHIPMASK_NAME);
+        final int w = targetProduct.getSceneRasterWidth();
+        final int h = targetProduct.getSceneRasterHeight();
+        final int[] mask = new int[w * h];
+        maskBand.readPixels(0, 0, w, h, mask, ProgressMonitor.NULL);
+        op.dispose();
+        return mask;
+    }
+
+    /**
+     * A small calibrated ground range product of sea clutter with 10 m pixels.
+     */
+    private static Product createTestProduct(final int w, final int h) {
+        final Product product = TestUtils.createProduct("GRD", w, h);
+
+        final Band band = product.addBand("Sigma0_VV", ProductData.TYPE_FLOAT32);
+        band.setUnit(Unit.INTENSITY);
+        band.setNoDataValue(NO_DATA);
+        band.setNoDataValueUsed(true);
+        band.setData(ProductData.createInstance(createSea(new Random(5), w, h)));
+
+        final MetadataElement abs = AbstractMetadata.getAbstractedMetadata(product);
+        AbstractMetadata.setAttribute(abs, AbstractMetadata.SAMPLE_TYPE, "DETECTED");
+        AbstractMetadata.setAttribute(abs, AbstractMetadata.abs_calibration_flag, 1);
+        AbstractMetadata.setAttribute(abs, AbstractMetadata.srgr_flag, 1);
+        AbstractMetadata.setAttribute(abs, AbstractMetadata.range_spacing, 10.0);
+        AbstractMetadata.setAttribute(abs, AbstractMetadata.azimuth_spacing, 10.0);
+        return product;
+    }
+
+    /**
+     * Exponential sea clutter with a few bright ships and a band of no data.
+     */
+    private static float[] createSea(final Random random, final int width, final int height) {
+        final float[] data = new float[width * height];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (float) (0.02 * -Math.log(1.0 - random.nextDouble()));
+        }
+        for (int s = 0; s < 4; ++s) {
+            data[random.nextInt(data.length)] = 500.0f;
+        }
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < 5; ++x) {
+                data[y * width + x] = (float) NO_DATA;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * The window scan of AdaptiveThresholdingOp.computeTargetMean().
+     */
+    private static double targetMean(final float[] data, final int x, final int y, final int width, final int height,
+                                     final int halfTarget) {
+        if (data[y * width + x] == NO_DATA) {
+            return NO_DATA;
+        }
+        final int x0 = Math.max(x - halfTarget, 0);
+        final int y0 = Math.max(y - halfTarget, 0);
+        final int x1 = Math.min(x + halfTarget, width - 1);
+        final int y1 = Math.min(y + halfTarget, height - 1);
+        double sum = 0.0;
+        int n = 0;
+        int noData = 0;
+        for (int yy = y0; yy <= y1; ++yy) {
+            for (int xx = x0; xx <= x1; ++xx) {
+                final double v = data[yy * width + xx];
+                if (v == NO_DATA) {
+                    ++noData;
+                } else {
+                    sum += v;
+                    ++n;
+                }
+            }
+        }
+        return noData > 0.1 * (x1 - x0 + 1) * (y1 - y0 + 1) ? NO_DATA : sum / n;
+    }
+
+    /**
+     * The ring scan of AdaptiveThresholdingOp.computeBackgroundStatistics(), with the count in expected[3].
+     */
+    private static void backgroundStatistics(final float[] data, final int x, final int y,
+                                             final int width, final int height,
+                                             final int halfBackground, final int halfGuard, final double[] expected) {
+        double sum = 0.0;
+        double sumSq = 0.0;
+        int n = 0;
+        for (int yy = Math.max(y - halfBackground, 0); yy <= Math.min(y + halfBackground, height - 1); ++yy) {
+            for (int xx = Math.max(x - halfBackground, 0); xx <= Math.min(x + halfBackground, width - 1); ++xx) {
+                final double v = data[yy * width + xx];
+                if ((Math.abs(yy - y) > halfGuard || Math.abs(xx - x) > halfGuard) && v != NO_DATA) {
+                    sum += v;
+                    sumSq += v * v;
+                    ++n;
+                }
+            }
+        }
+        final double mean = sum / n;
+        double var = 0.0;
+        for (int yy = Math.max(y - halfBackground, 0); yy <= Math.min(y + halfBackground, height - 1); ++yy) {
+            for (int xx = Math.max(x - halfBackground, 0); xx <= Math.min(x + halfBackground, width - 1); ++xx) {
+                final double v = data[yy * width + xx];
+                if ((Math.abs(yy - y) > halfGuard || Math.abs(xx - x) > halfGuard) && v != NO_DATA) {
+                    var += (v - mean) * (v - mean);
+                }
+            }
+        }
+        expected[0] = mean;
+        expected[1] = sumSq / n;
+        expected[2] = Math.sqrt(var / n);
+        expected[3] = n;
+    }
+}
@@ -64,9 +64,13 @@ public class OffsetTrackingOpUI extends BaseOperatorUI {
     private final JComboBox resamplingType = new JComboBox(ResamplingFactory.resamplingNames);
     final JCheckBox spatialAverageCheckBox = new JCheckBox("Spatial Average");
     final JCheckBox fillHoleCheckBox = new JCheckBox("Fill Holes");
+    final JCheckBox useFFTCorrelationEngineCheckBox = new JCheckBox("Use FFT Correlation Engine");
+    final JCheckBox subPixelPeakFitCheckBox = new JCheckBox("Sub-pixel Peak Fit");
 
     private Boolean spatialAverage = true;
     private Boolean fillHoles = true;
+    private Boolean useFFTCorrelationEngine = false;
+    private Boolean subPixelPeakFit = false;
 
     private final JComboBox vectorsCombo = new JComboBox();
 
@@ -89,6 +93,19 @@ public class OffsetTrackingOpUI extends BaseOperatorUI {
             }
         });
 
+        useFFTCorrelationEngineCheckBox.addItemListener(new ItemListener() {
+            public void itemStateChanged(ItemEvent e) {
+                useFFTCorrelationEngine = (e.getStateChange() == ItemEvent.SELECTED);
+                subPixelPeakFitCheckBox.setEnabled(useFFTCorrelationEngine);
+            }
+        });
+
+        subPixelPeakFitCheckBox.addItemListener(new ItemListener() {
+            public void itemStateChanged(ItemEvent e) {
+                subPixelPeakFit = (e.getStateChange() == ItemEvent.SELECTED);
+            }
+        });
+
         return new JScrollPane(panel);
     }
 
@@ -135,6 +152,17 @@ public class OffsetTrackingOpUI extends BaseOperatorUI {
             fillHoleCheckBox.setSelected(fillHoles);
         }
 
+        useFFTCorrelationEngine = (Boolean)paramMap.get("useFFTCorrelationEngine");
+        if(useFFTCorrelationEngine != null) {
+            useFFTCorrelationEngineCheckBox.setSelected(useFFTCorrelationEngine);
+        }
+
+        subPixelPeakFit = (Boolean)paramMap.get("subPixelPeakFit");
+        if(subPixelPeakFit != null) {
+            subPixelPeakFitCheckBox.setSelected(subPixelPeakFit);
+        }
+        subPixelPeakFitCheckBox.setEnabled(useFFTCorrelationEngineCheckBox.isSelected());
+
         vectorsCombo.removeAllItems();
         final String[] geometryNames = getGeometries();
         for (String g : geometryNames) {
@@ -173,6 +201,8 @@ public class OffsetTrackingOpUI extends BaseOperatorUI {
 
         paramMap.put("spatialAverage", spatialAverage);
         paramMap.put("fillHoles", fillHoles);
+        paramMap.put("useFFTCorrelationEngine", useFFTCorrelationEngine);
+        paramMap.put("subPixelPeakFit", subPixelPeakFit);
 
         paramMap.put("roiVector", vectorsCombo.getSelectedItem());
     }
@@ -239,6 +269,10 @@ public class OffsetTrackingOpUI extends BaseOperatorUI {
         contentPane.add(spatialAverageCheckBox, gbc);
         gbc.gridy++;
         contentPane.add(fillHoleCheckBox, gbc);
+        gbc.gridy++;
+        contentPane.add(useFFTCorrelationEngineCheckBox, gbc);
+        gbc.gridy++;
+        contentPane.add(subPixelPeakFitCheckBox, gbc);
         gbc.gridx = 0;
         gbc.gridy++;
 
@@ -72,6 +72,10 @@ public class CrossCorrelationOpUI extends BaseOperatorUI {
     private boolean computeOffset = false;
     final JCheckBox onlyGCPsOnLandCheckBox = new JCheckBox("Test GCPs are on land");
     private boolean onlyGCPsOnLand = false;
+    final JCheckBox useFFTCorrelationEngineCheckBox = new JCheckBox("Use FFT Correlation Engine");
+    private boolean useFFTCorrelationEngine = false;
+    final JCheckBox subPixelPeakFitCheckBox = new JCheckBox("Sub-pixel Peak Fit");
+    private boolean subPixelPeakFit = false;
 
     @Override
     public JComponent CreateOpTab(String operatorName, Map<String, Object> parameterMap, AppContext appContext) {
@@ -112,6 +116,17 @@ public class CrossCorrelationOpUI extends BaseOperatorUI {
                 onlyGCPsOnLand = (e.getStateChange() == ItemEvent.SELECTED);
             }
         });
+        useFFTCorrelationEngineCheckBox.addItemListener(new ItemListener() {
+            public void itemStateChanged(ItemEvent e) {
+                useFFTCorrelationEngine = (e.getStateChange() == ItemEvent.SELECTED);
+                subPixelPeakFitCheckBox.setEnabled(useFFTCorrelationEngine);
+            }
+        });
+        subPixelPeakFitCheckBox.addItemListener(new ItemListener() {
+            public void itemStateChanged(ItemEvent e) {
+                subPixelPeakFit = (e.getStateChange() == ItemEvent.SELECTED);
+            }
+        });
 
         return new JScrollPane(panel);
     }
@@ -164,6 +179,19 @@ public class CrossCorrelationOpUI extends BaseOperatorUI {
             onlyGCPsOnLand = gcpOnLandValue;
         }
         onlyGCPsOnLandCheckBox.setSelected(onlyGCPsOnLand);
+
+        Boolean fftEngineValue = (Boolean) paramMap.get("useFFTCorrelationEngine");
+        if (fftEngineValue != null) {
+            useFFTCorrelationEngine = fftEngineValue;
+        }
+        useFFTCorrelationEngineCheckBox.setSelected(useFFTCorrelationEngine);
+
+        Boolean peakFitValue = (Boolean) paramMap.get("subPixelPeakFit");
+        if (peakFitValue != null) {
+            subPixelPeakFit = peakFitValue;
+        }
+        subPixelPeakFitCheckBox.setSelected(subPixelPeakFit);
+        subPixelPeakFitCheckBox.setEnabled(useFFTCorrelationEngine);
     }
 
     @Override
@@ -202,6 +230,8 @@ public class CrossCorrelationOpUI extends BaseOperatorUI {
 
         paramMap.put("computeOffset", computeOffset);
         paramMap.put("onlyGCPsOnLand", onlyGCPsOnLand);
+        paramMap.put("useFFTCorrelationEngine", useFFTCorrelationEngine);
+        paramMap.put("subPixelPeakFit", subPixelPeakFit);
     }
 
     private JComponent createPanel() {
@@ -283,6 +313,12 @@ public class CrossCorrelationOpUI extends BaseOperatorUI {
         gbc.gridx = 0;
         gbc.gridy++;
 
+        contentPane.add(useFFTCorrelationEngineCheckBox, gbc);
+        gbc.gridx = 1;
+        contentPane.add(subPixelPeakFitCheckBox, gbc);
+        gbc.gridx = 0;
+        gbc.gridy++;
+
         DialogUtils.fillPanel(contentPane, gbc);
 
         return contentPane;
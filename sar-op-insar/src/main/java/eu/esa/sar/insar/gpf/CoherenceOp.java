@@ -17,7 +17,9 @@ package eu.esa.sar.insar.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.Sentinel1Utils;
+import eu.esa.sar.insar.gpf.support.CoherenceKernel;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
 import org.esa.snap.core.dataop.resamp.ResamplingFactory;
@@ -30,8 +32,6 @@ import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
-import org.esa.snap.dem.dataio.DEMFactory;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
 import org.esa.snap.engine_utilities.datamodel.Unit;
@@ -44,7 +44,6 @@ import org.esa.snap.engine_utilities.gpf.TileIndex;
 import org.jblas.ComplexDouble;
 import org.jblas.ComplexDoubleMatrix;
 import org.jblas.DoubleMatrix;
-import org.jblas.MatrixFunctions;
 import org.jlinda.core.GeoPoint;
 import org.jlinda.core.Orbit;
 import org.jlinda.core.Point;
@@ -550,12 +549,20 @@ public class CoherenceOp extends Operator {
         }
     }
 
+    @Override
+    public synchronized void dispose() {
+        if (dem != null) {
+            DEMTilePool.release(dem);
+            dem = null;
+        }
+    }
+
     private void defineDEM() throws IOException {
 
         String demResamplingMethod = ResamplingFactory.BILINEAR_INTERPOLATION_NAME;
 
         if (externalDEMFile == null) {
-            dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+            dem = DEMTilePool.acquire(demName, demResamplingMethod);
             demNoDataValue = dem.getDescriptor().getNoDataValue();
             demSamplingLat = dem.getDescriptor().getTileWidthInDegrees() * (1.0f /
                     dem.getDescriptor().getTileWidth()) * org.jlinda.core.Constants.DTOR;
@@ -564,8 +571,8 @@ public class CoherenceOp extends Operator {
 
         } else {
 
-            dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
-            ((FileElevationModel) dem).applyEarthGravitionalModel(externalDEMApplyEGM);
+            dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue,
+                    externalDEMApplyEGM);
             demNoDataValue = externalDEMNoDataValue;
             demName = externalDEMFile.getName();
 
@@ -746,21 +753,18 @@ public class CoherenceOp extends Operator {
 
                 final Tile mstTileReal = getSourceTile(product.sourceMaster.realBand, extRect, border);
                 final Tile mstTileImag = getSourceTile(product.sourceMaster.imagBand, extRect, border);
-                final ComplexDoubleMatrix dataMaster = TileUtilsDoris.pullComplexDoubleMatrix(mstTileReal, mstTileImag);
+                final float[] dataMaster = getInterleavedSamples(mstTileReal, mstTileImag);
 
                 final Tile slvTileReal = getSourceTile(product.sourceSlave.realBand, extRect, border);
                 final Tile slvTileImag = getSourceTile(product.sourceSlave.imagBand, extRect, border);
-                final ComplexDoubleMatrix dataSlave = TileUtilsDoris.pullComplexDoubleMatrix(slvTileReal, slvTileImag);
+                final float[] dataSlave = getInterleavedSamples(slvTileReal, slvTileImag);
 
                 if (subtractFlatEarthPhase) {
                     final DoubleMatrix flatEarthPhase = computeFlatEarthPhase(
                             cohx0, cohx0 + cohw - 1, cohw, cohy0, cohy0 + cohh - 1, cohh,
                             0, sourceImageWidth - 1, 0, sourceImageHeight - 1, product.sourceSlave.name);
 
-                    final ComplexDoubleMatrix complexReferencePhase = new ComplexDoubleMatrix(
-                            MatrixFunctions.cos(flatEarthPhase), MatrixFunctions.sin(flatEarthPhase));
-
-                    dataSlave.muli(complexReferencePhase);
+                    CoherenceKernel.applyPhase(dataSlave, flatEarthPhase.toArray2());
 
                     if (OUTPUT_PHASE) {
                         saveFlatEarthPhase(x0, xN, y0, yN, flatEarthPhase, product, targetTileMap);
@@ -771,26 +775,17 @@ public class CoherenceOp extends Operator {
                     final TopoPhase topoPhase = TopoPhase.computeTopoPhase(
                             product, tileWindow, demTile, false);
 
-                    final ComplexDoubleMatrix ComplexTopoPhase = new ComplexDoubleMatrix(
-                            MatrixFunctions.cos(new DoubleMatrix(topoPhase.demPhase)),
-                            MatrixFunctions.sin(new DoubleMatrix(topoPhase.demPhase)));
-
-                    dataSlave.muli(ComplexTopoPhase);
+                    CoherenceKernel.applyPhase(dataSlave, topoPhase.demPhase);
 
                     if (OUTPUT_PHASE) {
                         saveTopoPhase(x0, xN, y0, yN, topoPhase.demPhase, product, targetTileMap);
                     }
                 }
 
-                for (int i = 0; i < dataMaster.length; i++) {
-                    double tmp = norm(dataMaster.get(i));
-                    dataMaster.put(i, dataMaster.get(i).mul(dataSlave.get(i).conj()));
-                    dataSlave.put(i, new ComplexDouble(norm(dataSlave.get(i)), tmp));
-                }
-
-                DoubleMatrix cohMatrix = SarUtils.coherence2(dataMaster, dataSlave, cohWinAz, cohWinRg);
+                final float[] cohData = new float[targetRectangle.width * targetRectangle.height];
+                CoherenceKernel.coherence(dataMaster, dataSlave, cohw, cohh, cohWinAz, cohWinRg, cohData);
 
-                saveCoherence(cohMatrix, product, targetTileMap, targetRectangle);
+                saveCoherence(cohData, product, targetTileMap, targetRectangle);
             }
 
         } catch (Throwable e) {
@@ -856,7 +851,7 @@ public class CoherenceOp extends Operator {
         }
     }
 
-    private void saveCoherence(final DoubleMatrix cohMatrix, final ProductContainer product,
+    private void saveCoherence(final float[] cohData, final ProductContainer product,
                                final Map<Band, Tile> targetTileMap, final Rectangle targetRectangle) {
 
         final int x0 = targetRectangle.x;
@@ -885,8 +880,7 @@ public class CoherenceOp extends Operator {
                 if (srcSlvData.getElemDoubleAt(srcSlvIndex.getIndex(x)) == srcNoDataValue) {
                     coherenceData.setElemFloatAt(tgtIdx, (float) srcNoDataValue);
                 } else {
-                    final double coh = cohMatrix.get(yy, xx);
-                    coherenceData.setElemFloatAt(tgtIdx, (float) coh);
+                    coherenceData.setElemFloatAt(tgtIdx, cohData[yy * targetRectangle.width + xx]);
                 }
             }
         }
@@ -985,11 +979,11 @@ public class CoherenceOp extends Operator {
 
                 final Tile mstTileReal = getSourceTile(product.sourceMaster.realBand, extRect, border);
                 final Tile mstTileImag = getSourceTile(product.sourceMaster.imagBand, extRect, border);
-                final ComplexDoubleMatrix dataMaster = TileUtilsDoris.pullComplexDoubleMatrix(mstTileReal, mstTileImag);
+                final float[] dataMaster = getInterleavedSamples(mstTileReal, mstTileImag);
 
                 final Tile slvTileReal = getSourceTile(product.sourceSlave.realBand, extRect, border);
                 final Tile slvTileImag = getSourceTile(product.sourceSlave.imagBand, extRect, border);
-                final ComplexDoubleMatrix dataSlave = TileUtilsDoris.pullComplexDoubleMatrix(slvTileReal, slvTileImag);
+                final float[] dataSlave = getInterleavedSamples(slvTileReal, slvTileImag);
 
                 final String polynomialName = product.sourceSlave.name + '_' + (subSwathIndex - 1) + '_' + burstIndex;
                 if (subtractFlatEarthPhase) {
@@ -997,10 +991,7 @@ public class CoherenceOp extends Operator {
                             cohx0, cohx0 + cohw - 1, cohw, cohy0 - firstLineIdx, cohy0 + cohh - 1 - firstLineIdx, cohh,
                             minPixel, maxPixel, minLine, maxLine, polynomialName);
 
-                    final ComplexDoubleMatrix complexReferencePhase = new ComplexDoubleMatrix(
-                            MatrixFunctions.cos(flatEarthPhase), MatrixFunctions.sin(flatEarthPhase));
-
-                    dataSlave.muli(complexReferencePhase);
+                    CoherenceKernel.applyPhase(dataSlave, flatEarthPhase.toArray2());
 
                     if (OUTPUT_PHASE) {
                         saveFlatEarthPhase(x0, xN, y0, yN, flatEarthPhase, product, targetTileMap);
@@ -1011,26 +1002,17 @@ public class CoherenceOp extends Operator {
                     TopoPhase topoPhase = TopoPhase.computeTopoPhase(
                             mstMeta, mstOrbit, slvMeta, slvOrbit, tileWindow, demTile, false);
 
-                    final ComplexDoubleMatrix ComplexTopoPhase = new ComplexDoubleMatrix(
-                            MatrixFunctions.cos(new DoubleMatrix(topoPhase.demPhase)),
-                            MatrixFunctions.sin(new DoubleMatrix(topoPhase.demPhase)));
-
-                    dataSlave.muli(ComplexTopoPhase);
+                    CoherenceKernel.applyPhase(dataSlave, topoPhase.demPhase);
 
                     if (OUTPUT_PHASE) {
                         saveTopoPhase(x0, xN, y0, yN, topoPhase.demPhase, product, targetTileMap);
                     }
                 }
 
-                for (int i = 0; i < dataMaster.length; i++) {
-                    double tmp = norm(dataMaster.get(i));
-                    dataMaster.put(i, dataMaster.get(i).mul(dataSlave.get(i).conj()));
-                    dataSlave.put(i, new ComplexDouble(norm(dataSlave.get(i)), tmp));
-                }
-
-                DoubleMatrix cohMatrix = SarUtils.coherence2(dataMaster, dataSlave, cohWinAz, cohWinRg);
+                final float[] cohData = new float[targetRectangle.width * targetRectangle.height];
+                CoherenceKernel.coherence(dataMaster, dataSlave, cohw, cohh, cohWinAz, cohWinRg, cohData);
 
-                saveCoherence(cohMatrix, product, targetTileMap, targetRectangle);
+                saveCoherence(cohData, product, targetTileMap, targetRectangle);
             }
 
         } catch (Throwable e) {
@@ -1089,8 +1071,19 @@ public class CoherenceOp extends Operator {
         return new GeoPoint(lat / (2*cols), lon / (2*cols));
     }
 
-    private static double norm(final ComplexDouble number) {
-        return number.real() * number.real() + number.imag() * number.imag();
+    /**
+     * Copy the samples of a real and an imaginary tile to interleaved re/im floats, row by row.
+     */
+    private static float[] getInterleavedSamples(final Tile realTile, final Tile imagTile) {
+        final ProductData realData = realTile.getRawSamples();
+        final ProductData imagData = imagTile.getRawSamples();
+        final int numSamples = realTile.getWidth() * realTile.getHeight();
+        final float[] samples = new float[2 * numSamples];
+        for (int i = 0; i < numSamples; i++) {
+            samples[2 * i] = realData.getElemFloatAt(i);
+            samples[2 * i + 1] = imagData.getElemFloatAt(i);
+        }
+        return samples;
     }
 
     private static double norm(final double real, final double imag) {
@@ -16,7 +16,7 @@
 package eu.esa.sar.insar.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import eu.esa.sar.commons.FFT2D;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
@@ -245,15 +245,11 @@ public class GoldsteinFilterOp extends Operator {
                 final TileIndex srcIndex = new TileIndex(iBandRaster);
                 noDataValue = iBand.getNoDataValue();
 
-                // perform filtering with a sliding window
-                final boolean[][] mask = new boolean[FFTSize][FFTSize];
-                final double[][] I = new double[FFTSize][FFTSize];
-                final double[][] Q = new double[FFTSize][FFTSize];
-                final double[][] specI = new double[FFTSize][FFTSize];
-                final double[][] specQ = new double[FFTSize][FFTSize];
-                final double[][] pwrSpec = new double[FFTSize][FFTSize];
-                final double[][] fltSpec = new double[FFTSize][FFTSize];
-                final int colMax = I[0].length;
+                // perform filtering with a sliding window, the imagette is interleaved complex with Q as real part
+                final boolean[] mask = new boolean[FFTSize * FFTSize];
+                final double[] spec = new double[2 * FFTSize * FFTSize];
+                final double[] pwrSpec = new double[FFTSize * FFTSize];
+                final double[] fltSpec = new double[FFTSize * FFTSize];
 
                 // arrays saving filtered I/Q data for the tile, note tile size could be different from 512x512 on boundary
                 final float[] iBandFiltered = new float[w * h];
@@ -265,33 +261,24 @@ public class GoldsteinFilterOp extends Operator {
                 for (int y = sy0; y <= syMax; y += stepSize) {
                     for (int x = sx0; x <= sxMax; x += stepSize) {
 
-                        getComplexImagettes(x, y, iBandData, qBandData, srcIndex, I, Q, mask);
-
                         // check for no data value
-                        boolean allNoData = true;
-                        for (double[] aI : I) {
-                            for (int c = 0; c < colMax; ++c) {
-                                if (aI[c] != noDataValue) {
-                                    allNoData = false;
-                                    break;
-                                }
-                            }
-                            if (!allNoData)
-                                break;
-                        }
-                        if (allNoData) {
+                        if (!getComplexImagettes(x, y, iBandData, qBandData, srcIndex, spec, mask)) {
                             continue;
                         }
 
-                        perform2DFFT(I, Q, specI, specQ);
+                        FFT2D.complexForward(spec, FFTSize, FFTSize);
 
-                        getPowerSpectrum(specI, specQ, pwrSpec);
+                        getPowerSpectrum(spec, pwrSpec);
 
                         getFilteredPowerSpectrum(pwrSpec, fltSpec, alpha, halfWindowSize);
 
-                        performInverse2DFFT(specI, specQ, fltSpec, I, Q);
+                        for (int k = 0; k < fltSpec.length; ++k) {
+                            spec[2 * k] *= fltSpec[k];
+                            spec[2 * k + 1] *= fltSpec[k];
+                        }
+                        FFT2D.complexInverse(spec, FFTSize, FFTSize, false);
 
-                        updateFilteredBands(x0, y0, w, h, x, y, I, Q, mask, iBandFiltered, qBandFiltered);
+                        updateFilteredBands(x0, y0, w, h, x, y, spec, mask, iBandFiltered, qBandFiltered);
                     }
                 }
 
@@ -356,89 +343,46 @@ public class GoldsteinFilterOp extends Operator {
      * @param y           The y coordinate of the upper left pixel in the sliding window
      * @param iBandData The source tile for I band
      * @param qBandData The source tile for Q band
-     * @param I           Real parts of the retrieved data
-     * @param Q           Imaginary parts of the retrieved data
+     * @param data        The retrieved data, interleaved complex with Q as real and I as imaginary part
+     * @param mask        Set for the pixels of the retrieved data with a valid I value
+     * @return false if all I values are no data
      */
-    private void getComplexImagettes(final int x, final int y,
-                                     final ProductData iBandData, final ProductData qBandData,
-                                     final TileIndex srcIndex,
-                                     final double[][] I, final double[][] Q,
-                                     final boolean[][] mask) {
+    private boolean getComplexImagettes(final int x, final int y,
+                                        final ProductData iBandData, final ProductData qBandData,
+                                        final TileIndex srcIndex, final double[] data, final boolean[] mask) {
         int index;
+        int k = 0;
+        boolean allNoData = true;
         final int maxY = y + FFTSize;
         final int maxX = x + FFTSize;
         for (int yy = y; yy < maxY; yy++) {
             srcIndex.calculateStride(yy);
-            final int yidx = yy - y;
-            for (int xx = x; xx < maxX; xx++) {
+            for (int xx = x; xx < maxX; xx++, k++) {
                 index = srcIndex.getIndex(xx);
-                I[yidx][xx - x] = iBandData.getElemDoubleAt(index);
-                Q[yidx][xx - x] = qBandData.getElemDoubleAt(index);
-                mask[yidx][xx - x] = I[yidx][xx - x] != noDataValue;
+                final double i = iBandData.getElemDoubleAt(index);
+                data[2 * k] = qBandData.getElemDoubleAt(index);
+                data[2 * k + 1] = i;
+                mask[k] = i != noDataValue;
+                allNoData &= !mask[k];
             }
         }
+        return !allNoData;
     }
 
-    private static void perform2DFFT(final double[][] I, final double[][] Q,
-                                     final double[][] specI, final double[][] specQ) {
+    private static void getPowerSpectrum(final double[] spec, final double[] pwrSpec) {
 
-        final int rowMax = I.length;
-        final int colMax = I[0].length;
-
-        // perform 1-D FFT to each row
-        final int rowFFTSize = colMax;
-        final int colFFTSize = rowMax;
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(rowFFTSize);
-        final double[][] complexDataI = new double[colFFTSize][rowFFTSize];
-        final double[][] complexDataQ = new double[colFFTSize][rowFFTSize];
-        final double[] rowArray = new double[2 * rowFFTSize];
-        for (int r = 0; r < rowMax; r++) {
-            int k = 0;
-            for (int c = 0; c < colMax; c++) {
-                rowArray[k++] = Q[r][c];
-                rowArray[k++] = I[r][c];
-            }
-            row_fft.complexForward(rowArray);
-            for (int c = 0; c < rowFFTSize; c++) {
-                complexDataQ[r][c] = rowArray[c + c];
-                complexDataI[r][c] = rowArray[c + c + 1];
-            }
-        }
-
-        // perform 1-D FFT to each column
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(colFFTSize);
-        final double[] colArray = new double[2 * colFFTSize];
-        for (int c = 0; c < colMax; c++) {
-            int k = 0;
-            for (int r = 0; r < rowMax; r++) {
-                colArray[k++] = complexDataQ[r][c];
-                colArray[k++] = complexDataI[r][c];
-            }
-            col_fft.complexForward(colArray);
-            for (int r = 0; r < colFFTSize; r++) {
-                specQ[r][c] = colArray[r + r];
-                specI[r][c] = colArray[r + r + 1];
-            }
-        }
-    }
-
-    private static void getPowerSpectrum(final double[][] specI, final double[][] specQ, final double[][] pwrSpec) {
-
-        final int rowMax = specI.length;
-        final int colMax = specI[0].length;
-
-        for (int r = 0; r < rowMax; r++) {
-            for (int c = 0; c < colMax; c++) {
-                pwrSpec[r][c] = Math.sqrt(specI[r][c] * specI[r][c] + specQ[r][c] * specQ[r][c]);
-            }
+        for (int k = 0; k < pwrSpec.length; k++) {
+            final double q = spec[2 * k];
+            final double i = spec[2 * k + 1];
+            pwrSpec[k] = Math.sqrt(i * i + q * q);
         }
     }
 
     private void getFilteredPowerSpectrum(
-            final double[][] pwrSpec, final double[][] fltSpec, final double alpha, final int halfWindowSize) {
+            final double[] pwrSpec, final double[] fltSpec, final double alpha, final int halfWindowSize) {
 
-        final int rowMax = pwrSpec.length;
-        final int colMax = pwrSpec[0].length;
+        final int rowMax = FFTSize;
+        final int colMax = FFTSize;
 
         for (int r = 0; r < rowMax; r++) {
             final int jMin = Math.max(0, r - halfWindowSize);
@@ -449,66 +393,23 @@ public class GoldsteinFilterOp extends Operator {
                 final int iMin = Math.max(0, c - halfWindowSize);
                 final int iMax = Math.min(colMax - 1, c + halfWindowSize);
                 for (int j = jMin; j <= jMax; j++) {
+                    final int offset = j * colMax;
                     for (int i = iMin; i <= iMax; i++) {
-                        if(pwrSpec[j][i] != noDataValue) {
-                            sum += pwrSpec[j][i];
+                        if(pwrSpec[offset + i] != noDataValue) {
+                            sum += pwrSpec[offset + i];
                             k++;
                         }
                     }
                 }
                 if(k != 0) {
-                    fltSpec[r][c] = FastMath.pow(sum / k, alpha);
+                    fltSpec[r * colMax + c] = FastMath.pow(sum / k, alpha);
                 } else {
-                    fltSpec[r][c] = 0;
+                    fltSpec[r * colMax + c] = 0;
                 }
             }
         }
     }
 
-    private static void performInverse2DFFT(final double[][] specI, final double[][] specQ, final double[][] fltSpec,
-                                            final double[][] I, final double[][] Q) {
-
-        final int rowMax = I.length;
-        final int colMax = I[0].length;
-
-        final int rowFFTSize = colMax;
-        final int colFFTSize = rowMax;
-        final double[][] complexDataI = new double[colFFTSize][rowFFTSize];
-        final double[][] complexDataQ = new double[colFFTSize][rowFFTSize];
-
-        // perform 1-D FFT to each column
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(colFFTSize);
-        final double[] colArray = new double[2 * colFFTSize];
-        for (int c = 0; c < colMax; c++) {
-            int k = 0;
-            for (int r = 0; r < rowMax; r++) {
-                colArray[k++] = specQ[r][c] * fltSpec[r][c];
-                colArray[k++] = specI[r][c] * fltSpec[r][c];
-            }
-            col_fft.complexInverse(colArray, false);
-            for (int r = 0; r < colFFTSize; r++) {
-                complexDataQ[r][c] = colArray[r + r];
-                complexDataI[r][c] = colArray[r + r + 1];
-            }
-        }
-
-        // perform 1-D FFT to each row
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(rowFFTSize);
-        final double[] rowArray = new double[2 * rowFFTSize];
-        for (int r = 0; r < rowMax; r++) {
-            int k = 0;
-            for (int c = 0; c < colMax; c++) {
-                rowArray[k++] = complexDataQ[r][c];
-                rowArray[k++] = complexDataI[r][c];
-            }
-            row_fft.complexInverse(rowArray, false);
-            for (int c = 0; c < rowFFTSize; c++) {
-                Q[r][c] = rowArray[c + c];
-                I[r][c] = rowArray[c + c + 1];
-            }
-        }
-    }
-
     /**
      * @param x0            The x coordinate of the pixel on the upper left corner of current tile.
      * @param y0            The y coordinate of the pixel on the upper left corner of current tile.
@@ -516,14 +417,13 @@ public class GoldsteinFilterOp extends Operator {
      * @param h             The height of current tile.
      * @param x             The x coordinate of the pixel on the upper left corner of the sliding window.
      * @param y             The y coordinate of the pixel on the upper left corner of the sliding window.
-     * @param I             Imaginary part of the filtered imagette.
-     * @param Q             Real part of the filtered imagette.
+     * @param data          The filtered imagette, interleaved complex with Q as real and I as imaginary part.
+     * @param mask          Set for the pixels of the imagette with valid data.
      * @param iBandFiltered Buffer holding imaginary part of the filtered image.
      * @param qBandFiltered Buffer holding real part of the filtered image.
      */
     private void updateFilteredBands(final int x0, final int y0, final int w, final int h,
-                                     final int x, final int y, final double[][] I, final double[][] Q,
-                                     final boolean[][] mask,
+                                     final int x, final int y, final double[] data, final boolean[] mask,
                                      final float[] iBandFiltered, final float[] qBandFiltered) {
 
         final int xSt = FastMath.max(x, x0);
@@ -531,12 +431,13 @@ public class GoldsteinFilterOp extends Operator {
         final int xEd = FastMath.min(x + FFTSize, x0 + w);
         final int yEd = FastMath.min(y + FFTSize, y0 + h);
         for (int yy = ySt; yy < yEd; yy++) {
-            final int yi = yy - y;
+            final int yi = (yy - y) * FFTSize - x;
             final int yw = (yy - y0) * w;
             final double weightY = (1 - Math.abs(yy - y - halfFFTSize + 0.5) / halfFFTSize);
             for (int xx = xSt; xx < xEd; xx++) {
 
-                if(!mask[yi][xx - x]) {
+                final int i = yi + xx;
+                if(!mask[i]) {
                     continue;
                 }
 
@@ -544,8 +445,8 @@ public class GoldsteinFilterOp extends Operator {
                 final double weight = (1 - Math.abs(xx - x - halfFFTSize + 0.5) / halfFFTSize) * weightY;
 
                 final int k = yw + (xx - x0);
-                iBandFiltered[k] += I[yi][xx - x] * weight;
-                qBandFiltered[k] += Q[yi][xx - x] * weight;
+                iBandFiltered[k] += data[2 * i + 1] * weight;
+                qBandFiltered[k] += data[2 * i] * weight;
             }
         }
     }
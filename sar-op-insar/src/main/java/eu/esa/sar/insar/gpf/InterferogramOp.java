@@ -17,6 +17,7 @@ package eu.esa.sar.insar.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
@@ -31,8 +32,6 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.SystemUtils;
-import org.esa.snap.dem.dataio.DEMFactory;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
 import org.esa.snap.engine_utilities.datamodel.Unit;
@@ -811,12 +810,20 @@ public class InterferogramOp extends Operator {
         }
     }
 
+    @Override
+    public synchronized void dispose() {
+        if (dem != null) {
+            DEMTilePool.release(dem);
+            dem = null;
+        }
+    }
+
     private void defineDEM() throws IOException {
 
         String demResamplingMethod = ResamplingFactory.BILINEAR_INTERPOLATION_NAME;
 
         if (externalDEMFile == null) {
-            dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+            dem = DEMTilePool.acquire(demName, demResamplingMethod);
             demNoDataValue = dem.getDescriptor().getNoDataValue();
             demSamplingLat = dem.getDescriptor().getTileWidthInDegrees() * (1.0f /
                     dem.getDescriptor().getTileWidth()) * org.jlinda.core.Constants.DTOR;
@@ -825,8 +832,8 @@ public class InterferogramOp extends Operator {
 
         } else {
 
-            dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
-            ((FileElevationModel) dem).applyEarthGravitionalModel(externalDEMApplyEGM);
+            dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue,
+                    externalDEMApplyEGM);
             demNoDataValue = externalDEMNoDataValue;
             demName = externalDEMFile.getName();
 
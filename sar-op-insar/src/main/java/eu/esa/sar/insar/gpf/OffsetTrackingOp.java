@@ -20,6 +20,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import eu.esa.sar.insar.gpf.coregistration.CrossCorrelationOp;
+import eu.esa.sar.insar.gpf.support.FFTCrossCorrelator;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.downloadable.StatusProgressMonitor;
 import org.esa.snap.core.dataop.resamp.Resampling;
@@ -136,6 +137,14 @@ public class OffsetTrackingOp extends Operator {
     @Parameter(label = "ROI Vector", defaultValue = "")
     private String roiVector = "";
 
+    @Parameter(description = "Cross correlate the GCP patches with FFTs on arrays instead of jblas matrices",
+            defaultValue = "false", label = "Use FFT Correlation Engine")
+    private boolean useFFTCorrelationEngine = false;
+
+    @Parameter(description = "Refine the correlation peak with a parabolic fit instead of oversampling the " +
+            "correlation (FFT correlation engine only)", defaultValue = "false", label = "Sub-pixel Peak Fit")
+    private boolean subPixelPeakFit = false;
+
     private boolean outputDebuggingBands = false;
 
     private int cHalfWindowWidth = 0;
@@ -143,6 +152,10 @@ public class OffsetTrackingOp extends Operator {
     private int halfAvgWindowSize = 0;
     private CrossCorrelationOp.CorrelationWindow corrWin = null;
 
+    // FFT plans and buffers are reused for all the GCPs of a thread
+    private final ThreadLocal<FFTCrossCorrelator> correlator = ThreadLocal.withInitial(FFTCrossCorrelator::new);
+    private final static int GCP_BATCH_SIZE = 16;
+
     private Band masterBand = null;
     private Band slaveBand = null;
     private int sourceImageWidth = 0;
@@ -568,26 +581,31 @@ public class OffsetTrackingOp extends Operator {
 
             final ThreadExecutor executor = new ThreadExecutor();
 
-            for (GCPData gcpData : gcpList) {
+            // with the FFT engine, a worker processes a batch of GCPs with the buffers of its thread
+            final int batchSize = useFFTCorrelationEngine ? GCP_BATCH_SIZE : 1;
+            for (int start = 0; start < gcpList.size(); start += batchSize) {
                 checkForCancellation();
 
+                final List<GCPData> batch = gcpList.subList(start, Math.min(start + batchSize, gcpList.size()));
                 final ThreadRunnable worker = new ThreadRunnable() {
                     @Override
                     public void process() {
-                        final PixelPos sGCP = new PixelPos(gcpData.mGCP.x, gcpData.mGCP.y);
-                        boolean getSlaveGCP = getOffsets(gcpData.mGCP, sGCP);
-                        if (getSlaveGCP) {
-                            saveSlaveGCP(sGCP);
+                        for (GCPData gcpData : batch) {
+                            final PixelPos sGCP = new PixelPos(gcpData.mGCP.x, gcpData.mGCP.y);
+                            boolean getSlaveGCP = getOffsets(gcpData.mGCP, sGCP);
+                            if (getSlaveGCP) {
+                                saveSlaveGCP(gcpData, sGCP);
+                            }
                         }
                     }
 
-                    private synchronized void saveSlaveGCP(final PixelPos sGCP) {
+                    private synchronized void saveSlaveGCP(final GCPData gcpData, final PixelPos sGCP) {
                         velocityData.slvGCPx[gcpData.i][gcpData.j] = sGCP.x;
                         velocityData.slvGCPy[gcpData.i][gcpData.j] = sGCP.y;
                     }
                 };
                 executor.execute(worker);
-                status.worked(1);
+                status.worked(batch.size());
             }
             status.done();
             executor.complete();
@@ -874,8 +892,14 @@ public class OffsetTrackingOp extends Operator {
 
             final double[] coarseOffset = {0, 0};
 
-            double coherence = CoregistrationUtils.crossCorrelateFFT(
-                    coarseOffset, mI, sI, corrWin.ovsFactor, corrWin.accY, corrWin.accX);
+            double coherence;
+            if (useFFTCorrelationEngine) {
+                coherence = correlator.get().crossCorrelateFFT(
+                        coarseOffset, mI, sI, corrWin.ovsFactor, corrWin.accY, corrWin.accX, subPixelPeakFit);
+            } else {
+                coherence = CoregistrationUtils.crossCorrelateFFT(
+                        coarseOffset, mI, sI, corrWin.ovsFactor, corrWin.accY, corrWin.accX);
+            }
 
 //            double coherence = CoregistrationUtils.normalizedCrossCorrelation(
 //                    coarseOffset, mI, sI, corrWin.ovsFactor, corrWin.accY, corrWin.accX);
@@ -17,6 +17,7 @@ package eu.esa.sar.insar.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.SARUtils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
@@ -34,7 +35,6 @@ import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.math.MathUtils;
 import org.esa.snap.dem.dataio.DEMFactory;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.Unit;
@@ -83,7 +83,7 @@ public final class PhaseToElevationOp extends Operator {
     private double externalDEMNoDataValue = 0;
 
     private ElevationModel dem = null;
-    private FileElevationModel fileElevationModel = null;
+    private ElevationModel fileElevationModel = null;
     private TiePointGrid latitudeTPG = null;
     private TiePointGrid longitudeTPG = null;
     private TiePointGrid incidenceAngleTPG = null;
@@ -149,11 +149,12 @@ public final class PhaseToElevationOp extends Operator {
     @Override
     public synchronized void dispose() {
         if (dem != null) {
-            dem.dispose();
+            DEMTilePool.release(dem);
             dem = null;
         }
         if (fileElevationModel != null) {
-            fileElevationModel.dispose();
+            DEMTilePool.release(fileElevationModel);
+            fileElevationModel = null;
         }
     }
 
@@ -345,7 +346,7 @@ public final class PhaseToElevationOp extends Operator {
 
         if (externalDEMFile != null && fileElevationModel == null) { // if external DEM file is specified by user
 
-            fileElevationModel = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
+            fileElevationModel = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
             demNoDataValue = externalDEMNoDataValue;
             demName = externalDEMFile.getPath();
 
@@ -357,7 +358,7 @@ public final class PhaseToElevationOp extends Operator {
                 throw new OperatorException("The DEM '" + demName + "' is not supported.");
             }
 
-            dem = demDescriptor.createDem(ResamplingFactory.createResampling(demResamplingMethod));
+            dem = DEMTilePool.acquire(demName, demResamplingMethod);
             if (dem == null) {
                 throw new OperatorException("The DEM '" + demName + "' has not been installed.");
             }
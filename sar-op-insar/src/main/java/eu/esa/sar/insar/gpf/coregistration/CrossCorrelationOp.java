@@ -17,6 +17,7 @@ package eu.esa.sar.insar.gpf.coregistration;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.insar.gpf.support.FFTCrossCorrelator;
 import eu.esa.sar.insar.gpf.support.JAIFunctions;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
@@ -49,7 +50,9 @@ import javax.media.jai.PlanarImage;
 import javax.media.jai.RasterFactory;
 import java.awt.*;
 import java.awt.image.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -143,6 +146,14 @@ public class CrossCorrelationOp extends Operator {
     @Parameter(defaultValue = "false", label = "Test GCPs are on land")
     private boolean onlyGCPsOnLand = false;
 
+    @Parameter(description = "Cross correlate the GCP imagettes with FFTs on arrays instead of JAI image operations",
+            defaultValue = "false", label = "Use FFT Correlation Engine")
+    private boolean useFFTCorrelationEngine = false;
+    @Parameter(description = "Refine the correlation peak with a parabolic fit (FFT correlation engine only). " +
+            "In fine registration the fit replaces the oversampling of the correlation",
+            defaultValue = "false", label = "Sub-pixel Peak Fit")
+    private boolean subPixelPeakFit = false;
+
     private Band masterBand1;
     private Band masterBand2;
     private boolean complexCoregistration;
@@ -175,6 +186,10 @@ public class CrossCorrelationOp extends Operator {
     private ElevationModel dem = null;
     private CorrelationWindow fineWin;
 
+    // FFT plans and buffers are reused for all the GCPs of a thread
+    private final ThreadLocal<FFTCrossCorrelator> correlator = ThreadLocal.withInitial(FFTCrossCorrelator::new);
+    private final static int GCP_BATCH_SIZE = 16;
+
     /**
      * Initializes this operator and sets the one and only target product.
      * <p>The target product can be either defined by a field of type {@link Product} annotated with the
@@ -570,6 +585,9 @@ public class CrossCorrelationOp extends Operator {
             final StatusProgressMonitor status = new StatusProgressMonitor(StatusProgressMonitor.TYPE.SUBTASK);
             status.beginTask("Cross Correlating " + bandCountStr + ' ' + slaveBand1.getName() + "... ", numberOfMasterGCPs);
 
+            // with the FFT engine, a worker processes a batch of GCPs with the buffers of its thread
+            final int batchSize = useFFTCorrelationEngine ? GCP_BATCH_SIZE : 1;
+            List<Placemark> batch = new ArrayList<>(batchSize);
             for (int i = 0; i < numberOfMasterGCPs; ++i) {
                 checkForCancellation();
 
@@ -577,8 +595,6 @@ public class CrossCorrelationOp extends Operator {
 
                 if (checkMasterGCPValidity(mPin)) {
 
-                    final GeoPos mGCPGeoPos = mPin.getGeoPos();
-                    final PixelPos mGCPPixelPos = mPin.getPixelPos();
                     final PixelPos sGCPPixelPos = new PixelPos(mPin.getPixelPos().x + offset[0],
                                                                mPin.getPixelPos().y + offset[1]);
                     if (!checkSlaveGCPValidity(sGCPPixelPos)) {
@@ -587,56 +603,20 @@ public class CrossCorrelationOp extends Operator {
                         continue;
                     }
 
-                    final ThreadRunnable worker = new ThreadRunnable() {
-
-                        @Override
-                        public void process() {
-                            //System.out.println("Running "+mPin.getName());
-                            boolean getSlaveGCP = getCoarseSlaveGCPPosition(slaveBand1, slaveBand2, mGCPPixelPos, sGCPPixelPos);
-
-                            if (getSlaveGCP && complexCoregistration && applyFineRegistration) {
-                                if (inSAROptimized) {
-                                    getSlaveGCP = getFineOffsets(slaveBand1, slaveBand2, mGCPPixelPos, sGCPPixelPos);
-                                } else {
-                                    getSlaveGCP = getFineSlaveGCPPosition(slaveBand1, slaveBand2, mGCPPixelPos, sGCPPixelPos);
-                                }
-                            }
-
-                            if (getSlaveGCP) {
-
-                                final Placemark sPin = Placemark.createPointPlacemark(
-                                        GcpDescriptor.getInstance(),
-                                        mPin.getName(),
-                                        mPin.getLabel(),
-                                        mPin.getDescription(),
-                                        sGCPPixelPos,
-                                        mGCPGeoPos,
-                                        tgtGeoCoding);
-
-                                addPlacemark(sPin);
-                                //System.out.println("final "+mPin.getName()+" = " + "(" + sGCPPixelPos.x + "," + sGCPPixelPos.y + ")");
-                                //System.out.println();
-
-                            } else {
-                                //System.out.println("GCP(" + mPin.getName() + ") is invalid.");
-                                synchronized (status) {
-                                    status.worked(1);
-                                }
-                            }
-                        }
-
-                        private synchronized void addPlacemark(final Placemark pin) {
-                            targetGCPGroup.add(pin);
-                            status.worked(1);
-                        }
-
-                    };
-
-                    executor.execute(worker);
+                    batch.add(mPin);
+                    if (batch.size() == batchSize) {
+                        executor.execute(createGCPWorker(batch, slaveBand1, slaveBand2, offset,
+                                targetGCPGroup, tgtGeoCoding, status));
+                        batch = new ArrayList<>(batchSize);
+                    }
                 } else {
                     status.worked(1);
                 }
             }
+            if (!batch.isEmpty()) {
+                executor.execute(createGCPWorker(batch, slaveBand1, slaveBand2, offset,
+                        targetGCPGroup, tgtGeoCoding, status));
+            }
 
             executor.complete();
 
@@ -652,6 +632,63 @@ public class CrossCorrelationOp extends Operator {
         gcpsComputedMap.put(slaveBand1, true);
     }
 
+    /**
+     * Create a worker finding the slave GCPs of a batch of master GCPs.
+     */
+    private ThreadRunnable createGCPWorker(final List<Placemark> mPins, final Band slaveBand1, final Band slaveBand2,
+                                           final int[] offset, final ProductNodeGroup<Placemark> targetGCPGroup,
+                                           final GeoCoding tgtGeoCoding, final StatusProgressMonitor status) {
+        return new ThreadRunnable() {
+
+            @Override
+            public void process() {
+                final double[] mI = new double[cWindowWidth * cWindowHeight];
+                final double[] sI = new double[cWindowWidth * cWindowHeight];
+
+                for (Placemark mPin : mPins) {
+                    //System.out.println("Running "+mPin.getName());
+                    final GeoPos mGCPGeoPos = mPin.getGeoPos();
+                    final PixelPos mGCPPixelPos = mPin.getPixelPos();
+                    final PixelPos sGCPPixelPos = new PixelPos(mPin.getPixelPos().x + offset[0],
+                                                               mPin.getPixelPos().y + offset[1]);
+
+                    boolean getSlaveGCP = getCoarseSlaveGCPPosition(slaveBand1, slaveBand2, mGCPPixelPos,
+                            sGCPPixelPos, mI, sI);
+
+                    if (getSlaveGCP && complexCoregistration && applyFineRegistration) {
+                        if (inSAROptimized) {
+                            getSlaveGCP = getFineOffsets(slaveBand1, slaveBand2, mGCPPixelPos, sGCPPixelPos);
+                        } else {
+                            getSlaveGCP = getFineSlaveGCPPosition(slaveBand1, slaveBand2, mGCPPixelPos, sGCPPixelPos);
+                        }
+                    }
+
+                    if (getSlaveGCP) {
+
+                        final Placemark sPin = Placemark.createPointPlacemark(
+                                GcpDescriptor.getInstance(),
+                                mPin.getName(),
+                                mPin.getLabel(),
+                                mPin.getDescription(),
+                                sGCPPixelPos,
+                                mGCPGeoPos,
+                                tgtGeoCoding);
+
+                        synchronized (targetGCPGroup) {
+                            targetGCPGroup.add(sPin);
+                        }
+                        //System.out.println("final "+mPin.getName()+" = " + "(" + sGCPPixelPos.x + "," + sGCPPixelPos.y + ")");
+                    }
+                    //else System.out.println("GCP(" + mPin.getName() + ") is invalid.");
+
+                    synchronized (status) {
+                        status.worked(1);
+                    }
+                }
+            }
+        };
+    }
+
     private void determiningImageOffset(final Band slaveBand1, final Band slaveBand2, int[] offset) {
 
         try {
@@ -899,7 +936,13 @@ public class CrossCorrelationOp extends Operator {
 
             final double[] fineOffset = {0.0, 0.0};
 
-            final double coherence = CoregistrationUtils.crossCorrelateFFT(fineOffset, mI, sI, fineWin.ovsFactor, fineWin.accY, fineWin.accX);
+            final double coherence;
+            if (useFFTCorrelationEngine) {
+                coherence = correlator.get().crossCorrelateFFT(fineOffset, mI, sI, fineWin.ovsFactor,
+                        fineWin.accY, fineWin.accX, subPixelPeakFit);
+            } else {
+                coherence = CoregistrationUtils.crossCorrelateFFT(fineOffset, mI, sI, fineWin.ovsFactor, fineWin.accY, fineWin.accX);
+            }
 
             //SystemUtils.LOG.info("Final sGCP = ({},{})" + fineOffset[1] + fineOffset[0]);
             //SystemUtils.LOG.info("Final sGCP coherence = {}" + coherence);
@@ -933,17 +976,18 @@ public class CrossCorrelationOp extends Operator {
     }
 
     private boolean getCoarseSlaveGCPPosition(final Band slaveBand, final Band slaveBand2,
-                                              final PixelPos mGCPPixelPos, final PixelPos sGCPPixelPos) {
+                                              final PixelPos mGCPPixelPos, final PixelPos sGCPPixelPos,
+                                              final double[] mI, final double[] sI) {
         try {
-            final double[] mI = new double[cWindowWidth * cWindowHeight];
-            final double[] sI = new double[cWindowWidth * cWindowHeight];
-
             final boolean getMISuccess = getMasterImagette(mGCPPixelPos, mI);
             if (!getMISuccess) {
                 return false;
             }
             //System.out.println("Master imagette:");
             //outputRealImage(mI);
+            if (useFFTCorrelationEngine) {
+                correlator.get().setMaster(mI, cWindowWidth, cWindowHeight);
+            }
 
             double rowShift = gcpTolerance + 1;
             double colShift = gcpTolerance + 1;
@@ -1145,6 +1189,19 @@ public class CrossCorrelationOp extends Operator {
 
     private boolean getSlaveGCPShift(final double[] shift, final double[] mI, final double[] sI) {
         try {
+            if (useFFTCorrelationEngine) {
+                // master spectrum set by getCoarseSlaveGCPPosition
+                final FFTCrossCorrelator fftCorrelator = correlator.get();
+                final double[] real = fftCorrelator.correlate(sI, rowUpSamplingFactor, colUpSamplingFactor);
+                final int w = fftCorrelator.getCorrelationWidth();
+                final int h = fftCorrelator.getCorrelationHeight();
+
+                final double[] peak = new double[2];
+                FFTCrossCorrelator.findPeak(real, w, h, subPixelPeakFit, peak);
+                setShift(shift, peak[0], peak[1], w, h);
+                return true;
+            }
+
             // perform cross correlation
             final PlanarImage crossCorrelatedImage = computeCrossCorrelatedImage(mI, sI);
 
@@ -1186,18 +1243,7 @@ public class CrossCorrelationOp extends Operator {
             }
             //System.out.println("peak = " + peak + " at (" + peakRow + ", " + peakCol + ")");
 
-            if (peakRow <= h / 2) {
-                shift[0] = (double) (-peakRow) / (double) rowUpSamplingFactor;
-            } else {
-                shift[0] = (double) (h - peakRow) / (double) rowUpSamplingFactor;
-            }
-
-            if (peakCol <= w / 2) {
-                shift[1] = (double) (-peakCol) / (double) colUpSamplingFactor;
-            } else {
-                shift[1] = (double) (w - peakCol) / (double) colUpSamplingFactor;
-            }
-
+            setShift(shift, peakRow, peakCol, w, h);
             return true;
         } catch (Throwable t) {
             SystemUtils.LOG.warning("getSlaveGCPShift failed " + t.getMessage());
@@ -1205,6 +1251,21 @@ public class CrossCorrelationOp extends Operator {
         }
     }
 
+    private void setShift(final double[] shift, final double peakRow, final double peakCol, final int w, final int h) {
+
+        if (peakRow <= h / 2) {
+            shift[0] = -peakRow / (double) rowUpSamplingFactor;
+        } else {
+            shift[0] = (h - peakRow) / (double) rowUpSamplingFactor;
+        }
+
+        if (peakCol <= w / 2) {
+            shift[1] = -peakCol / (double) colUpSamplingFactor;
+        } else {
+            shift[1] = (w - peakCol) / (double) colUpSamplingFactor;
+        }
+    }
+
     private PlanarImage computeCrossCorrelatedImage(final double[] mI, final double[] sI) {
 
         // get master imagette spectrum
@@ -16,6 +16,7 @@
 package eu.esa.sar.insar.gpf.coregistration;
 
 import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.OrbitStateVectors;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.insar.gpf.support.SARPosition;
@@ -36,7 +37,6 @@ import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.dem.dataio.DEMFactory;
 import org.esa.snap.dem.dataio.EarthGravitationalModel96;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.ProductInformation;
@@ -462,6 +462,14 @@ public final class DEMAssistedCoregistrationOp extends Operator {
         }
     }
 
+    @Override
+    public synchronized void dispose() {
+        if (dem != null) {
+            DEMTilePool.release(dem);
+            dem = null;
+        }
+    }
+
     /**
      * Get elevation model.
      *
@@ -472,11 +480,11 @@ public final class DEMAssistedCoregistrationOp extends Operator {
         if (isElevationModelAvailable) return;
         try {
             if (externalDEMFile != null) { // if external DEM file is specified by user
-                dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
+                dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
                 demNoDataValue = externalDEMNoDataValue;
                 demName = externalDEMFile.getPath();
             } else {
-                dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+                dem = DEMTilePool.acquire(demName, demResamplingMethod);
                 demNoDataValue = dem.getDescriptor().getNoDataValue();
             }
         } catch (Throwable t) {
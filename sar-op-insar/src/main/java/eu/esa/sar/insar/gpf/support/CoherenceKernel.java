@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.insar.gpf.support;
+
+/**
+ * Coherence estimation with a rectangular window on interleaved re/im sample buffers.
+ * <p>
+ * The window sums of m * conj(s), |m|^2 and |s|^2 are separable: each input row is first summed over the range
+ * window with a running sum, and the range sums are then accumulated over the azimuth window with a second
+ * running sum. A pixel costs a constant number of operations whatever the window size and nothing is allocated
+ * per pixel. The kernel runs on the calling thread; GPF already computes tiles in parallel.
+ * <p>
+ * The output layout is the one of SarUtils.coherence2: output pixel (i, j) is the coherence of the window with
+ * rows i to i + winAz - 1 and columns j to j + winRg - 1 of the input.
+ */
+public final class CoherenceKernel {
+
+    private CoherenceKernel() {
+    }
+
+    /**
+     * Compute the coherence of a master and a slave tile.
+     *
+     * @param master    The master samples, interleaved re/im, row by row.
+     * @param slave     The slave samples, interleaved re/im, row by row.
+     * @param width     The number of input columns.
+     * @param height    The number of input rows.
+     * @param winAz     The window size in azimuth (rows).
+     * @param winRg     The window size in range (columns).
+     * @param coherence Receives the (height - winAz + 1) x (width - winRg + 1) coherence values, row by row.
+     */
+    public static void coherence(final float[] master, final float[] slave, final int width, final int height,
+                                 final int winAz, final int winRg, final float[] coherence) {
+
+        final int outW = width - winRg + 1;
+        final int outH = height - winAz + 1;
+        if (outW <= 0 || outH <= 0) {
+            return;
+        }
+        if (master.length < 2 * width * height || slave.length < 2 * width * height) {
+            throw new IllegalArgumentException("coherence: input smaller than " + width + " x " + height);
+        }
+        if (coherence.length < outW * outH) {
+            throw new IllegalArgumentException("coherence: output smaller than " + outW + " x " + outH);
+        }
+
+        // range window sums of the last winAz input rows, 4 values per column: re, im of m * conj(s), |m|^2, |s|^2
+        final double[] ring = new double[winAz * 4 * outW];
+        // azimuth running sums of the range sums
+        final double[] acc = new double[4 * outW];
+
+        for (int k = 0; k < winAz - 1; ++k) {
+            addRow(master, slave, width, winRg, k, ring, k * 4 * outW, acc);
+        }
+
+        for (int i = 0; i < outH; ++i) {
+            final int newRow = i + winAz - 1;
+            final int slot = (newRow % winAz) * 4 * outW;
+            addRow(master, slave, width, winRg, newRow, ring, slot, acc);
+
+            final int dst = i * outW;
+            for (int j = 0, a = 0; j < outW; ++j, a += 4) {
+                final double re = acc[a];
+                final double im = acc[a + 1];
+                final double power = acc[a + 2] * acc[a + 3];
+                coherence[dst + j] = power > 0.0 ? (float) (Math.sqrt(re * re + im * im) / Math.sqrt(power)) : 0f;
+            }
+
+            // the oldest row leaves the window: its slot is the next one to be overwritten
+            final int oldSlot = (i % winAz) * 4 * outW;
+            for (int a = 0; a < 4 * outW; ++a) {
+                acc[a] -= ring[oldSlot + a];
+            }
+        }
+    }
+
+    /**
+     * Multiply the samples by exp(j * phase), e.g. to remove the flat earth or topographic phase from a slave.
+     *
+     * @param samples The samples, interleaved re/im, row by row.
+     * @param phase   The phase in radians, phase[row][column].
+     */
+    public static void applyPhase(final float[] samples, final double[][] phase) {
+        for (int y = 0, s = 0; y < phase.length; ++y) {
+            final double[] row = phase[y];
+            for (int x = 0; x < row.length; ++x, s += 2) {
+                final double cos = Math.cos(row[x]);
+                final double sin = Math.sin(row[x]);
+                final double re = samples[s], im = samples[s + 1];
+                samples[s] = (float) (re * cos - im * sin);
+                samples[s + 1] = (float) (re * sin + im * cos);
+            }
+        }
+    }
+
+    /**
+     * Compute the range window sums of an input row into a ring slot and add them to the azimuth sums.
+     */
+    private static void addRow(final float[] master, final float[] slave, final int width, final int winRg,
+                               final int row, final double[] ring, final int slot, final double[] acc) {
+
+        final int src = 2 * row * width;
+        double re = 0.0, im = 0.0, mPow = 0.0, sPow = 0.0;
+        for (int l = 0; l < winRg; ++l) {
+            final int s = src + 2 * l;
+            final double mRe = master[s], mIm = master[s + 1];
+            final double sRe = slave[s], sIm = slave[s + 1];
+            re += mRe * sRe + mIm * sIm;
+            im += mIm * sRe - mRe * sIm;
+            mPow += mRe * mRe + mIm * mIm;
+            sPow += sRe * sRe + sIm * sIm;
+        }
+
+        final int outW = width - winRg + 1;
+        for (int j = 0, a = 0; ; ++j, a += 4) {
+            ring[slot + a] = re;
+            ring[slot + a + 1] = im;
+            ring[slot + a + 2] = mPow;
+            ring[slot + a + 3] = sPow;
+            acc[a] += re;
+            acc[a + 1] += im;
+            acc[a + 2] += mPow;
+            acc[a + 3] += sPow;
+            if (j == outW - 1) {
+                break;
+            }
+
+            final int in = src + 2 * (j + winRg);
+            final int out = src + 2 * j;
+            final double mReIn = master[in], mImIn = master[in + 1];
+            final double sReIn = slave[in], sImIn = slave[in + 1];
+            final double mReOut = master[out], mImOut = master[out + 1];
+            final double sReOut = slave[out], sImOut = slave[out + 1];
+            re += (mReIn * sReIn + mImIn * sImIn) - (mReOut * sReOut + mImOut * sImOut);
+            im += (mImIn * sReIn - mReIn * sImIn) - (mImOut * sReOut - mReOut * sImOut);
+            mPow += (mReIn * mReIn + mImIn * mImIn) - (mReOut * mReOut + mImOut * mImOut);
+            sPow += (sReIn * sReIn + sImIn * sImIn) - (sReOut * sReOut + sImOut * sImOut);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.insar.gpf.support;
+
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_2D;
+import org.jblas.ComplexDoubleMatrix;
+import org.jblas.DoubleMatrix;
+import org.jlinda.core.utils.MathUtils;
+import org.jlinda.core.utils.SarUtils;
+
+import java.util.Arrays;
+
+/**
+ * FFT cross correlation of GCP imagettes on plain arrays, in place of the JAI image operations and of the jblas
+ * matrices of CoregistrationUtils.crossCorrelateFFT.
+ * <p>
+ * The FFT plans and work buffers are kept from one call to the next, so a correlator is meant to be reused for all
+ * the GCPs processed by a thread and must not be shared between threads. The spectrum of the master imagette is
+ * computed once by setMaster and reused for all the slave imagettes correlated with it.
+ * <p>
+ * Arrays are row major, complex arrays interleave the real and imaginary parts.
+ */
+public final class FFTCrossCorrelator {
+
+    // imagette size and master spectrum of setMaster
+    private int width;
+    private int height;
+    private DoubleFFT_2D imagetteFFT;
+    private double[] masterSpectrum = new double[0];
+    private double[] slaveSpectrum = new double[0];
+
+    // upsampled cross spectrum and its magnitude, see correlate
+    private int correlationWidth;
+    private int correlationHeight;
+    private DoubleFFT_2D upsampledFFT;
+    private double[] upsampled = new double[0];
+    private double[] correlation = new double[0];
+
+    // zero padded patches and kernel spectrum of crossCorrelateFFT
+    private int patchRows;
+    private int patchCols;
+    private DoubleFFT_2D paddedFFT;
+    private double[] padded = new double[0];
+    private double[] crossProducts = new double[0];
+    private double[] norms = new double[0];
+    private double[] blockSpectrum = new double[0];
+    private double[] covar = new double[0];
+    private double[] magMaster = new double[0];
+    private double[] magMask = new double[0];
+
+    /**
+     * Set the master imagette and compute its spectrum.
+     *
+     * @param master the master imagette
+     * @param w      the imagette width
+     * @param h      the imagette height
+     */
+    public void setMaster(final double[] master, final int w, final int h) {
+
+        if (imagetteFFT == null || w != width || h != height) {
+            width = w;
+            height = h;
+            imagetteFFT = new DoubleFFT_2D(h, w);
+            masterSpectrum = new double[2 * w * h];
+            slaveSpectrum = new double[2 * w * h];
+        }
+        System.arraycopy(master, 0, masterSpectrum, 0, w * h);
+        imagetteFFT.realForwardFull(masterSpectrum);
+    }
+
+    /**
+     * Cross correlate a slave imagette with the master imagette, as JAIFunctions dft, conjugate, multiplyComplex,
+     * upsampling, idft and magnitude do: the cross spectrum master * conj(slave) is zero padded to
+     * rowUpSamplingFactor times the width and colUpSamplingFactor times the height before the inverse transform.
+     *
+     * @param slave               the slave imagette, of the size of the master imagette
+     * @param rowUpSamplingFactor the upsampling factor of the width
+     * @param colUpSamplingFactor the upsampling factor of the height
+     * @return the magnitude of the cross correlation, of getCorrelationWidth() by getCorrelationHeight() samples.
+     * The array is reused by the next call.
+     */
+    public double[] correlate(final double[] slave, final int rowUpSamplingFactor, final int colUpSamplingFactor) {
+
+        final int w = width;
+        final int h = height;
+        final int newWidth = rowUpSamplingFactor * w;
+        final int newHeight = colUpSamplingFactor * h;
+        if (upsampledFFT == null || newWidth != correlationWidth || newHeight != correlationHeight) {
+            correlationWidth = newWidth;
+            correlationHeight = newHeight;
+            upsampledFFT = new DoubleFFT_2D(newHeight, newWidth);
+            upsampled = new double[2 * newWidth * newHeight];
+            correlation = new double[newWidth * newHeight];
+        }
+
+        System.arraycopy(slave, 0, slaveSpectrum, 0, w * h);
+        imagetteFFT.realForwardFull(slaveSpectrum);
+
+        // cross spectrum, with the negative frequencies moved to the end of the upsampled spectrum
+        Arrays.fill(upsampled, 0.0);
+        for (int r = 0; r < h; r++) {
+            final int R = r < h / 2 ? r : r - h + newHeight;
+            for (int c = 0; c < w; c++) {
+                final int C = c < w / 2 ? c : c - w + newWidth;
+                final int k = 2 * (r * w + c);
+                final int K = 2 * (R * newWidth + C);
+                final double mr = masterSpectrum[k];
+                final double mi = masterSpectrum[k + 1];
+                final double sr = slaveSpectrum[k];
+                final double si = slaveSpectrum[k + 1];
+                upsampled[K] = mr * sr + mi * si;
+                upsampled[K + 1] = mi * sr - mr * si;
+            }
+        }
+
+        upsampledFFT.complexInverse(upsampled, true);
+
+        for (int i = 0, k = 0; i < correlation.length; i++, k += 2) {
+            correlation[i] = Math.sqrt(upsampled[k] * upsampled[k] + upsampled[k + 1] * upsampled[k + 1]);
+        }
+        return correlation;
+    }
+
+    public int getCorrelationWidth() {
+        return correlationWidth;
+    }
+
+    public int getCorrelationHeight() {
+        return correlationHeight;
+    }
+
+    /**
+     * Find the maximum of a correlation surface.
+     *
+     * @param surface     the correlation surface
+     * @param w           the surface width
+     * @param h           the surface height
+     * @param subPixelFit refine the maximum with a parabola through the neighbouring samples, the surface being
+     *                    periodic
+     * @param peak        the row and column of the maximum
+     */
+    public static void findPeak(final double[] surface, final int w, final int h, final boolean subPixelFit,
+                                final double[] peak) {
+
+        int peakRow = 0;
+        int peakCol = 0;
+        double max = surface[0];
+        for (int r = 0; r < h; r++) {
+            for (int c = 0; c < w; c++) {
+                final int k = r * w + c;
+                if (surface[k] > max) {
+                    max = surface[k];
+                    peakRow = r;
+                    peakCol = c;
+                }
+            }
+        }
+
+        peak[0] = peakRow;
+        peak[1] = peakCol;
+        if (subPixelFit) {
+            final int rowAbove = (peakRow + h - 1) % h;
+            final int rowBelow = (peakRow + 1) % h;
+            final int colLeft = (peakCol + w - 1) % w;
+            final int colRight = (peakCol + 1) % w;
+            peak[0] += parabolicPeak(surface[rowAbove * w + peakCol], max, surface[rowBelow * w + peakCol]);
+            peak[1] += parabolicPeak(surface[peakRow * w + colLeft], max, surface[peakRow * w + colRight]);
+        }
+    }
+
+    /**
+     * Offset of the vertex of the parabola through three equally spaced samples from the middle one.
+     */
+    static double parabolicPeak(final double before, final double middle, final double after) {
+        final double curvature = before - 2.0 * middle + after;
+        if (curvature >= 0.0) {
+            return 0.0;
+        }
+        final double offset = 0.5 * (before - after) / curvature;
+        return Math.max(-0.5, Math.min(0.5, offset));
+    }
+
+    /**
+     * Normalised cross correlation of the de-meaned magnitudes of a master and a slave patch, as
+     * CoregistrationUtils.crossCorrelateFFT computes it.
+     * <p>
+     * The two real zero padded patches are transformed together as the real and imaginary parts of one complex
+     * array, and the spectrum of the window used for the norms only depends on the patch size and is kept.
+     *
+     * @param offset      the line and pixel offset of the slave patch
+     * @param master      the master patch
+     * @param mask        the slave patch
+     * @param ovsFactor   the oversampling factor of the correlation around its maximum
+     * @param accL        the half size in lines of the oversampled correlation
+     * @param accP        the half size in pixels of the oversampled correlation
+     * @param subPixelFit refine the maximum with a parabolic fit instead of oversampling the correlation
+     * @return the correlation at the maximum
+     */
+    public double crossCorrelateFFT(final double[] offset, final ComplexDoubleMatrix master,
+                                    final ComplexDoubleMatrix mask, final int ovsFactor,
+                                    final int accL, final int accP, final boolean subPixelFit) {
+
+        final int L = master.rows;
+        final int P = master.columns;
+        final int twoL = 2 * L;
+        final int twoP = 2 * P;
+        final int halfL = L / 2;
+        final int halfP = P / 2;
+
+        if (master.rows != mask.rows || master.columns != mask.columns) {
+            throw new IllegalArgumentException("mask, master not same size.");
+        }
+        if (!(MathUtils.isPower2(L) || MathUtils.isPower2(P))) {
+            throw new IllegalArgumentException("mask, master size not power of 2.");
+        }
+        if (!MathUtils.isPower2(ovsFactor)) {
+            throw new IllegalArgumentException("coherencefft factor not power of 2");
+        }
+
+        allocatePadded(L, P);
+
+        // zero mean magnitudes, master at the origin and slave centred in the padded patches
+        magnitude(master, magMaster);
+        magnitude(mask, magMask);
+
+        Arrays.fill(padded, 0.0);
+        for (int l = 0; l < L; l++) {
+            for (int p = 0; p < P; p++) {
+                padded[2 * (l * twoP + p)] = magMaster[l * P + p];
+                padded[2 * ((l + halfL) * twoP + p + halfP) + 1] = magMask[l * P + p];
+            }
+        }
+        paddedFFT.complexForward(padded);
+
+        // cross products conj(M) * S, with M and S separated from the spectrum Z = M + iS of the two real patches
+        for (int l = 0; l < twoL; l++) {
+            final int negL = (twoL - l) % twoL;
+            for (int p = 0; p < twoP; p++) {
+                final int negP = (twoP - p) % twoP;
+                final int k = 2 * (l * twoP + p);
+                final int n = 2 * (negL * twoP + negP);
+                final double a = padded[k];
+                final double b = padded[k + 1];
+                final double c = padded[n];
+                final double d = padded[n + 1];
+                final double mr = 0.5 * (a + c);
+                final double mi = 0.5 * (b - d);
+                final double sr = 0.5 * (b + d);
+                final double si = 0.5 * (c - a);
+                crossProducts[k] = mr * sr + mi * si;
+                crossProducts[k + 1] = mr * si - mi * sr;
+            }
+        }
+        paddedFFT.complexInverse(crossProducts, true);
+
+        // norms for all shifts: the flipped master power in the real part, the slave power in the imaginary part
+        Arrays.fill(norms, 0.0);
+        for (int l = L; l < twoL; l++) {
+            for (int p = P; p < twoP; p++) {
+                final double realPart = magMaster[(twoL - 1 - l) * P + twoP - 1 - p];
+                final double imagPart = magMask[(l - L) * P + p - P];
+                final int k = 2 * (l * twoP + p);
+                norms[k] = realPart * realPart;
+                norms[k + 1] = imagPart * imagPart;
+            }
+        }
+        paddedFFT.complexForward(norms);
+        for (int k = 0; k < norms.length; k += 2) {
+            final double re = norms[k];
+            final double im = norms[k + 1];
+            final double br = blockSpectrum[k];
+            final double bi = blockSpectrum[k + 1];
+            norms[k] = re * br - im * bi;
+            norms[k + 1] = re * bi + im * br;
+        }
+        paddedFFT.complexInverse(norms, true);
+
+        // maximum correlation at pixel level
+        final int covarCols = P + 1;
+        double maxCorr = -999.0f;
+        int maxcorrL = 0;
+        int maxcorrP = 0;
+        for (int l = 0; l <= L; ++l) {
+            for (int p = 0; p <= P; ++p) {
+                final int k = 2 * (l * twoP + p);
+                final double value = crossProducts[k] / Math.sqrt(norms[k] * norms[k + 1]);
+                covar[l * covarCols + p] = value;
+                if (value > maxCorr) {
+                    maxCorr = value;
+                    maxcorrL = l;
+                    maxcorrP = p;
+                }
+            }
+        }
+
+        double offsetL = -halfL + maxcorrL;
+        double offsetP = -halfP + maxcorrP;
+
+        if (subPixelFit) {
+            if (maxcorrL > 0 && maxcorrL < L) {
+                offsetL += parabolicPeak(covar[(maxcorrL - 1) * covarCols + maxcorrP], maxCorr,
+                        covar[(maxcorrL + 1) * covarCols + maxcorrP]);
+            }
+            if (maxcorrP > 0 && maxcorrP < P) {
+                offsetP += parabolicPeak(covar[maxcorrL * covarCols + maxcorrP - 1], maxCorr,
+                        covar[maxcorrL * covarCols + maxcorrP + 1]);
+            }
+        } else if (ovsFactor > 1) {
+            // oversample a chip around the maximum, if possible
+            maxcorrL = Math.min(Math.max(maxcorrL, accL), L - accL);
+            maxcorrP = Math.min(Math.max(maxcorrP, accP), P - accP);
+
+            final DoubleMatrix chip = new DoubleMatrix(2 * accL, 2 * accP);
+            for (int l = 0; l < 2 * accL; l++) {
+                for (int p = 0; p < 2 * accP; p++) {
+                    chip.put(l, p, covar[(maxcorrL - accL + l) * covarCols + maxcorrP - accP + p]);
+                }
+            }
+
+            final DoubleMatrix chipOversampled =
+                    SarUtils.oversample(new ComplexDoubleMatrix(chip), ovsFactor, ovsFactor).getReal();
+            final int corrIndex = chipOversampled.argmax();
+            if (corrIndex >= 0) {
+                final int offP = chipOversampled.indexColumns(corrIndex);
+                final int offL = chipOversampled.indexRows(corrIndex);
+                maxCorr = chipOversampled.get(corrIndex);
+
+                offsetL = -halfL + maxcorrL - accL + (double) offL / (double) ovsFactor;
+                offsetP = -halfP + maxcorrP - accP + (double) offP / (double) ovsFactor;
+            }
+        }
+
+        offset[0] = offsetL;
+        offset[1] = offsetP;
+        return maxCorr;
+    }
+
+    private void allocatePadded(final int L, final int P) {
+
+        if (paddedFFT != null && L == patchRows && P == patchCols) {
+            return;
+        }
+        patchRows = L;
+        patchCols = P;
+
+        final int twoL = 2 * L;
+        final int twoP = 2 * P;
+        paddedFFT = new DoubleFFT_2D(twoL, twoP);
+        padded = new double[2 * twoL * twoP];
+        crossProducts = new double[2 * twoL * twoP];
+        norms = new double[2 * twoL * twoP];
+        covar = new double[(L + 1) * (P + 1)];
+        magMaster = new double[L * P];
+        magMask = new double[L * P];
+
+        // conjugate spectrum of the window of the slave patch in the padded patch
+        blockSpectrum = new double[2 * twoL * twoP];
+        for (int l = L / 2; l < L / 2 + L; ++l) {
+            for (int p = P / 2; p < P / 2 + P; ++p) {
+                blockSpectrum[2 * (l * twoP + p)] = 1.0;
+            }
+        }
+        paddedFFT.complexForward(blockSpectrum);
+        for (int k = 1; k < blockSpectrum.length; k += 2) {
+            blockSpectrum[k] = -blockSpectrum[k];
+        }
+    }
+
+    /**
+     * Magnitude of a complex matrix less its mean, row major.
+     */
+    private static void magnitude(final ComplexDoubleMatrix matrix, final double[] mag) {
+
+        final int rows = matrix.rows;
+        final int cols = matrix.columns;
+        final double[] data = matrix.data;  // column major, interleaved
+        double sum = 0.0;
+        for (int c = 0; c < cols; c++) {
+            for (int r = 0; r < rows; r++) {
+                final int k = 2 * (c * rows + r);
+                final double value = Math.sqrt(data[k] * data[k] + data[k + 1] * data[k + 1]);
+                mag[r * cols + c] = value;
+                sum += value;
+            }
+        }
+        final double mean = sum / mag.length;
+        for (int i = 0; i < mag.length; i++) {
+            mag[i] -= mean;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.insar.gpf.support;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestCoherenceKernel {
+
+    @Test
+    public void testMatchesWindowSums() {
+        final int width = 300, height = 250;
+        final float[] master = new float[2 * width * height];
+        final float[] slave = new float[2 * width * height];
+        final Random random = new Random(5);
+        for (int i = 0; i < master.length; ++i) {
+            master[i] = (float) (100.0 * random.nextGaussian());
+            // partially correlated slave
+            slave[i] = (float) (0.7 * master[i] + 50.0 * random.nextGaussian());
+        }
+        // a zero border as produced by BORDER_ZERO
+        for (int x = 0; x < width; ++x) {
+            master[2 * x] = master[2 * x + 1] = 0f;
+        }
+
+        for (int[] window : new int[][]{{3, 10}, {10, 40}, {1, 1}, {4, 5}}) {
+            final int winAz = window[0], winRg = window[1];
+            final int outW = width - winRg + 1, outH = height - winAz + 1;
+            final float[] coherence = new float[outW * outH];
+            CoherenceKernel.coherence(master, slave, width, height, winAz, winRg, coherence);
+
+            for (int i = 0; i < outH; i += 7) {
+                for (int j = 0; j < outW; j += 3) {
+                    assertEquals(getCoherence(master, slave, width, i, j, winAz, winRg),
+                            coherence[i * outW + j], 1e-5);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIdenticalAndZeroSamples() {
+        final int width = 6, height = 5;
+        final float[] master = new float[2 * width * height];
+        for (int i = 0; i < master.length; ++i) {
+            master[i] = i % 3 - 1;
+        }
+        final float[] coherence = new float[4 * 4];
+        CoherenceKernel.coherence(master, master, width, height, 2, 3, coherence);
+        for (float c : coherence) {
+            assertEquals(1.0, c, 1e-6);
+        }
+
+        CoherenceKernel.coherence(new float[2 * width * height], master, width, height, 2, 3, coherence);
+        for (float c : coherence) {
+            assertEquals(0.0, c, 0.0);
+        }
+    }
+
+    @Test
+    public void testApplyPhase() {
+        final int width = 4, height = 3;
+        final float[] samples = new float[2 * width * height];
+        final double[][] phase = new double[height][width];
+        final Random random = new Random(7);
+        for (int y = 0, s = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x, s += 2) {
+                samples[s] = (float) random.nextGaussian();
+                samples[s + 1] = (float) random.nextGaussian();
+                phase[y][x] = 2.0 * Math.PI * random.nextDouble();
+            }
+        }
+        final float[] rotated = samples.clone();
+        CoherenceKernel.applyPhase(rotated, phase);
+
+        for (int y = 0, s = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x, s += 2) {
+                final double cos = Math.cos(phase[y][x]), sin = Math.sin(phase[y][x]);
+                assertEquals(samples[s] * cos - samples[s + 1] * sin, rotated[s], 1e-6);
+                assertEquals(samples[s] * sin + samples[s + 1] * cos, rotated[s + 1], 1e-6);
+            }
+        }
+    }
+
+    /**
+     * The coherence of the window with upper left corner (i, j), computed directly.
+     */
+    private static double getCoherence(final float[] master, final float[] slave, final int width,
+                                       final int i, final int j, final int winAz, final int winRg) {
+        double re = 0.0, im = 0.0, mPow = 0.0, sPow = 0.0;
+        for (int k = i; k < i + winAz; ++k) {
+            for (int l = j; l < j + winRg; ++l) {
+                final int s = 2 * (k * width + l);
+                re += master[s] * (double) slave[s] + master[s + 1] * (double) slave[s + 1];
+                im += master[s + 1] * (double) slave[s] - master[s] * (double) slave[s + 1];
+                mPow += master[s] * (double) master[s] + master[s + 1] * (double) master[s + 1];
+                sPow += slave[s] * (double) slave[s] + slave[s + 1] * (double) slave[s + 1];
+            }
+        }
+        final double power = mPow * sPow;
+        return power > 0.0 ? Math.sqrt(re * re + im * im) / Math.sqrt(power) : 0.0;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.insar.gpf.support;
+
+import org.jblas.ComplexDouble;
+import org.jblas.ComplexDoubleMatrix;
+import org.jblas.DoubleMatrix;
+import org.jlinda.core.coregistration.utils.CoregistrationUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestFFTCrossCorrelator {
+
+    @Test
+    public void testCorrelateMatchesDirectDFT() {
+        final int w = 8;
+        final int h = 4;
+        final int rowUpSamplingFactor = 2;
+        final int colUpSamplingFactor = 4;
+        final double[] master = randomImage(w, h, 1);
+        final double[] slave = randomImage(w, h, 2);
+
+        final FFTCrossCorrelator correlator = new FFTCrossCorrelator();
+        correlator.setMaster(master, w, h);
+        final double[] correlation = correlator.correlate(slave, rowUpSamplingFactor, colUpSamplingFactor);
+
+        final int newWidth = rowUpSamplingFactor * w;
+        final int newHeight = colUpSamplingFactor * h;
+        assertEquals(newWidth, correlator.getCorrelationWidth());
+        assertEquals(newHeight, correlator.getCorrelationHeight());
+        assertArrayEquals(directCorrelation(master, slave, w, h, newWidth, newHeight), correlation, 1e-9);
+    }
+
+    @Test
+    public void testCorrelateFindsShift() {
+        final int w = 32;
+        final int h = 16;
+        final int shiftX = 5;
+        final int shiftY = -3;
+        final double[] master = randomImage(w, h, 3);
+        final double[] slave = new double[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                slave[y * w + x] = master[Math.floorMod(y - shiftY, h) * w + Math.floorMod(x - shiftX, w)];
+            }
+        }
+
+        final FFTCrossCorrelator correlator = new FFTCrossCorrelator();
+        correlator.setMaster(master, w, h);
+        for (int factor : new int[]{1, 2, 4}) {
+            final double[] correlation = correlator.correlate(slave, factor, factor);
+            final int cw = correlator.getCorrelationWidth();
+            final int ch = correlator.getCorrelationHeight();
+
+            final double[] peak = new double[2];
+            FFTCrossCorrelator.findPeak(correlation, cw, ch, false, peak);
+
+            // same convention as CrossCorrelationOp.getSlaveGCPShift
+            final double rowShift = peak[0] <= ch / 2 ? -peak[0] / factor : (ch - peak[0]) / factor;
+            final double colShift = peak[1] <= cw / 2 ? -peak[1] / factor : (cw - peak[1]) / factor;
+            assertEquals(shiftY, rowShift, 0.0);
+            assertEquals(shiftX, colShift, 0.0);
+        }
+    }
+
+    @Test
+    public void testParabolicPeak() {
+        // samples of -(x - 0.3)^2 at -1, 0 and 1
+        assertEquals(0.3, FFTCrossCorrelator.parabolicPeak(-1.69, -0.09, -0.49), 1e-12);
+        assertEquals(0.0, FFTCrossCorrelator.parabolicPeak(1.0, 0.0, 1.0), 0.0);
+    }
+
+    @Test
+    public void testCrossCorrelateFFTMatchesCoregistrationUtils() {
+        final int size = 32;
+        final ComplexDoubleMatrix master = new ComplexDoubleMatrix(size, size);
+        final ComplexDoubleMatrix slave = new ComplexDoubleMatrix(size, size);
+        final double[] image = randomImage(2 * size, 2 * size, 4);
+        for (int l = 0; l < size; l++) {
+            for (int p = 0; p < size; p++) {
+                master.put(l, p, new ComplexDouble(image[(l + 8) * 2 * size + p + 8], 0.0));
+                slave.put(l, p, new ComplexDouble(image[(l + 10) * 2 * size + p + 7], 0.0));
+            }
+        }
+
+        final FFTCrossCorrelator correlator = new FFTCrossCorrelator();
+        for (int ovsFactor : new int[]{1, 4}) {
+            final double[] expectedOffset = new double[2];
+            final double expected = CoregistrationUtils.crossCorrelateFFT(
+                    expectedOffset, master.dup(), slave.dup(), ovsFactor, 4, 4);
+
+            final double[] offset = new double[2];
+            final double actual = correlator.crossCorrelateFFT(offset, master, slave, ovsFactor, 4, 4, false);
+
+            assertEquals(expected, actual, 1e-9);
+            assertArrayEquals(expectedOffset, offset, 1e-9);
+        }
+
+        // the slave patch starts 2 lines below and 1 pixel left of the master patch
+        final double[] offset = new double[2];
+        correlator.crossCorrelateFFT(offset, master, slave, 1, 4, 4, true);
+        assertEquals(-2.0, offset[0], 0.1);
+        assertEquals(1.0, offset[1], 0.1);
+    }
+
+    private static double[] randomImage(final int w, final int h, final long seed) {
+        final Random random = new Random(seed);
+        final double[] image = new double[w * h];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = random.nextDouble();
+        }
+        return image;
+    }
+
+    /**
+     * |idft(upsample(dft(master) * conj(dft(slave))))| by direct evaluation of the transforms.
+     */
+    private static double[] directCorrelation(final double[] master, final double[] slave, final int w, final int h,
+                                              final int newWidth, final int newHeight) {
+
+        final DoubleMatrix crossRe = new DoubleMatrix(newHeight, newWidth);
+        final DoubleMatrix crossIm = new DoubleMatrix(newHeight, newWidth);
+        for (int u = 0; u < h; u++) {
+            for (int v = 0; v < w; v++) {
+                double mr = 0, mi = 0, sr = 0, si = 0;
+                for (int y = 0; y < h; y++) {
+                    for (int x = 0; x < w; x++) {
+                        final double angle = -2.0 * Math.PI * ((double) u * y / h + (double) v * x / w);
+                        mr += master[y * w + x] * Math.cos(angle);
+                        mi += master[y * w + x] * Math.sin(angle);
+                        sr += slave[y * w + x] * Math.cos(angle);
+                        si += slave[y * w + x] * Math.sin(angle);
+                    }
+                }
+                final int U = u < h / 2 ? u : u - h + newHeight;
+                final int V = v < w / 2 ? v : v - w + newWidth;
+                crossRe.put(U, V, mr * sr + mi * si);
+                crossIm.put(U, V, mi * sr - mr * si);
+            }
+        }
+
+        final double[] correlation = new double[newWidth * newHeight];
+        for (int y = 0; y < newHeight; y++) {
+            for (int x = 0; x < newWidth; x++) {
+                double re = 0, im = 0;
+                for (int u = 0; u < newHeight; u++) {
+                    for (int v = 0; v < newWidth; v++) {
+                        final double angle = 2.0 * Math.PI * ((double) u * y / newHeight + (double) v * x / newWidth);
+                        final double cr = crossRe.get(u, v);
+                        final double ci = crossIm.get(u, v);
+                        re += cr * Math.cos(angle) - ci * Math.sin(angle);
+                        im += cr * Math.sin(angle) + ci * Math.cos(angle);
+                    }
+                }
+                correlation[y * newWidth + x] = Math.hypot(re, im) / (newWidth * newHeight);
+            }
+        }
+        return correlation;
+    }
+}
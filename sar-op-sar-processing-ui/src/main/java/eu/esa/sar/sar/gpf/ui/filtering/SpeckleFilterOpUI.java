@@ -90,6 +90,9 @@ public class SpeckleFilterOpUI extends BaseOperatorUI {
     private final JTextField enl = new JTextField("");
     private Boolean estimateENL = true;
 
+    private final JLabel useIntegralImageCheckBoxLabel = new JLabel("Use Integral Image");
+    private final JCheckBox useIntegralImageCheckBox = new JCheckBox("");
+
     private final JLabel anSizeLabel = new JLabel("Adaptive Neighbour Size");
     private final JTextField anSize = new JTextField("");
 
@@ -135,6 +138,9 @@ public class SpeckleFilterOpUI extends BaseOperatorUI {
         enl.setEnabled(false);
         enl.setText(String.valueOf(paramMap.get("enl")));
 
+        final Boolean useIntegralImage = (Boolean) paramMap.get("useIntegralImage");
+        useIntegralImageCheckBox.setSelected(useIntegralImage != null && useIntegralImage);
+
         numLooks.setSelectedItem(paramMap.get("numLooksStr"));
         windowSize.setSelectedItem(paramMap.get("windowSize"));
         targetWindowSize.setSelectedItem(paramMap.get("targetWindowSizeStr"));
@@ -161,6 +167,7 @@ public class SpeckleFilterOpUI extends BaseOperatorUI {
         paramMap.put("dampingFactor", Integer.parseInt(dampingFactor.getText()));
         paramMap.put("estimateENL", estimateENL);
         paramMap.put("enl", Double.parseDouble(enl.getText()));
+        paramMap.put("useIntegralImage", useIntegralImageCheckBox.isSelected());
 
         paramMap.put("numLooksStr", numLooks.getSelectedItem());
         paramMap.put("windowSize", windowSize.getSelectedItem());
@@ -214,6 +221,10 @@ public class SpeckleFilterOpUI extends BaseOperatorUI {
         DialogUtils.enableComponents(enlLabel, enl, false);
         DialogUtils.enableComponents(targetWindowSizeLabel, targetWindowSize, false);
 
+        gbc.gridy++;
+        DialogUtils.addComponent(contentPane, gbc, useIntegralImageCheckBoxLabel, useIntegralImageCheckBox);
+        DialogUtils.enableComponents(useIntegralImageCheckBoxLabel, useIntegralImageCheckBox, false);
+
         gbc.weightx = 1.0;
 
         DialogUtils.fillPanel(contentPane, gbc);
@@ -234,12 +245,18 @@ public class SpeckleFilterOpUI extends BaseOperatorUI {
         DialogUtils.enableComponents(targetWindowSizeLabel, targetWindowSize, false);
         DialogUtils.enableComponents(sigmaStrLabel, sigmaStr, false);
         DialogUtils.enableComponents(anSizeLabel, anSize, false);
+        DialogUtils.enableComponents(useIntegralImageCheckBoxLabel, useIntegralImageCheckBox, false);
 
         if (item.equals(SpeckleFilterOp.BOXCAR_SPECKLE_FILTER) || item.equals(SpeckleFilterOp.MEDIAN_SPECKLE_FILTER)) {
             DialogUtils.enableComponents(filterSizeXLabel, filterSizeX, true);
             DialogUtils.enableComponents(filterSizeYLabel, filterSizeY, true);
         }
 
+        if (item.equals(SpeckleFilterOp.BOXCAR_SPECKLE_FILTER) || item.equals(SpeckleFilterOp.FROST_SPECKLE_FILTER) ||
+                item.equals(SpeckleFilterOp.GAMMA_MAP_SPECKLE_FILTER) || item.equals(SpeckleFilterOp.LEE_SPECKLE_FILTER)) {
+            DialogUtils.enableComponents(useIntegralImageCheckBoxLabel, useIntegralImageCheckBox, true);
+        }
+
         if (item.equals(SpeckleFilterOp.FROST_SPECKLE_FILTER)) {
             DialogUtils.enableComponents(filterSizeXLabel, filterSizeX, true);
             DialogUtils.enableComponents(filterSizeYLabel, filterSizeY, true);
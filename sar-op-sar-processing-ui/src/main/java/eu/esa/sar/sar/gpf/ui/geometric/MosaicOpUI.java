@@ -56,11 +56,15 @@ public class MosaicOpUI extends BaseOperatorUI {
     private final JCheckBox averageCheckBox = new JCheckBox("Weighted Average of Overlap");
     private final JCheckBox normalizeByMeanCheckBox = new JCheckBox("Normalize");
     private final JCheckBox gradientDomainMosaicCheckBox = new JCheckBox("Gradient Domain Mosaic");
+    private final JCheckBox useMultigridSolverCheckBox = new JCheckBox("Use Multigrid Solver");
+    private final JCheckBox useGeocodingGridCheckBox = new JCheckBox("Use Geocoding Grid");
 
     private boolean changedByUser = false;
     private boolean average = false;
     private boolean normalizeByMean = false;
     private boolean gradientDomainMosaic = false;
+    private boolean useMultigridSolver = false;
+    private boolean useGeocodingGrid = false;
 
     private double widthHeightRatio = 1;
     private double pixelSizeHeightRatio = 1;
@@ -86,6 +90,7 @@ public class MosaicOpUI extends BaseOperatorUI {
                     convergenceThreshold.setVisible(false);
                     maxIterationsLabel.setVisible(false);
                     convergenceThresholdLabel.setVisible(false);
+                    useMultigridSolverCheckBox.setVisible(false);
                 }
             }
         });
@@ -113,6 +118,19 @@ public class MosaicOpUI extends BaseOperatorUI {
                 convergenceThreshold.setVisible(gradientDomainMosaic);
                 maxIterationsLabel.setVisible(gradientDomainMosaic);
                 convergenceThresholdLabel.setVisible(gradientDomainMosaic);
+                useMultigridSolverCheckBox.setVisible(gradientDomainMosaic);
+            }
+        });
+
+        useMultigridSolverCheckBox.addItemListener(new ItemListener() {
+            public void itemStateChanged(ItemEvent e) {
+                useMultigridSolver = (e.getStateChange() == ItemEvent.SELECTED);
+            }
+        });
+
+        useGeocodingGridCheckBox.addItemListener(new ItemListener() {
+            public void itemStateChanged(ItemEvent e) {
+                useGeocodingGrid = (e.getStateChange() == ItemEvent.SELECTED);
             }
         });
 
@@ -188,10 +206,19 @@ public class MosaicOpUI extends BaseOperatorUI {
         gradientDomainMosaic = (Boolean) paramMap.get("gradientDomainMosaic");
         gradientDomainMosaicCheckBox.getModel().setSelected(gradientDomainMosaic);
 
+        final Boolean useMultigridSolverVal = (Boolean) paramMap.get("useMultigridSolver");
+        useMultigridSolver = useMultigridSolverVal != null && useMultigridSolverVal;
+        useMultigridSolverCheckBox.getModel().setSelected(useMultigridSolver);
+
+        final Boolean useGeocodingGridVal = (Boolean) paramMap.get("useGeocodingGrid");
+        useGeocodingGrid = useGeocodingGridVal != null && useGeocodingGridVal;
+        useGeocodingGridCheckBox.getModel().setSelected(useGeocodingGrid);
+
         maxIterations.setVisible(gradientDomainMosaic);
         convergenceThreshold.setVisible(gradientDomainMosaic);
         maxIterationsLabel.setVisible(gradientDomainMosaic);
         convergenceThresholdLabel.setVisible(gradientDomainMosaic);
+        useMultigridSolverCheckBox.setVisible(gradientDomainMosaic);
     }
 
     @Override
@@ -216,6 +243,8 @@ public class MosaicOpUI extends BaseOperatorUI {
         paramMap.put("average", average);
         paramMap.put("normalizeByMean", normalizeByMean);
         paramMap.put("gradientDomainMosaic", gradientDomainMosaic);
+        paramMap.put("useMultigridSolver", useMultigridSolver);
+        paramMap.put("useGeocodingGrid", useGeocodingGrid);
     }
 
     private JComponent createPanel() {
@@ -251,8 +280,13 @@ public class MosaicOpUI extends BaseOperatorUI {
         gbc.gridy++;
         contentPane.add(normalizeByMeanCheckBox, gbc);
         gbc.gridy++;
-        if (useGradientDomain)
+        contentPane.add(useGeocodingGridCheckBox, gbc);
+        gbc.gridy++;
+        if (useGradientDomain) {
             contentPane.add(gradientDomainMosaicCheckBox, gbc);
+            gbc.gridy++;
+            contentPane.add(useMultigridSolverCheckBox, gbc);
+        }
 
         DialogUtils.fillPanel(contentPane, gbc);
 
@@ -17,6 +17,7 @@ package eu.esa.sar.sar.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import eu.esa.sar.commons.FFT2D;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.gpf.Operator;
@@ -246,47 +247,41 @@ public class BandPassFilterOp extends Operator {
 
         final TileIndex sourceIndex = new TileIndex(sourceTileI);
 
-        final double[][] dataI = new double[h][w];
-        final double[][] dataQ = new double[h][w];
+        // Compute cos and sin of phase ramp, which only depends on the column
+        final double[] cosPhase = new double[w];
+        final double[] sinPhase = new double[w];
+        for (int x = x0; x < xMax; x++) {
+            final double phase = -Constants.TWO_PI * centerFrequency * x / samplingRate;
+            cosPhase[x - x0] = FastMath.cos(phase);
+            sinPhase[x - x0] = FastMath.sin(phase);
+        }
+
+        // Get the lines as interleaved complex data and center SLC spectrum around desired frequency
+        final double[] data = new double[2 * w * h];
+        int k = 0;
         for (int y = y0; y < yMax; y++) {
             sourceIndex.calculateStride(y);
-            final int yy = y - y0;
             for (int x = x0; x < xMax; x++) {
                 final int sourceIdx = sourceIndex.getIndex(x);
                 final int xx = x - x0;
+                final double i = sourceBufferI.getElemDoubleAt(sourceIdx);
+                final double q = sourceBufferQ.getElemDoubleAt(sourceIdx);
 
-                // Get values for later use
-                dataI[yy][xx] = sourceBufferI.getElemDoubleAt(sourceIdx);
-                dataQ[yy][xx] = sourceBufferQ.getElemDoubleAt(sourceIdx);
-            }
-        }
-
-        // Center SLC spectrum around desired frequency
-        for (int y = 0; y < dataI.length; y++) {
-            for (int x = x0; x < xMax; x++) {
-                // Compute cos and sin of phase ramp
-                final double phase = -Constants.TWO_PI * centerFrequency * x / samplingRate;
-                final double cosPhase = FastMath.cos(phase);
-                final double sinPhase = FastMath.sin(phase);
-
-                // Apply phase ramp in place
-                final int xx = x - x0;
-                final double valueI = dataI[y][xx] * cosPhase - dataQ[y][xx] * sinPhase;
-                final double valueQ = dataI[y][xx] * sinPhase + dataQ[y][xx] * cosPhase;
-                dataI[y][xx] = valueI;
-                dataQ[y][xx] = valueQ;
+                // Apply phase ramp
+                data[k++] = i * cosPhase[xx] - q * sinPhase[xx];
+                data[k++] = i * sinPhase[xx] + q * cosPhase[xx];
             }
         }
 
         // Compute original spectral window and center around desired frequency
-        double[] sourceWindow = new double[dataI[0].length];
+        double[] sourceWindow = new double[w];
         for (int n = 0; n < sourceWindow.length; n++) {
             sourceWindow[n] = hamming(sourceAlpha, n, sourceWindow.length);
         }
         sourceWindow = rotate(sourceWindow, -Math.floorDiv(sourceWindow.length, 2));
 
-        double[] line = new double[2 * sourceWindow.length];
-        DoubleFFT_1D fft = new DoubleFFT_1D(dataI[0].length);
+        final double[] line = new double[2 * sourceWindow.length];
+        final DoubleFFT_1D fft = FFT2D.getPlan(w);
         for (int n = 0; n < sourceWindow.length; n++) {
             int n2 = n * 2;
             line[n2] = sourceWindow[n];
@@ -294,7 +289,7 @@ public class BandPassFilterOp extends Operator {
         }
 
         fft.complexInverse(line, true);
-        double[] xAxis = new double[dataI[0].length];
+        double[] xAxis = new double[w];
         for (int x = x0; x < xMax; x++) {
             final int xx = x - x0;
             xAxis[xx] = x;
@@ -323,8 +318,8 @@ public class BandPassFilterOp extends Operator {
         }
 
         // Apply baseband filter in place
-        final int hammingSize = (int) Math.round(dataI[0].length * bandwidth / samplingRate);
-        double[] window = new double[dataI[0].length];
+        final int hammingSize = (int) Math.round(w * bandwidth / samplingRate);
+        double[] window = new double[w];
         for (int n = 0; n < window.length; n++) {
             if (n < hammingSize) {
                 window[n] = hamming(alpha, n, hammingSize);
@@ -334,37 +329,26 @@ public class BandPassFilterOp extends Operator {
         }
         window = rotate(window, -Math.floorDiv(hammingSize, 2));
 
-        line = new double[2 * dataI[0].length];
-        fft = new DoubleFFT_1D(dataI[0].length);
-        for (int y = 0; y < dataI.length; y++) {
-            for (int x = 0; x < dataI[0].length; x++) {
-                int x2 = x * 2;
-                line[x2] = dataI[y][x];
-                line[x2 + 1] = dataQ[y][x];
+        for (int n = 0; n < w; n++) {
+            if (sourceWindow[n] > Double.MIN_VALUE) {
+                window[n] /= sourceWindow[n];
             }
+        }
 
-            fft.complexForward(line);
-            for (int n = 0; n < dataI[0].length; n++) {
-                int n2 = n * 2;
-                double weight = window[n];
-                if (sourceWindow[n] > Double.MIN_VALUE) {
-                    weight /= sourceWindow[n];
-                }
-                line[n2] = line[n2] * weight;
-                line[n2 + 1] = line[n2 + 1] * weight;
-            }
-            fft.complexInverse(line, true);
-
-            for (int x = 0; x < dataI[0].length; x++) {
-                int x2 = x * 2;
-                dataI[y][x] = line[x2];
-                dataQ[y][x] = line[x2 + 1];
+        FFT2D.complexForwardRows(data, h, w);
+        k = 0;
+        for (int y = 0; y < h; y++) {
+            for (int n = 0; n < w; n++) {
+                data[k++] *= window[n];
+                data[k++] *= window[n];
             }
         }
+        FFT2D.complexInverseRows(data, h, w, true);
 
         // Write result
         final int overlapX = Math.floorDiv((sourceRectangle.width - targetRectangle.width), 2);
         final int overlapY = Math.floorDiv((sourceRectangle.height - targetRectangle.height), 2);
+        final int srcWidth = w;
         x0 = targetRectangle.x;
         y0 = targetRectangle.y;
         w = targetRectangle.width;
@@ -384,8 +368,10 @@ public class BandPassFilterOp extends Operator {
                 final int targetIdx = targetIndex.getIndex(x);
                 final int xx = x - x0 + overlapX;
 
-                targetBufferI.setElemDoubleAt(targetIdx, dataI[yy][xx]);
-                targetBufferQ.setElemDoubleAt(targetIdx, dataQ[yy][xx]);
+                final int i = 2 * (yy * srcWidth + xx);
+
+                targetBufferI.setElemDoubleAt(targetIdx, data[i]);
+                targetBufferQ.setElemDoubleAt(targetIdx, data[i + 1]);
             }
         }
     }
@@ -74,6 +74,11 @@ public class SpeckleFilterOp extends Operator {
             label = "Frost Damping Factor")
     private int dampingFactor = 2;
 
+    @Parameter(description = "Compute the local mean and variance from summed-area tables " +
+            "(Boxcar, Frost, Gamma Map and Lee filters only)", defaultValue = "false",
+            label = "Use Integral Image")
+    private boolean useIntegralImage = false;
+
 //    @Parameter(description = "The edge threshold (Refined Lee filter only)", interval = "(0, *)", defaultValue = "5000",
 //            label = "Edge detection threshold")
 //    private double edgeThreshold = 5000.0;
@@ -242,7 +247,7 @@ public class SpeckleFilterOp extends Operator {
         switch (filter) {
             case BOXCAR_SPECKLE_FILTER:
                 return new Boxcar(this, sourceProduct, targetProduct, filterSizeX, filterSizeY,
-                        targetBandNameToSourceBandName);
+                        targetBandNameToSourceBandName, useIntegralImage);
 
             case MEDIAN_SPECKLE_FILTER:
                 return new Median(this, sourceProduct, targetProduct, filterSizeX, filterSizeY,
@@ -250,15 +255,15 @@ public class SpeckleFilterOp extends Operator {
 
             case FROST_SPECKLE_FILTER:
                 return new Frost(this, sourceProduct, targetProduct, filterSizeX, filterSizeY,
-                        targetBandNameToSourceBandName, dampingFactor);
+                        targetBandNameToSourceBandName, dampingFactor, useIntegralImage);
 
             case GAMMA_MAP_SPECKLE_FILTER:
                 return new GammaMap(this, sourceProduct, targetProduct, filterSizeX, filterSizeY,
-                        targetBandNameToSourceBandName, estimateENL, enl);
+                        targetBandNameToSourceBandName, estimateENL, enl, useIntegralImage);
 
             case LEE_SPECKLE_FILTER:
                 return new Lee(this, sourceProduct, targetProduct, filterSizeX, filterSizeY,
-                        targetBandNameToSourceBandName, estimateENL, enl);
+                        targetBandNameToSourceBandName, estimateENL, enl, useIntegralImage);
 
             case LEE_REFINED_FILTER:
                 return new RefinedLee(this, sourceProduct, targetProduct, targetBandNameToSourceBandName);
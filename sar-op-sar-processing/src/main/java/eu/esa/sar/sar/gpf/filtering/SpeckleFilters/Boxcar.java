@@ -43,9 +43,16 @@ public class Boxcar implements SpeckleFilter {
     private final int sourceImageWidth;
     private final int sourceImageHeight;
     private Map<String, String[]> targetBandNameToSourceBandName;
+    private final boolean useIntegralImage;
 
     public Boxcar(final Operator op, final Product srcProduct, final Product trgProduct, final int windowSizeX,
                 final int windowSizeY, final Map<String, String[]> targetBandNameToSourceBandName) {
+        this(op, srcProduct, trgProduct, windowSizeX, windowSizeY, targetBandNameToSourceBandName, false);
+    }
+
+    public Boxcar(final Operator op, final Product srcProduct, final Product trgProduct, final int windowSizeX,
+                  final int windowSizeY, final Map<String, String[]> targetBandNameToSourceBandName,
+                  final boolean useIntegralImage) {
 
         this.operator = op;
         this.sourceProduct = srcProduct;
@@ -57,6 +64,7 @@ public class Boxcar implements SpeckleFilter {
         this.sourceImageWidth = srcProduct.getSceneRasterWidth();
         this.sourceImageHeight = srcProduct.getSceneRasterHeight();
         this.targetBandNameToSourceBandName = targetBandNameToSourceBandName;
+        this.useIntegralImage = useIntegralImage;
     }
 
     public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) {
@@ -125,6 +133,25 @@ public class Boxcar implements SpeckleFilter {
 
         final int xMax = x0 + w;
         final int yMax = y0 + h;
+
+        if (useIntegralImage) {
+            final IntegralImage integralImage = IntegralImage.create(
+                    sourceData1, sourceData2, srcIndex, sourceTileRectangle, noDataValue, isComplex);
+            final double[] meanVar = new double[2];
+            for (int y = y0; y < yMax; ++y) {
+                final int yy = y - y0;
+                for (int x = x0; x < xMax; ++x) {
+                    final int numSamples = integralImage.getStatistics(x, y, windowSizeX, windowSizeY, meanVar);
+                    if (numSamples > 0) {
+                        filteredTile[yy][x - x0] = meanVar[0];
+                    } else {
+                        filteredTile[yy][x - x0] = noDataValue;
+                    }
+                }
+            }
+            return filteredTile;
+        }
+
         for (int y = y0; y < yMax; ++y) {
             final int yy = y - y0;
             for (int x = x0; x < xMax; ++x) {
@@ -46,10 +46,18 @@ public class Frost implements SpeckleFilter {
     private final int sourceImageHeight;
     private final int dampingFactor;
     private Map<String, String[]> targetBandNameToSourceBandName;
+    private final boolean useIntegralImage;
 
     public Frost(final Operator op, final Product srcProduct, final Product trgProduct, final int windowSizeX,
                  final int windowSizeY, final Map<String, String[]> targetBandNameToSourceBandName,
                  final int dampingFactor) {
+        this(op, srcProduct, trgProduct, windowSizeX, windowSizeY, targetBandNameToSourceBandName,
+                dampingFactor, false);
+    }
+
+    public Frost(final Operator op, final Product srcProduct, final Product trgProduct, final int windowSizeX,
+                 final int windowSizeY, final Map<String, String[]> targetBandNameToSourceBandName,
+                 final int dampingFactor, final boolean useIntegralImage) {
 
         this.operator = op;
         this.sourceProduct = srcProduct;
@@ -62,6 +70,7 @@ public class Frost implements SpeckleFilter {
         this.sourceImageHeight = srcProduct.getSceneRasterHeight();
         this.targetBandNameToSourceBandName = targetBandNameToSourceBandName;
         this.dampingFactor = dampingFactor;
+        this.useIntegralImage = useIntegralImage;
     }
 
     public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) {
@@ -132,6 +141,25 @@ public class Frost implements SpeckleFilter {
         final double[] mask = new double[windowSizeX * windowSizeY];
         getFrostMask(mask);
 
+        if (useIntegralImage) {
+            final IntegralImage integralImage = IntegralImage.create(
+                    sourceData1, sourceData2, srcIndex, sourceTileRectangle, noDataValue, isComplex);
+            final double[] meanVar = new double[2];
+            for (int y = y0; y < yMax; ++y) {
+                final int yy = y - y0;
+                for (int x = x0; x < xMax; ++x) {
+                    final int numSamples = integralImage.getStatistics(x, y, windowSizeX, windowSizeY, meanVar);
+                    if (numSamples > 0) {
+                        filteredTile[yy][x - x0] = getFrostValue(
+                                integralImage, x, y, meanVar[0], meanVar[1], noDataValue, mask);
+                    } else {
+                        filteredTile[yy][x - x0] = noDataValue;
+                    }
+                }
+            }
+            return filteredTile;
+        }
+
         for (int y = y0; y < yMax; ++y) {
             final int yy = y - y0;
             for (int x = x0; x < xMax; ++x) {
@@ -207,4 +235,47 @@ public class Frost implements SpeckleFilter {
         }
         return sum / totalWeight;
     }
+
+    /**
+     * Get the Frost filtered pixel intensity with the local statistics taken from the integral image.
+     *
+     * @param integralImage The integral image of the source tile.
+     * @param x             X coordinate of the pixel.
+     * @param y             Y coordinate of the pixel.
+     * @param mean          The mean of the window.
+     * @param var           The variance of the window.
+     * @param noDataValue   Place holder for no data value.
+     * @param mask          Array holding Frost filter mask values.
+     * @return val The Frost filtered value.
+     */
+    private double getFrostValue(final IntegralImage integralImage, final int x, final int y, final double mean,
+                                 final double var, final double noDataValue, final double[] mask) {
+
+        if (mean <= Double.MIN_VALUE) {
+            return mean;
+        }
+
+        if (var <= Double.MIN_VALUE) {
+            return mean;
+        }
+
+        final double k = dampingFactor * var / (mean * mean);
+
+        final int minX = x - halfWindowSizeX;
+        final int minY = y - halfWindowSizeY;
+        double sum = 0.0;
+        double totalWeight = 0.0;
+        int i = 0;
+        for (int yy = minY; yy < minY + windowSizeY; yy++) {
+            for (int xx = minX; xx < minX + windowSizeX; xx++, i++) {
+                final double v = integralImage.getValue(xx, yy);
+                if (v != noDataValue) {
+                    final double weight = FastMath.exp(-k * mask[i]);
+                    sum += weight * v;
+                    totalWeight += weight;
+                }
+            }
+        }
+        return sum / totalWeight;
+    }
 }
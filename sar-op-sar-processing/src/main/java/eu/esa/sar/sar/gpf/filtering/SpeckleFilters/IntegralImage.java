@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sar.gpf.filtering.SpeckleFilters;
+
+import eu.esa.sar.commons.SummedAreaTable;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+
+import java.awt.*;
+
+/**
+ * Summed-area tables of the pixel intensities of a source tile, giving the number of valid samples, the mean
+ * and the variance of any window in constant time.
+ * <p>
+ * No data pixels are excluded from the statistics in the same way as getNeighborValues() followed by
+ * getMeanValue() and getVarianceValue().
+ */
+public class IntegralImage {
+
+    private final int x0;
+    private final int y0;
+    private final int width;
+    private final int height;
+    private final double noDataValue;
+    private final double[] values;
+    private final SummedAreaTable table;
+
+    /**
+     * @param values      the pixel intensities of the tile, row by row
+     * @param x0          X coordinate of the upper left corner of the tile
+     * @param y0          Y coordinate of the upper left corner of the tile
+     * @param width       the tile width
+     * @param height      the tile height
+     * @param noDataValue the no data value
+     */
+    public IntegralImage(final double[] values, final int x0, final int y0, final int width, final int height,
+                         final double noDataValue) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = width;
+        this.height = height;
+        this.noDataValue = noDataValue;
+        this.values = values;
+        this.table = new SummedAreaTable(values, width, height, noDataValue);
+    }
+
+    /**
+     * Create the summed-area tables of a source tile.
+     *
+     * @param srcData1    The source ProductData for 1st band.
+     * @param srcData2    The source ProductData for 2nd band.
+     * @param srcIndex    The source tile index.
+     * @param srcRect     The source tile rectangle.
+     * @param noDataValue Place holder for no data value.
+     * @param isComplex   True if it has i and q, otherwise false.
+     * @return the integral image
+     */
+    public static IntegralImage create(final ProductData srcData1, final ProductData srcData2,
+                                       final TileIndex srcIndex, final Rectangle srcRect,
+                                       final double noDataValue, final boolean isComplex) {
+
+        final double[] values = SpeckleFilter.getIntensities(
+                srcData1, srcData2, srcIndex, srcRect, noDataValue, isComplex);
+        return new IntegralImage(values, srcRect.x, srcRect.y, srcRect.width, srcRect.height, noDataValue);
+    }
+
+    /**
+     * Get the intensity of a pixel.
+     *
+     * @param x X coordinate of the pixel.
+     * @param y Y coordinate of the pixel.
+     * @return the intensity or the no data value outside of the tile
+     */
+    public double getValue(final int x, final int y) {
+        final int xx = x - x0;
+        final int yy = y - y0;
+        if (xx < 0 || xx >= width || yy < 0 || yy >= height) {
+            return noDataValue;
+        }
+        return values[yy * width + xx];
+    }
+
+    /**
+     * Get the statistics of the valid pixels in a window centered at the given pixel. The parts of the window
+     * outside of the tile are ignored.
+     *
+     * @param x           X coordinate of the window centre.
+     * @param y           Y coordinate of the window centre.
+     * @param windowSizeX The window width.
+     * @param windowSizeY The window height.
+     * @param meanVar     Receives the mean and the sample variance of the valid pixels.
+     * @return The number of valid samples.
+     */
+    public int getStatistics(final int x, final int y, final int windowSizeX, final int windowSizeY,
+                             final double[] meanVar) {
+
+        final int minX = Math.max(x - windowSizeX / 2 - x0, 0);
+        final int minY = Math.max(y - windowSizeY / 2 - y0, 0);
+        final int maxX = Math.min(x - windowSizeX / 2 + windowSizeX - x0, width);
+        final int maxY = Math.min(y - windowSizeY / 2 + windowSizeY - y0, height);
+        if (minX >= maxX || minY >= maxY) {
+            meanVar[0] = noDataValue;
+            meanVar[1] = 0.0;
+            return 0;
+        }
+
+        final int n = table.getCount(minX, minY, maxX, maxY);
+        if (n == 0) {
+            meanVar[0] = noDataValue;
+            meanVar[1] = 0.0;
+            return 0;
+        }
+
+        final double s = table.getSum(minX, minY, maxX, maxY);
+        final double s2 = table.getSumSq(minX, minY, maxX, maxY);
+        meanVar[0] = s / n + table.getOffset();
+        if (n > 1) {
+            final double var = (s2 - s * s / n) / (n - 1);
+            meanVar[1] = var > 0.0 ? var : 0.0;
+        } else {
+            meanVar[1] = 0.0;
+        }
+        return n;
+    }
+}
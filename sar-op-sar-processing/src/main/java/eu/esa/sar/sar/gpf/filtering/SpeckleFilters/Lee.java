@@ -46,10 +46,18 @@ public class Lee implements SpeckleFilter {
     private Map<String, String[]> targetBandNameToSourceBandName;
     private final boolean estimateENL;
     private final double enl;
+    private final boolean useIntegralImage;
 
     public Lee(final Operator op, final Product srcProduct, final Product trgProduct, final int windowSizeX,
                final int windowSizeY, final Map<String, String[]> targetBandNameToSourceBandName,
                final boolean estimateENL, final double enl) {
+        this(op, srcProduct, trgProduct, windowSizeX, windowSizeY, targetBandNameToSourceBandName,
+                estimateENL, enl, false);
+    }
+
+    public Lee(final Operator op, final Product srcProduct, final Product trgProduct, final int windowSizeX,
+               final int windowSizeY, final Map<String, String[]> targetBandNameToSourceBandName,
+               final boolean estimateENL, final double enl, final boolean useIntegralImage) {
 
         this.operator = op;
         this.sourceProduct = srcProduct;
@@ -63,6 +71,7 @@ public class Lee implements SpeckleFilter {
         this.targetBandNameToSourceBandName = targetBandNameToSourceBandName;
         this.estimateENL = estimateENL;
         this.enl = enl;
+        this.useIntegralImage = useIntegralImage;
     }
 
     public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) {
@@ -141,6 +150,25 @@ public class Lee implements SpeckleFilter {
         final int xMax = x0 + w;
         final int yMax = y0 + h;
 
+        if (useIntegralImage) {
+            final IntegralImage integralImage = IntegralImage.create(
+                    sourceData1, sourceData2, srcIndex, sourceTileRectangle, noDataValue, isComplex);
+            final double[] meanVar = new double[2];
+            for (int y = y0; y < yMax; ++y) {
+                final int yy = y - y0;
+                for (int x = x0; x < xMax; ++x) {
+                    final int numSamples = integralImage.getStatistics(x, y, windowSizeX, windowSizeY, meanVar);
+                    if (numSamples > 0) {
+                        filteredTile[yy][x - x0] = getLeeValue(
+                                meanVar[0], meanVar[1], integralImage.getValue(x, y), cu, cu2);
+                    } else {
+                        filteredTile[yy][x - x0] = noDataValue;
+                    }
+                }
+            }
+            return filteredTile;
+        }
+
         for (int y = y0; y < yMax; ++y) {
             final int yy = y - y0;
             for (int x = x0; x < xMax; ++x) {
@@ -179,6 +207,24 @@ public class Lee implements SpeckleFilter {
         }
 
         final double var = getVarianceValue(neighborValues, numSamples, mean, noDataValue);
+        return getLeeValue(mean, var, neighborValues[neighborValues.length / 2], cu, cu2);
+    }
+
+    /**
+     * Get the Lee filtered pixel intensity from the local statistics.
+     *
+     * @param mean The mean of the window.
+     * @param var  The variance of the window.
+     * @param cp   The centre pixel value.
+     * @return val The Lee filtered value.
+     */
+    private static double getLeeValue(final double mean, final double var, final double cp,
+                                      final double cu, final double cu2) {
+
+        if (Double.compare(mean, Double.MIN_VALUE) <= 0) {
+            return mean;
+        }
+
         if (Double.compare(var, Double.MIN_VALUE) <= 0) {
             return mean;
         }
@@ -188,7 +234,6 @@ public class Lee implements SpeckleFilter {
             return mean;
         }
 
-        final double cp = neighborValues[neighborValues.length / 2];
         final double w = 1 - cu2 / (ci * ci);
 
         return cp * w + mean * (1 - w);
@@ -35,6 +35,9 @@ import java.util.Map;
  */
 public class Median implements SpeckleFilter {
 
+    // windows up to 5x5 are faster sorted than kept in a sliding histogram
+    private static final int MAX_SORTED_WINDOW_SAMPLES = 25;
+
     private final Operator operator;
     private final Product sourceProduct;
     private final Product targetProduct;
@@ -121,8 +124,18 @@ public class Median implements SpeckleFilter {
         final Unit.UnitType bandUnit = Unit.getUnitType(sourceBand1);
         final double noDataValue = sourceBand1.getNoDataValue();
         final TileIndex srcIndex = new TileIndex(sourceTile1);
-        final double[] neighborValues = new double[windowSizeX * windowSizeY];
         final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
+
+        if (windowSizeX * windowSizeY > MAX_SORTED_WINDOW_SAMPLES) {
+            final double[] values = SpeckleFilter.getIntensities(
+                    sourceData1, sourceData2, srcIndex, sourceTileRectangle, noDataValue, isComplex);
+            final SlidingMedian slidingMedian = new SlidingMedian(values, sourceTileRectangle.x,
+                    sourceTileRectangle.y, sourceTileRectangle.width, sourceTileRectangle.height, noDataValue);
+            slidingMedian.filter(x0, y0, w, h, windowSizeX, windowSizeY, filteredTile);
+            return filteredTile;
+        }
+
+        final double[] neighborValues = new double[windowSizeX * windowSizeY];
         final int xMax = x0 + w;
         final int yMax = y0 + h;
 
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sar.gpf.filtering.SpeckleFilters;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window median of a source tile.
+ * <p>
+ * The pixel values are replaced by their rank among the distinct values of the tile, so that the window can be
+ * kept as a histogram of ranks for any data type. The histogram is a Fenwick tree, which gives insertion,
+ * removal and the k-th smallest value in O(log n), n being the number of distinct values of the tile. The window
+ * snakes over the tile, adding and removing a single column or row per step in the style of Huang's algorithm, so
+ * an output pixel costs O(window height * log n) instead of sorting the whole window, after an O(N log N) ranking
+ * of the N pixels of the tile.
+ * <p>
+ * The constant time filter of Perreault and Hebert is not used: it keeps a histogram per column and merges whole
+ * histograms, which is O(1) only for a small fixed number of bins such as 8 bit images. The speckle filters work on
+ * floating point intensities whose distinct values are of the order of the tile size, so quantising them would
+ * change the median and merging histograms of n bins would cost more than the tree updates.
+ * <p>
+ * The result is identical to sorting the valid samples of each window and taking the element at numSamples / 2.
+ */
+public class SlidingMedian {
+
+    private final int x0;
+    private final int y0;
+    private final int width;
+    private final int height;
+    private final double noDataValue;
+
+    // rank of each pixel in distinctValues, -1 for no data
+    private final int[] ranks;
+    private final double[] distinctValues;
+
+    // Fenwick tree of the rank counts in the window, 1-based
+    private final int[] tree;
+    private final int topBit;
+    private int count;
+
+    /**
+     * @param values      the pixel values of the tile, row by row
+     * @param x0          X coordinate of the upper left corner of the tile
+     * @param y0          Y coordinate of the upper left corner of the tile
+     * @param width       the tile width
+     * @param height      the tile height
+     * @param noDataValue the no data value
+     */
+    public SlidingMedian(final double[] values, final int x0, final int y0, final int width, final int height,
+                         final double noDataValue) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = width;
+        this.height = height;
+        this.noDataValue = noDataValue;
+
+        final int size = width * height;
+        final double[] sorted = new double[size];
+        int numValid = 0;
+        for (int i = 0; i < size; ++i) {
+            if (Double.compare(values[i], noDataValue) != 0) {
+                sorted[numValid++] = values[i];
+            }
+        }
+        Arrays.sort(sorted, 0, numValid);
+
+        int numDistinct = 0;
+        for (int i = 0; i < numValid; ++i) {
+            if (numDistinct == 0 || Double.compare(sorted[i], sorted[numDistinct - 1]) != 0) {
+                sorted[numDistinct++] = sorted[i];
+            }
+        }
+        this.distinctValues = Arrays.copyOf(sorted, numDistinct);
+
+        this.ranks = new int[size];
+        for (int i = 0; i < size; ++i) {
+            ranks[i] = Double.compare(values[i], noDataValue) != 0 ?
+                    Arrays.binarySearch(distinctValues, values[i]) : -1;
+        }
+
+        this.tree = new int[numDistinct + 1];
+        this.topBit = numDistinct > 0 ? Integer.highestOneBit(numDistinct) : 0;
+    }
+
+    /**
+     * Compute the median of the windows centered at the pixels of a target rectangle. The parts of the windows
+     * outside of the tile are ignored.
+     *
+     * @param tx0         X coordinate of the upper left corner of the target rectangle.
+     * @param ty0         Y coordinate of the upper left corner of the target rectangle.
+     * @param w           The width of the target rectangle.
+     * @param h           The height of the target rectangle.
+     * @param windowSizeX The window width.
+     * @param windowSizeY The window height.
+     * @param filteredTile Receives the medians, noDataValue where a window has no valid sample.
+     */
+    public void filter(final int tx0, final int ty0, final int w, final int h,
+                       final int windowSizeX, final int windowSizeY, final double[][] filteredTile) {
+
+        Arrays.fill(tree, 0);
+        count = 0;
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+
+        final int halfX = windowSizeX / 2;
+        final int halfY = windowSizeY / 2;
+
+        // window columns [left, left + windowSizeX) and rows [top, top + windowSizeY) in tile coordinates
+        int left = tx0 - x0 - halfX;
+        int top = ty0 - y0 - halfY;
+        for (int row = top; row < top + windowSizeY; ++row) {
+            updateRow(row, left, left + windowSizeX, 1);
+        }
+
+        for (int yy = 0; yy < h; ++yy) {
+            final boolean forward = (yy & 1) == 0;
+            for (int i = 0; i < w; ++i) {
+                final int xx = forward ? i : w - 1 - i;
+                filteredTile[yy][xx] = getMedian();
+
+                if (i < w - 1) {
+                    if (forward) {
+                        updateColumn(left, top, top + windowSizeY, -1);
+                        updateColumn(left + windowSizeX, top, top + windowSizeY, 1);
+                        ++left;
+                    } else {
+                        updateColumn(left + windowSizeX - 1, top, top + windowSizeY, -1);
+                        updateColumn(left - 1, top, top + windowSizeY, 1);
+                        --left;
+                    }
+                }
+            }
+
+            if (yy < h - 1) {
+                updateRow(top, left, left + windowSizeX, -1);
+                updateRow(top + windowSizeY, left, left + windowSizeX, 1);
+                ++top;
+            }
+        }
+    }
+
+    private void updateRow(final int row, final int colStart, final int colEnd, final int delta) {
+        if (row < 0 || row >= height) {
+            return;
+        }
+        final int offset = row * width;
+        for (int col = Math.max(colStart, 0); col < Math.min(colEnd, width); ++col) {
+            update(ranks[offset + col], delta);
+        }
+    }
+
+    private void updateColumn(final int col, final int rowStart, final int rowEnd, final int delta) {
+        if (col < 0 || col >= width) {
+            return;
+        }
+        for (int row = Math.max(rowStart, 0); row < Math.min(rowEnd, height); ++row) {
+            update(ranks[row * width + col], delta);
+        }
+    }
+
+    private void update(final int rank, final int delta) {
+        if (rank < 0) {
+            return;
+        }
+        count += delta;
+        for (int i = rank + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return the element numSamples / 2 of the sorted window samples or noDataValue if the window is empty
+     */
+    private double getMedian() {
+        if (count == 0) {
+            return noDataValue;
+        }
+
+        // find the smallest rank whose cumulative count exceeds count / 2
+        int remaining = count / 2;
+        int pos = 0;
+        for (int bit = topBit; bit > 0; bit >>= 1) {
+            final int next = pos + bit;
+            if (next < tree.length && tree[next] <= remaining) {
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return distinctValues[pos];
+    }
+}
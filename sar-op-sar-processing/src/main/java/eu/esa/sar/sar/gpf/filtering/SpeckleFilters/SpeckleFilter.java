@@ -57,6 +57,48 @@ public interface SpeckleFilter {
         return new Rectangle(sx0, sy0, sw, sh);
     }
 
+    /**
+     * Get the pixel intensities of a source tile, row by row.
+     *
+     * @param srcData1    The source ProductData for 1st band.
+     * @param srcData2    The source ProductData for 2nd band.
+     * @param srcIndex    The source tile index.
+     * @param srcRect     The source tile rectangle.
+     * @param noDataValue Place holder for no data value.
+     * @param isComplex   True if it has i and q, otherwise false.
+     * @return The pixel intensities, noDataValue for no data pixels.
+     */
+    static double[] getIntensities(final ProductData srcData1, final ProductData srcData2,
+                                   final TileIndex srcIndex, final Rectangle srcRect,
+                                   final double noDataValue, final boolean isComplex) {
+
+        final int sx0 = srcRect.x;
+        final int sy0 = srcRect.y;
+        final int sw = srcRect.width;
+        final int sh = srcRect.height;
+        final double[] values = new double[sw * sh];
+
+        int k = 0;
+        for (int y = sy0; y < sy0 + sh; ++y) {
+            srcIndex.calculateStride(y);
+            for (int x = sx0; x < sx0 + sw; ++x) {
+                final int idx = srcIndex.getIndex(x);
+                if (isComplex) {
+                    final double I = srcData1.getElemDoubleAt(idx);
+                    final double Q = srcData2.getElemDoubleAt(idx);
+                    if (Double.compare(I, noDataValue) != 0 && Double.compare(Q, noDataValue) != 0) {
+                        values[k++] = I * I + Q * Q;
+                    } else {
+                        values[k++] = noDataValue;
+                    }
+                } else {
+                    values[k++] = srcData1.getElemDoubleAt(idx);
+                }
+            }
+        }
+        return values;
+    }
+
     /**
      * Get pixel values in a filter size rectangular region centered at the given pixel.
      *
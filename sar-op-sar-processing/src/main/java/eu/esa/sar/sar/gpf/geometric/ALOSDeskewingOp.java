@@ -17,6 +17,7 @@ package eu.esa.sar.sar.gpf.geometric;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.OrbitStateVectors;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.commons.SARUtils;
@@ -381,42 +382,46 @@ public class ALOSDeskewingOp extends Operator {
         // compute absolute shift
         final String demResamplingMethod = ResamplingFactory.BILINEAR_INTERPOLATION_NAME;
         DEMFactory.validateDEM(demName, sourceProduct);
-        ElevationModel dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
-        final float demNoDataValue = dem.getDescriptor().getNoDataValue();
-
-        GeoPos geoPos = new GeoPos();
-        for (int y = 0; y < sourceImageHeight; y++) {
-            sourceProduct.getSceneGeoCoding().getGeoPos(new PixelPos(0.5f, y + 0.5f), geoPos);
-            final double lat = geoPos.lat;
-            double lon = geoPos.lon;
-            if (lon >= 180.0) {
-                lon -= 360.0;
-            }
+        final ElevationModel dem = DEMTilePool.acquire(demName, demResamplingMethod);
+        try {
+            final float demNoDataValue = dem.getDescriptor().getNoDataValue();
+
+            GeoPos geoPos = new GeoPos();
+            for (int y = 0; y < sourceImageHeight; y++) {
+                sourceProduct.getSceneGeoCoding().getGeoPos(new PixelPos(0.5f, y + 0.5f), geoPos);
+                final double lat = geoPos.lat;
+                double lon = geoPos.lon;
+                if (lon >= 180.0) {
+                    lon -= 360.0;
+                }
 
-            final Double alt = dem.getElevation(new GeoPos(lat, lon));
-            if (alt.equals(demNoDataValue)) {
-                continue;
-            }
+                final Double alt = dem.getElevation(new GeoPos(lat, lon));
+                if (alt.equals(demNoDataValue)) {
+                    continue;
+                }
 
-            final PosVector earthPoint = new PosVector();
-            final PosVector sensorPos = new PosVector();
-            GeoUtils.geo2xyzWGS84(geoPos.getLat(), geoPos.getLon(), alt, earthPoint);
+                final PosVector earthPoint = new PosVector();
+                final PosVector sensorPos = new PosVector();
+                GeoUtils.geo2xyzWGS84(geoPos.getLat(), geoPos.getLon(), alt, earthPoint);
 
-            final double zeroDopplerTime = SARGeocoding.getEarthPointZeroDopplerTime(
-                    firstLineTime, lineTimeInterval, radarWaveLength, earthPoint, orbit.sensorPosition, orbit.sensorVelocity);
+                final double zeroDopplerTime = SARGeocoding.getEarthPointZeroDopplerTime(
+                        firstLineTime, lineTimeInterval, radarWaveLength, earthPoint, orbit.sensorPosition, orbit.sensorVelocity);
 
-            if (zeroDopplerTime == SARGeocoding.NonValidZeroDopplerTime) {
-                continue;
-            }
+                if (zeroDopplerTime == SARGeocoding.NonValidZeroDopplerTime) {
+                    continue;
+                }
 
-            final double slantRange = SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, earthPoint, sensorPos);
+                final double slantRange = SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, earthPoint, sensorPos);
 
-            final double zeroDopplerTimeWithoutBias =
-                    zeroDopplerTime + slantRange / Constants.lightSpeedInMetersPerDay;
+                final double zeroDopplerTimeWithoutBias =
+                        zeroDopplerTime + slantRange / Constants.lightSpeedInMetersPerDay;
 
-            absShift = (zeroDopplerTimeWithoutBias - firstLineTime) / lineTimeInterval - y;
-            return;
+                absShift = (zeroDopplerTimeWithoutBias - firstLineTime) / lineTimeInterval - y;
+                return;
 
+            }
+        } finally {
+            DEMTilePool.release(dem);
         }
         absShift = computeFAQShift(v, 0);
     }
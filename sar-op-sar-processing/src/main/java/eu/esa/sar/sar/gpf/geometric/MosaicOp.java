@@ -40,6 +40,8 @@ import org.esa.snap.engine_utilities.gpf.TileIndex;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.referencing.wkt.UnformattableObjectException;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import java.awt.*;
@@ -95,10 +97,24 @@ public class MosaicOp extends Operator {
     @Parameter(defaultValue = "1e-4", description = "Convergence threshold for Relaxed Gauss-Seidel method",
             label = "Convergence Threshold")
     private double convergenceThreshold = 1e-4;
+    @Parameter(defaultValue = "false", description = "Solve the gradient domain mosaic with a multigrid preconditioned " +
+            "conjugate gradient solver over a tile with a halo instead of SOR", label = "Use Multigrid Solver")
+    private Boolean useMultigridSolver = false;
+    @Parameter(defaultValue = "false", description = "Inverse geocode a sparse grid of target pixels and interpolate " +
+            "the source pixel positions in between, where accurate enough", label = "Use Geocoding Grid")
+    private Boolean useGeocodingGrid = false;
+
+    // extra pixels solved around each tile so that the Poisson solutions of neighbouring tiles agree at the seams
+    private static final int MULTIGRID_HALO = 64;
+
+    // spacing of the inverse geocoded grid nodes and the largest interpolation error accepted, in pixels
+    private static final int GEOCODING_GRID_STEP = 16;
+    private static final double GEOCODING_GRID_MAX_ERROR = 0.01;
 
     private final OperatorUtils.SceneProperties scnProp = new OperatorUtils.SceneProperties();
     private final Map<Integer, Band> bandIndexSet = new HashMap<>(20);
     private final Map<Product, Rectangle> srcRectMap = new HashMap<>(10);
+    private final STRtree footprintIndex = new STRtree();
     private Product[] selectedProducts = null;
 
     private boolean outputGradientBand = false;
@@ -199,6 +215,7 @@ public class MosaicOp extends Operator {
                         scnProp.srcCornerLongitudeMap.get(srcProduct));
                 srcRectMap.put(srcProduct, srcRect);
             }
+            buildFootprintIndex();
 
             updateTargetProductMetadata();
 
@@ -207,6 +224,43 @@ public class MosaicOp extends Operator {
         }
     }
 
+    /**
+     * Indexes the target footprints of the source products by their position in the selected products.
+     */
+    private void buildFootprintIndex() {
+        for (int i = 0; i < selectedProducts.length; ++i) {
+            final Rectangle srcRect = srcRectMap.get(selectedProducts[i]);
+            if (srcRect != null) {
+                footprintIndex.insert(new Envelope(srcRect.getMinX(), srcRect.getMaxX(),
+                        srcRect.getMinY(), srcRect.getMaxY()), i);
+            }
+        }
+        // building up front leaves only read access for the tile threads
+        footprintIndex.build();
+    }
+
+    /**
+     * @return the source products whose footprints intersect the rectangle, in the order of the selected products
+     */
+    private List<Product> getIntersectingProducts(final Rectangle rectangle) {
+        final List<?> hits = footprintIndex.query(new Envelope(rectangle.getMinX(), rectangle.getMaxX(),
+                rectangle.getMinY(), rectangle.getMaxY()));
+        final int[] indices = new int[hits.size()];
+        for (int i = 0; i < indices.length; ++i) {
+            indices[i] = (Integer) hits.get(i);
+        }
+        Arrays.sort(indices);
+
+        final List<Product> products = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            // the envelopes are closed, so drop the footprints that only touch the rectangle
+            if (srcRectMap.get(selectedProducts[index]).intersects(rectangle)) {
+                products.add(selectedProducts[index]);
+            }
+        }
+        return products;
+    }
+
     private CrsGeoCoding createCRSGeoCoding(final Product srcGeoCodingProduct, final GeoCoding srcGeocoding) throws Exception {
         final CoordinateReferenceSystem srcCRS = srcGeocoding.getMapCRS();
         String wkt;
@@ -350,6 +404,24 @@ public class MosaicOp extends Operator {
         return getBoundingBox(pixelPos, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 4);
     }
 
+    private static SourcePixelPositions.TargetGeoPositions getTargetGeoPositions(final TileGeoreferencing tileGeoRef,
+                                                                                 final Rectangle rectangle) {
+        final double[] lats = new double[rectangle.width * rectangle.height];
+        final double[] lons = new double[rectangle.width * rectangle.height];
+        final GeoPos geoPos = new GeoPos();
+        for (int y = rectangle.y, index = 0; y < rectangle.y + rectangle.height; ++y) {
+            for (int x = rectangle.x; x < rectangle.x + rectangle.width; ++x, ++index) {
+                tileGeoRef.getGeoPos(x, y, geoPos);
+                lats[index] = geoPos.lat;
+                lons[index] = geoPos.lon;
+            }
+        }
+        return (x, y, pos) -> {
+            final int index = (y - rectangle.y) * rectangle.width + x - rectangle.x;
+            pos.setLocation(lats[index], lons[index]);
+        };
+    }
+
     private static Rectangle getBoundingBox(final PixelPos[] pixelPositions,
                                             final int minOffsetX, final int minOffsetY,
                                             final int maxWidth, final int maxHeight, final int margin) {
@@ -408,57 +480,42 @@ public class MosaicOp extends Operator {
     public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle targetRectangle, ProgressMonitor pm) throws OperatorException {
 
         try {
-            final List<Product> validProducts = new ArrayList<>(sourceProduct.length);
-
-            for (final Product srcProduct : selectedProducts) {
-                final Rectangle srcRect = srcRectMap.get(srcProduct);
-                if (srcRect == null || !srcRect.intersects(targetRectangle)) {
-                    continue;
-                }
-                validProducts.add(srcProduct);
-            }
+            // the multigrid solver also solves a halo around the tile, so source pixel positions are needed there too
+            final Rectangle pixelRectangle = gradientDomainMosaic && useMultigridSolver ?
+                    getHaloRectangle(targetRectangle) : targetRectangle;
 
+            final List<Product> validProducts = getIntersectingProducts(pixelRectangle);
             if (validProducts.isEmpty()) {
                 return;
             }
 
-            final GeoPos geoPos = new GeoPos();
-            final PixelPos pixelPos = new PixelPos();
-            final int minX = targetRectangle.x;
-            final int minY = targetRectangle.y;
-            final int maxX = targetRectangle.x + targetRectangle.width - 1;
-            final int maxY = targetRectangle.y + targetRectangle.height - 1;
+            final int minX = pixelRectangle.x;
+            final int minY = pixelRectangle.y;
+            final int maxX = pixelRectangle.x + pixelRectangle.width - 1;
+            final int maxY = pixelRectangle.y + pixelRectangle.height - 1;
 
             final TileGeoreferencing tileGeoRef = new TileGeoreferencing(targetProduct, minX, minY, maxX - minX + 1, maxY - minY + 1);
 
-            final List<PixelPos[]> srcPixelCoords = new ArrayList<>(validProducts.size());
-            final int numPixelPos = targetRectangle.width * targetRectangle.height;
-            for (Product validProduct : validProducts) {
-                srcPixelCoords.add(new PixelPos[numPixelPos]);
+            final SourcePixelPositions.TargetGeoPositions targetGeoPositions;
+            if (useGeocodingGrid) {
+                targetGeoPositions = tileGeoRef::getGeoPos;
+            } else {
+                // every pixel is inverse geocoded for every product, so look up the target positions only once
+                targetGeoPositions = getTargetGeoPositions(tileGeoRef, pixelRectangle);
             }
 
-            int coordIndex = 0;
-            int prodIndex;
-            for (int y = minY; y <= maxY; ++y) {
-                for (int x = minX; x <= maxX; ++x) {
-                    tileGeoRef.getGeoPos(x, y, geoPos);
-
-                    prodIndex = 0;
-                    for (final Product srcProduct : validProducts) {
-                        srcProduct.getSceneGeoCoding().getPixelPos(geoPos, pixelPos);
-
-                        if (pixelPos.x >= feather && pixelPos.y >= feather &&
-                                pixelPos.x < srcProduct.getSceneRasterWidth() - feather &&
-                                pixelPos.y < srcProduct.getSceneRasterHeight() - feather) {
-
-                            srcPixelCoords.get(prodIndex)[coordIndex] = new PixelPos(pixelPos.x, pixelPos.y);
-                        } else {
-                            srcPixelCoords.get(prodIndex)[coordIndex] = null;
-                        }
-                        ++prodIndex;
-                    }
-                    ++coordIndex;
+            final List<SourcePixelPositions> srcPixelCoords = new ArrayList<>(validProducts.size());
+            for (final Product srcProduct : validProducts) {
+                final GeoCoding srcGeoCoding = srcProduct.getSceneGeoCoding();
+                final SourcePixelPositions pixPos = new SourcePixelPositions(pixelRectangle,
+                        srcProduct.getSceneRasterWidth(), srcProduct.getSceneRasterHeight(), feather);
+                if (useGeocodingGrid) {
+                    pixPos.computeFromGrid(srcGeoCoding::getPixelPos, targetGeoPositions,
+                            GEOCODING_GRID_STEP, GEOCODING_GRID_MAX_ERROR);
+                } else {
+                    pixPos.computeExact(srcGeoCoding::getPixelPos, targetGeoPositions);
                 }
+                srcPixelCoords.add(pixPos);
             }
 
             final Resampling resampling = ResamplingFactory.createResampling(resamplingMethod);
@@ -467,7 +524,8 @@ public class MosaicOp extends Operator {
             }
 
             if (gradientDomainMosaic) {
-                performGradientDomainMosaic(targetTiles, targetRectangle, srcPixelCoords, validProducts, resampling, pm);
+                performGradientDomainMosaic(targetTiles, targetRectangle, pixelRectangle, srcPixelCoords, validProducts,
+                        resampling, pm);
                 return;
             }
 
@@ -476,17 +534,17 @@ public class MosaicOp extends Operator {
                 final String trgBandName = bandTileEntry.getKey().getName();
                 validSourceData.clear();
 
-                prodIndex = 0;
+                int prodIndex = 0;
                 for (final Product srcProduct : validProducts) {
                     final Band srcBand = srcProduct.getBand(trgBandName);
                     if (srcBand == null) {
                         continue;
                     }
 
-                    final PixelPos[] pixPos = srcPixelCoords.get(prodIndex);
+                    final SourcePixelPositions pixPos = srcPixelCoords.get(prodIndex);
 
-                    final Rectangle sourceRectangle = getBoundingBox(
-                            pixPos, feather, feather,
+                    final Rectangle sourceRectangle = pixPos.getBoundingBox(
+                            feather, feather,
                             srcProduct.getSceneRasterWidth() - feather,
                             srcProduct.getSceneRasterHeight() - feather, 4);
 
@@ -549,12 +607,13 @@ public class MosaicOp extends Operator {
                     double targetVal = 0;
                     int numSamples = 0;
                     for (final SourceData srcDat : validSourceData) {
-                        final PixelPos sourcePixelPos = srcDat.srcPixPos[index];
-                        if (sourcePixelPos == null) {
+                        if (!srcDat.srcPixPos.isValid(index)) {
                             continue;
                         }
+                        final double srcX = srcDat.srcPixPos.getX(index);
+                        final double srcY = srcDat.srcPixPos.getY(index);
 
-                        resampling.computeIndex(sourcePixelPos.x, sourcePixelPos.y,
+                        resampling.computeIndex(srcX, srcY,
                                 srcDat.srcRasterWidth - feather, srcDat.srcRasterHeight - feather, srcDat.resamplingIndex);
 
                         sample = resampling.resample(srcDat.resamplingRaster, srcDat.resamplingIndex);
@@ -569,10 +628,10 @@ public class MosaicOp extends Operator {
 
                             if (average) {
                                 sampleList[numSamples] = sample;
-                                sampleDistanceList[numSamples] = (int) (Math.min(sourcePixelPos.x + 1,
-                                        srcDat.srcRasterWidth - sourcePixelPos.x) *
-                                        Math.min(sourcePixelPos.y + 1,
-                                                srcDat.srcRasterHeight - sourcePixelPos.y));
+                                sampleDistanceList[numSamples] = (int) (Math.min(srcX + 1,
+                                        srcDat.srcRasterWidth - srcX) *
+                                        Math.min(srcY + 1,
+                                                srcDat.srcRasterHeight - srcY));
                                 numSamples++;
                             }
                         }
@@ -599,23 +658,46 @@ public class MosaicOp extends Operator {
         }
     }
 
+    private Rectangle getHaloRectangle(final Rectangle targetRectangle) {
+        final Rectangle haloRectangle = new Rectangle(targetRectangle);
+        haloRectangle.grow(MULTIGRID_HALO, MULTIGRID_HALO);
+        return haloRectangle.intersection(
+                new Rectangle(0, 0, targetProduct.getSceneRasterWidth(), targetProduct.getSceneRasterHeight()));
+    }
+
+    /**
+     * @param targetRectangle the tile to compute
+     * @param pixelRectangle  the area mosaicked, the target rectangle plus any halo. The source pixel coordinates
+     *                        are given over this area.
+     */
     private void performGradientDomainMosaic(final Map<Band, Tile> targetTiles, final Rectangle targetRectangle,
-                                             final List<PixelPos[]> srcPixelCoords, final List<Product> validProducts,
+                                             final Rectangle pixelRectangle,
+                                             final List<SourcePixelPositions> srcPixelCoords, final List<Product> validProducts,
                                              final Resampling resampling, ProgressMonitor pm)
             throws OperatorException {
 
         try {
 
-            final int minX = targetRectangle.x;
-            final int minY = targetRectangle.y;
-            final int maxX = targetRectangle.x + targetRectangle.width - 1;
-            final int maxY = targetRectangle.y + targetRectangle.height - 1;
-
-            double[][] mosaicedTile = new double[targetRectangle.height][targetRectangle.width];
-            double[][] gradientTile = new double[targetRectangle.height][targetRectangle.width];
-            byte[][] mask = new byte[targetRectangle.height][targetRectangle.width];
+            final int minX = pixelRectangle.x;
+            final int minY = pixelRectangle.y;
+            final int maxX = pixelRectangle.x + pixelRectangle.width - 1;
+            final int maxY = pixelRectangle.y + pixelRectangle.height - 1;
+            final int width = pixelRectangle.width;
+            final int height = pixelRectangle.height;
+
+            final int tileMinX = targetRectangle.x;
+            final int tileMinY = targetRectangle.y;
+            final int tileMaxX = targetRectangle.x + targetRectangle.width - 1;
+            final int tileMaxY = targetRectangle.y + targetRectangle.height - 1;
+
+            final double[] mosaicedTile = new double[width * height];
+            final double[] gradientTile = new double[width * height];
+            final byte[] mask = new byte[width * height];
             // -1: no data, 0: used by existing product, 1: used by new product, 2: need mosaic
 
+            final MultigridPoissonSolver multigridSolver = useMultigridSolver ?
+                    new MultigridPoissonSolver(maxIterations, convergenceThreshold) : null;
+
             final List<SourceData> validSourceData = new ArrayList<>(validProducts.size());
 
             // loop through all target bands
@@ -640,7 +722,11 @@ public class MosaicOp extends Operator {
                         readNextProduct(minX, maxX, minY, maxY, validSourceData.get(i), resampling,
                                 mosaicedTile, mask, gradientTile);
 
-                        performMosaic(mask, gradientTile, mosaicedTile);
+                        if (multigridSolver != null) {
+                            multigridSolver.solve(mask, (byte) 2, gradientTile, mosaicedTile, width, height);
+                        } else {
+                            performMosaic(mask, gradientTile, mosaicedTile, width);
+                        }
 
                         cleanUpMask(mask);
                     }
@@ -648,10 +734,11 @@ public class MosaicOp extends Operator {
 
                 // save mosaiced image
                 final TileIndex trgIndex = new TileIndex(trgTile);
-                for (int y = minY; y <= maxY; y++) {
+                for (int y = tileMinY; y <= tileMaxY; y++) {
                     trgIndex.calculateStride(y);
-                    for (int x = minX; x <= maxX; x++) {
-                        trgBuffer.setElemDoubleAt(trgIndex.getIndex(x), mosaicedTile[y - minY][x - minX]);
+                    final int offset = (y - minY) * width - minX;
+                    for (int x = tileMinX; x <= tileMaxX; x++) {
+                        trgBuffer.setElemDoubleAt(trgIndex.getIndex(x), mosaicedTile[offset + x]);
                     }
                 }
 
@@ -659,10 +746,11 @@ public class MosaicOp extends Operator {
                 if (outputGradientBand) {
                     final Band gradientBand = targetProduct.getBand(trgBandName + "_gradient");
                     final ProductData gradientBuffer = targetTiles.get(gradientBand).getDataBuffer();
-                    for (int y = minY; y <= maxY; y++) {
+                    for (int y = tileMinY; y <= tileMaxY; y++) {
                         trgIndex.calculateStride(y);
-                        for (int x = minX; x <= maxX; x++) {
-                            gradientBuffer.setElemDoubleAt(trgIndex.getIndex(x), gradientTile[y - minY][x - minX]);
+                        final int offset = (y - minY) * width - minX;
+                        for (int x = tileMinX; x <= tileMaxX; x++) {
+                            gradientBuffer.setElemDoubleAt(trgIndex.getIndex(x), gradientTile[offset + x]);
                         }
                     }
                 }
@@ -674,7 +762,7 @@ public class MosaicOp extends Operator {
     }
 
     private void getValidSourceData(final List<Product> validProducts, final String trgBandName,
-                                    final List<PixelPos[]> srcPixelCoords, final Resampling resampling,
+                                    final List<SourcePixelPositions> srcPixelCoords, final Resampling resampling,
                                     List<SourceData> validSourceData, ProgressMonitor pm) {
 
         try {
@@ -686,9 +774,9 @@ public class MosaicOp extends Operator {
                     continue;
                 }
 
-                final PixelPos[] pixPos = srcPixelCoords.get(prodIndex);
-                final Rectangle sourceRectangle = getBoundingBox(
-                        pixPos, 0, 0, srcProduct.getSceneRasterWidth(), srcProduct.getSceneRasterHeight(), feather);
+                final SourcePixelPositions pixPos = srcPixelCoords.get(prodIndex);
+                final Rectangle sourceRectangle = pixPos.getBoundingBox(
+                        0, 0, srcProduct.getSceneRasterWidth(), srcProduct.getSceneRasterHeight(), feather);
 
                 if (sourceRectangle != null) {
                     double mean = 0, min = 0, max = 0, std = 0;
@@ -725,25 +813,21 @@ public class MosaicOp extends Operator {
 
     private void readFirstProduct(final int minX, final int maxX, final int minY, final int maxY,
                                   final SourceData srcDat, final Resampling resampling,
-                                  double[][] mosaicedTile, byte[][] mask)
+                                  double[] mosaicedTile, byte[] mask)
             throws OperatorException {
 
         try {
             double sample;
-            int yy, xx;
             for (int y = minY, index = 0; y <= maxY; ++y) {
-                yy = y - minY;
                 for (int x = minX; x <= maxX; ++x, ++index) {
-                    xx = x - minX;
 
-                    final PixelPos sourcePixelPos = srcDat.srcPixPos[index];
-                    if (sourcePixelPos == null) {
-                        mosaicedTile[yy][xx] = srcDat.nodataValue;
-                        mask[yy][xx] = -1;
+                    if (!srcDat.srcPixPos.isValid(index)) {
+                        mosaicedTile[index] = srcDat.nodataValue;
+                        mask[index] = -1;
                         continue;
                     }
 
-                    resampling.computeIndex(sourcePixelPos.x, sourcePixelPos.y,
+                    resampling.computeIndex(srcDat.srcPixPos.getX(index), srcDat.srcPixPos.getY(index),
                             srcDat.srcRasterWidth, srcDat.srcRasterHeight, srcDat.resamplingIndex);
 
                     sample = resampling.resample(srcDat.resamplingRaster, srcDat.resamplingIndex);
@@ -753,11 +837,11 @@ public class MosaicOp extends Operator {
                             sample -= srcDat.srcMean;
                             sample /= srcDat.srcStd;
                         }
-                        mosaicedTile[yy][xx] = sample;
-                        mask[yy][xx] = 0;
+                        mosaicedTile[index] = sample;
+                        mask[index] = 0;
                     } else {
-                        mosaicedTile[yy][xx] = srcDat.nodataValue;
-                        mask[yy][xx] = -1;
+                        mosaicedTile[index] = srcDat.nodataValue;
+                        mask[index] = -1;
                     }
                 }
             }
@@ -770,12 +854,12 @@ public class MosaicOp extends Operator {
 
     private void readNextProduct(final int minX, final int maxX, final int minY, final int maxY,
                                  final SourceData srcDat, final Resampling resampling,
-                                 double[][] mosaicedTile, byte[][] mask, double[][] gradientTile)
+                                 double[] mosaicedTile, byte[] mask, double[] gradientTile)
             throws OperatorException {
 
         try {
-            final int targetTileWidth = mosaicedTile[0].length;
-            final int targetTileHeight = mosaicedTile.length;
+            final int targetTileWidth = maxX - minX + 1;
+            final int targetTileHeight = maxY - minY + 1;
             double[] adjacentPixels = new double[4];
 
             double sample;
@@ -785,12 +869,11 @@ public class MosaicOp extends Operator {
                 for (int x = minX; x <= maxX; ++x, ++index) {
                     xx = x - minX;
 
-                    final PixelPos sourcePixelPos = srcDat.srcPixPos[index];
-                    if (sourcePixelPos == null) {
+                    if (!srcDat.srcPixPos.isValid(index)) {
                         continue;
                     }
 
-                    resampling.computeIndex(sourcePixelPos.x, sourcePixelPos.y,
+                    resampling.computeIndex(srcDat.srcPixPos.getX(index), srcDat.srcPixPos.getY(index),
                             srcDat.srcRasterWidth, srcDat.srcRasterHeight, srcDat.resamplingIndex);
 
                     sample = resampling.resample(srcDat.resamplingRaster, srcDat.resamplingIndex);
@@ -801,19 +884,19 @@ public class MosaicOp extends Operator {
                             sample /= srcDat.srcStd;
                         }
 
-                        if (mask[yy][xx] == -1) {
-                            mosaicedTile[yy][xx] = sample;
-                            mask[yy][xx] = 1;
-                        } else if (mask[yy][xx] == 0 && isInnerPoint(index, targetTileWidth, targetTileHeight, srcDat,
+                        if (mask[index] == -1) {
+                            mosaicedTile[index] = sample;
+                            mask[index] = 1;
+                        } else if (mask[index] == 0 && isInnerPoint(index, targetTileWidth, targetTileHeight, srcDat,
                                 resampling, adjacentPixels)) {
 
-                            if (isInnerPoint(xx, yy, mask)) {
-                                mask[yy][xx] = 2;
-                                mosaicedTile[yy][xx] = sample;
-                                //gradientTile[yy][xx] = computeGradient(xx, yy, mosaicedTile, sample, adjacentPixels);
-                                gradientTile[yy][xx] = adjacentPixels[0] + adjacentPixels[1] + adjacentPixels[2] + adjacentPixels[3] - 4 * sample;
+                            if (isInnerPoint(xx, yy, mask, targetTileWidth, targetTileHeight)) {
+                                mask[index] = 2;
+                                mosaicedTile[index] = sample;
+                                //gradientTile[index] = computeGradient(xx, yy, mosaicedTile, sample, adjacentPixels);
+                                gradientTile[index] = adjacentPixels[0] + adjacentPixels[1] + adjacentPixels[2] + adjacentPixels[3] - 4 * sample;
                             } else {
-                                mosaicedTile[yy][xx] = sample;
+                                mosaicedTile[index] = sample;
                             }
                         }
                     }
@@ -836,25 +919,25 @@ public class MosaicOp extends Operator {
 
             if (indexUp >= 0 && indexDown < targetTileWidth * targetTileHeight &&
                     index % targetTileWidth != 0 && (index + 1) % targetTileWidth != 0 &&
-                    srcDat.srcPixPos[indexUp] != null && srcDat.srcPixPos[indexDown] != null &&
-                    srcDat.srcPixPos[indexLeft] != null && srcDat.srcPixPos[indexRight] != null) {
+                    srcDat.srcPixPos.isValid(indexUp) && srcDat.srcPixPos.isValid(indexDown) &&
+                    srcDat.srcPixPos.isValid(indexLeft) && srcDat.srcPixPos.isValid(indexRight)) {
 
-                resampling.computeIndex(srcDat.srcPixPos[indexUp].x, srcDat.srcPixPos[indexUp].y,
+                resampling.computeIndex(srcDat.srcPixPos.getX(indexUp), srcDat.srcPixPos.getY(indexUp),
                         srcDat.srcRasterWidth, srcDat.srcRasterHeight, srcDat.resamplingIndex);
 
                 final double s1 = resampling.resample(srcDat.resamplingRaster, srcDat.resamplingIndex);
 
-                resampling.computeIndex(srcDat.srcPixPos[indexDown].x, srcDat.srcPixPos[indexDown].y,
+                resampling.computeIndex(srcDat.srcPixPos.getX(indexDown), srcDat.srcPixPos.getY(indexDown),
                         srcDat.srcRasterWidth, srcDat.srcRasterHeight, srcDat.resamplingIndex);
 
                 final double s2 = resampling.resample(srcDat.resamplingRaster, srcDat.resamplingIndex);
 
-                resampling.computeIndex(srcDat.srcPixPos[indexLeft].x, srcDat.srcPixPos[indexLeft].y,
+                resampling.computeIndex(srcDat.srcPixPos.getX(indexLeft), srcDat.srcPixPos.getY(indexLeft),
                         srcDat.srcRasterWidth, srcDat.srcRasterHeight, srcDat.resamplingIndex);
 
                 final double s3 = resampling.resample(srcDat.resamplingRaster, srcDat.resamplingIndex);
 
-                resampling.computeIndex(srcDat.srcPixPos[indexRight].x, srcDat.srcPixPos[indexRight].y,
+                resampling.computeIndex(srcDat.srcPixPos.getX(indexRight), srcDat.srcPixPos.getY(indexRight),
                         srcDat.srcRasterWidth, srcDat.srcRasterHeight, srcDat.resamplingIndex);
 
                 final double s4 = resampling.resample(srcDat.resamplingRaster, srcDat.resamplingIndex);
@@ -886,15 +969,17 @@ public class MosaicOp extends Operator {
         return false;
     }
 
-    private static boolean isInnerPoint(final int xx, final int yy, final byte[][] mask) {
+    private static boolean isInnerPoint(final int xx, final int yy, final byte[] mask, final int width,
+                                        final int height) {
 
-        if (xx == 0 || yy == 0 || xx == mask[0].length - 1 || yy == mask.length - 1) {
+        if (xx == 0 || yy == 0 || xx == width - 1 || yy == height - 1) {
             return false;
         } else {
-            return (mask[yy - 1][xx] == 0 || mask[yy - 1][xx] == 2) &&
-                    (mask[yy + 1][xx] == 0 || mask[yy + 1][xx] == 2) &&
-                    (mask[yy][xx - 1] == 0 || mask[yy][xx - 1] == 2) &&
-                    (mask[yy][xx + 1] == 0 || mask[yy][xx + 1] == 2);
+            final int index = yy * width + xx;
+            return (mask[index - width] == 0 || mask[index - width] == 2) &&
+                    (mask[index + width] == 0 || mask[index + width] == 2) &&
+                    (mask[index - 1] == 0 || mask[index - 1] == 2) &&
+                    (mask[index + 1] == 0 || mask[index + 1] == 2);
         }
     }
 
@@ -902,7 +987,7 @@ public class MosaicOp extends Operator {
         return (!Double.isNaN(sample) && sample != noDataValue && !MathUtils.equalValues(sample, 0.0F, 1e-4F));
     }
 
-    private double computeGradient(final int xx, final int yy, final double[][] mosaicedTile,
+    private double computeGradient(final int xx, final int yy, final double[] mosaicedTile,
                                    final double s0, final double[] adjacentPixels) {
 
         double g2 = adjacentPixels[0] + adjacentPixels[1] + adjacentPixels[2] + adjacentPixels[3] - 4 * s0;
@@ -920,27 +1005,25 @@ public class MosaicOp extends Operator {
         return g2;
     }
 
-    private void performMosaic(final byte[][] mask, final double[][] gradientTile, double[][] mosaicedTile) {
+    private void performMosaic(final byte[] mask, final double[] gradientTile, double[] mosaicedTile,
+                               final int cols) {
 
         final double w = 1.5;
-        final int rows = mask.length;
-        final int cols = mask[0].length;
+        final int size = mask.length;
 
         double sigma, update, error = 0.0;
         int it;
         for (it = 0; it < maxIterations; it++) {
             error = 0.0;
-            for (int r = 0; r < rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    if (mask[r][c] == 2) {
+            for (int i = 0; i < size; i++) {
+                if (mask[i] == 2) {
 
-                        sigma = gradientTile[r][c] - mosaicedTile[r - 1][c] - mosaicedTile[r + 1][c] -
-                                mosaicedTile[r][c - 1] - mosaicedTile[r][c + 1];
+                    sigma = gradientTile[i] - mosaicedTile[i - cols] - mosaicedTile[i + cols] -
+                            mosaicedTile[i - 1] - mosaicedTile[i + 1];
 
-                        update = (1 - w) * mosaicedTile[r][c] - w * sigma / 4.0;
-                        error = Math.max(error, Math.abs(mosaicedTile[r][c] - update));
-                        mosaicedTile[r][c] = update;
-                    }
+                    update = (1 - w) * mosaicedTile[i] - w * sigma / 4.0;
+                    error = Math.max(error, Math.abs(mosaicedTile[i] - update));
+                    mosaicedTile[i] = update;
                 }
             }
 
@@ -953,15 +1036,11 @@ public class MosaicOp extends Operator {
         //    System.out.println("it = " + it + ", error = " + error);
     }
 
-    private static void cleanUpMask(byte[][] mask) {
+    private static void cleanUpMask(byte[] mask) {
 
-        final int rows = mask.length;
-        final int cols = mask[0].length;
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (mask[r][c] > 0) {
-                    mask[r][c] = 0;
-                }
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i] > 0) {
+                mask[i] = 0;
             }
         }
     }
@@ -1033,7 +1112,7 @@ public class MosaicOp extends Operator {
         final ResamplingRaster resamplingRaster;
         final Resampling.Index resamplingIndex;
         final double nodataValue;
-        final PixelPos[] srcPixPos;
+        final SourcePixelPositions srcPixPos;
         final int srcRasterHeight;
         final int srcRasterWidth;
         final double srcMean;
@@ -1042,7 +1121,7 @@ public class MosaicOp extends Operator {
         final double srcStd;
 
         public SourceData(final Tile tile,
-                          final PixelPos[] pixPos, final Resampling resampling,
+                          final SourcePixelPositions pixPos, final Resampling resampling,
                           final double min, final double max, final double mean, final double std) {
             srcTile = tile;
             resamplingRaster = new ResamplingRaster(srcTile);
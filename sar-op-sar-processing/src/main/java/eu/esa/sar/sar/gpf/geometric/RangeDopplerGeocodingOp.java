@@ -22,9 +22,11 @@ import eu.esa.sar.calibration.gpf.calibrators.Sentinel1Calibrator;
 import eu.esa.sar.calibration.gpf.support.CalibrationFactory;
 import eu.esa.sar.calibration.gpf.support.Calibrator;
 import eu.esa.sar.commons.CRSGeoCodingHandler;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.OrbitStateVectors;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.commons.SARUtils;
+import eu.esa.sar.commons.ZeroDopplerSolver;
 import eu.esa.sar.insar.gpf.support.SARPosition;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
@@ -45,7 +47,6 @@ import org.esa.snap.core.util.ThreadExecutor;
 import org.esa.snap.core.util.ThreadRunnable;
 import org.esa.snap.dem.dataio.DEMFactory;
 import org.esa.snap.dem.dataio.EarthGravitationalModel96;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
@@ -364,7 +365,8 @@ public class RangeDopplerGeocodingOp extends Operator {
     @Override
     public void dispose() throws OperatorException {
         if (dem != null) {
-            dem.dispose();
+            DEMTilePool.release(dem);
+            dem = null;
         }
 
         if (!orthoDataProduced && processingStarted) {
@@ -491,14 +493,14 @@ public class RangeDopplerGeocodingOp extends Operator {
         if (isElevationModelAvailable) return;
         if (demName.contains(externalDEMStr) && externalDEMFile != null) { // if external DEM file is specified by user
 
-            dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
-            ((FileElevationModel) dem).applyEarthGravitionalModel(externalDEMApplyEGM);
+            dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue,
+                    externalDEMApplyEGM);
             demNoDataValue = externalDEMNoDataValue;
             demName = externalDEMFile.getName();
 
         } else {
 
-            dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+            dem = DEMTilePool.acquire(demName, demResamplingMethod);
             demNoDataValue = dem.getDescriptor().getNoDataValue();
         }
 
@@ -884,7 +886,7 @@ public class RangeDopplerGeocodingOp extends Operator {
             if (useAvgSceneHeight) {
                 DEMFactory.fillDEM(localDEM, avgSceneHeight);
             } else {
-                final boolean valid = DEMFactory.getLocalDEM(
+                final boolean valid = DEMTilePool.getLocalDEM(
                         dem, demNoDataValue, demResamplingMethod, tileGeoRef, x0, y0, w, h, sourceProduct,
                         nodataValueAtSea, localDEM);
                 if (!valid && nodataValueAtSea) {
@@ -989,15 +991,27 @@ public class RangeDopplerGeocodingOp extends Operator {
             final GeoPos posLast = targetProduct.getSceneGeoCoding().getGeoPos(new PixelPos(0,targetImageHeight), null);
             int diffLat = (int)Math.abs(posFirst.lat - posLast.lat);
 
+            // zero Doppler times are solved for a whole row at once, each pixel starting from its neighbour
+            final ZeroDopplerSolver zeroDopplerSolver = new ZeroDopplerSolver(
+                    firstLineUTC, lineTimeInterval, wavelength, orbit);
+            final PosVector[] earthPoints = new PosVector[w];
+            for (int i = 0; i < w; ++i) {
+                earthPoints[i] = new PosVector();
+            }
+            final double[] zeroDopplerTimes = new double[w];
+            final double[] rowLat = new double[w];
+            final double[] rowLon = new double[w];
+            final double[] rowAlt = new double[w];
+
             for (int y = y0; y < maxY; y++) {
                 final int yy = y - y0 + 1;
                 for (int x = x0; x < maxX; x++) {
-                    final int index = tgtTiles[0].targetTile.getDataBufferIndex(x, y);
+                    final int xx = x - x0;
 
-                    Double alt = localDEM[yy][x - x0 + 1];
+                    Double alt = localDEM[yy][xx + 1];
                     if (alt.equals(demNoDataValue) && !useAvgSceneHeight) {
                         if (nodataValueAtSea) {
-                            saveNoDataValueToTarget(index, tgtTiles, demBuffer);
+                            earthPoints[xx].x = Double.NaN;
                             continue;
                         }
                     }
@@ -1013,7 +1027,31 @@ public class RangeDopplerGeocodingOp extends Operator {
                         alt = (double) egm.getEGM(lat, lon);
                     }
 
-                    if (!getPosition(lat, lon, alt, posData)) {
+                    rowLat[xx] = lat;
+                    rowLon[xx] = lon;
+                    rowAlt[xx] = alt;
+                    GeoUtils.geo2xyzWGS84(lat, lon, alt, earthPoints[xx]);
+                }
+
+                zeroDopplerSolver.getZeroDopplerTimes(earthPoints, w, zeroDopplerTimes);
+
+                for (int x = x0; x < maxX; x++) {
+                    final int xx = x - x0;
+                    final int index = tgtTiles[0].targetTile.getDataBufferIndex(x, y);
+
+                    if (Double.isNaN(earthPoints[xx].x)) {
+                        saveNoDataValueToTarget(index, tgtTiles, demBuffer);
+                        continue;
+                    }
+
+                    final double lat = rowLat[xx];
+                    final double lon = rowLon[xx];
+                    final double alt = rowAlt[xx];
+                    posData.earthPoint.x = earthPoints[xx].x;
+                    posData.earthPoint.y = earthPoints[xx].y;
+                    posData.earthPoint.z = earthPoints[xx].z;
+
+                    if (!getPosition(zeroDopplerTimes[xx], posData)) {
                         saveNoDataValueToTarget(index, tgtTiles, demBuffer);
                         continue;
                     }
@@ -1133,7 +1171,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         final double[][] localDEM = new double[h + 2][w + 2];
                         final TileGeoreferencing tileGeoRef = new TileGeoreferencing(sourceProduct, x0, y0, w, h);
                         try {
-                            final boolean valid = DEMFactory.getLocalDEM(dem, demNoDataValue, demResamplingMethod,
+                            final boolean valid = DEMTilePool.getLocalDEM(dem, demNoDataValue, demResamplingMethod,
                                     tileGeoRef, x0, y0, w, h, sourceProduct, true, localDEM);
 
                             if (!valid) {
@@ -1490,9 +1528,14 @@ public class RangeDopplerGeocodingOp extends Operator {
 
         GeoUtils.geo2xyzWGS84(lat, lon, alt, data.earthPoint);
 
-        double zeroDopplerTime = SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC,
+        final double zeroDopplerTime = SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC,
                                                                            lineTimeInterval, wavelength, data.earthPoint, orbit.sensorPosition, orbit.sensorVelocity);
 
+        return getPosition(zeroDopplerTime, data);
+    }
+
+    private boolean getPosition(double zeroDopplerTime, final PositionData data) {
+
         if (Double.compare(zeroDopplerTime, SARGeocoding.NonValidZeroDopplerTime) == 0) {
             return false;
         }
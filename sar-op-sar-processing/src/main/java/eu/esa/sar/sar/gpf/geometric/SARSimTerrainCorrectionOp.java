@@ -24,6 +24,7 @@ import eu.esa.sar.commons.OrbitStateVectors;
 import eu.esa.sar.insar.gpf.coregistration.GCPManager;
 import eu.esa.sar.insar.gpf.coregistration.WarpData;
 import eu.esa.sar.commons.CRSGeoCodingHandler;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.commons.SARUtils;
 import org.esa.snap.core.datamodel.*;
@@ -42,7 +43,6 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.dem.dataio.DEMFactory;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
@@ -358,7 +358,7 @@ public class SARSimTerrainCorrectionOp extends Operator {
     @Override
     public synchronized void dispose() {
         if (dem != null) {
-            dem.dispose();
+            DEMTilePool.release(dem);
             dem = null;
         }
         if (!orthoDataProduced && processingStarted) {
@@ -475,11 +475,11 @@ public class SARSimTerrainCorrectionOp extends Operator {
         if (demDescriptor == null) {
 
             final File externalDemFile = new File(demName);
-            dem = new FileElevationModel(externalDemFile, demResamplingMethod, demNoDataValue);
+            dem = DEMTilePool.acquire(externalDemFile, demResamplingMethod, demNoDataValue);
             demName = externalDemFile.getName();
             demNoDataValue = absRoot.getAttributeDouble("external DEM no data value");
         } else {
-            dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+            dem = DEMTilePool.acquire(demName, demResamplingMethod);
             demNoDataValue = dem.getDescriptor().getNoDataValue();
         }
 
@@ -961,7 +961,7 @@ public class SARSimTerrainCorrectionOp extends Operator {
             if (useAvgSceneHeight) {
                 DEMFactory.fillDEM(localDEM, avgSceneHeight);
             } else {
-                final boolean valid = DEMFactory.getLocalDEM(
+                final boolean valid = DEMTilePool.getLocalDEM(
                         dem, demNoDataValue, demResamplingMethod, tileGeoRef, x0, y0, w, h, sourceProduct, true, localDEM);
                 if (!valid) {
                     return;
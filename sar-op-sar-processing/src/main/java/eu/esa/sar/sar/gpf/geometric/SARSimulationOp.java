@@ -17,6 +17,7 @@ package eu.esa.sar.sar.gpf.geometric;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.OrbitStateVectors;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.insar.gpf.support.SARPosition;
@@ -34,7 +35,6 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.dem.dataio.DEMFactory;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
@@ -239,7 +239,7 @@ public final class SARSimulationOp extends Operator {
     @Override
     public synchronized void dispose() {
         if (dem != null) {
-            dem.dispose();
+            DEMTilePool.release(dem);
             dem = null;
         }
     }
@@ -298,13 +298,13 @@ public final class SARSimulationOp extends Operator {
         try {
             if (demName.contains(externalDEMStr)) { // if external DEM file is specified by user
 
-                dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
-                ((FileElevationModel)dem).applyEarthGravitionalModel(externalDEMApplyEGM);
+                dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue,
+                        externalDEMApplyEGM);
                 demNoDataValue = externalDEMNoDataValue;
                 demName = externalDEMFile.getPath();
 
             } else {
-                dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+                dem = DEMTilePool.acquire(demName, demResamplingMethod);
                 demNoDataValue = dem.getDescriptor().getNoDataValue();
             }
         } catch (Throwable t) {
@@ -717,7 +717,7 @@ public final class SARSimulationOp extends Operator {
                     }
                 } else {
 
-                    final boolean valid = DEMFactory.getLocalDEM(
+                    final boolean valid = DEMTilePool.getLocalDEM(
                             dem, demNoDataValue, demResamplingMethod, tileGeoRef, xmin, ymin, widthExt, heightExt,
                             sourceProduct, true, localDEM);
 
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sar.gpf.geometric;
+
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+
+import java.awt.*;
+
+/**
+ * The positions in a source product of the pixels of a target rectangle, row by row in flat arrays. Target pixels
+ * that do not fall inside the source, less the feather, are NaN.
+ * <p>
+ * The positions are either found by inverse geocoding every pixel, or by inverse geocoding a sparse grid of nodes
+ * and interpolating bilinearly in between. A grid cell is only interpolated when all four nodes fall on the source
+ * geocoding and the interpolated position at the cell centre is within a maximum error of the exact one; the pixels
+ * of the other cells are geocoded exactly.
+ */
+final class SourcePixelPositions {
+
+    /**
+     * Gives the geographic position of a target pixel.
+     */
+    interface TargetGeoPositions {
+        void getGeoPos(int x, int y, GeoPos geoPos);
+    }
+
+    /**
+     * Gives the source pixel position of a geographic position, as {@link org.esa.snap.core.datamodel.GeoCoding} does.
+     */
+    interface SourceGeoCoding {
+        void getPixelPos(GeoPos geoPos, PixelPos pixelPos);
+    }
+
+    private final Rectangle rectangle;
+    private final double[] x;
+    private final double[] y;
+    private final int srcWidth;
+    private final int srcHeight;
+    private final int feather;
+    private int numExact = 0;
+
+    /**
+     * @param rectangle the target rectangle
+     * @param srcWidth  the source scene width
+     * @param srcHeight the source scene height
+     * @param feather   the number of source pixels dropped along each edge
+     */
+    SourcePixelPositions(final Rectangle rectangle, final int srcWidth, final int srcHeight, final int feather) {
+        this.rectangle = rectangle;
+        this.x = new double[rectangle.width * rectangle.height];
+        this.y = new double[rectangle.width * rectangle.height];
+        this.srcWidth = srcWidth;
+        this.srcHeight = srcHeight;
+        this.feather = feather;
+    }
+
+    boolean isValid(final int index) {
+        return !Double.isNaN(x[index]);
+    }
+
+    double getX(final int index) {
+        return x[index];
+    }
+
+    double getY(final int index) {
+        return y[index];
+    }
+
+    /**
+     * @return the number of pixels that were inverse geocoded exactly
+     */
+    int getNumExact() {
+        return numExact;
+    }
+
+    /**
+     * Inverse geocodes every pixel of the target rectangle.
+     *
+     * @param srcGeoCoding the source geocoding
+     * @param geoPositions the geographic positions of the target pixels
+     */
+    void computeExact(final SourceGeoCoding srcGeoCoding, final TargetGeoPositions geoPositions) {
+        final GeoPos geoPos = new GeoPos();
+        final PixelPos pixelPos = new PixelPos();
+        computeExact(srcGeoCoding, geoPositions, rectangle.x, rectangle.x + rectangle.width - 1,
+                rectangle.y, rectangle.y + rectangle.height - 1, geoPos, pixelPos);
+    }
+
+    /**
+     * Inverse geocodes a grid of nodes and densifies it bilinearly where that is accurate enough.
+     *
+     * @param srcGeoCoding the source geocoding
+     * @param geoPositions the geographic positions of the target pixels
+     * @param gridStep     the spacing of the grid nodes in target pixels
+     * @param maxError     the largest error in source pixels accepted at the centre of a grid cell
+     */
+    void computeFromGrid(final SourceGeoCoding srcGeoCoding, final TargetGeoPositions geoPositions,
+                         final int gridStep, final double maxError) {
+
+        final int minX = rectangle.x;
+        final int minY = rectangle.y;
+        final int maxX = rectangle.x + rectangle.width - 1;
+        final int maxY = rectangle.y + rectangle.height - 1;
+        final int[] nodeX = getNodes(minX, maxX, gridStep);
+        final int[] nodeY = getNodes(minY, maxY, gridStep);
+        if (nodeX.length < 2 || nodeY.length < 2) {
+            computeExact(srcGeoCoding, geoPositions);
+            return;
+        }
+
+        final GeoPos geoPos = new GeoPos();
+        final PixelPos pixelPos = new PixelPos();
+        final int numNodesX = nodeX.length;
+        final double[] nodeSrcX = new double[numNodesX * nodeY.length];
+        final double[] nodeSrcY = new double[numNodesX * nodeY.length];
+        for (int j = 0; j < nodeY.length; ++j) {
+            for (int i = 0; i < numNodesX; ++i) {
+                inverseGeocode(srcGeoCoding, geoPositions, nodeX[i], nodeY[j], geoPos, pixelPos);
+                nodeSrcX[j * numNodesX + i] = pixelPos.x;
+                nodeSrcY[j * numNodesX + i] = pixelPos.y;
+            }
+        }
+
+        for (int j = 0; j < nodeY.length - 1; ++j) {
+            final int y0 = nodeY[j];
+            final int y1 = nodeY[j + 1];
+            // cells own their top and left edges, the last cells also their bottom and right edges
+            final int yEnd = j == nodeY.length - 2 ? y1 : y1 - 1;
+
+            for (int i = 0; i < numNodesX - 1; ++i) {
+                final int x0 = nodeX[i];
+                final int x1 = nodeX[i + 1];
+                final int xEnd = i == numNodesX - 2 ? x1 : x1 - 1;
+
+                final int n00 = j * numNodesX + i;
+                final int n01 = n00 + 1;
+                final int n10 = n00 + numNodesX;
+                final int n11 = n10 + 1;
+
+                boolean interpolate = !Double.isNaN(nodeSrcX[n00]) && !Double.isNaN(nodeSrcX[n01]) &&
+                        !Double.isNaN(nodeSrcX[n10]) && !Double.isNaN(nodeSrcX[n11]) &&
+                        !Double.isNaN(nodeSrcY[n00]) && !Double.isNaN(nodeSrcY[n01]) &&
+                        !Double.isNaN(nodeSrcY[n10]) && !Double.isNaN(nodeSrcY[n11]);
+
+                if (interpolate) {
+                    final int xc = (x0 + x1) / 2;
+                    final int yc = (y0 + y1) / 2;
+                    inverseGeocode(srcGeoCoding, geoPositions, xc, yc, geoPos, pixelPos);
+                    final double u = (xc - x0) / (double) (x1 - x0);
+                    final double v = (yc - y0) / (double) (y1 - y0);
+                    interpolate = Math.abs(bilinear(nodeSrcX, n00, n01, n10, n11, u, v) - pixelPos.x) <= maxError &&
+                            Math.abs(bilinear(nodeSrcY, n00, n01, n10, n11, u, v) - pixelPos.y) <= maxError;
+                }
+
+                if (!interpolate) {
+                    computeExact(srcGeoCoding, geoPositions, x0, xEnd, y0, yEnd, geoPos, pixelPos);
+                    continue;
+                }
+
+                for (int yy = y0; yy <= yEnd; ++yy) {
+                    final double v = (yy - y0) / (double) (y1 - y0);
+                    final double ax = nodeSrcX[n00] + v * (nodeSrcX[n10] - nodeSrcX[n00]);
+                    final double bx = nodeSrcX[n01] + v * (nodeSrcX[n11] - nodeSrcX[n01]);
+                    final double ay = nodeSrcY[n00] + v * (nodeSrcY[n10] - nodeSrcY[n00]);
+                    final double by = nodeSrcY[n01] + v * (nodeSrcY[n11] - nodeSrcY[n01]);
+                    int index = (yy - minY) * rectangle.width + x0 - minX;
+                    for (int xx = x0; xx <= xEnd; ++xx, ++index) {
+                        final double u = (xx - x0) / (double) (x1 - x0);
+                        set(index, ax + u * (bx - ax), ay + u * (by - ay));
+                    }
+                }
+            }
+        }
+    }
+
+    private void computeExact(final SourceGeoCoding srcGeoCoding, final TargetGeoPositions geoPositions,
+                              final int x0, final int x1, final int y0, final int y1,
+                              final GeoPos geoPos, final PixelPos pixelPos) {
+        for (int yy = y0; yy <= y1; ++yy) {
+            int index = (yy - rectangle.y) * rectangle.width + x0 - rectangle.x;
+            for (int xx = x0; xx <= x1; ++xx, ++index) {
+                inverseGeocode(srcGeoCoding, geoPositions, xx, yy, geoPos, pixelPos);
+                set(index, pixelPos.x, pixelPos.y);
+            }
+        }
+        numExact += (x1 - x0 + 1) * (y1 - y0 + 1);
+    }
+
+    private void set(final int index, final double srcX, final double srcY) {
+        if (srcX >= feather && srcY >= feather && srcX < srcWidth - feather && srcY < srcHeight - feather) {
+            x[index] = srcX;
+            y[index] = srcY;
+        } else {
+            x[index] = Double.NaN;
+            y[index] = Double.NaN;
+        }
+    }
+
+    private static void inverseGeocode(final SourceGeoCoding srcGeoCoding, final TargetGeoPositions geoPositions,
+                                       final int x, final int y, final GeoPos geoPos, final PixelPos pixelPos) {
+        geoPositions.getGeoPos(x, y, geoPos);
+        srcGeoCoding.getPixelPos(geoPos, pixelPos);
+    }
+
+    private static double bilinear(final double[] values, final int n00, final int n01, final int n10, final int n11,
+                                   final double u, final double v) {
+        final double a = values[n00] + v * (values[n10] - values[n00]);
+        final double b = values[n01] + v * (values[n11] - values[n01]);
+        return a + u * (b - a);
+    }
+
+    private static int[] getNodes(final int min, final int max, final int step) {
+        final int numNodes = (max - min + step - 1) / step + 1;
+        final int[] nodes = new int[numNodes];
+        for (int i = 0; i < numNodes; ++i) {
+            nodes[i] = Math.min(min + i * step, max);
+        }
+        return nodes;
+    }
+
+    /**
+     * @param margin the number of pixels added on each side
+     * @return the bounding box of the valid positions, grown by the margin and clipped to the offsets and sizes
+     * given, or null if there are no valid positions
+     */
+    Rectangle getBoundingBox(final int minOffsetX, final int minOffsetY, final int maxWidth, final int maxHeight,
+                             final int margin) {
+        int minX = Integer.MAX_VALUE;
+        int maxX = -Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxY = -Integer.MAX_VALUE;
+
+        for (int i = 0; i < x.length; ++i) {
+            if (isValid(i)) {
+                final int px = (int) Math.floor(x[i]);
+                final int py = (int) Math.floor(y[i]);
+                minX = Math.min(minX, px);
+                maxX = Math.max(maxX, px);
+                minY = Math.min(minY, py);
+                maxY = Math.max(maxY, py);
+            }
+        }
+        if (minX > maxX || minY > maxY) {
+            return null;
+        }
+
+        minX = Math.max(minX - margin, minOffsetX);
+        maxX = Math.min(maxX + margin, maxWidth - 1);
+        minY = Math.max(minY - margin, minOffsetY);
+        maxY = Math.min(maxY + margin, maxHeight - 1);
+
+        if (minX > maxX || minY > maxY) {
+            return null;
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+}
@@ -18,6 +18,7 @@ package eu.esa.sar.sar.gpf.geometric;
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
 import eu.esa.sar.calibration.gpf.CalibrationOp;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.OrbitStateVectors;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.commons.SARUtils;
@@ -241,7 +242,7 @@ public final class TerrainFlatteningOp extends Operator {
     @Override
     public synchronized void dispose() {
         if (dem != null) {
-            dem.dispose();
+            DEMTilePool.release(dem);
             dem = null;
         }
         if (fileElevationModel != null) {
@@ -970,13 +971,13 @@ public final class TerrainFlatteningOp extends Operator {
         try {
             if (externalDEMFile != null) { // if external DEM file is specified by user
 
-                dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
-                ((FileElevationModel) dem).applyEarthGravitionalModel(externalDEMApplyEGM);
+                dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue,
+                        externalDEMApplyEGM);
                 demNoDataValue = externalDEMNoDataValue;
                 demName = externalDEMFile.getPath();
 
             } else {
-                dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+                dem = DEMTilePool.acquire(demName, demResamplingMethod);
                 demNoDataValue = dem.getDescriptor().getNoDataValue();
             }
         } catch (Throwable t) {
@@ -17,6 +17,7 @@ package eu.esa.sar.sar.gpf.geometric;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DEMTilePool;
 import eu.esa.sar.commons.OrbitStateVectors;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.commons.SARUtils;
@@ -33,7 +34,6 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.dem.dataio.DEMFactory;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
@@ -177,7 +177,7 @@ public final class UpdateGeoRefOp extends Operator {
     @Override
     public synchronized void dispose() {
         if (dem != null) {
-            dem.dispose();
+            DEMTilePool.release(dem);
             dem = null;
         }
     }
@@ -233,11 +233,11 @@ public final class UpdateGeoRefOp extends Operator {
         if (isElevationModelAvailable) return;
         try {
             if (externalDEMFile != null) { // if external DEM file is specified by user
-                dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
+                dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
                 demNoDataValue = externalDEMNoDataValue;
                 demName = externalDEMFile.getPath();
             } else {
-                dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+                dem = DEMTilePool.acquire(demName, demResamplingMethod);
                 demNoDataValue = dem.getDescriptor().getNoDataValue();
             }
         } catch (Throwable t) {
@@ -472,7 +472,7 @@ public final class UpdateGeoRefOp extends Operator {
                 final double[][] localDEM = new double[ymax - ymin + 2][w + 2];
                 final TileGeoreferencing tileGeoRef = new TileGeoreferencing(sourceProduct, x0, ymin, w, ymax - ymin);
 
-                final boolean valid = DEMFactory.getLocalDEM(dem, demNoDataValue, demResamplingMethod, tileGeoRef,
+                final boolean valid = DEMTilePool.getLocalDEM(dem, demNoDataValue, demResamplingMethod, tileGeoRef,
                         x0, ymin, w, ymax - ymin, sourceProduct, true, localDEM);
 
                 if (!valid) {
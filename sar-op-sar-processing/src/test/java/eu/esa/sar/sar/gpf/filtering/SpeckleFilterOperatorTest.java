@@ -248,6 +248,33 @@ public class SpeckleFilterOperatorTest extends ProcessorTest {
         assertArrayEquals(Arrays.toString(floatValues), expectedValues, floatValues, 0.0001f);
     }
 
+    /**
+     * Tests that the integral image statistics give the same results as the direct window statistics.
+     *
+     * @throws Exception anything
+     */
+    @Test
+    public void testIntegralImageFilters() throws Exception {
+        for (String filter : new String[]{"Boxcar", "Frost", "Gamma Map", "Lee"}) {
+            final Product sourceProduct = createRefinedLeeTestProduct();
+
+            final SpeckleFilterOp directOp = (SpeckleFilterOp) spi.createOperator();
+            directOp.setSourceProduct(sourceProduct);
+            directOp.SetFilter(filter);
+            final float[] expectedValues = new float[49];
+            directOp.getTargetProduct().getBandAt(0).readPixels(0, 0, 7, 7, expectedValues, ProgressMonitor.NULL);
+
+            final SpeckleFilterOp op = (SpeckleFilterOp) spi.createOperator();
+            op.setSourceProduct(sourceProduct);
+            op.SetFilter(filter);
+            op.setParameter("useIntegralImage", true);
+            final float[] floatValues = new float[49];
+            op.getTargetProduct().getBandAt(0).readPixels(0, 0, 7, 7, floatValues, ProgressMonitor.NULL);
+
+            assertArrayEquals(filter, expectedValues, floatValues, 0.001f);
+        }
+    }
+
     /**
      * Tests IDAN filter with a 4-by-4 test product.
      *
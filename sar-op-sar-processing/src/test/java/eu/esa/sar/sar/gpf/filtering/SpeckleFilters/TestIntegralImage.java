@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sar.gpf.filtering.SpeckleFilters;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestIntegralImage {
+
+    private static final double NO_DATA = 0.0;
+
+    @Test
+    public void testMatchesWindowStatistics() {
+        final int x0 = 100, y0 = 40, width = 23, height = 17;
+        final double[] values = new double[width * height];
+        final Random random = new Random(7);
+        for (int i = 0; i < values.length; ++i) {
+            // exponentially distributed intensities with a bright target and some no data pixels
+            values[i] = random.nextInt(10) == 0 ? NO_DATA : 1000.0 * -Math.log(1.0 - random.nextDouble());
+        }
+        values[8 * width + 11] = 5.0e7;
+
+        final IntegralImage integralImage = new IntegralImage(values, x0, y0, width, height, NO_DATA);
+        final double[] meanVar = new double[2];
+        for (int[] window : new int[][]{{3, 3}, {5, 7}, {15, 15}}) {
+            for (int y = y0; y < y0 + height; ++y) {
+                for (int x = x0; x < x0 + width; ++x) {
+                    final int n = integralImage.getStatistics(x, y, window[0], window[1], meanVar);
+                    final double[] expected = getWindowStatistics(values, x - x0, y - y0, width, height,
+                            window[0], window[1]);
+                    assertEquals((int) expected[0], n);
+                    if (n > 0) {
+                        assertEquals(expected[1], meanVar[0], 1e-9 * Math.abs(expected[1]));
+                        assertEquals(expected[2], meanVar[1], 1e-9 * expected[2] + 1e-9);
+                    }
+                }
+            }
+        }
+        assertEquals(values[3 * width + 4], integralImage.getValue(x0 + 4, y0 + 3), 0.0);
+        assertEquals(NO_DATA, integralImage.getValue(x0 - 1, y0), 0.0);
+    }
+
+    @Test
+    public void testNoValidSamples() {
+        final double[] values = new double[16];
+        final IntegralImage integralImage = new IntegralImage(values, 0, 0, 4, 4, NO_DATA);
+        final double[] meanVar = new double[2];
+        assertEquals(0, integralImage.getStatistics(1, 1, 3, 3, meanVar));
+    }
+
+    /**
+     * Count, mean and sample variance of the valid values of a window, computed directly.
+     */
+    private static double[] getWindowStatistics(final double[] values, final int cx, final int cy,
+                                                final int width, final int height,
+                                                final int windowSizeX, final int windowSizeY) {
+        int n = 0;
+        double sum = 0.0;
+        for (int y = cy - windowSizeY / 2; y < cy - windowSizeY / 2 + windowSizeY; ++y) {
+            for (int x = cx - windowSizeX / 2; x < cx - windowSizeX / 2 + windowSizeX; ++x) {
+                if (x >= 0 && x < width && y >= 0 && y < height && values[y * width + x] != NO_DATA) {
+                    sum += values[y * width + x];
+                    ++n;
+                }
+            }
+        }
+        final double mean = n > 0 ? sum / n : 0.0;
+        double var = 0.0;
+        for (int y = cy - windowSizeY / 2; y < cy - windowSizeY / 2 + windowSizeY; ++y) {
+            for (int x = cx - windowSizeX / 2; x < cx - windowSizeX / 2 + windowSizeX; ++x) {
+                if (x >= 0 && x < width && y >= 0 && y < height && values[y * width + x] != NO_DATA) {
+                    final double d = values[y * width + x] - mean;
+                    var += d * d;
+                }
+            }
+        }
+        return new double[]{n, mean, n > 1 ? var / (n - 1) : 0.0};
+    }
+}
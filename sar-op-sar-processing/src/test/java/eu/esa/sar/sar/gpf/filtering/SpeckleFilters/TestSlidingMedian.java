@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sar.gpf.filtering.SpeckleFilters;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestSlidingMedian {
+
+    private static final double NO_DATA = 0.0;
+
+    @Test
+    public void testMatchesSortedWindow() {
+        final int x0 = 10, y0 = 20, width = 31, height = 26;
+        final double[] values = new double[width * height];
+        final Random random = new Random(3);
+        for (int i = 0; i < values.length; ++i) {
+            // quantised values with many ties and some no data pixels
+            values[i] = random.nextInt(8) == 0 ? NO_DATA : 1 + random.nextInt(50) * 0.5;
+        }
+
+        final SlidingMedian slidingMedian = new SlidingMedian(values, x0, y0, width, height, NO_DATA);
+        for (int[] window : new int[][]{{3, 3}, {4, 6}, {7, 5}, {15, 15}}) {
+            // target rectangles inside the tile and touching its borders
+            for (int[] rect : new int[][]{{x0, y0, width, height}, {x0 + 5, y0 + 3, 11, 8}, {x0 + 9, y0, 1, 1}}) {
+                final double[][] filtered = new double[rect[3]][rect[2]];
+                slidingMedian.filter(rect[0], rect[1], rect[2], rect[3], window[0], window[1], filtered);
+                for (int y = 0; y < rect[3]; ++y) {
+                    for (int x = 0; x < rect[2]; ++x) {
+                        final double expected = getSortedMedian(values, rect[0] - x0 + x, rect[1] - y0 + y,
+                                width, height, window[0], window[1]);
+                        assertEquals(expected, filtered[y][x], 0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNoValidSamples() {
+        final double[] values = new double[12];
+        final SlidingMedian slidingMedian = new SlidingMedian(values, 0, 0, 4, 3, NO_DATA);
+        final double[][] filtered = new double[3][4];
+        filtered[1][2] = 5.0;
+        slidingMedian.filter(0, 0, 4, 3, 3, 3, filtered);
+        assertEquals(NO_DATA, filtered[1][2], 0.0);
+    }
+
+    /**
+     * The median of the valid samples of a window as computed by the sort based Median filter.
+     */
+    private static double getSortedMedian(final double[] values, final int cx, final int cy,
+                                          final int width, final int height,
+                                          final int windowSizeX, final int windowSizeY) {
+        final double[] samples = new double[windowSizeX * windowSizeY];
+        int n = 0;
+        for (int y = cy - windowSizeY / 2; y < cy - windowSizeY / 2 + windowSizeY; ++y) {
+            for (int x = cx - windowSizeX / 2; x < cx - windowSizeX / 2 + windowSizeX; ++x) {
+                if (x >= 0 && x < width && y >= 0 && y < height && values[y * width + x] != NO_DATA) {
+                    samples[n++] = values[y * width + x];
+                }
+            }
+        }
+        if (n == 0) {
+            return NO_DATA;
+        }
+        Arrays.sort(samples, 0, n);
+        return samples[n / 2];
+    }
+}
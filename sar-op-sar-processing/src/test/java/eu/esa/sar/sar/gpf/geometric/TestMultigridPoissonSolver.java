@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sar.gpf.geometric;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for the multigrid Poisson solver of the gradient domain mosaic.
+ */
+public class TestMultigridPoissonSolver {
+
+    private static final byte UNKNOWN = 2;
+
+    @Test
+    public void testExactSolution() {
+        final Random random = new Random(5);
+        for (int[] size : new int[][]{{64, 64}, {200, 130}, {37, 91}, {9, 300}}) {
+            checkExactSolution(random, size[0], size[1]);
+        }
+    }
+
+    private static void checkExactSolution(final Random random, final int width, final int height) {
+
+        final byte[] mask = createMask(random, width, height);
+        final double[] expected = createImage(random, width, height);
+        final double[] gradient = laplacian(expected, mask, width, height);
+
+        final double[] image = expected.clone();
+        for (int i = 0; i < image.length; ++i) {
+            if (mask[i] == UNKNOWN) {
+                image[i] = random.nextGaussian();
+            }
+        }
+
+        final int iterations = new MultigridPoissonSolver(1000, 1e-10).solve(mask, UNKNOWN, gradient, image,
+                width, height);
+        assertTrue(iterations > 0 && iterations < 100);
+        for (int i = 0; i < image.length; ++i) {
+            assertEquals(expected[i], image[i], 1e-7);
+        }
+    }
+
+    @Test
+    public void testNoUnknowns() {
+        final double[] image = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        final byte[] mask = new byte[9];
+        // pixels on the edge are never solved for
+        mask[0] = UNKNOWN;
+        assertEquals(0, new MultigridPoissonSolver(100, 1e-4).solve(mask, UNKNOWN, new double[9], image, 3, 3));
+        assertEquals(1.0, image[0], 0.0);
+    }
+
+    @Test
+    public void testMatchesSOR() {
+        final Random random = new Random(9);
+        final int width = 120;
+        final int height = 80;
+        final byte[] mask = createMask(random, width, height);
+        final double[] image = createImage(random, width, height);
+        final double[] gradient = new double[image.length];
+        for (int i = 0; i < gradient.length; ++i) {
+            gradient[i] = mask[i] == UNKNOWN ? 0.01 * random.nextGaussian() : 0.0;
+        }
+
+        final double[] sor = image.clone();
+        solveSOR(mask, gradient, sor, width, 100000, 1e-12);
+        new MultigridPoissonSolver(1000, 1e-10).solve(mask, UNKNOWN, gradient, image, width, height);
+        for (int i = 0; i < image.length; ++i) {
+            assertEquals(sor[i], image[i], 1e-7);
+        }
+    }
+
+    /**
+     * An irregular overlap made of a few discs, away from the edge of the grid.
+     */
+    private static byte[] createMask(final Random random, final int width, final int height) {
+        final byte[] mask = new byte[width * height];
+        for (int d = 0; d < 4; ++d) {
+            final double cx = random.nextDouble() * width;
+            final double cy = random.nextDouble() * height;
+            final double radius = (0.1 + 0.3 * random.nextDouble()) * Math.max(width, height);
+            for (int y = 1; y < height - 1; ++y) {
+                for (int x = 1; x < width - 1; ++x) {
+                    if ((x - cx) * (x - cx) + (y - cy) * (y - cy) < radius * radius) {
+                        mask[y * width + x] = UNKNOWN;
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static double[] createImage(final Random random, final int width, final int height) {
+        final double[] image = new double[width * height];
+        final double fx = random.nextDouble() * 0.2;
+        final double fy = random.nextDouble() * 0.2;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                image[y * width + x] = Math.sin(fx * x) * Math.cos(fy * y) + 0.001 * x * y;
+            }
+        }
+        return image;
+    }
+
+    private static double[] laplacian(final double[] image, final byte[] mask, final int width, final int height) {
+        final double[] gradient = new double[image.length];
+        for (int y = 1; y < height - 1; ++y) {
+            for (int x = 1; x < width - 1; ++x) {
+                final int i = y * width + x;
+                if (mask[i] == UNKNOWN) {
+                    gradient[i] = image[i - width] + image[i + width] + image[i - 1] + image[i + 1] - 4 * image[i];
+                }
+            }
+        }
+        return gradient;
+    }
+
+    /**
+     * The relaxed Gauss-Seidel iteration of MosaicOp.
+     */
+    private static int solveSOR(final byte[] mask, final double[] gradient, final double[] image, final int width,
+                                final int maxIterations, final double convergenceThreshold) {
+        final double w = 1.5;
+        int it;
+        for (it = 0; it < maxIterations; it++) {
+            double error = 0.0;
+            for (int i = 0; i < mask.length; i++) {
+                if (mask[i] == UNKNOWN) {
+                    final double sigma = gradient[i] - image[i - width] - image[i + width] - image[i - 1] - image[i + 1];
+                    final double update = (1 - w) * image[i] - w * sigma / 4.0;
+                    error = Math.max(error, Math.abs(image[i] - update));
+                    image[i] = update;
+                }
+            }
+            if (error < convergenceThreshold) {
+                break;
+            }
+        }
+        return it;
+    }
+}
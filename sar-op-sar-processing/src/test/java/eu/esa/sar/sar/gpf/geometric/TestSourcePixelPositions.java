@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sar.gpf.geometric;
+
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for the sparse grid densification of source pixel positions in MosaicOp.
+ */
+public class TestSourcePixelPositions {
+
+    private static final int SRC_WIDTH = 900;
+    private static final int SRC_HEIGHT = 700;
+    private static final int FEATHER = 3;
+    private static final double MAX_ERROR = 0.01;
+
+    // a target map grid of 0.001 degrees
+    private static final SourcePixelPositions.TargetGeoPositions targetGeoPositions =
+            (x, y, geoPos) -> geoPos.setLocation(50.0 - 0.001 * y, 10.0 + 0.001 * x);
+
+    // a smoothly distorted source that does not geocode west of 10.3 degrees east
+    private static final SourcePixelPositions.SourceGeoCoding srcGeoCoding = (geoPos, pixelPos) -> {
+        if (geoPos.lon < 10.3) {
+            pixelPos.setInvalid();
+            return;
+        }
+        final double u = (geoPos.lon - 10.2) * 1200;
+        final double v = (50.0 - geoPos.lat) * 1100;
+        pixelPos.setLocation(u + 2e-5 * v * v - 40, v + 1e-5 * u * u + 5e-6 * u * v - 30);
+    };
+
+    @Test
+    public void testGridMatchesExact() {
+
+        final Rectangle rectangle = new Rectangle(200, 100, 512, 384);
+        final SourcePixelPositions exact = new SourcePixelPositions(rectangle, SRC_WIDTH, SRC_HEIGHT, FEATHER);
+        exact.computeExact(srcGeoCoding, targetGeoPositions);
+        assertEquals(rectangle.width * rectangle.height, exact.getNumExact());
+
+        final SourcePixelPositions grid = new SourcePixelPositions(rectangle, SRC_WIDTH, SRC_HEIGHT, FEATHER);
+        grid.computeFromGrid(srcGeoCoding, targetGeoPositions, 16, MAX_ERROR);
+        assertTrue(grid.getNumExact() < exact.getNumExact() / 4);
+
+        int numValid = 0;
+        for (int i = 0; i < rectangle.width * rectangle.height; ++i) {
+            if (exact.isValid(i) && grid.isValid(i)) {
+                assertEquals(exact.getX(i), grid.getX(i), 2 * MAX_ERROR);
+                assertEquals(exact.getY(i), grid.getY(i), 2 * MAX_ERROR);
+                ++numValid;
+            } else if (exact.isValid(i) != grid.isValid(i)) {
+                // only at the feathered edge of the source
+                final PixelPos pixelPos = new PixelPos();
+                final int x = rectangle.x + i % rectangle.width;
+                final int y = rectangle.y + i / rectangle.width;
+                final GeoPos geoPos = new GeoPos();
+                targetGeoPositions.getGeoPos(x, y, geoPos);
+                srcGeoCoding.getPixelPos(geoPos, pixelPos);
+                assertTrue(distanceToEdge(pixelPos) < 2 * MAX_ERROR);
+            }
+        }
+        assertTrue(numValid > 0);
+        assertEquals(exact.getBoundingBox(0, 0, SRC_WIDTH, SRC_HEIGHT, 4),
+                grid.getBoundingBox(0, 0, SRC_WIDTH, SRC_HEIGHT, 4));
+    }
+
+    @Test
+    public void testUngeocodedCellsAreExact() {
+
+        // entirely west of the source geocoding
+        final Rectangle rectangle = new Rectangle(0, 0, 200, 100);
+        final SourcePixelPositions grid = new SourcePixelPositions(rectangle, SRC_WIDTH, SRC_HEIGHT, FEATHER);
+        grid.computeFromGrid(srcGeoCoding, targetGeoPositions, 16, MAX_ERROR);
+        assertEquals(rectangle.width * rectangle.height, grid.getNumExact());
+        for (int i = 0; i < rectangle.width * rectangle.height; ++i) {
+            assertTrue(!grid.isValid(i));
+        }
+        assertNull(grid.getBoundingBox(0, 0, SRC_WIDTH, SRC_HEIGHT, 4));
+    }
+
+    @Test
+    public void testSmallRectangle() {
+        final Rectangle rectangle = new Rectangle(400, 300, 1, 7);
+        final SourcePixelPositions exact = new SourcePixelPositions(rectangle, SRC_WIDTH, SRC_HEIGHT, FEATHER);
+        exact.computeExact(srcGeoCoding, targetGeoPositions);
+        final SourcePixelPositions grid = new SourcePixelPositions(rectangle, SRC_WIDTH, SRC_HEIGHT, FEATHER);
+        grid.computeFromGrid(srcGeoCoding, targetGeoPositions, 16, MAX_ERROR);
+        for (int i = 0; i < 7; ++i) {
+            assertEquals(exact.getX(i), grid.getX(i), 0.0);
+            assertEquals(exact.getY(i), grid.getY(i), 0.0);
+        }
+    }
+
+    private static double distanceToEdge(final PixelPos pixelPos) {
+        return Math.min(Math.min(Math.abs(pixelPos.x - FEATHER), Math.abs(pixelPos.y - FEATHER)),
+                Math.min(Math.abs(SRC_WIDTH - FEATHER - pixelPos.x), Math.abs(SRC_HEIGHT - FEATHER - pixelPos.y)));
+    }
+}
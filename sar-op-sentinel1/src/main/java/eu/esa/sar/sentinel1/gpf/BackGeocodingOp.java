@@ -19,6 +19,8 @@ import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
 import eu.esa.sar.insar.gpf.coregistration.CreateStackOp;
 import eu.esa.sar.insar.gpf.coregistration.DEMAssistedCoregistrationOp;
+import eu.esa.sar.commons.DEMTilePool;
+import eu.esa.sar.commons.DerampDemodPhasor;
 import eu.esa.sar.commons.SARGeocoding;
 import eu.esa.sar.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
@@ -36,9 +38,10 @@ import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.StringUtils;
 import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.core.util.ThreadExecutor;
+import org.esa.snap.core.util.ThreadRunnable;
 import org.esa.snap.dem.dataio.DEMFactory;
 import org.esa.snap.dem.dataio.EarthGravitationalModel96;
-import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
 import org.esa.snap.engine_utilities.datamodel.ProductInformation;
@@ -46,6 +49,7 @@ import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.eo.GeoUtils;
 import org.esa.snap.engine_utilities.gpf.*;
+import org.jlinda.core.delaunay.FastDelaunayTriangulator;
 import org.jlinda.core.delaunay.TriangleInterpolator;
 
 import java.awt.*;
@@ -127,6 +131,7 @@ public final class BackGeocodingOp extends Operator {
 
     private final HashMap<Band, Band> targetBandToSlaveBandMap = new HashMap<>(2);
     private final HashMap<Band, SlaveData> targetBandToSlaveDataMap = new HashMap<>(2);
+    private final ThreadLocal<DerampDemodPhasor> derampDemodPhasor = ThreadLocal.withInitial(DerampDemodPhasor::new);
 
     private static final double invalidIndex = -9999.0;
 
@@ -141,6 +146,13 @@ public final class BackGeocodingOp extends Operator {
     public BackGeocodingOp() {
     }
 
+    /**
+     * Add the elevation band of the master geometry to the target product. Must be set before initialize().
+     */
+    void setOutputDEM(final boolean outputDEM) {
+        this.outputDEM = outputDEM;
+    }
+
     /**
      * Initializes this operator and sets the one and only target product.
      * <p>The target product can be either defined by a field of type {@link Product} annotated with the
@@ -508,11 +520,23 @@ public final class BackGeocodingOp extends Operator {
                 double[] extendedAmount = {0.0, 0.0, 0.0, 0.0};
                 computeExtendedAmount(ntx0, nty0, ntw, nth, extendedAmount);
 
-                for(SlaveData slaveData : slaveDataList) {
-                    //slaveData.print();
+                // the master geometry of the tile is computed once and shared by all slaves
+                final MasterGeometry masterGeometry = new MasterGeometry(
+                        burstIndex, ntx0, nty0, ntw, nth, extendedAmount);
 
+                if (slaveDataList.size() == 1) {
                     computePartialTile(subSwathIndex, burstIndex, ntx0, nty0, ntw, nth, targetTileMap,
-                            slaveData, extendedAmount);
+                            slaveDataList.get(0), masterGeometry);
+                } else {
+                    computePartialTilesInParallel(burstIndex, ntx0, nty0, ntw, nth, targetTileMap, masterGeometry);
+                }
+
+                // the elevation depends on the master geometry only and is written once, whatever the slaves
+                if (outputDEM) {
+                    final double[][] elevation = masterGeometry.getTileElevation();
+                    if (elevation != null) {
+                        outputDEM(ntx0, nty0, ntw, nth, targetTileMap, elevation);
+                    }
                 }
             }
 
@@ -523,6 +547,14 @@ public final class BackGeocodingOp extends Operator {
         }
     }
 
+    @Override
+    public synchronized void dispose() {
+        if (dem != null) {
+            DEMTilePool.release(dem);
+            dem = null;
+        }
+    }
+
     /**
      * Get elevation model.
      *
@@ -533,7 +565,7 @@ public final class BackGeocodingOp extends Operator {
         if (isElevationModelAvailable) return;
         try {
             if (externalDEMFile != null) { // if external DEM file is specified by user
-                dem = new FileElevationModel(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
+                dem = DEMTilePool.acquire(externalDEMFile, demResamplingMethod, externalDEMNoDataValue);
                 demNoDataValue = externalDEMNoDataValue;
                 demName = externalDEMFile.getPath();
                 try {
@@ -547,7 +579,7 @@ public final class BackGeocodingOp extends Operator {
                 }
 
             } else {
-                dem = DEMFactory.createElevationModel(demName, demResamplingMethod);
+                dem = DEMTilePool.acquire(demName, demResamplingMethod);
                 demNoDataValue = dem.getDescriptor().getNoDataValue();
                 demSamplingLat = (double)dem.getDescriptor().getTileWidthInDegrees() /
                         (double)dem.getDescriptor().getTileWidth();
@@ -767,10 +799,43 @@ public final class BackGeocodingOp extends Operator {
         return mSubSwath[subSwathIndex - 1].slrTimeToFirstPixel + x * mSU.rangeSpacing / Constants.lightSpeed;
     }
 
+    private void computePartialTilesInParallel(final int mBurstIndex, final int x0, final int y0,
+                                               final int w, final int h, final Map<Band, Tile> targetTileMap,
+                                               final MasterGeometry masterGeometry) throws Exception {
+
+        final Throwable[] error = new Throwable[1];
+        final ThreadExecutor executor = new ThreadExecutor();
+        for (SlaveData slaveData : slaveDataList) {
+            final ThreadRunnable worker = new ThreadRunnable() {
+                @Override
+                public void process() {
+                    try {
+                        computePartialTile(subSwathIndex, mBurstIndex, x0, y0, w, h, targetTileMap,
+                                slaveData, masterGeometry);
+                    } catch (Throwable e) {
+                        synchronized (error) {
+                            if (error[0] == null) {
+                                error[0] = e;
+                            }
+                        }
+                    }
+                }
+            };
+            executor.execute(worker);
+        }
+        executor.complete();
+
+        synchronized (error) {
+            if (error[0] != null) {
+                throw new OperatorException(error[0]);
+            }
+        }
+    }
+
     private void computePartialTile(final int subSwathIndex, final int mBurstIndex,
                                     final int x0, final int y0, final int w, final int h,
                                     final Map<Band, Tile> targetTileMap, final SlaveData slaveData,
-                                    final double[] extendedAmount)
+                                    final MasterGeometry masterGeometry)
             throws Exception {
 
         final int sBurstIndex = mBurstIndex + slaveData.burstOffset;
@@ -778,14 +843,9 @@ public final class BackGeocodingOp extends Operator {
             return;
         }
 
-        double[][] elevation = null;
-        if (outputDEM) {
-            elevation = new double[h][w];
-        }
-
         final PixelPos[][] slavePixPos = new PixelPos[h][w];
         final boolean isSuccessful = computeSlavePixPos(
-                subSwathIndex, mBurstIndex, sBurstIndex, x0, y0, w, h, extendedAmount, slavePixPos, slaveData, elevation);
+                sBurstIndex, x0, y0, w, h, masterGeometry, slavePixPos, slaveData);
 
         if (!isSuccessful) {
             return;
@@ -796,10 +856,6 @@ public final class BackGeocodingOp extends Operator {
                     mBurstIndex, sBurstIndex);
         }
 
-        if (outputDEM) {
-            outputDEM(x0, y0, w, h, targetTileMap, elevation);
-        }
-
         final int margin = selectedResampling.getKernelSize();
         final Rectangle sourceRectangle = getBoundingBox(slavePixPos, margin, subSwathIndex, sBurstIndex,
                 slaveData.sSU.getSubSwath());
@@ -808,25 +864,23 @@ public final class BackGeocodingOp extends Operator {
             return;
         }
 
-        final double[][] slvDerampDemodPhase = slaveData.sSU.computeDerampDemodPhase(slaveData.sSU.getSubSwath(),
-                subSwathIndex, sBurstIndex, sourceRectangle);
-
-        if (slvDerampDemodPhase == null) {
-            return;
-        }
-
         final Rectangle targetRectangle = new Rectangle(x0, y0, w, h);
-        final double[][] mstDerampDemodPhase = mSU.computeDerampDemodPhase(mSubSwath,
-                subSwathIndex, mBurstIndex, targetRectangle);
+        final double[][] mstDerampDemodPhase = masterGeometry.getDerampDemodPhase(targetRectangle);
 
         if (mstDerampDemodPhase == null) {
             return;
         }
 
+        // the phase, interpolated for the reramp, and its rotation factors, for the deramp, in a single pass
+        final double[][] slvDerampDemodPhase = new double[sourceRectangle.height][sourceRectangle.width];
+        final DerampDemodPhasor slvPhasor = derampDemodPhasor.get();
+        slvPhasor.compute(slaveData.sSU.getSubSwath(), subSwathIndex, sBurstIndex, sourceRectangle,
+                slvDerampDemodPhase);
+
         for(String polarization : mSU.getPolarizations()) {
 
-            // master bands
-            if (disableReramp) {
+            // master bands, written by the first slave reaching this point
+            if (disableReramp && masterGeometry.claimMasterBands(polarization)) {
                 final Band masterBandI = getBand(masterProduct, "i_", swathIndexStr, polarization);
                 final Band masterBandQ = getBand(masterProduct, "q_", swathIndexStr, polarization);
                 final Tile masterTileI = getSourceTile(masterBandI, targetRectangle);
@@ -859,7 +913,7 @@ public final class BackGeocodingOp extends Operator {
             final double[][] slvDerampDemodI = new double[sourceRectangle.height][sourceRectangle.width];
             final double[][] slvDerampDemodQ = new double[sourceRectangle.height][sourceRectangle.width];
 
-            performDerampDemod(slaveTileI, slaveTileQ, sourceRectangle, slvDerampDemodPhase,
+            performDerampDemod(slaveTileI, slaveTileQ, sourceRectangle, slvPhasor,
                     slvDerampDemodI, slvDerampDemodQ);
 
             performInterpolation(x0, y0, w, h, sourceRectangle, slaveTileI, slaveTileQ, targetTileMap, slvDerampDemodPhase,
@@ -867,90 +921,44 @@ public final class BackGeocodingOp extends Operator {
         }
     }
 
-    private boolean computeSlavePixPos(final int subSwathIndex, final int mBurstIndex, final int sBurstIndex,
-                                       final int x0, final int y0, final int w, final int h,
-                                       final double[] extendedAmount, final PixelPos[][] slavePixelPos,
-                                       final SlaveData slaveData,
-                                       final double[][] elevation)
+    private boolean computeSlavePixPos(final int sBurstIndex, final int x0, final int y0, final int w, final int h,
+                                       final MasterGeometry masterGeometry, final PixelPos[][] slavePixelPos,
+                                       final SlaveData slaveData)
             throws Exception {
 
         try {
-            final int xmin = x0 - (int)extendedAmount[3];
-            final int ymin = y0 - (int)extendedAmount[1];
-            final int ymax = y0 + h + (int)Math.abs(extendedAmount[0]);
-            final int xmax = x0 + w + (int)Math.abs(extendedAmount[2]);
-
-            // Compute lat/lon boundaries (with extensions) for target tile
-            final double[] latLonMinMax = new double[4];
-
-            computeImageGeoBoundary(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, latLonMinMax);
-
-            final double delta = Math.max(demSamplingLat, demSamplingLon);
-//            final double extralat = 1.5*delta + 4.0/25.0;
-//            final double extralon = 1.5*delta + 4.0/25.0;
-            final double extralat = 20*delta;
-            final double extralon = 20*delta;
-
-            final double latMin = latLonMinMax[0] - extralat;
-            final double latMax = latLonMinMax[1] + extralat;
-            final double lonMin = latLonMinMax[2] - extralon;
-            final double lonMax = latLonMinMax[3] + extralon;
-
-            // Compute lat/lon indices in DEM for the boundaries;
-            final PixelPos upperLeft = dem.getIndex(new GeoPos(latMax, lonMin));
-            final PixelPos lowerRight = dem.getIndex(new GeoPos(latMin, lonMax));
-            final int latMaxIdx = (int)Math.floor(upperLeft.getY());
-            final int latMinIdx = (int)Math.ceil(lowerRight.getY());
-            final int lonMinIdx = (int)Math.floor(upperLeft.getX());
-            final int lonMaxIdx = (int)Math.ceil(lowerRight.getX());
+            if (!masterGeometry.compute()) {
+                return false;
+            }
 
-            // Loop through all DEM points bounded by the indices computed above. For each point,
-            // get its lat/lon and its azimuth/range indices in target image;
-            final int numLines = latMinIdx - latMaxIdx;
-            final int numPixels = lonMaxIdx - lonMinIdx;
-            double[][] masterAz = new double[numLines][numPixels];
-            double[][] masterRg = new double[numLines][numPixels];
-            double[][] slaveAz = new double[numLines][numPixels];
-            double[][] slaveRg = new double[numLines][numPixels];
-            double[][] lat = new double[numLines][numPixels];
-            double[][] lon = new double[numLines][numPixels];
+            // get the azimuth/range indices in slave image of the DEM points with a valid master position
+            final double[][] masterAz = masterGeometry.masterAz;
+            final double[][] masterRg = masterGeometry.masterRg;
+            final int numLines = masterAz.length;
+            final int numPixels = numLines > 0 ? masterAz[0].length : 0;
+            final double[][] slaveAz = new double[numLines][numPixels];
+            final double[][] slaveRg = new double[numLines][numPixels];
             final PositionData posData = new PositionData();
-            final PixelPos pix = new PixelPos();
-
-            final EarthGravitationalModel96 egm = EarthGravitationalModel96.instance();
 
             boolean noValidSlavePixPos = true;
+            boolean allSlavePixPosValid = true;
             for (int l = 0; l < numLines; l++) {
                 for (int p = 0; p < numPixels; p++) {
-
-                    pix.setLocation(lonMinIdx + p, latMaxIdx + l);
-                    GeoPos gp = dem.getGeoPos(pix);
-                    lat[l][p] = gp.lat;
-                    lon[l][p] = gp.lon;
-
-                    Double alt = dem.getElevation(gp);
-                    if (alt.equals(demNoDataValue) && !maskOutAreaWithoutElevation) { // get corrected elevation for 0
-                        alt = (double)egm.getEGM(gp.lat, gp.lon);
+                    if (masterAz[l][p] == invalidIndex) {
+                        continue;
                     }
 
-                    if (!alt.equals(demNoDataValue)) {
-                        GeoUtils.geo2xyzWGS84(gp.lat, gp.lon, alt, posData.earthPoint);
-                        if(getPosition(subSwathIndex, mBurstIndex, mSU, posData)) {
-
-                            masterAz[l][p] = posData.azimuthIndex;
-                            masterRg[l][p] = posData.rangeIndex;
-                            if (getPosition(subSwathIndex, sBurstIndex, slaveData.sSU, posData)) {
-
-                                slaveAz[l][p] = posData.azimuthIndex;
-                                slaveRg[l][p] = posData.rangeIndex;
-                                noValidSlavePixPos = false;
-                                continue;
-                            }
-                        }
+                    posData.earthPoint.x = masterGeometry.earthX[l][p];
+                    posData.earthPoint.y = masterGeometry.earthY[l][p];
+                    posData.earthPoint.z = masterGeometry.earthZ[l][p];
+                    if (getPosition(subSwathIndex, sBurstIndex, slaveData.sSU, posData)) {
+                        slaveAz[l][p] = posData.azimuthIndex;
+                        slaveRg[l][p] = posData.rangeIndex;
+                        noValidSlavePixPos = false;
+                    } else {
+                        slaveAz[l][p] = invalidIndex;
+                        allSlavePixPosValid = false;
                     }
-
-                    masterAz[l][p] = invalidIndex;
-                    masterRg[l][p] = invalidIndex;
                 }
             }
 
@@ -960,14 +968,10 @@ public final class BackGeocodingOp extends Operator {
 
             // Compute azimuth/range offsets for pixels in target tile using Delaunay interpolation
             final org.jlinda.core.Window tileWindow = new org.jlinda.core.Window(y0, y0 + h - 1, x0, x0 + w - 1);
-
-            //final double rgAzRatio = computeRangeAzimuthSpacingRatio(w, h, latLonMinMax);
             final double rgAzRatio = mSU.rangeSpacing / mSU.azimuthSpacing;
 
-            final double[][] latArray = new double[(int)tileWindow.lines()][(int)tileWindow.pixels()];
-            final double[][] lonArray = new double[(int)tileWindow.lines()][(int)tileWindow.pixels()];
-            final double[][] azArray = new double[(int)tileWindow.lines()][(int)tileWindow.pixels()];
-            final double[][] rgArray = new double[(int)tileWindow.lines()][(int)tileWindow.pixels()];
+            final double[][] azArray = new double[h][w];
+            final double[][] rgArray = new double[h][w];
             for (double[] data : azArray) {
                 Arrays.fill(data, invalidIndex);
             }
@@ -975,15 +979,44 @@ public final class BackGeocodingOp extends Operator {
                 Arrays.fill(data, invalidIndex);
             }
 
-            TriangleInterpolator.ZData[] dataList = new TriangleInterpolator.ZData[] {
-                    new TriangleInterpolator.ZData(slaveAz, azArray),
-                    new TriangleInterpolator.ZData(slaveRg, rgArray),
-                    new TriangleInterpolator.ZData(lat, latArray),
-                    new TriangleInterpolator.ZData(lon, lonArray)
-            };
+            double[][] latArray = null;
+            double[][] lonArray = null;
+            if (allSlavePixPosValid) {
+                // same DEM points as the master: reuse the shared triangulation and tile elevation
+                final FastDelaunayTriangulator triangulation = masterGeometry.getTriangulation();
+                if (triangulation != null) {
+                    TriangleInterpolator.ZData[] dataList = new TriangleInterpolator.ZData[] {
+                            new TriangleInterpolator.ZData(slaveAz, azArray),
+                            new TriangleInterpolator.ZData(slaveRg, rgArray)
+                    };
+                    TriangleInterpolator.interpolate(rgAzRatio, tileWindow, 1, 1, 0, invalidIndex,
+                            triangulation, dataList);
+                }
 
-            TriangleInterpolator.gridDataLinear(masterAz, masterRg, dataList,
-                    tileWindow, rgAzRatio, 1, 1, invalidIndex, 0);
+            } else {
+                // the DEM points without a slave position are left out of the triangulation for this slave
+                final double[][] validMasterAz = new double[numLines][numPixels];
+                final double[][] validMasterRg = new double[numLines][numPixels];
+                for (int l = 0; l < numLines; l++) {
+                    for (int p = 0; p < numPixels; p++) {
+                        final boolean isValid = masterAz[l][p] != invalidIndex && slaveAz[l][p] != invalidIndex;
+                        validMasterAz[l][p] = isValid ? masterAz[l][p] : invalidIndex;
+                        validMasterRg[l][p] = isValid ? masterRg[l][p] : invalidIndex;
+                    }
+                }
+
+                latArray = new double[h][w];
+                lonArray = new double[h][w];
+                TriangleInterpolator.ZData[] dataList = new TriangleInterpolator.ZData[] {
+                        new TriangleInterpolator.ZData(slaveAz, azArray),
+                        new TriangleInterpolator.ZData(slaveRg, rgArray),
+                        new TriangleInterpolator.ZData(masterGeometry.lat, latArray),
+                        new TriangleInterpolator.ZData(masterGeometry.lon, lonArray)
+                };
+
+                TriangleInterpolator.gridDataLinear(validMasterAz, validMasterRg, dataList,
+                        tileWindow, rgAzRatio, 1, 1, invalidIndex, 0);
+            }
 
             boolean allElementsAreNull = true;
             Double alt;
@@ -992,10 +1025,11 @@ public final class BackGeocodingOp extends Operator {
                     if (rgArray[yy][xx] == invalidIndex || azArray[yy][xx] == invalidIndex) {
                         slavePixelPos[yy][xx] = null;
                     } else {
-                        if (maskOutAreaWithoutElevation || elevation != null) {
-                            alt = dem.getElevation(new GeoPos(latArray[yy][xx], lonArray[yy][xx]));
-                            if(elevation != null) {
-                                elevation[yy][xx] = alt;
+                        if (maskOutAreaWithoutElevation) {
+                            if (allSlavePixPosValid) {
+                                alt = masterGeometry.getElevation(xx, yy);
+                            } else {
+                                alt = dem.getElevation(new GeoPos(latArray[yy][xx], lonArray[yy][xx]));
                             }
                             if (!alt.equals(demNoDataValue)) {
                                 slavePixelPos[yy][xx] = new PixelPos(rgArray[yy][xx], azArray[yy][xx]);
@@ -1208,6 +1242,38 @@ public final class BackGeocodingOp extends Operator {
         }
     }
 
+    /**
+     * Deramp and demodulate with the rotation factors last computed by the phasor for the same rectangle.
+     */
+    static void performDerampDemod(final Tile tileI, final Tile tileQ,
+                                   final Rectangle rectangle, final DerampDemodPhasor phasor,
+                                   final double[][] derampDemodI, final double[][] derampDemodQ) {
+
+        try {
+            final int x0 = rectangle.x;
+            final int y0 = rectangle.y;
+            final int xMax = x0 + rectangle.width;
+            final int yMax = y0 + rectangle.height;
+
+            final ProductData dataI = tileI.getDataBuffer();
+            final ProductData dataQ = tileQ.getDataBuffer();
+            final TileIndex index = new TileIndex(tileI);
+
+            for (int y = y0; y < yMax; y++) {
+                index.calculateStride(y);
+                final int yy = y - y0;
+                for (int x = x0; x < xMax; x++) {
+                    final int idx = index.getIndex(x);
+                    derampDemodI[yy][x - x0] = dataI.getElemDoubleAt(idx);
+                    derampDemodQ[yy][x - x0] = dataQ.getElemDoubleAt(idx);
+                }
+            }
+            phasor.apply(derampDemodI, derampDemodQ);
+        } catch (Throwable e) {
+            OperatorUtils.catchOperatorException("performDerampDemod", e);
+        }
+    }
+
     private void saveMasterBands(final int x0, final int y0, final int w, final int h,
                                  final Map<Band, Tile> targetTileMap, final double[][] mstDerampDemodPhase,
                                  final double[][] mstDerampDemodI, final double[][] mstDerampDemodQ,
@@ -1497,6 +1563,204 @@ public final class BackGeocodingOp extends Operator {
         return null;
     }
 
+    /**
+     * The master side geometry of a tile in a burst: the DEM points around the tile with their master
+     * azimuth/range indices, their triangulation and the interpolated elevation of the tile pixels. It does not
+     * depend on the slave and is computed once, on first use, for all slaves of the stack.
+     */
+    private final class MasterGeometry {
+        private final int mBurstIndex;
+        private final int x0, y0, w, h;
+        private final double[] extendedAmount;
+
+        private boolean computed = false;
+        private boolean valid = false;
+        double[][] lat, lon;
+        double[][] earthX, earthY, earthZ;
+        double[][] masterAz, masterRg;
+
+        private boolean triangulated = false;
+        private FastDelaunayTriangulator triangulation = null;
+        private double[][] tileElevation = null;
+
+        private double[][] derampDemodPhase = null;
+        private final Set<String> masterBandsClaimed = new HashSet<>();
+
+        MasterGeometry(final int mBurstIndex, final int x0, final int y0, final int w, final int h,
+                       final double[] extendedAmount) {
+            this.mBurstIndex = mBurstIndex;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.w = w;
+            this.h = h;
+            this.extendedAmount = extendedAmount;
+        }
+
+        /**
+         * Get the DEM points around the tile and their azimuth/range indices in master image.
+         *
+         * @return false if no DEM point has a valid master position
+         */
+        synchronized boolean compute() throws Exception {
+            if (computed) {
+                return valid;
+            }
+            computed = true;
+
+            final int xmin = x0 - (int)extendedAmount[3];
+            final int ymin = y0 - (int)extendedAmount[1];
+            final int ymax = y0 + h + (int)Math.abs(extendedAmount[0]);
+            final int xmax = x0 + w + (int)Math.abs(extendedAmount[2]);
+
+            // Compute lat/lon boundaries (with extensions) for target tile
+            final double[] latLonMinMax = new double[4];
+
+            computeImageGeoBoundary(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, latLonMinMax);
+
+            final double delta = Math.max(demSamplingLat, demSamplingLon);
+            final double extralat = 20*delta;
+            final double extralon = 20*delta;
+
+            final double latMin = latLonMinMax[0] - extralat;
+            final double latMax = latLonMinMax[1] + extralat;
+            final double lonMin = latLonMinMax[2] - extralon;
+            final double lonMax = latLonMinMax[3] + extralon;
+
+            // Compute lat/lon indices in DEM for the boundaries;
+            final PixelPos upperLeft = dem.getIndex(new GeoPos(latMax, lonMin));
+            final PixelPos lowerRight = dem.getIndex(new GeoPos(latMin, lonMax));
+            final int latMaxIdx = (int)Math.floor(upperLeft.getY());
+            final int latMinIdx = (int)Math.ceil(lowerRight.getY());
+            final int lonMinIdx = (int)Math.floor(upperLeft.getX());
+            final int lonMaxIdx = (int)Math.ceil(lowerRight.getX());
+
+            // Loop through all DEM points bounded by the indices computed above. For each point,
+            // get its lat/lon and its azimuth/range indices in target image;
+            final int numLines = latMinIdx - latMaxIdx;
+            final int numPixels = lonMaxIdx - lonMinIdx;
+            masterAz = new double[numLines][numPixels];
+            masterRg = new double[numLines][numPixels];
+            lat = new double[numLines][numPixels];
+            lon = new double[numLines][numPixels];
+            earthX = new double[numLines][numPixels];
+            earthY = new double[numLines][numPixels];
+            earthZ = new double[numLines][numPixels];
+            final PositionData posData = new PositionData();
+            final PixelPos pix = new PixelPos();
+
+            final EarthGravitationalModel96 egm = EarthGravitationalModel96.instance();
+
+            for (int l = 0; l < numLines; l++) {
+                for (int p = 0; p < numPixels; p++) {
+
+                    pix.setLocation(lonMinIdx + p, latMaxIdx + l);
+                    GeoPos gp = dem.getGeoPos(pix);
+                    lat[l][p] = gp.lat;
+                    lon[l][p] = gp.lon;
+
+                    Double alt = dem.getElevation(gp);
+                    if (alt.equals(demNoDataValue) && !maskOutAreaWithoutElevation) { // get corrected elevation for 0
+                        alt = (double)egm.getEGM(gp.lat, gp.lon);
+                    }
+
+                    if (!alt.equals(demNoDataValue)) {
+                        GeoUtils.geo2xyzWGS84(gp.lat, gp.lon, alt, posData.earthPoint);
+                        if(getPosition(subSwathIndex, mBurstIndex, mSU, posData)) {
+
+                            masterAz[l][p] = posData.azimuthIndex;
+                            masterRg[l][p] = posData.rangeIndex;
+                            earthX[l][p] = posData.earthPoint.x;
+                            earthY[l][p] = posData.earthPoint.y;
+                            earthZ[l][p] = posData.earthPoint.z;
+                            valid = true;
+                            continue;
+                        }
+                    }
+
+                    masterAz[l][p] = invalidIndex;
+                    masterRg[l][p] = invalidIndex;
+                }
+            }
+            return valid;
+        }
+
+        /**
+         * Triangulate the DEM points with a valid master position and interpolate the elevation of the tile
+         * pixels when it is needed.
+         *
+         * @return the triangulation or null if there are less than 3 valid points
+         */
+        synchronized FastDelaunayTriangulator getTriangulation() throws Exception {
+            if (triangulated) {
+                return triangulation;
+            }
+            triangulated = true;
+
+            final double rgAzRatio = mSU.rangeSpacing / mSU.azimuthSpacing;
+            triangulation = TriangleInterpolator.triangulate(masterAz, masterRg, rgAzRatio, invalidIndex);
+            if (triangulation == null || !(maskOutAreaWithoutElevation || outputDEM)) {
+                return triangulation;
+            }
+
+            // pixels not covered by any triangle keep NaN
+            final double[][] latArray = new double[h][w];
+            final double[][] lonArray = new double[h][w];
+            for (double[] data : latArray) {
+                Arrays.fill(data, Double.NaN);
+            }
+
+            final org.jlinda.core.Window tileWindow = new org.jlinda.core.Window(y0, y0 + h - 1, x0, x0 + w - 1);
+            TriangleInterpolator.ZData[] dataList = new TriangleInterpolator.ZData[] {
+                    new TriangleInterpolator.ZData(lat, latArray),
+                    new TriangleInterpolator.ZData(lon, lonArray)
+            };
+            TriangleInterpolator.interpolate(rgAzRatio, tileWindow, 1, 1, 0, invalidIndex, triangulation, dataList);
+
+            tileElevation = new double[h][w];
+            for (int yy = 0; yy < h; yy++) {
+                for (int xx = 0; xx < w; xx++) {
+                    if (!Double.isNaN(latArray[yy][xx])) {
+                        tileElevation[yy][xx] = dem.getElevation(new GeoPos(latArray[yy][xx], lonArray[yy][xx]));
+                    }
+                }
+            }
+            return triangulation;
+        }
+
+        /**
+         * Elevation of a tile pixel covered by the triangulation, available after getTriangulation().
+         */
+        double getElevation(final int xx, final int yy) {
+            return tileElevation[yy][xx];
+        }
+
+        /**
+         * @return the elevation of the tile pixels interpolated on the master triangulation, or null if no DEM
+         * point has a valid master position
+         */
+        synchronized double[][] getTileElevation() throws Exception {
+            if (!compute() || getTriangulation() == null) {
+                return null;
+            }
+            return tileElevation;
+        }
+
+        synchronized double[][] getDerampDemodPhase(final Rectangle targetRectangle) {
+            if (derampDemodPhase == null) {
+                derampDemodPhase = mSU.computeDerampDemodPhase(mSubSwath, subSwathIndex, mBurstIndex,
+                        targetRectangle);
+            }
+            return derampDemodPhase;
+        }
+
+        /**
+         * @return true for the first caller only, which then writes the master bands of the polarization
+         */
+        synchronized boolean claimMasterBands(final String polarization) {
+            return masterBandsClaimed.add(polarization);
+        }
+    }
+
     private static class PositionData {
         final PosVector earthPoint = new PosVector();
         final PosVector sensorPos = new PosVector();
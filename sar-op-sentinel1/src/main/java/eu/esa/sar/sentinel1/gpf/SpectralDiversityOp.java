@@ -19,6 +19,7 @@ package eu.esa.sar.sentinel1.gpf;
 import com.bc.ceres.core.ProgressMonitor;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DerampDemodPhasor;
 import eu.esa.sar.commons.Sentinel1Utils;
 import eu.esa.sar.sentinel1.gpf.util.ArcDataIntegration;
 import eu.esa.sar.sentinel1.gpf.util.GraphUtils;
@@ -260,6 +261,7 @@ public class SpectralDiversityOp extends Operator {
     private Sentinel1Utils.SubSwathInfo[] subSwath = null;
     private int subSwathIndex = 0;
     private double azimuthTimeInterval;
+    private final ThreadLocal<DerampDemodPhasor> derampDemodPhasor = ThreadLocal.withInitial(DerampDemodPhasor::new);
 
     private String swathIndexStr = null;
     private String[] subSwathNames = null;
@@ -2320,17 +2322,13 @@ public class SpectralDiversityOp extends Operator {
         // Perform azimuth Shift
 
         // get deramp/demodulation phase and perform deramp and demodulation
-        final double[][] derampDemodPhase = su.computeDerampDemodPhase(subSwath, subSwathIndex, burstIndex, targetRectangle);
-        final double[][] derampDemodI = new double[h][w];
-        final double[][] derampDemodQ = new double[h][w];
-        for (int r = 0; r < h; r++) {
-            for (int c = 0; c < w; c++) {
-                final double cosPhase = FastMath.cos(derampDemodPhase[r][c]);
-                final double sinPhase = FastMath.sin(derampDemodPhase[r][c]);
-                derampDemodI[r][c] = rangeShiftedI[r][c] * cosPhase - rangeShiftedQ[r][c] * sinPhase;
-                derampDemodQ[r][c] = rangeShiftedI[r][c] * sinPhase + rangeShiftedQ[r][c] * cosPhase;
-            }
-        }
+        // the phase itself is still needed below to be shifted along with the data
+        final double[][] derampDemodPhase = new double[targetRectangle.height][targetRectangle.width];
+        final DerampDemodPhasor phasor = derampDemodPhasor.get();
+        phasor.compute(subSwath, subSwathIndex, burstIndex, targetRectangle, derampDemodPhase);
+        phasor.apply(rangeShiftedI, rangeShiftedQ);
+        final double[][] derampDemodI = rangeShiftedI;
+        final double[][] derampDemodQ = rangeShiftedQ;
 
         // compute shift phase
         final double[] phaseAz = new double[2 * h];
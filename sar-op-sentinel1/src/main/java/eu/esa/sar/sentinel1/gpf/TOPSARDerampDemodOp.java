@@ -16,7 +16,7 @@
 package eu.esa.sar.sentinel1.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import org.apache.commons.math3.util.FastMath;
+import eu.esa.sar.commons.DerampDemodPhasor;
 import eu.esa.sar.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.gpf.Operator;
@@ -59,6 +59,8 @@ public final class TOPSARDerampDemodOp extends Operator {
     private int sourceImageWidth = 0;
     private int sourceImageHeight = 0;
 
+    private final ThreadLocal<DerampDemodPhasor> derampDemodPhasor = ThreadLocal.withInitial(DerampDemodPhasor::new);
+
     /**
      * Default constructor. The graph processing framework
      * requires that an operator has a default constructor.
@@ -227,11 +229,9 @@ public final class TOPSARDerampDemodOp extends Operator {
                                     final Map<Band, Tile> targetTileMap) throws Exception {
 
         final Rectangle targetRectangle = new Rectangle(x0, y0, w, h);
-        final double[][] derampDemodPhase = su.computeDerampDemodPhase(subSwath, subSwathIndex, burstIndex, targetRectangle);
-
-        if (derampDemodPhase == null) {
-            return;
-        }
+        final double[][] derampDemodPhase = outputDerampDemodPhase ? new double[h][w] : null;
+        final DerampDemodPhasor phasor = derampDemodPhasor.get();
+        phasor.compute(subSwath, subSwathIndex, burstIndex, targetRectangle, derampDemodPhase);
 
         if (outputDerampDemodPhase) {
             saveDrampDemodPhase(x0, y0, w, h, targetTileMap, derampDemodPhase);
@@ -250,14 +250,14 @@ public final class TOPSARDerampDemodOp extends Operator {
             final double[][] derampDemodI = new double[targetRectangle.height][targetRectangle.width];
             final double[][] derampDemodQ = new double[targetRectangle.height][targetRectangle.width];
 
-            performDerampDemod(tileI, tileQ, targetRectangle, derampDemodPhase, derampDemodI, derampDemodQ);
+            performDerampDemod(tileI, tileQ, targetRectangle, phasor, derampDemodI, derampDemodQ);
 
             saveTargetBands(x0, y0, w, h, targetTileMap, derampDemodI, derampDemodQ, polarization);
         }
     }
 
     private static void performDerampDemod(final Tile tileI, final Tile tileQ,
-                                           final Rectangle targetRectangle, final double[][] derampDemodPhase,
+                                           final Rectangle targetRectangle, final DerampDemodPhasor phasor,
                                            final double[][] derampDemodI, final double[][] derampDemodQ) {
 
         try {
@@ -275,15 +275,11 @@ public final class TOPSARDerampDemodOp extends Operator {
                 final int yy = y - y0;
                 for (int x = x0; x < xMax; x++) {
                     final int idx = index.getIndex(x);
-                    final int xx = x - x0;
-                    final double valueI = dataI.getElemDoubleAt(idx);
-                    final double valueQ = dataQ.getElemDoubleAt(idx);
-                    final double cosPhase = FastMath.cos(derampDemodPhase[yy][xx]);
-                    final double sinPhase = FastMath.sin(derampDemodPhase[yy][xx]);
-                    derampDemodI[yy][xx] = valueI*cosPhase - valueQ*sinPhase;
-                    derampDemodQ[yy][xx] = valueI*sinPhase + valueQ*cosPhase;
+                    derampDemodI[yy][x - x0] = dataI.getElemDoubleAt(idx);
+                    derampDemodQ[yy][x - x0] = dataQ.getElemDoubleAt(idx);
                 }
             }
+            phasor.apply(derampDemodI, derampDemodQ);
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException("performDerampDemod", e);
         }
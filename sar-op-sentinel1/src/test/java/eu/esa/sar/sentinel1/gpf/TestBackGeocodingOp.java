@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2024 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package eu.esa.sar.sentinel1.gpf;
+
+import com.bc.ceres.core.ProgressMonitor;
+import eu.esa.sar.commons.test.TestData;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.engine_utilities.util.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit test for BackGeocodingOp.
+ */
+public class TestBackGeocodingOp {
+
+    private final static File inputFile = TestData.inputS1_SLC;
+
+    @Before
+    public void setUp() {
+        // If the file does not exist: the test will be ignored
+        assumeTrue(inputFile + "not found", inputFile.exists());
+    }
+
+    static {
+        TestUtils.initTestEnvironment();
+    }
+
+    @Test
+    public void testElevationIndependentOfSlaves() throws Exception {
+        // slaves are processed in parallel, the elevation must still come from the master geometry only
+        final float[] oneSlave = readElevation(2);
+        final float[] twoSlaves = readElevation(3);
+        final float[] twoSlavesAgain = readElevation(3);
+
+        assertArrayEquals(oneSlave, twoSlaves, 0.0f);
+        assertArrayEquals(twoSlaves, twoSlavesAgain, 0.0f);
+    }
+
+    private static float[] readElevation(final int numProducts) throws Exception {
+        final Product[] sourceProducts = new Product[numProducts];
+        for (int i = 0; i < numProducts; ++i) {
+            sourceProducts[i] = createSplitProduct();
+        }
+
+        final BackGeocodingOp op = (BackGeocodingOp) new BackGeocodingOp.Spi().createOperator();
+        op.setSourceProducts(sourceProducts);
+        op.setOutputDEM(true);
+        final Product targetProduct = op.getTargetProduct();
+        TestUtils.verifyProduct(targetProduct, true, true, true);
+
+        final Band elevBand = targetProduct.getBand("elevation");
+        assertNotNull(elevBand);
+
+        final int width = targetProduct.getSceneRasterWidth();
+        final int height = 300;
+        final float[] elevation = new float[width * height];
+        elevBand.readPixels(0, 0, width, height, elevation, ProgressMonitor.NULL);
+        return elevation;
+    }
+
+    private static Product createSplitProduct() throws Exception {
+        final Product product = TestUtils.readSourceProduct(inputFile);
+
+        final Operator splitOp = new TOPSARSplitOp.Spi().createOperator();
+        splitOp.setSourceProduct(product);
+        splitOp.setParameter("subswath", "IW1");
+        splitOp.setParameter("selectedPolarisations", new String[]{"VV"});
+        splitOp.setParameter("firstBurstIndex", 4);
+        splitOp.setParameter("lastBurstIndex", 5);
+        return splitOp.getTargetProduct();
+    }
+}
@@ -17,6 +17,7 @@ package eu.esa.sar.utilities.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import eu.esa.sar.commons.FFT2D;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.gpf.Operator;
@@ -539,8 +540,8 @@ public class OversamplingOp extends Operator {
         final int overSampledSourceTileWidth = (int) (widthRatio * sourceTileWidth + 0.5);
         final int overSampledSourceTileHeight = (int) (heightRatio * sourceTileHeight + 0.5);
 
-        final double[][] tmpI = new double[overSampledSourceTileHeight][sourceTileWidth];
-        final double[][] tmpQ = new double[overSampledSourceTileHeight][sourceTileWidth];
+        // the spectrum as interleaved complex rows of sourceTileWidth samples
+        final double[] tmp = new double[2 * overSampledSourceTileHeight * sourceTileWidth];
 
         final Band srcBand = sourceProduct.getBand(targetBandName);
         final Tile srcRaster = getSourceTile(srcBand, sourceTileRectangle);
@@ -549,14 +550,11 @@ public class OversamplingOp extends Operator {
         final double[] rowArray = new double[sourceTileWidth * 2];
 
         // perform 1-D FFT on each row
-        final DoubleFFT_1D src_row_fft = new DoubleFFT_1D(sourceTileWidth);
+        final DoubleFFT_1D src_row_fft = FFT2D.getPlan(sourceTileWidth);
         for (int y = 0; y < sourceTileHeight; y++) {
             getRowData(sy0 + y, sx0, sourceTileWidth, srcData, srcRaster, rowArray);
             src_row_fft.complexForward(rowArray);
-            for (int x = 0; x < sourceTileWidth; x++) {
-                tmpI[y][x] = rowArray[2 * x];
-                tmpQ[y][x] = rowArray[2 * x + 1];
-            }
+            System.arraycopy(rowArray, 0, tmp, 2 * y * sourceTileWidth, 2 * sourceTileWidth);
         }
 
         final int d = (int) (sourceTileHeight / 2 + 0.5);
@@ -565,20 +563,20 @@ public class OversamplingOp extends Operator {
         final double[] zeroPaddedColSpec = new double[2 * overSampledSourceTileHeight];
 
         // perform 1-D FFT, zero padding and IFFT on each column
-        final DoubleFFT_1D src_col_fft = new DoubleFFT_1D(sourceTileHeight);
-        final DoubleFFT_1D tgt_col_fft = new DoubleFFT_1D(overSampledSourceTileHeight);
+        final DoubleFFT_1D src_col_fft = FFT2D.getPlan(sourceTileHeight);
+        final DoubleFFT_1D tgt_col_fft = FFT2D.getPlan(overSampledSourceTileHeight);
         for (int x = 0; x < sourceTileWidth; x++) {
-            getColData(x, sourceTileHeight, colArray, tmpI, tmpQ);
+            getColData(x, sourceTileWidth, sourceTileHeight, colArray, tmp);
             src_col_fft.complexForward(colArray);
             paddingZeros(colArray, sourceTileHeight, overSampledSourceTileHeight, d, zeroPaddedColSpec);
             tgt_col_fft.complexInverse(zeroPaddedColSpec, true);
-            saveOverSampledCol(zeroPaddedColSpec, x, overSampledSourceTileHeight, tmpI, tmpQ);
+            saveOverSampledCol(zeroPaddedColSpec, x, sourceTileWidth, overSampledSourceTileHeight, tmp);
         }
 
         final double[] tgtRow = new double[overSampledSourceTileWidth * 2];
 
         // perform 1-D IFFT on each row
-        final DoubleFFT_1D tgt_row_fft = new DoubleFFT_1D(overSampledSourceTileWidth);
+        final DoubleFFT_1D tgt_row_fft = FFT2D.getPlan(overSampledSourceTileWidth);
         int ySt = 0;
         if (overlapInfo.topOverlapped) {
             ySt = (int) (heightRatio * overlapInfo.numOfLinesOnTop);
@@ -589,7 +587,7 @@ public class OversamplingOp extends Operator {
         }
 
         for (int y = 0; y < targetTileHeight; y++) {
-            getRowData(y + ySt, sourceTileWidth, overSampledSourceTileWidth, tgtRow, tmpI, tmpQ);
+            getRowData(y + ySt, sourceTileWidth, overSampledSourceTileWidth, tgtRow, tmp);
             tgt_row_fft.complexInverse(tgtRow, true);
             saveOverSampledComplexImage(tgtRow, ty0 + y, tx0, targetTileWidth, xSt,
                     widthRatioByHeightRatio, tgtData, targetTile);
@@ -674,8 +672,8 @@ public class OversamplingOp extends Operator {
         final int overSampledSourceTileWidth = (int) (widthRatio * sourceTileWidth + 0.5);
         final int overSampledSourceTileHeight = (int) (heightRatio * sourceTileHeight + 0.5);
 
-        final double[][] tmpI = new double[overSampledSourceTileHeight][sourceTileWidth];
-        final double[][] tmpQ = new double[overSampledSourceTileHeight][sourceTileWidth];
+        // the spectrum as interleaved complex rows of sourceTileWidth samples
+        final double[] tmp = new double[2 * overSampledSourceTileHeight * sourceTileWidth];
 
         final Band iBand = sourceProduct.getBand(iBandName);
         final Band qBand = sourceProduct.getBand(qBandName);
@@ -689,14 +687,11 @@ public class OversamplingOp extends Operator {
         final double[] rowArray = new double[sourceTileWidth * 2];
 
         // perform 1-D FFT on each row
-        final DoubleFFT_1D src_row_fft = new DoubleFFT_1D(sourceTileWidth);
+        final DoubleFFT_1D src_row_fft = FFT2D.getPlan(sourceTileWidth);
         for (int y = 0; y < sourceTileHeight; y++) {
             getRowData(sy0 + y, sx0, sourceTileWidth, iSrcData, qSrcData, iRaster, rowArray);
             src_row_fft.complexForward(rowArray);
-            for (int x = 0; x < sourceTileWidth; x++) {
-                tmpI[y][x] = rowArray[2 * x];
-                tmpQ[y][x] = rowArray[2 * x + 1];
-            }
+            System.arraycopy(rowArray, 0, tmp, 2 * y * sourceTileWidth, 2 * sourceTileWidth);
         }
 
         final double[] colArray = new double[2 * sourceTileHeight];
@@ -706,10 +701,10 @@ public class OversamplingOp extends Operator {
         final double heightByPRF = sourceTileHeight / prf;
 
         // perform 1-D FFT, zero padding and IFFT on each column
-        final DoubleFFT_1D src_col_fft = new DoubleFFT_1D(sourceTileHeight);
-        final DoubleFFT_1D tgt_col_fft = new DoubleFFT_1D(overSampledSourceTileHeight);
+        final DoubleFFT_1D src_col_fft = FFT2D.getPlan(sourceTileHeight);
+        final DoubleFFT_1D tgt_col_fft = FFT2D.getPlan(overSampledSourceTileHeight);
         for (int x = 0; x < sourceTileWidth; x++) {
-            getColData(x, sourceTileHeight, colArray, tmpI, tmpQ);
+            getColData(x, sourceTileWidth, sourceTileHeight, colArray, tmp);
             src_col_fft.complexForward(colArray);
 
             final int idxFdc = (int) (dopplerCentroidFreq[sx0 + x] * heightByPRF + 0.5);
@@ -717,13 +712,13 @@ public class OversamplingOp extends Operator {
 
             paddingZeros(colArray, sourceTileHeight, overSampledSourceTileHeight, d, zeroPaddedColSpec);
             tgt_col_fft.complexInverse(zeroPaddedColSpec, true);
-            saveOverSampledCol(zeroPaddedColSpec, x, overSampledSourceTileHeight, tmpI, tmpQ);
+            saveOverSampledCol(zeroPaddedColSpec, x, sourceTileWidth, overSampledSourceTileHeight, tmp);
         }
 
         final double[] tgtRow = new double[overSampledSourceTileWidth * 2];
 
         // zero padding and perform 1-D IFFT on each row
-        final DoubleFFT_1D tgt_row_fft = new DoubleFFT_1D(overSampledSourceTileWidth);
+        final DoubleFFT_1D tgt_row_fft = FFT2D.getPlan(overSampledSourceTileWidth);
         int ySt = 0;
         if (overlapInfo.topOverlapped) {
             ySt = (int) (heightRatio * overlapInfo.numOfLinesOnTop);
@@ -734,7 +729,7 @@ public class OversamplingOp extends Operator {
         }
 
         for (int y = 0; y < targetTileHeight; y++) {
-            getRowData(y + ySt, sourceTileWidth, overSampledSourceTileWidth, tgtRow, tmpI, tmpQ);
+            getRowData(y + ySt, sourceTileWidth, overSampledSourceTileWidth, tgtRow, tmp);
             tgt_row_fft.complexInverse(tgtRow, true);
             saveOverSampledComplexImage(tgtRow, ty0 + y, tx0, targetTileWidth, xSt, widthRatioByHeightRatio,
                     iTgtData, qTgtData, iTargetTile);
@@ -767,13 +762,13 @@ public class OversamplingOp extends Operator {
         }
     }
 
-    private static void getColData(final int x, final int sourceTileHeight, final double[] array,
-                                   final double[][] tmpI, final double[][] tmpQ) {
+    private static void getColData(final int x, final int sourceTileWidth, final int sourceTileHeight,
+                                   final double[] array, final double[] tmp) {
 
         int k = 0;
-        for (int y = 0; y < sourceTileHeight; ++y) {
-            array[k++] = tmpI[y][x];
-            array[k++] = tmpQ[y][x];
+        for (int y = 0, i = 2 * x; y < sourceTileHeight; ++y, i += 2 * sourceTileWidth) {
+            array[k++] = tmp[i];
+            array[k++] = tmp[i + 1];
         }
     }
 
@@ -789,34 +784,28 @@ public class OversamplingOp extends Operator {
         System.arraycopy(colSpec, s2, array, S2, (sourceTileHeight - d) * 2);
     }
 
-    private static void saveOverSampledCol(final double[] overSampledCol, final int x, final int targetTileHeight,
-                                           final double[][] tmpI, final double[][] tmpQ) {
+    private static void saveOverSampledCol(final double[] overSampledCol, final int x, final int sourceTileWidth,
+                                           final int targetTileHeight, final double[] tmp) {
 
         int k = 0;
-        for (int y = 0; y < targetTileHeight; ++y) {
-            tmpI[y][x] = overSampledCol[k++];
-            tmpQ[y][x] = overSampledCol[k++];
+        for (int y = 0, i = 2 * x; y < targetTileHeight; ++y, i += 2 * sourceTileWidth) {
+            tmp[i] = overSampledCol[k++];
+            tmp[i + 1] = overSampledCol[k++];
         }
     }
 
     private static void getRowData(final int y, final int sourceTileWidth, final int targetTileWidth, final double[] array,
-                                   final double[][] tmpI, final double[][] tmpQ) {
+                                   final double[] tmp) {
 
         Arrays.fill(array, 0.0);
 
+        final int offset = 2 * y * sourceTileWidth;
         final int firstHalfSourceTileWidth = (int) (sourceTileWidth / 2 + 0.5);
-        int k = 0;
-        for (int x = 0; x < firstHalfSourceTileWidth; ++x) {
-            array[k++] = tmpI[y][x];
-            array[k++] = tmpQ[y][x];
-        }
+        System.arraycopy(tmp, offset, array, 0, 2 * firstHalfSourceTileWidth);
 
         final int secondHalfSourceTileWidth = sourceTileWidth - firstHalfSourceTileWidth;
-        k = 2 * (targetTileWidth - secondHalfSourceTileWidth);
-        for (int x = firstHalfSourceTileWidth; x < sourceTileWidth; ++x) {
-            array[k++] = tmpI[y][x];
-            array[k++] = tmpQ[y][x];
-        }
+        System.arraycopy(tmp, offset + 2 * firstHalfSourceTileWidth, array,
+                2 * (targetTileWidth - secondHalfSourceTileWidth), 2 * secondHalfSourceTileWidth);
     }
 
     private static void saveOverSampledComplexImage(final double[] overSampledRow, final int ty, final int tx0,